@@ -86,6 +86,7 @@ subprojects {
             exclude("com.github.ben-manes.caffeine")
         }
         implementation("org.postgresql:postgresql:42.2.19")
+        implementation("com.h2database:h2:1.4.200")
         implementation("com.zaxxer:HikariCP:4.0.3") {
             exclude("org.slf4j")
         }
@@ -162,6 +163,7 @@ subprojects {
             reloc(
                 "com.zaxxer.hikari",
                 "org.postgresql",
+                "org.h2",
                 "net.kyori.adventure.text.minimessage",
                 "org.jdbi",
                 "com.github.benmanes.caffeine",
@@ -180,6 +182,8 @@ subprojects {
             mergeServiceFiles()
             minimize {
                 exclude(dependency("com.github.ben-manes.caffeine:caffeine"))
+                // H2 loads much of itself reflectively.
+                exclude(dependency("com.h2database:h2"))
             }
         }
 
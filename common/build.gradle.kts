@@ -0,0 +1,10 @@
+plugins {
+    id("me.champeau.gradle.jmh") version "0.5.3"
+}
+
+jmh {
+    // Benchmarks are only run on demand, through `gradle :common:jmh`.
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+}
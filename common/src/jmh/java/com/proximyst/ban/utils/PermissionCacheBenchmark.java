@@ -0,0 +1,69 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.utils;
+
+import com.proximyst.ban.BanPermissions;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the bypass check done on every chat message with and without the {@link PermissionCache}.
+ * <p>
+ * The permission provider is simulated by burning CPU, to stand in for the context and inheritance resolution done by
+ * providers such as LuckPerms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PermissionCacheBenchmark {
+  @Param({"0", "64", "512"})
+  public int providerCost;
+
+  private Predicate<String> provider;
+  private PermissionCache cache;
+
+  @Setup
+  public void setup() {
+    final int cost = this.providerCost;
+    this.provider = permission -> {
+      Blackhole.consumeCPU(cost);
+      return false;
+    };
+    this.cache = new PermissionCache(this.provider);
+  }
+
+  @Benchmark
+  public boolean chatBypassUncached() {
+    return this.provider.test(BanPermissions.BYPASS_MUTE);
+  }
+
+  @Benchmark
+  public boolean chatBypassCached() {
+    return this.cache.hasPermission(BanPermissions.BYPASS_MUTE);
+  }
+}
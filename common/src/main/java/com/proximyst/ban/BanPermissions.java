@@ -35,6 +35,9 @@ public final class BanPermissions {
   public static final String COMMAND_UNWARN = BASE_COMMANDS + "unwarn";
   public static final String COMMAND_NOTE = BASE_COMMANDS + "note";
   public static final String COMMAND_LOCKDOWN = BASE_COMMANDS + "lockdown";
+  public static final String COMMAND_IMPORT = BASE_COMMANDS + "import";
+  public static final String COMMAND_EXPORT = BASE_COMMANDS + "export";
+  public static final String COMMAND_ALTS = BASE_COMMANDS + "alts";
 
   private static final String BASE_NOTIFY = BASE + "notify.";
   public static final String NOTIFY_BAN = BASE_NOTIFY + "ban";
@@ -42,6 +45,7 @@ public final class BanPermissions {
   public static final String NOTIFY_MUTE = BASE_NOTIFY + "mute";
   public static final String NOTIFY_WARN = BASE_NOTIFY + "warn";
   public static final String NOTIFY_LOCKDOWN = BASE_NOTIFY + "lockdown";
+  public static final String NOTIFY_ALTS = BASE_NOTIFY + "alts";
 
   private static final String BASE_BYPASS = BASE + "bypass.";
   public static final String BYPASS_LOCKDOWN = BASE_BYPASS + "lockdown";
@@ -49,6 +53,16 @@ public final class BanPermissions {
   public static final String BYPASS_KICK = BASE_BYPASS + "kick";
   public static final String BYPASS_MUTE = BASE_BYPASS + "mute";
 
+  /**
+   * Check whether a permission is one of the nodes defined by this plugin.
+   *
+   * @param permission The permission to check.
+   * @return Whether the permission belongs to this plugin.
+   */
+  public static boolean isBanPermission(final @NonNull String permission) {
+    return permission.startsWith(BASE);
+  }
+
   private BanPermissions() throws IllegalAccessException {
     throw new IllegalAccessException(getClass().getSimpleName() + " cannot be instantiated.");
   }
@@ -20,14 +20,30 @@ package com.proximyst.ban;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Provides;
 import com.proximyst.ban.config.ConfigUtil;
 import com.proximyst.ban.config.Configuration;
+import com.proximyst.ban.config.SqlReplicaConfig;
+import com.proximyst.ban.config.SqlStatementConfig;
+import com.proximyst.ban.config.StorageType;
+import com.proximyst.ban.data.PunishmentArchiver;
 import com.proximyst.ban.data.jdbi.BanIdentityJdbiRowMapper;
 import com.proximyst.ban.data.jdbi.PunishmentJdbiRowMapper;
+import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
+import com.proximyst.ban.inject.annotation.BanScheduler;
 import com.proximyst.ban.inject.annotation.PluginData;
+import com.proximyst.ban.inject.annotation.ReadReplica;
+import com.proximyst.ban.message.BanMessageSource;
 import com.proximyst.ban.platform.IBanServer;
+import com.proximyst.ban.service.IAltService;
 import com.proximyst.ban.service.IDataService;
+import com.proximyst.ban.service.IMessageService;
+import com.proximyst.ban.service.IPunishmentService;
+import com.proximyst.ban.service.ISuggestionService;
+import com.proximyst.ban.service.impl.ImplInMemoryDataService;
+import com.proximyst.ban.service.impl.ImplWriteBehindDataService;
+import com.proximyst.ban.utils.ThrowableUtils;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import java.io.IOException;
@@ -35,8 +51,15 @@ import java.nio.file.Path;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.text.MessageFormat;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import javax.sql.DataSource;
 import ninja.leaping.configurate.ConfigurationNode;
 import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
 import ninja.leaping.configurate.objectmapping.ObjectMappingException;
@@ -59,20 +82,28 @@ public final class BanPluginImpl {
   private final @NonNull Logger logger;
   private final @NonNull Path dataDirectory;
   private final @NonNull Injector injector;
+  private final @NonNull BanReadiness readiness;
+  private final @NonNull Executor executor;
 
   private @MonotonicNonNull Configuration configuration;
   private @MonotonicNonNull HikariDataSource hikariDataSource;
   private @MonotonicNonNull Jdbi jdbi;
+  private @MonotonicNonNull HikariDataSource replicaDataSource;
+  private @MonotonicNonNull Jdbi replicaJdbi;
 
   @Inject
   BanPluginImpl(final @NonNull IBanServer banServer,
       final @NonNull Logger logger,
       final @PluginData @NonNull Path dataDirectory,
-      final @NonNull Injector injector) {
+      final @NonNull Injector injector,
+      final @NonNull BanReadiness readiness,
+      final @NonNull @BanAsyncExecutor Executor executor) {
     this.banServer = banServer;
     this.logger = logger;
     this.dataDirectory = dataDirectory;
     this.injector = injector;
+    this.readiness = readiness;
+    this.executor = executor;
   }
 
   public boolean enable() {
@@ -106,27 +137,135 @@ public final class BanPluginImpl {
       return false;
     }
 
+    // Nothing here connects to the database yet; that is left to the storage phase.
+    if (this.configuration.storage != StorageType.MEMORY && !this.prepareSql()) {
+      return false;
+    }
+
+    // The storage and the messages do not depend on each other, so they are started in parallel.
+    final long start = System.nanoTime();
+    final CompletableFuture<@Nullable Void> storage = this.phase("storage", this::startStorage);
+    final CompletableFuture<@Nullable Void> messages = this.phase("messages", this::startMessages);
+
+    // IP bans are enforced from memory, so they must be loaded before anyone is let in.
+    final CompletableFuture<@Nullable Void> ipBans =
+        storage.thenCompose($ -> this.injector.getInstance(IPunishmentService.class).loadIpBans());
+
+    storage.thenCompose($ -> this.injector.getInstance(IAltService.class).load())
+        .exceptionally(ex -> {
+          this.logger.warn("Could not load the address links for alt detection", ex);
+          return null;
+        });
+
+    storage.thenCompose($ -> this.injector.getInstance(ISuggestionService.class).indexRecentUsers())
+        .exceptionally(ex -> {
+          this.logger.warn("Could not index recently seen users for suggestions", ex);
+          return null;
+        });
+
+    storage.thenRun(() -> this.injector.getInstance(PunishmentArchiver.class).start());
+
+    CompletableFuture.allOf(storage, messages, ipBans)
+        .whenComplete(($, ex) -> {
+          if (ex != null) {
+            this.logger.error("Could not start; players will not be able to log in", ex);
+            this.readiness.fail(ex);
+            return;
+          }
+
+          this.logger.info("Ready after {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+          this.readiness.complete();
+        });
+
+    return true;
+  }
+
+  /**
+   * Register the database driver, and create the connection pool and {@link Jdbi} instance.
+   * <p>
+   * The pool only connects once it is first used, so this does not wait on the database.
+   *
+   * @return Whether the database could be prepared.
+   */
+  private boolean prepareSql() {
+    final HikariConfig hikariConfig = new HikariConfig();
     try {
-      DriverManager.registerDriver(new org.postgresql.Driver());
+      switch (this.configuration.storage) {
+        case H2:
+          DriverManager.registerDriver(new org.h2.Driver());
+          hikariConfig.setDriverClassName(org.h2.Driver.class.getName());
+          // The PostgreSQL mode keeps the shared queries working, and lower-case names match PostgreSQL's folding.
+          hikariConfig.setJdbcUrl("jdbc:h2:file:" + this.dataDirectory.resolve("ban").toAbsolutePath()
+              + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE");
+          break;
+
+        case POSTGRESQL:
+          // Fall-through
+        default:
+          DriverManager.registerDriver(new org.postgresql.Driver());
+          this.configurePostgres(hikariConfig,
+              this.configuration.sql.hostname,
+              this.configuration.sql.port,
+              this.configuration.sql.database,
+              this.configuration.sql.username,
+              this.configuration.sql.password);
+          break;
+      }
     } catch (final SQLException ex) {
       this.logger.error("Could not register a data driver", ex);
       return false;
     }
 
-    final HikariConfig hikariConfig = new HikariConfig();
+    hikariConfig.setMaximumPoolSize(this.configuration.sql.maxConnections);
+    this.hikariDataSource = new HikariDataSource();
+    hikariConfig.copyStateTo(this.hikariDataSource);
+    this.jdbi = this.createJdbi(this.hikariDataSource);
+
+    final SqlReplicaConfig replica = this.configuration.sql.replica;
+    if (this.configuration.storage == StorageType.POSTGRESQL && replica.enabled) {
+      final HikariConfig replicaConfig = new HikariConfig();
+      this.configurePostgres(replicaConfig,
+          replica.hostname,
+          replica.port,
+          replica.database,
+          replica.username,
+          replica.password);
+      replicaConfig.setMaximumPoolSize(replica.maxConnections);
+      replicaConfig.setReadOnly(true);
+      this.replicaDataSource = new HikariDataSource();
+      replicaConfig.copyStateTo(this.replicaDataSource);
+      this.replicaJdbi = this.createJdbi(this.replicaDataSource);
+    }
+
+    return true;
+  }
+
+  private void configurePostgres(final @NonNull HikariConfig hikariConfig,
+      final @NonNull String hostname,
+      final short port,
+      final @NonNull String database,
+      final @NonNull String username,
+      final @NonNull String password) {
     hikariConfig.setDriverClassName(org.postgresql.Driver.class.getName());
     hikariConfig.setJdbcUrl(new MessageFormat("jdbc:postgresql://{0}:{1}/{2}")
         .format(new String[]{
-            this.configuration.sql.hostname,
-            String.valueOf(this.configuration.sql.port),
-            this.configuration.sql.database
+            hostname,
+            String.valueOf(port),
+            database
         }));
-    hikariConfig.setUsername(this.configuration.sql.username);
-    hikariConfig.setPassword(this.configuration.sql.password);
-    hikariConfig.setMaximumPoolSize(this.configuration.sql.maxConnections);
-    this.hikariDataSource = new HikariDataSource(hikariConfig);
-    this.jdbi = Jdbi.create(this.hikariDataSource)
-        .installPlugin(new PostgresPlugin())
+    hikariConfig.setUsername(username);
+    hikariConfig.setPassword(password);
+
+    // Every connection keeps its own prepared statements; these are passed on to the driver for each one.
+    final SqlStatementConfig statements = this.configuration.sql.statements;
+    hikariConfig.addDataSourceProperty("prepareThreshold", statements.prepareThreshold);
+    hikariConfig.addDataSourceProperty("preparedStatementCacheQueries", statements.preparedStatementCacheQueries);
+    hikariConfig.addDataSourceProperty("preparedStatementCacheSizeMiB", statements.preparedStatementCacheSizeMiB);
+    hikariConfig.addDataSourceProperty("reWriteBatchedInserts", statements.reWriteBatchedInserts);
+  }
+
+  private @NonNull Jdbi createJdbi(final @NonNull DataSource dataSource) {
+    final Jdbi jdbi = Jdbi.create(dataSource)
         .setSqlLogger(new SqlLogger() {
           @Override
           public void logException(@Nullable final StatementContext context, @NonNull final SQLException ex) {
@@ -134,28 +273,108 @@ public final class BanPluginImpl {
           }
         })
         .registerRowMapper(this.injector.getInstance(PunishmentJdbiRowMapper.class))
-        .registerRowMapper(this.injector.getInstance(BanIdentityJdbiRowMapper.class));
+        .registerRowMapper(this.injector.getInstance(BanIdentityJdbiRowMapper.class))
+        .registerArrayType(UUID.class, "uuid")
+        // None of the queries use templating, so the SQL can be passed along as-is rather than be parsed for it.
+        .setTemplateEngine((template, ctx) -> template);
+    if (this.configuration.storage == StorageType.POSTGRESQL) {
+      jdbi.installPlugin(new PostgresPlugin());
+    }
+    return jdbi;
+  }
+
+  /**
+   * Run a phase of starting up on the async executor, logging how long it took.
+   *
+   * @param name  The name of the phase.
+   * @param phase The phase to run.
+   * @return A future completed once the phase has finished.
+   */
+  private @NonNull CompletableFuture<@Nullable Void> phase(final @NonNull String name,
+      final @NonNull Callable<@Nullable Void> phase) {
+    return ThrowableUtils.supplyAsyncSneaky(() -> {
+      final long start = System.nanoTime();
+      phase.call();
+      this.logger.info("Started {} in {} ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      return null;
+    }, this.executor);
+  }
+
+  private @Nullable Void startStorage() throws Exception {
+    if (this.configuration.storage == StorageType.MEMORY) {
+      this.injector.getInstance(ImplInMemoryDataService.class).start();
+      return null;
+    }
+
+    // Migrating is also the first use of the pool, and thereby warms it up.
+    final IDataService service = this.injector.getInstance(IDataService.class);
+    final Flyway flyway = Flyway.configure(this.getClass().getClassLoader())
+        .baselineOnMigrate(true)
+        .locations("classpath:" + service.getClassPathPrefix() + "migrations")
+        .dataSource(this.hikariDataSource)
+        .load();
+    flyway.migrate();
 
+    if (this.isWriteBehind()) {
+      this.injector.getInstance(ImplWriteBehindDataService.class).start();
+    }
+    return null;
+  }
+
+  private @Nullable Void startMessages() {
     try {
-      final IDataService service = this.injector.getInstance(IDataService.class);
-      final Flyway flyway = Flyway.configure(this.getClass().getClassLoader())
-          .baselineOnMigrate(true)
-          .locations("classpath:" + service.getClassPathPrefix() + "migrations")
-          .dataSource(this.hikariDataSource)
-          .load();
-      flyway.migrate();
-    } catch (final Exception ex) {
-      this.logger.error("Could not prepare database", ex);
-      return false;
+      this.injector.getInstance(BanMessageSource.class).watch();
+    } catch (final IOException ex) {
+      this.logger.warn("Could not watch the messages for changes; they will not be reloaded", ex);
     }
 
-    return true;
+    // Creating the message service builds its proxy, which is slow enough to not want it on the first login.
+    this.injector.getInstance(IMessageService.class);
+    return null;
   }
 
   public void disable() {
+    if (this.configuration != null) {
+      this.injector.getInstance(PunishmentArchiver.class).close();
+    }
+
+    try {
+      this.injector.getInstance(BanMessageSource.class).close();
+    } catch (final IOException ex) {
+      this.logger.warn("Could not stop watching the messages", ex);
+    }
+
+    if (this.configuration != null && this.configuration.storage == StorageType.MEMORY) {
+      try {
+        this.injector.getInstance(ImplInMemoryDataService.class).close();
+      } catch (final IOException ex) {
+        this.logger.error("Could not write the in-memory data snapshot", ex);
+      }
+    }
+
+    if (this.isWriteBehind()) {
+      try {
+        this.injector.getInstance(ImplWriteBehindDataService.class).close();
+      } catch (final IOException ex) {
+        this.logger.error("Could not close the punishment write-ahead log", ex);
+      }
+    }
+
+    if (this.replicaDataSource != null) {
+      this.replicaDataSource.close();
+    }
+
     if (this.hikariDataSource != null) {
       this.hikariDataSource.close();
     }
+
+    this.injector.getInstance(Key.get(ScheduledExecutorService.class, BanScheduler.class)).shutdown();
+  }
+
+  private boolean isWriteBehind() {
+    return this.configuration != null
+        && this.configuration.storage == StorageType.POSTGRESQL
+        && this.configuration.sql.writeBehind;
   }
 
   public static final class BanPluginImplModule extends AbstractModule {
@@ -170,5 +389,14 @@ public final class BanPluginImpl {
     @NonNull Jdbi jdbi(final @NonNull BanPluginImpl banPluginImpl) {
       return banPluginImpl.jdbi;
     }
+
+    /**
+     * The {@link Jdbi} instance for read-only queries; the primary one if there is no read replica.
+     */
+    @Singleton
+    @Provides
+    @ReadReplica @NonNull Jdbi replicaJdbi(final @NonNull BanPluginImpl banPluginImpl) {
+      return banPluginImpl.replicaJdbi == null ? banPluginImpl.jdbi : banPluginImpl.replicaJdbi;
+    }
   }
 }
@@ -0,0 +1,79 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.inject.Singleton;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A latch which opens once the plugin has finished starting in the background.
+ * <p>
+ * Anything which needs the data storage to be ready, such as players logging in, should wait on this rather than
+ * the proxy waiting on the plugin's startup.
+ */
+@Singleton
+public final class BanReadiness {
+  private static final @NonNegative long READINESS_TIMEOUT_SECONDS = Long.getLong("ban.readinessTimeoutSeconds", 30);
+
+  private final @NonNull CompletableFuture<Void> ready = new CompletableFuture<>();
+
+  /**
+   * @return A future completed once the plugin is ready, or completed exceptionally if starting failed.
+   */
+  public @NonNull CompletableFuture<Void> future() {
+    return this.ready;
+  }
+
+  /**
+   * @return Whether the plugin is ready, without waiting.
+   */
+  public boolean isReady() {
+    return this.ready.isDone() && !this.ready.isCompletedExceptionally();
+  }
+
+  /**
+   * Wait for the plugin to be ready, for at most {@code ban.readinessTimeoutSeconds} seconds.
+   *
+   * @return Whether the plugin is ready; {@code false} if starting failed or took too long.
+   */
+  public boolean await() {
+    try {
+      this.ready.get(READINESS_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      return true;
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (final ExecutionException | TimeoutException ex) {
+      return false;
+    }
+  }
+
+  void complete() {
+    this.ready.complete(null);
+  }
+
+  void fail(final @NonNull Throwable cause) {
+    this.ready.completeExceptionally(cause);
+  }
+}
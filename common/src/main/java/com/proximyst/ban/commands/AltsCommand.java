@@ -0,0 +1,93 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.commands;
+
+import cloud.commandframework.CommandManager;
+import cloud.commandframework.context.CommandContext;
+import com.google.common.collect.ImmutableList;
+import com.proximyst.ban.BanPermissions;
+import com.proximyst.ban.commands.cloud.BanIdentityArgument;
+import com.proximyst.ban.commands.cloud.BaseCommand;
+import com.proximyst.ban.commands.cloud.LazyBanIdentity;
+import com.proximyst.ban.factory.IBanExceptionalFutureLoggerFactory;
+import com.proximyst.ban.factory.ICloudArgumentFactory;
+import com.proximyst.ban.model.AltAccount;
+import com.proximyst.ban.model.BanIdentity;
+import com.proximyst.ban.platform.IBanAudience;
+import com.proximyst.ban.service.IAltService;
+import com.proximyst.ban.service.IMessageService;
+import com.proximyst.ban.utils.BanExceptionalFutureLogger;
+import javax.inject.Inject;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+public final class AltsCommand extends BaseCommand {
+  private static final @Positive int MAXIMUM_HOPS = Integer.getInteger("ban.altMaxHops", 4);
+
+  private final @NonNull BanExceptionalFutureLogger<?> banExceptionalFutureLogger;
+  private final @NonNull IAltService altService;
+  private final @NonNull IMessageService messageService;
+
+  private final BanIdentityArgument<? extends BanIdentity> argTarget;
+
+  @Inject
+  AltsCommand(final @NonNull IBanExceptionalFutureLoggerFactory banExceptionalFutureLoggerFactory,
+      final @NonNull ICloudArgumentFactory cloudArgumentFactory,
+      final @NonNull IAltService altService,
+      final @NonNull IMessageService messageService) {
+    this.banExceptionalFutureLogger = banExceptionalFutureLoggerFactory.createLogger(this.getClass());
+    this.altService = altService;
+    this.messageService = messageService;
+
+    this.argTarget = cloudArgumentFactory.banIdentity("target", true, BanIdentity.class);
+  }
+
+  @Override
+  public void register(final @NonNull CommandManager<@NonNull IBanAudience> commandManager) {
+    commandManager.command(commandManager.commandBuilder("alts")
+        .permission(BanPermissions.COMMAND_ALTS)
+        .argument(this.argTarget)
+        .handler(this::execute));
+  }
+
+  private void execute(final @NonNull CommandContext<IBanAudience> ctx) {
+    final LazyBanIdentity<? extends BanIdentity> lazyTarget = ctx.get(this.argTarget);
+
+    lazyTarget.find()
+        .thenAccept(optTarget -> {
+          final BanIdentity target = optTarget.orElse(null);
+          if (target == null) {
+            this.messageService.errorUnknownIdentity(ctx.getSender(), lazyTarget.input());
+            return;
+          }
+
+          // The links are all in memory, so there is no need to go async here.
+          final ImmutableList<AltAccount> alts = this.altService.getAlts(target, MAXIMUM_HOPS);
+          this.messageService.feedbackAltsHeader(ctx.getSender(), target, alts.size());
+          for (final AltAccount alt : alts) {
+            if (alt.isBanned()) {
+              this.messageService.feedbackAltsEntryBanned(ctx.getSender(), alt.getUsername(), alt.getHops());
+            } else {
+              this.messageService.feedbackAltsEntry(ctx.getSender(), alt.getUsername(), alt.getHops());
+            }
+          }
+        })
+        .exceptionally(this.banExceptionalFutureLogger.cast());
+  }
+}
@@ -0,0 +1,70 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.commands;
+
+import cloud.commandframework.CommandManager;
+import cloud.commandframework.context.CommandContext;
+import com.proximyst.ban.BanPermissions;
+import com.proximyst.ban.commands.cloud.BaseCommand;
+import com.proximyst.ban.data.DataExporter;
+import com.proximyst.ban.factory.IBanExceptionalFutureLoggerFactory;
+import com.proximyst.ban.platform.IBanAudience;
+import com.proximyst.ban.service.IMessageService;
+import com.proximyst.ban.utils.BanExceptionalFutureLogger;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+public final class ExportCommand extends BaseCommand {
+  private final @NonNull BanExceptionalFutureLogger<?> banExceptionalFutureLogger;
+  private final @NonNull DataExporter dataExporter;
+  private final @NonNull IMessageService messageService;
+
+  @Inject
+  ExportCommand(final @NonNull IBanExceptionalFutureLoggerFactory banExceptionalFutureLoggerFactory,
+      final @NonNull DataExporter dataExporter,
+      final @NonNull IMessageService messageService) {
+    this.banExceptionalFutureLogger = banExceptionalFutureLoggerFactory.createLogger(this.getClass());
+    this.dataExporter = dataExporter;
+    this.messageService = messageService;
+  }
+
+  @Override
+  public void register(final @NonNull CommandManager<@NonNull IBanAudience> commandManager) {
+    commandManager.command(commandManager.commandBuilder("banexport")
+        .permission(BanPermissions.COMMAND_EXPORT)
+        .handler(this::execute));
+  }
+
+  private void execute(final @NonNull CommandContext<IBanAudience> ctx) {
+    this.messageService.feedbackExport(ctx.getSender());
+
+    this.dataExporter.export()
+        .thenAccept(result -> this.messageService.feedbackExportDone(ctx.getSender(),
+            result.getFile().getFileName().toString(),
+            result.getRecords(),
+            (int) TimeUnit.MILLISECONDS.toSeconds(result.getElapsedMillis())))
+        .exceptionally(ex -> {
+          final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+          this.messageService.errorExportFailed(ctx.getSender(), String.valueOf(cause.getMessage()));
+          return this.banExceptionalFutureLogger.<Void>cast().apply(cause);
+        });
+  }
+}
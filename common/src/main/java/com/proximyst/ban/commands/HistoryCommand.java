@@ -20,16 +20,22 @@ package com.proximyst.ban.commands;
 
 import cloud.commandframework.CommandManager;
 import cloud.commandframework.context.CommandContext;
+import com.google.common.collect.ImmutableList;
 import com.proximyst.ban.BanPermissions;
 import com.proximyst.ban.commands.cloud.BanIdentityArgument;
 import com.proximyst.ban.commands.cloud.BaseCommand;
+import com.proximyst.ban.commands.cloud.LazyBanIdentity;
 import com.proximyst.ban.factory.IBanExceptionalFutureLoggerFactory;
 import com.proximyst.ban.factory.ICloudArgumentFactory;
 import com.proximyst.ban.model.BanIdentity;
+import com.proximyst.ban.model.Punishment;
 import com.proximyst.ban.platform.IBanAudience;
 import com.proximyst.ban.service.IMessageService;
 import com.proximyst.ban.service.IPunishmentService;
 import com.proximyst.ban.utils.BanExceptionalFutureLogger;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
@@ -57,15 +63,42 @@ public final class HistoryCommand extends BaseCommand {
     commandManager.command(commandManager.commandBuilder("history")
         .permission(BanPermissions.COMMAND_HISTORY)
         .argument(this.argTarget)
+        .flag(commandManager.flagBuilder("archived"))
         .handler(this::execute));
   }
 
   private void execute(final @NonNull CommandContext<IBanAudience> ctx) {
-    final BanIdentity target = ctx.get(this.argTarget);
+    final LazyBanIdentity<? extends BanIdentity> lazyTarget = ctx.get(this.argTarget);
 
+    lazyTarget.find()
+        .thenAccept(optTarget -> {
+          final BanIdentity target = optTarget.orElse(null);
+          if (target == null) {
+            this.messageService.errorUnknownIdentity(ctx.getSender(), lazyTarget.input());
+            return;
+          }
+
+          this.execute(ctx, target);
+        })
+        .exceptionally(this.banExceptionalFutureLogger.cast());
+  }
+
+  private void execute(final @NonNull CommandContext<IBanAudience> ctx, final @NonNull BanIdentity target) {
     this.messageService.feedbackHistory(ctx.getSender(), target);
 
-    this.punishmentService.getPunishments(target)
+    final CompletableFuture<ImmutableList<Punishment>> future;
+    if (ctx.flags().isPresent("archived")) {
+      final CompletableFuture<ImmutableList<Punishment>> archived =
+          this.punishmentService.getArchivedPunishments(target);
+      future = this.punishmentService.getPunishments(target)
+          .thenCombine(archived, (hot, old) -> Stream.concat(old.stream(), hot.stream())
+              .sorted(Comparator.comparingLong(Punishment::getTime))
+              .collect(ImmutableList.toImmutableList()));
+    } else {
+      future = this.punishmentService.getPunishments(target);
+    }
+
+    future
         .thenAccept(punishments -> {
           this.messageService.feedbackHistoryHeader(ctx.getSender(), target, punishments.size());
           punishments.forEach(punishment -> this.messageService.feedbackHistoryEntry(ctx.getSender(), punishment));
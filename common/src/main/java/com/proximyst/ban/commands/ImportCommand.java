@@ -0,0 +1,83 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.commands;
+
+import cloud.commandframework.CommandManager;
+import cloud.commandframework.arguments.CommandArgument;
+import cloud.commandframework.arguments.standard.StringArgument;
+import cloud.commandframework.context.CommandContext;
+import com.proximyst.ban.BanPermissions;
+import com.proximyst.ban.commands.cloud.BaseCommand;
+import com.proximyst.ban.data.PunishmentImporter;
+import com.proximyst.ban.data.PunishmentImporter.Progress;
+import com.proximyst.ban.factory.IBanExceptionalFutureLoggerFactory;
+import com.proximyst.ban.platform.IBanAudience;
+import com.proximyst.ban.service.IMessageService;
+import com.proximyst.ban.utils.BanExceptionalFutureLogger;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+public final class ImportCommand extends BaseCommand {
+  private final @NonNull BanExceptionalFutureLogger<?> banExceptionalFutureLogger;
+  private final @NonNull PunishmentImporter punishmentImporter;
+  private final @NonNull IMessageService messageService;
+
+  private final CommandArgument<IBanAudience, String> argFile;
+
+  @Inject
+  ImportCommand(final @NonNull IBanExceptionalFutureLoggerFactory banExceptionalFutureLoggerFactory,
+      final @NonNull PunishmentImporter punishmentImporter,
+      final @NonNull IMessageService messageService) {
+    this.banExceptionalFutureLogger = banExceptionalFutureLoggerFactory.createLogger(this.getClass());
+    this.punishmentImporter = punishmentImporter;
+    this.messageService = messageService;
+
+    this.argFile = StringArgument.of("file");
+  }
+
+  @Override
+  public void register(final @NonNull CommandManager<@NonNull IBanAudience> commandManager) {
+    commandManager.command(commandManager.commandBuilder("banimport")
+        .permission(BanPermissions.COMMAND_IMPORT)
+        .argument(this.argFile)
+        .handler(this::execute));
+  }
+
+  private void execute(final @NonNull CommandContext<IBanAudience> ctx) {
+    final String file = ctx.get(this.argFile);
+
+    this.messageService.feedbackImport(ctx.getSender(), file);
+
+    this.punishmentImporter.importFile(file, progress -> this.messageService.feedbackImportProgress(ctx.getSender(),
+        progress.getImported(), progress.getSkipped(), progress.recordsPerSecond()))
+        .thenAccept(progress -> this.done(ctx, progress))
+        .exceptionally(ex -> {
+          final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+          this.messageService.errorImportFailed(ctx.getSender(), file, String.valueOf(cause.getMessage()));
+          return this.banExceptionalFutureLogger.<Void>cast().apply(cause);
+        });
+  }
+
+  private void done(final @NonNull CommandContext<IBanAudience> ctx, final @NonNull Progress progress) {
+    this.messageService.feedbackImportDone(ctx.getSender(), progress.getImported(), progress.getSkipped(),
+        (int) TimeUnit.MILLISECONDS.toSeconds(progress.elapsedMillis()));
+  }
+}
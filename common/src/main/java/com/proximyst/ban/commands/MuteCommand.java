@@ -28,6 +28,7 @@ import com.proximyst.ban.BanPermissions;
 import com.proximyst.ban.IdentityMustExistException;
 import com.proximyst.ban.commands.cloud.BanIdentityArgument;
 import com.proximyst.ban.commands.cloud.BaseCommand;
+import com.proximyst.ban.commands.cloud.LazyBanIdentity;
 import com.proximyst.ban.factory.IBanExceptionalFutureLoggerFactory;
 import com.proximyst.ban.factory.ICloudArgumentFactory;
 import com.proximyst.ban.model.BanIdentity;
@@ -79,7 +80,22 @@ public final class MuteCommand extends BaseCommand {
   }
 
   private void execute(final @NonNull CommandContext<IBanAudience> ctx) {
-    final BanIdentity target = ctx.get(this.argTarget);
+    final LazyBanIdentity<? extends BanIdentity> lazyTarget = ctx.get(this.argTarget);
+
+    lazyTarget.findOrCreate()
+        .thenAccept(optTarget -> {
+          final BanIdentity target = optTarget.orElse(null);
+          if (target == null) {
+            this.messageService.errorUnknownIdentity(ctx.getSender(), lazyTarget.input());
+            return;
+          }
+
+          this.execute(ctx, target);
+        })
+        .exceptionally(this.banExceptionalFutureLogger.cast());
+  }
+
+  private void execute(final @NonNull CommandContext<IBanAudience> ctx, final @NonNull BanIdentity target) {
     final @Nullable String reason = ctx.getOrDefault(this.argReason, null);
 
     this.messageService.feedbackMute(ctx.getSender(), target);
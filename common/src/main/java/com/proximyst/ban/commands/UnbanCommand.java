@@ -23,6 +23,7 @@ import cloud.commandframework.context.CommandContext;
 import com.proximyst.ban.BanPermissions;
 import com.proximyst.ban.commands.cloud.BanIdentityArgument;
 import com.proximyst.ban.commands.cloud.BaseCommand;
+import com.proximyst.ban.commands.cloud.LazyBanIdentity;
 import com.proximyst.ban.factory.IBanExceptionalFutureLoggerFactory;
 import com.proximyst.ban.factory.ICloudArgumentFactory;
 import com.proximyst.ban.model.BanIdentity;
@@ -66,8 +67,22 @@ public final class UnbanCommand extends BaseCommand {
   }
 
   private void execute(final @NonNull CommandContext<IBanAudience> ctx) {
-    final BanIdentity target = ctx.get(this.argTarget);
+    final LazyBanIdentity<? extends BanIdentity> lazyTarget = ctx.get(this.argTarget);
 
+    lazyTarget.find()
+        .thenAccept(optTarget -> {
+          final BanIdentity target = optTarget.orElse(null);
+          if (target == null) {
+            this.messageService.errorUnknownIdentity(ctx.getSender(), lazyTarget.input());
+            return;
+          }
+
+          this.execute(ctx, target);
+        })
+        .exceptionally(this.banExceptionalFutureLogger.cast());
+  }
+
+  private void execute(final @NonNull CommandContext<IBanAudience> ctx, final @NonNull BanIdentity target) {
     this.messageService.feedbackUnban(ctx.getSender(), target);
 
     this.punishmentService.getActiveBan(target)
@@ -22,53 +22,68 @@ import cloud.commandframework.arguments.CommandArgument;
 import cloud.commandframework.arguments.parser.ArgumentParseResult;
 import cloud.commandframework.arguments.parser.ArgumentParser;
 import cloud.commandframework.context.CommandContext;
-import com.google.common.collect.ImmutableList;
 import com.google.common.net.InetAddresses;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
+import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
 import com.proximyst.ban.model.BanIdentity;
 import com.proximyst.ban.model.BanIdentity.IpIdentity;
 import com.proximyst.ban.model.BanIdentity.UuidIdentity;
 import com.proximyst.ban.platform.IBanAudience;
 import com.proximyst.ban.platform.IBanServer;
 import com.proximyst.ban.service.IDataService;
+import com.proximyst.ban.service.ISuggestionService;
 import com.proximyst.ban.service.IUserService;
+import io.leangen.geantyref.TypeFactory;
+import io.leangen.geantyref.TypeToken;
 import java.net.InetAddress;
 import java.util.List;
-import java.util.Locale;
 import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.common.returnsreceiver.qual.This;
 
 public final class BanIdentityArgument<I extends BanIdentity> extends
-    CommandArgument<@NonNull IBanAudience, @NonNull I> {
+    CommandArgument<@NonNull IBanAudience, @NonNull LazyBanIdentity<I>> {
   @AssistedInject
   BanIdentityArgument(final @NonNull IUserService userService,
       final @NonNull IBanServer banServer,
       final @NonNull IDataService dataService,
+      final @NonNull ISuggestionService suggestionService,
+      final @NonNull @BanAsyncExecutor Executor executor,
       final @Assisted("required") boolean required,
       final @Assisted("name") @NonNull String name,
       final @Assisted("online") boolean online,
       final @Assisted("type") @NonNull Class<I> type) {
     super(required,
         name,
-        new BanIdentityParser<>(type, userService, banServer, dataService, online),
-        type);
+        new BanIdentityParser<>(type, userService, banServer, dataService, suggestionService, executor, online),
+        "",
+        valueType(type),
+        null);
   }
 
   @AssistedInject
   BanIdentityArgument(final @NonNull IUserService userService,
       final @NonNull IBanServer banServer,
       final @NonNull IDataService dataService,
+      final @NonNull ISuggestionService suggestionService,
+      final @NonNull @BanAsyncExecutor Executor executor,
       final @Assisted("required") boolean required,
       final @Assisted("name") @NonNull String name,
       final @Assisted("type") @NonNull Class<I> type) {
-    this(userService, banServer, dataService, required, name, false, type);
+    this(userService, banServer, dataService, suggestionService, executor, required, name, false, type);
+  }
+
+  @SuppressWarnings("unchecked") // The type is constructed from the very same type parameter.
+  private static <I extends BanIdentity> @NonNull TypeToken<@NonNull LazyBanIdentity<I>> valueType(
+      final @NonNull Class<I> type) {
+    return (TypeToken<LazyBanIdentity<I>>) TypeToken.get(TypeFactory.parameterizedClass(LazyBanIdentity.class, type));
   }
 
   public static final class BanIdentityParser<I extends BanIdentity>
-      implements ArgumentParser<@NonNull IBanAudience, @NonNull I> {
+      implements ArgumentParser<@NonNull IBanAudience, @NonNull LazyBanIdentity<I>> {
     private static final @NonNull Throwable SUGGESTIONS_FAILURE = new Throwable("suggestions shall not be parsed");
     private static final @NonNull Throwable EXPECTED_ANY = new InvalidPlayerIdentifierException("Expected identity");
     private static final @NonNull Throwable EXPECTED_ONLINE = new InvalidPlayerIdentifierException(
@@ -80,22 +95,29 @@ public final class BanIdentityArgument<I extends BanIdentity> extends
     private final @NonNull IUserService userService;
     private final @NonNull IBanServer banServer;
     private final @NonNull IDataService dataService;
+    private final @NonNull ISuggestionService suggestionService;
+    private final @NonNull Executor executor;
     private final boolean online;
 
     private BanIdentityParser(final @NonNull Class<I> type,
         final @NonNull IUserService userService,
         final @NonNull IBanServer banServer,
         final @NonNull IDataService dataService,
+        final @NonNull ISuggestionService suggestionService,
+        final @NonNull Executor executor,
         final boolean online) {
       this.type = type;
       this.userService = userService;
       this.banServer = banServer;
       this.dataService = dataService;
+      this.suggestionService = suggestionService;
+      this.executor = executor;
       this.online = online;
     }
 
     @Override
-    public @NonNull ArgumentParseResult<I> parse(final @NonNull CommandContext<IBanAudience> commandContext,
+    public @NonNull ArgumentParseResult<@NonNull LazyBanIdentity<I>> parse(
+        final @NonNull CommandContext<IBanAudience> commandContext,
         final @NonNull Queue<String> inputQueue) {
       if (commandContext.isSuggestions()) {
         // The result here is irrelevant, as long as it's present.
@@ -136,14 +158,8 @@ public final class BanIdentityArgument<I extends BanIdentity> extends
           return ArgumentParseResult.failure(EXPECTED_ONLINE);
         }
 
-        return this.userService.getUser(uuid)
-            .join() // We want the exceptions.
-            .map(identity -> {
-              inputQueue.remove();
-              return ArgumentParseResult.success(this.type.cast(identity));
-            })
-            .orElseGet(() -> ArgumentParseResult.failure(
-                new InvalidPlayerIdentifierException("Invalid UUID '" + input + "'")));
+        inputQueue.remove();
+        return ArgumentParseResult.success(LazyBanIdentity.ofUuid(input, this.type, uuid, this.userService));
       }
 
       if (!this.type.isAssignableFrom(IpIdentity.class)
@@ -168,10 +184,10 @@ public final class BanIdentityArgument<I extends BanIdentity> extends
           return ArgumentParseResult.failure(new InvalidPlayerIdentifierException("Invalid IP '" + input + "'"));
         }
 
-        final IpIdentity identity = this.dataService.createIdentity(address);
+        // The identity is only created once something is actually saved on it.
         inputQueue.remove();
-
-        return ArgumentParseResult.success(this.type.cast(identity));
+        return ArgumentParseResult.success(
+            LazyBanIdentity.ofAddress(input, this.type, address, this.dataService, this.executor));
       } else {
         // This is a username.
         if (!this.type.isAssignableFrom(UuidIdentity.class)) {
@@ -183,30 +199,18 @@ public final class BanIdentityArgument<I extends BanIdentity> extends
           return ArgumentParseResult.failure(EXPECTED_ONLINE);
         }
 
-        return this.userService.getUser(input)
-            .join() // We want the exception
-            .map(identity -> {
-              inputQueue.remove();
-              return ArgumentParseResult.success(this.type.cast(identity));
-            })
-            .orElseGet(() -> ArgumentParseResult.failure(
-                new InvalidPlayerIdentifierException("Invalid username '" + input + "'")));
+        inputQueue.remove();
+        return ArgumentParseResult.success(LazyBanIdentity.ofUsername(input, this.type, this.userService));
       }
     }
 
     @Override
     public @NonNull List<String> suggestions(final @NonNull CommandContext<IBanAudience> commandContext,
         final @NonNull String input) {
-      final String lowercaseInput = input.toLowerCase(Locale.ENGLISH).trim();
-      final ImmutableList.Builder<String> builder = ImmutableList.builder();
-
-      for (final IBanAudience player : this.banServer.onlineAudiences()) {
-        if (lowercaseInput.isEmpty() || player.username().toLowerCase(Locale.ENGLISH).startsWith(lowercaseInput)) {
-          builder.add(player.username());
-        }
-      }
-
-      return builder.build();
+      // Offline players would only be rejected once parsed.
+      return this.online
+          ? this.suggestionService.suggestOnlineUsernames(input)
+          : this.suggestionService.suggestUsernames(input);
     }
 
     @Override
@@ -0,0 +1,128 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.commands.cloud;
+
+import com.proximyst.ban.model.BanIdentity;
+import com.proximyst.ban.model.BanIdentity.IpIdentity;
+import com.proximyst.ban.model.BanIdentity.UuidIdentity;
+import com.proximyst.ban.service.IDataService;
+import com.proximyst.ban.service.IUserService;
+import java.net.InetAddress;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A {@link BanIdentity} parsed from a command argument, which has yet to be resolved.
+ * <p>
+ * Parsing only validates the input; resolving it may require the data storage or the Mojang API, and is therefore left
+ * to the command handler to do asynchronously.
+ *
+ * @param <I> The type of identity this resolves to.
+ */
+public abstract class LazyBanIdentity<I extends BanIdentity> {
+  private final @NonNull String input;
+  private final @NonNull Class<I> type;
+
+  private LazyBanIdentity(final @NonNull String input,
+      final @NonNull Class<I> type) {
+    this.input = input;
+    this.type = type;
+  }
+
+  static <I extends BanIdentity> @NonNull LazyBanIdentity<I> ofUuid(final @NonNull String input,
+      final @NonNull Class<I> type,
+      final @NonNull UUID uuid,
+      final @NonNull IUserService userService) {
+    return new LazyBanIdentity<>(input, type) {
+      @Override
+      protected @NonNull CompletableFuture<@NonNull Optional<? extends @NonNull BanIdentity>> resolve(
+          final boolean create) {
+        return userService.getUser(uuid).thenApply(opt -> opt);
+      }
+    };
+  }
+
+  static <I extends BanIdentity> @NonNull LazyBanIdentity<I> ofUsername(final @NonNull String input,
+      final @NonNull Class<I> type,
+      final @NonNull IUserService userService) {
+    return new LazyBanIdentity<>(input, type) {
+      @Override
+      protected @NonNull CompletableFuture<@NonNull Optional<? extends @NonNull BanIdentity>> resolve(
+          final boolean create) {
+        return userService.getUser(input).thenApply(opt -> opt);
+      }
+    };
+  }
+
+  static <I extends BanIdentity> @NonNull LazyBanIdentity<I> ofAddress(final @NonNull String input,
+      final @NonNull Class<I> type,
+      final @NonNull InetAddress address,
+      final @NonNull IDataService dataService,
+      final @NonNull Executor executor) {
+    return new LazyBanIdentity<>(input, type) {
+      @Override
+      protected @NonNull CompletableFuture<@NonNull Optional<? extends @NonNull BanIdentity>> resolve(
+          final boolean create) {
+        return CompletableFuture.supplyAsync(() -> {
+          final Optional<IpIdentity> existing = dataService.getIpIdentity(address);
+          if (existing.isPresent() || !create) {
+            return existing;
+          }
+
+          return Optional.of(dataService.createIdentity(address));
+        }, executor);
+      }
+    };
+  }
+
+  /**
+   * @return The raw input this identity was parsed from.
+   */
+  public @NonNull String input() {
+    return this.input;
+  }
+
+  /**
+   * Find the identity without creating any new identities for IP addresses.
+   * <p>
+   * {@link UuidIdentity UUID identities} may still be fetched from the Mojang API if they are not yet known.
+   *
+   * @return The identity, if one exists.
+   */
+  public @NonNull CompletableFuture<@NonNull Optional<@NonNull I>> find() {
+    return this.resolve(false).thenApply(opt -> opt.map(this.type::cast));
+  }
+
+  /**
+   * Find the identity, creating it if it is an IP address not yet known.
+   * <p>
+   * This should only be used right before saving a punishment on the identity.
+   *
+   * @return The identity, if one exists or could be created.
+   */
+  public @NonNull CompletableFuture<@NonNull Optional<@NonNull I>> findOrCreate() {
+    return this.resolve(true).thenApply(opt -> opt.map(this.type::cast));
+  }
+
+  protected abstract @NonNull CompletableFuture<@NonNull Optional<? extends @NonNull BanIdentity>> resolve(
+      final boolean create);
+}
@@ -0,0 +1,37 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.config;
+
+import ninja.leaping.configurate.objectmapping.Setting;
+import ninja.leaping.configurate.objectmapping.serialize.ConfigSerializable;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+@SuppressWarnings("FieldMayBeFinal")
+@ConfigSerializable
+@NonNull
+public final class ArchivalConfig {
+  @Setting(comment = "Whether to move old punishments into the archive.\n"
+      + "Bans are never archived, nor are mutes which still apply.\n"
+      + "Archived punishments are shown by history --archived.")
+  public boolean enabled = false;
+
+  @Setting(comment = "How many days old a punishment must be to be archived.")
+  public @Positive int horizonDays = 365;
+}
@@ -26,6 +26,14 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 @ConfigSerializable
 @NonNull
 public final class Configuration {
-  @Setting
+  @Setting(comment = "The storage to use. One of: POSTGRESQL, H2, MEMORY.\n"
+      + "H2 is an embedded database in the plugin's data directory, and does not support multiple proxies.\n"
+      + "MEMORY keeps everything in memory with periodic snapshots, and loses recent changes on crashes.")
+  public StorageType storage = StorageType.POSTGRESQL;
+
+  @Setting(comment = "The PostgreSQL server to use, if the storage is POSTGRESQL.")
   public SqlConfig sql = new SqlConfig();
+
+  @Setting(comment = "The archival of old punishments, to keep the punishments which are looked up often small.")
+  public ArchivalConfig archival = new ArchivalConfig();
 }
@@ -44,4 +44,17 @@ public final class SqlConfig {
 
   @Setting(comment = "The max connections to have open in the pool.")
   public @Positive int maxConnections = 10;
+
+  @Setting(comment = "A read replica of the database, to take read-only queries off the primary server.\n"
+      + "Data written by this proxy is still read from the primary until the replica has likely caught up.")
+  public SqlReplicaConfig replica = new SqlReplicaConfig();
+
+  @Setting(comment = "How statements are prepared and cached by the PostgreSQL driver.")
+  public SqlStatementConfig statements = new SqlStatementConfig();
+
+  @Setting(comment = "Whether to apply punishments immediately, and write them to the database in the background.\n"
+      + "Unwritten punishments are kept in a write-ahead log in the plugin's data directory, so they survive crashes.\n"
+      + "Punishments the database keeps rejecting are set aside in punishments.rejected in the same directory.\n"
+      + "This is only used with the POSTGRESQL storage.")
+  public boolean writeBehind = false;
 }
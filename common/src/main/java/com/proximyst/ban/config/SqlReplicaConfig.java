@@ -0,0 +1,50 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.config;
+
+import ninja.leaping.configurate.objectmapping.Setting;
+import ninja.leaping.configurate.objectmapping.serialize.ConfigSerializable;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+@SuppressWarnings("FieldMayBeFinal")
+@ConfigSerializable
+@NonNull
+public final class SqlReplicaConfig {
+  @Setting(comment = "Whether to send read-only queries to a read replica rather than the primary server.")
+  public boolean enabled = false;
+
+  @Setting(comment = "The hostname of the read replica.")
+  public String hostname = "localhost";
+
+  @Setting(comment = "The port of the read replica.")
+  public short port = 5432;
+
+  @Setting(comment = "The database name on the read replica.")
+  public String database = "ban";
+
+  @Setting(comment = "The username for the read replica.")
+  public String username = "root";
+
+  @Setting(comment = "The password to use for the read replica.")
+  public String password = "";
+
+  @Setting(comment = "The max connections to have open in the read replica's pool.")
+  public @Positive int maxConnections = 10;
+}
@@ -0,0 +1,42 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.config;
+
+import ninja.leaping.configurate.objectmapping.Setting;
+import ninja.leaping.configurate.objectmapping.serialize.ConfigSerializable;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+@SuppressWarnings("FieldMayBeFinal")
+@ConfigSerializable
+@NonNull
+public final class SqlStatementConfig {
+  @Setting(comment = "How many times a statement is executed before the server prepares it as a reusable plan.\n"
+      + "0 disables server-side prepared statements. The queries run on every login are prepared right away.")
+  public @NonNegative int prepareThreshold = 5;
+
+  @Setting(comment = "How many prepared statements each connection keeps cached.")
+  public @NonNegative int preparedStatementCacheQueries = 256;
+
+  @Setting(comment = "How many megabytes of prepared statements each connection keeps cached.")
+  public @NonNegative int preparedStatementCacheSizeMiB = 5;
+
+  @Setting(comment = "Whether batched inserts are rewritten into multi-row inserts.")
+  public boolean reWriteBatchedInserts = true;
+}
@@ -0,0 +1,43 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.config;
+
+/**
+ * The kind of storage backing the plugin's data.
+ */
+public enum StorageType {
+  /**
+   * A PostgreSQL server, configured in the {@code sql} section.
+   */
+  POSTGRESQL,
+
+  /**
+   * An embedded H2 database stored in the plugin's data directory.
+   * <p>
+   * This needs no external services, but only one proxy can use the data at a time.
+   */
+  H2,
+
+  /**
+   * All data kept in memory, with periodic snapshots to the plugin's data directory.
+   * <p>
+   * This is the fastest storage, but any changes since the latest snapshot are lost if the proxy crashes.
+   */
+  MEMORY,
+}
@@ -0,0 +1,242 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.data;
+
+import com.google.common.net.InetAddresses;
+import com.google.gson.stream.JsonWriter;
+import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
+import com.proximyst.ban.inject.annotation.PluginData;
+import com.proximyst.ban.model.BanIdentity;
+import com.proximyst.ban.model.BanIdentity.ConsoleIdentity;
+import com.proximyst.ban.model.BanIdentity.IpIdentity;
+import com.proximyst.ban.model.BanIdentity.UuidIdentity;
+import com.proximyst.ban.model.Punishment;
+import com.proximyst.ban.service.IDataService;
+import com.proximyst.ban.service.IDataService.ExportSink;
+import com.proximyst.ban.utils.ThrowableUtils;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.slf4j.Logger;
+
+/**
+ * Exports all users, IP addresses, and punishments to a file in the {@code exports} directory in the plugin's data
+ * directory.
+ * <p>
+ * Exports are gzipped JSON, with one object per line. The first object names the format and its version, and every
+ * following object has a {@code kind} of {@code user}, {@code address}, or {@code punishment}; punishments use the
+ * fields read by the {@link PunishmentImporter}, which can restore an export as-is.
+ */
+@Singleton
+public final class DataExporter {
+  static final @NonNull String EXPORT_FORMAT = "ban-export";
+  static final int EXPORT_VERSION = 1;
+
+  private static final @NonNull DateTimeFormatter FILE_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+      .withZone(ZoneOffset.UTC);
+
+  private final @NonNull IDataService dataService;
+  private final @NonNull Executor executor;
+  private final @NonNull Logger logger;
+  private final @NonNull Path exportDirectory;
+
+  @Inject
+  DataExporter(final @NonNull IDataService dataService,
+      final @NonNull @BanAsyncExecutor Executor executor,
+      final @NonNull Logger logger,
+      final @NonNull @PluginData Path dataDirectory) {
+    this.dataService = dataService;
+    this.executor = executor;
+    this.logger = logger;
+    this.exportDirectory = dataDirectory.resolve("exports");
+  }
+
+  /**
+   * @return The directory exports are written to.
+   */
+  public @NonNull Path getExportDirectory() {
+    return this.exportDirectory;
+  }
+
+  /**
+   * Export everything to a new file.
+   *
+   * @return The result of the export.
+   */
+  public @NonNull CompletableFuture<@NonNull Result> export() {
+    return ThrowableUtils.supplyAsyncSneaky(this::run, this.executor);
+  }
+
+  private synchronized @NonNull Result run() throws IOException {
+    final long start = System.nanoTime();
+    Files.createDirectories(this.exportDirectory);
+    final Path file = this.exportDirectory.resolve(
+        "ban-export-" + FILE_NAME_FORMATTER.format(Instant.now()) + ".json.gz");
+    final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+    final JsonLinesSink sink;
+    try (final Writer writer = new OutputStreamWriter(new GZIPOutputStream(new BufferedOutputStream(
+        Files.newOutputStream(temporary))), StandardCharsets.UTF_8)) {
+      sink = new JsonLinesSink(writer);
+      sink.header();
+      this.dataService.exportData(sink);
+    } catch (final IOException | RuntimeException ex) {
+      Files.deleteIfExists(temporary);
+      throw ex;
+    }
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    final Result result = new Result(file, sink.records, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    this.logger.info("Exported {} records to {} in {} ms", result.records, file, result.elapsedMillis);
+    return result;
+  }
+
+  /**
+   * The result of an export.
+   */
+  public static final class Result {
+    private final @NonNull Path file;
+    private final @NonNegative int records;
+    private final @NonNegative long elapsedMillis;
+
+    private Result(final @NonNull Path file, final @NonNegative int records, final @NonNegative long elapsedMillis) {
+      this.file = file;
+      this.records = records;
+      this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return The file the export was written to.
+     */
+    public @NonNull Path getFile() {
+      return this.file;
+    }
+
+    /**
+     * @return The amount of records exported.
+     */
+    public @NonNegative int getRecords() {
+      return this.records;
+    }
+
+    /**
+     * @return How long the export took, in milliseconds.
+     */
+    public @NonNegative long getElapsedMillis() {
+      return this.elapsedMillis;
+    }
+  }
+
+  private static final class JsonLinesSink implements ExportSink {
+    private final @NonNull Writer writer;
+    private final @NonNull JsonWriter json;
+    private @NonNegative int records;
+
+    private JsonLinesSink(final @NonNull Writer writer) {
+      this.writer = writer;
+      this.json = new JsonWriter(writer);
+      // Allows the objects to follow one another.
+      this.json.setLenient(true);
+      this.json.setSerializeNulls(false);
+    }
+
+    private void header() throws IOException {
+      this.json.beginObject()
+          .name("format").value(EXPORT_FORMAT)
+          .name("version").value(EXPORT_VERSION)
+          .name("created").value(System.currentTimeMillis())
+          .endObject();
+      this.writer.write('\n');
+    }
+
+    @Override
+    public void user(final @NonNull UUID uuid, final @NonNull String username) throws IOException {
+      this.json.beginObject()
+          .name("kind").value("user")
+          .name("uuid").value(uuid.toString())
+          .name("username").value(username)
+          .endObject();
+      this.endRecord();
+    }
+
+    @Override
+    public void address(final @NonNull InetAddress address, final @NonNull UUID uuid) throws IOException {
+      this.json.beginObject()
+          .name("kind").value("address")
+          .name("address").value(InetAddresses.toAddrString(address))
+          .name("uuid").value(uuid.toString())
+          .endObject();
+      this.endRecord();
+    }
+
+    @Override
+    public void punishment(final @NonNull Punishment punishment, final boolean archived) throws IOException {
+      this.json.beginObject()
+          .name("kind").value("punishment")
+          .name("type").value(punishment.getPunishmentType().name());
+      this.identity("target", punishment.getTarget());
+      if (!(punishment.getPunisher() instanceof ConsoleIdentity)) {
+        this.identity("punisher", punishment.getPunisher());
+      }
+      this.json.name("reason").value(punishment.getReason().orElse(null))
+          .name("lifted").value(punishment.isLifted())
+          .name("lifted_by").value(punishment.getLiftedBy().map(UUID::toString).orElse(null))
+          .name("time").value(punishment.getTime());
+      if (!punishment.isPermanent()) {
+        this.json.name("expires").value(punishment.getExpiration());
+      }
+      this.json.name("archived").value(archived)
+          .endObject();
+      this.endRecord();
+    }
+
+    private void identity(final @NonNull String name, final @NonNull BanIdentity identity) throws IOException {
+      if (identity instanceof IpIdentity) {
+        this.json.name(name).value(InetAddresses.toAddrString(((IpIdentity) identity).address()));
+      } else if (identity instanceof UuidIdentity) {
+        final UuidIdentity uuidIdentity = (UuidIdentity) identity;
+        this.json.name(name).value(uuidIdentity.uuid().toString())
+            .name(name + "_name").value(uuidIdentity.username());
+      }
+    }
+
+    private void endRecord() throws IOException {
+      this.writer.write('\n');
+      ++this.records;
+    }
+  }
+}
@@ -0,0 +1,132 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.data;
+
+import com.proximyst.ban.config.Configuration;
+import com.proximyst.ban.config.StorageType;
+import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
+import com.proximyst.ban.inject.annotation.BanScheduler;
+import com.proximyst.ban.service.IDataService;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * Periodically makes sure the punishments table has a partition for the current and the next year, and moves old
+ * punishments out of the punishments table and into the archive if archival is enabled.
+ * <p>
+ * Partitions are maintained regardless of archival, as punishments without a partition for their year all end up in
+ * the default partition. Punishments are archived in small batches, each in their own transaction, to keep locks
+ * short.
+ */
+@Singleton
+public final class PunishmentArchiver implements AutoCloseable {
+  private static final @Positive long ARCHIVAL_INTERVAL_MINUTES = Long.getLong("ban.archivalIntervalMinutes", 60);
+  private static final @Positive int ARCHIVAL_BATCH_SIZE = Integer.getInteger("ban.archivalBatchSize", 500);
+
+  private final @NonNull IDataService dataService;
+  private final @NonNull Configuration configuration;
+  private final @NonNull ScheduledExecutorService scheduler;
+  private final @NonNull Executor executor;
+  private final @NonNull Logger logger;
+
+  private @Nullable ScheduledFuture<?> task;
+
+  @Inject
+  PunishmentArchiver(final @NonNull IDataService dataService,
+      final @NonNull Configuration configuration,
+      final @NonNull @BanScheduler ScheduledExecutorService scheduler,
+      final @NonNull @BanAsyncExecutor Executor executor,
+      final @NonNull Logger logger) {
+    this.dataService = dataService;
+    this.configuration = configuration;
+    this.scheduler = scheduler;
+    this.executor = executor;
+    this.logger = logger;
+  }
+
+  /**
+   * Start maintaining partitions and archiving periodically, beginning immediately.
+   * <p>
+   * This does nothing if the storage is not partitioned and archival is disabled.
+   */
+  public synchronized void start() {
+    if (this.task != null
+        || this.configuration.storage != StorageType.POSTGRESQL && !this.configuration.archival.enabled) {
+      return;
+    }
+
+    this.task = this.scheduler.scheduleWithFixedDelay(() -> this.executor.execute(this::run),
+        0, ARCHIVAL_INTERVAL_MINUTES, TimeUnit.MINUTES);
+  }
+
+  @Override
+  public synchronized void close() {
+    if (this.task != null) {
+      this.task.cancel(false);
+      this.task = null;
+    }
+  }
+
+  private synchronized void run() {
+    // A failure to do either should not keep the other from being done.
+    this.maintainPartitions();
+    if (this.configuration.archival.enabled) {
+      this.archive();
+    }
+  }
+
+  private void maintainPartitions() {
+    try {
+      final int year = Year.now(ZoneOffset.UTC).getValue();
+      this.dataService.createPunishmentPartition(year);
+      this.dataService.createPunishmentPartition(year + 1);
+    } catch (final RuntimeException ex) {
+      this.logger.warn("Could not create the punishment partitions", ex);
+    }
+  }
+
+  private void archive() {
+    try {
+      final long horizon = System.currentTimeMillis()
+          - TimeUnit.DAYS.toMillis(this.configuration.archival.horizonDays);
+      int total = 0;
+      int archived;
+      do {
+        archived = this.dataService.archivePunishments(horizon, ARCHIVAL_BATCH_SIZE);
+        total += archived;
+      } while (archived >= ARCHIVAL_BATCH_SIZE);
+
+      if (total != 0) {
+        this.logger.info("Archived {} punishments", total);
+      }
+    } catch (final RuntimeException ex) {
+      this.logger.warn("Could not archive punishments", ex);
+    }
+  }
+}
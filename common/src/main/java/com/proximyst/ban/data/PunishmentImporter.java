@@ -0,0 +1,524 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.data;
+
+import com.google.common.net.InetAddresses;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
+import com.proximyst.ban.inject.annotation.PluginData;
+import com.proximyst.ban.model.BanIdentity;
+import com.proximyst.ban.model.BanIdentity.ConsoleIdentity;
+import com.proximyst.ban.model.BanIdentity.UuidIdentity;
+import com.proximyst.ban.model.PunishmentBuilder;
+import com.proximyst.ban.model.PunishmentType;
+import com.proximyst.ban.platform.IBanAudience.IBanConsole;
+import com.proximyst.ban.service.IDataService;
+import com.proximyst.ban.utils.CsvReader;
+import com.proximyst.ban.utils.ThrowableUtils;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * Imports punishments exported from other punishment plugins.
+ * <p>
+ * Files are read from the {@code imports} directory in the plugin's data directory, or else the {@code exports}
+ * directory, and may be CSV files with a header or JSON files containing objects, either in an array or one after
+ * another; either may be gzipped. Records have the fields {@code type},
+ * {@code target} (a UUID or an IP address), {@code target_name}, {@code punisher} (a UUID, or empty for the
+ * console), {@code punisher_name}, {@code reason}, {@code lifted}, {@code lifted_by}, {@code time}, and
+ * {@code expires}; times are either milliseconds since the epoch or ISO-8601 instants, and punishments without an
+ * expiry are permanent. Files written by the {@link DataExporter} also contain users and their IP addresses, which are
+ * restored as well, and mark archived punishments with {@code archived}, which are restored into the archive.
+ * <p>
+ * Records are read in batches: the users of a batch are resolved with a single lookup, and the punishments are saved
+ * in a single transaction. Users are only ever resolved from the file and the storage, never from Mojang, so records
+ * whose users are unknown to both are skipped. After every batch, the amount of records read is saved next to the
+ * file, so an interrupted import resumes where it stopped. The checkpoint is removed once the import completes.
+ */
+@Singleton
+public final class PunishmentImporter {
+  private static final @Positive int IMPORT_BATCH_SIZE = Integer.getInteger("ban.importBatchSize", 1000);
+  private static final @Positive long IMPORT_PROGRESS_INTERVAL_MILLIS =
+      Long.getLong("ban.importProgressIntervalMillis", 5000);
+
+  private final @NonNull IDataService dataService;
+  private final @NonNull ConsoleIdentity consoleIdentity;
+  private final @NonNull Executor executor;
+  private final @NonNull Logger logger;
+  private final @NonNull Path importDirectory;
+  private final @NonNull Path exportDirectory;
+
+  @Inject
+  PunishmentImporter(final @NonNull IDataService dataService,
+      final @NonNull ConsoleIdentity consoleIdentity,
+      final @NonNull @BanAsyncExecutor Executor executor,
+      final @NonNull Logger logger,
+      final @NonNull @PluginData Path dataDirectory,
+      final @NonNull DataExporter dataExporter) {
+    this.dataService = dataService;
+    this.consoleIdentity = consoleIdentity;
+    this.executor = executor;
+    this.logger = logger;
+    this.importDirectory = dataDirectory.resolve("imports");
+    this.exportDirectory = dataExporter.getExportDirectory();
+  }
+
+  /**
+   * Import the punishments of a file in the imports directory, or else the exports directory.
+   *
+   * @param fileName The name of the file, relative to the imports or exports directory.
+   * @param listener The listener to report progress to, regularly and when done.
+   * @return The final progress of the import.
+   */
+  public @NonNull CompletableFuture<@NonNull Progress> importFile(final @NonNull String fileName,
+      final @NonNull Consumer<@NonNull Progress> listener) {
+    return ThrowableUtils.supplyAsyncSneaky(() -> {
+      for (final Path directory : List.of(this.importDirectory, this.exportDirectory)) {
+        final Path file = directory.resolve(fileName).normalize();
+        if (file.startsWith(directory) && Files.isRegularFile(file)) {
+          return this.run(file, listener);
+        }
+      }
+
+      throw new IOException("no such file in " + this.importDirectory + " or " + this.exportDirectory + ": "
+          + fileName);
+    }, this.executor);
+  }
+
+  private synchronized @NonNull Progress run(final @NonNull Path file,
+      final @NonNull Consumer<@NonNull Progress> listener) throws IOException {
+    final Path checkpoint = file.resolveSibling(file.getFileName() + ".checkpoint");
+    final int resumeFrom = Files.isRegularFile(checkpoint)
+        ? Integer.parseInt(Files.readString(checkpoint, StandardCharsets.UTF_8).trim())
+        : 0;
+    final Progress progress = new Progress(resumeFrom);
+    this.logger.info("Importing punishments from {}, starting at record {}", file, resumeFrom);
+
+    try (final RecordReader records = this.open(file)) {
+      for (int i = 0; i < resumeFrom; ++i) {
+        if (records.next() == null) {
+          break;
+        }
+      }
+
+      long lastReport = System.nanoTime();
+      final List<Map<String, String>> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+      Map<String, String> record;
+      do {
+        record = records.next();
+        if (record != null) {
+          batch.add(record);
+        }
+        if (batch.size() < IMPORT_BATCH_SIZE && (record != null || batch.isEmpty())) {
+          continue;
+        }
+
+        this.importBatch(batch, progress);
+        progress.read += batch.size();
+        batch.clear();
+        this.writeCheckpoint(checkpoint, progress.read);
+
+        if (System.nanoTime() - lastReport >= TimeUnit.MILLISECONDS.toNanos(IMPORT_PROGRESS_INTERVAL_MILLIS)) {
+          lastReport = System.nanoTime();
+          this.logger.info("Imported {} punishments from {} ({} records/s)", progress.imported, file,
+              progress.recordsPerSecond());
+          listener.accept(progress);
+        }
+      } while (record != null);
+    }
+
+    // A later import of a file by the same name must start over.
+    Files.deleteIfExists(checkpoint);
+
+    this.logger.info("Imported {} punishments from {} in {} ms; skipped {}", progress.imported, file,
+        progress.elapsedMillis(), progress.skipped);
+    listener.accept(progress);
+    return progress;
+  }
+
+  private void importBatch(final @NonNull List<@NonNull Map<@NonNull String, @NonNull String>> batch,
+      final @NonNull Progress progress) {
+    final List<ImportRecord> parsed = new ArrayList<>(batch.size());
+    final Map<UUID, String> users = new HashMap<>();
+    final Map<InetAddress, List<UUID>> links = new HashMap<>();
+    for (final Map<String, String> fields : batch) {
+      if (fields.containsKey("format")) {
+        checkHeader(fields);
+        continue;
+      }
+
+      // Exports also contain users and their IP addresses.
+      final String kind = fields.getOrDefault("kind", "punishment");
+      if (!kind.equals("punishment")) {
+        try {
+          final UUID uuid = UUID.fromString(Objects.requireNonNull(fields.get("uuid"), "missing uuid"));
+          if (kind.equals("user")) {
+            addUser(users, uuid, fields.get("username"));
+          } else if (kind.equals("address")) {
+            addUser(users, uuid, null);
+            links.computeIfAbsent(InetAddresses.forString(Objects.requireNonNull(fields.get("address"),
+                "missing address")), $ -> new ArrayList<>()).add(uuid);
+          } else {
+            throw new IllegalArgumentException("unknown kind " + kind);
+          }
+        } catch (final IllegalArgumentException | NullPointerException ex) {
+          this.logger.debug("Skipping invalid record {}: {}", fields, ex.getMessage());
+          ++progress.skipped;
+        }
+        continue;
+      }
+
+      final ImportRecord record;
+      try {
+        record = new ImportRecord(fields);
+      } catch (final IllegalArgumentException ex) {
+        this.logger.debug("Skipping invalid record {}: {}", fields, ex.getMessage());
+        ++progress.skipped;
+        continue;
+      }
+
+      parsed.add(record);
+      if (record.targetUuid != null) {
+        addUser(users, record.targetUuid, record.targetName);
+      }
+      if (record.punisher != null) {
+        addUser(users, record.punisher, record.punisherName);
+      }
+    }
+
+    final Map<UUID, UuidIdentity> identities = this.dataService.getOrCreateIdentities(users);
+    final Map<InetAddress, BanIdentity> addresses = new HashMap<>();
+    links.forEach((address, uuids) -> addresses.put(address, this.dataService.createIdentity(address,
+        uuids.stream()
+            .map(identities::get)
+            .filter(Objects::nonNull)
+            .toArray(UuidIdentity[]::new))));
+    final List<PunishmentBuilder> punishments = new ArrayList<>(parsed.size());
+    final List<PunishmentBuilder> archived = new ArrayList<>();
+    for (final ImportRecord record : parsed) {
+      final BanIdentity target = record.targetAddress != null
+          ? addresses.computeIfAbsent(record.targetAddress, this.dataService::createIdentity)
+          : identities.get(record.targetUuid);
+      final BanIdentity punisher = record.punisher == null
+          ? this.consoleIdentity
+          : identities.get(record.punisher);
+      if (target == null || punisher == null) {
+        // Unknown to both the file and the storage.
+        ++progress.skipped;
+        continue;
+      }
+
+      (record.archived ? archived : punishments).add(new PunishmentBuilder()
+          .type(record.type)
+          .target(target)
+          .punisher(punisher)
+          .reason(record.reason)
+          .lifted(record.lifted, record.liftedBy)
+          .time(record.time)
+          .duration(record.expires == 0 ? 0 : Math.max(record.expires - record.time, 1)));
+    }
+
+    final int imported = this.dataService.importPunishments(punishments, false)
+        + this.dataService.importPunishments(archived, true);
+    progress.imported += imported;
+    progress.skipped += punishments.size() + archived.size() - imported;
+  }
+
+  private static void checkHeader(final @NonNull Map<@NonNull String, @NonNull String> header) {
+    final String format = header.get("format");
+    final String version = header.get("version");
+    if (!DataExporter.EXPORT_FORMAT.equals(format) || version == null
+        || Integer.parseInt(version) > DataExporter.EXPORT_VERSION) {
+      throw new IllegalStateException("unsupported export format " + format + " version " + version);
+    }
+  }
+
+  private static void addUser(final @NonNull Map<@NonNull UUID, @Nullable String> users, final @NonNull UUID uuid,
+      final @Nullable String username) {
+    // Any record naming the user is good enough.
+    if (username != null) {
+      users.put(uuid, username);
+    } else {
+      users.putIfAbsent(uuid, null);
+    }
+  }
+
+  private void writeCheckpoint(final @NonNull Path checkpoint, final @NonNegative int read) throws IOException {
+    final Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+    Files.writeString(temporary, Integer.toString(read), StandardCharsets.UTF_8);
+    Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private @NonNull RecordReader open(final @NonNull Path file) throws IOException {
+    String name = file.getFileName().toString().toLowerCase(Locale.ENGLISH);
+    InputStream input = new BufferedInputStream(Files.newInputStream(file));
+    if (name.endsWith(".gz")) {
+      name = name.substring(0, name.length() - ".gz".length());
+      input = new GZIPInputStream(input);
+    }
+
+    final Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+    if (name.endsWith(".csv")) {
+      return new CsvRecordReader(new CsvReader(reader));
+    }
+
+    return new JsonRecordReader(new JsonReader(reader));
+  }
+
+  /**
+   * The progress of an import.
+   */
+  public static final class Progress {
+    private final long startedAt = System.nanoTime();
+    private final @NonNegative int resumedFrom;
+    private @NonNegative int read;
+    private @NonNegative int imported;
+    private @NonNegative int skipped;
+
+    private Progress(final @NonNegative int resumedFrom) {
+      this.resumedFrom = resumedFrom;
+      this.read = resumedFrom;
+    }
+
+    /**
+     * @return The amount of punishments imported so far.
+     */
+    public @NonNegative int getImported() {
+      return this.imported;
+    }
+
+    /**
+     * @return The amount of records skipped so far, either for being invalid, having unknown users, or already
+     *     existing.
+     */
+    public @NonNegative int getSkipped() {
+      return this.skipped;
+    }
+
+    /**
+     * @return The amount of milliseconds since the import started.
+     */
+    public @NonNegative long elapsedMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startedAt);
+    }
+
+    /**
+     * @return The amount of records read per second since the import started, excluding the resumed ones.
+     */
+    public @NonNegative int recordsPerSecond() {
+      return (int) ((this.read - this.resumedFrom) * 1000L / Math.max(this.elapsedMillis(), 1));
+    }
+  }
+
+  private static final class ImportRecord {
+    private final @NonNull PunishmentType type;
+    private final @Nullable UUID targetUuid;
+    private final @Nullable InetAddress targetAddress;
+    private final @Nullable String targetName;
+    private final @Nullable UUID punisher;
+    private final @Nullable String punisherName;
+    private final @Nullable String reason;
+    private final boolean lifted;
+    private final @Nullable UUID liftedBy;
+    private final long time;
+    private final long expires;
+    private final boolean archived;
+
+    private ImportRecord(final @NonNull Map<@NonNull String, @NonNull String> fields) {
+      this.type = PunishmentType.valueOf(required(fields, "type").toUpperCase(Locale.ENGLISH));
+
+      final String target = required(fields, "target");
+      if (InetAddresses.isInetAddress(target)) {
+        this.targetUuid = null;
+        this.targetAddress = InetAddresses.forString(target);
+      } else {
+        this.targetUuid = UUID.fromString(target);
+        this.targetAddress = null;
+      }
+      this.targetName = optional(fields, "target_name");
+
+      final String punisher = optional(fields, "punisher");
+      final UUID punisherUuid = punisher == null ? null : UUID.fromString(punisher);
+      this.punisher = IBanConsole.UUID.equals(punisherUuid) ? null : punisherUuid;
+      this.punisherName = optional(fields, "punisher_name");
+
+      this.reason = optional(fields, "reason");
+      this.lifted = Boolean.parseBoolean(optional(fields, "lifted"));
+      final String liftedBy = optional(fields, "lifted_by");
+      this.liftedBy = liftedBy == null ? null : UUID.fromString(liftedBy);
+
+      this.time = time(required(fields, "time"));
+      final String expires = optional(fields, "expires");
+      this.expires = expires == null ? 0 : Math.max(time(expires), 0);
+      this.archived = Boolean.parseBoolean(optional(fields, "archived"));
+    }
+
+    private static @NonNull String required(final @NonNull Map<@NonNull String, @NonNull String> fields,
+        final @NonNull String name) {
+      final String value = optional(fields, name);
+      if (value == null) {
+        throw new IllegalArgumentException("missing " + name);
+      }
+      return value;
+    }
+
+    private static @Nullable String optional(final @NonNull Map<@NonNull String, @NonNull String> fields,
+        final @NonNull String name) {
+      final String value = fields.get(name);
+      return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static long time(final @NonNull String value) {
+      try {
+        return Long.parseLong(value);
+      } catch (final NumberFormatException ignored) {
+        return Instant.parse(value).toEpochMilli();
+      }
+    }
+  }
+
+  private interface RecordReader extends Closeable {
+    /**
+     * @return The fields of the next record by name, or {@code null} if there are no more records.
+     * @throws IOException If the file cannot be read or parsed.
+     */
+    @Nullable Map<@NonNull String, @NonNull String> next() throws IOException;
+  }
+
+  private static final class CsvRecordReader implements RecordReader {
+    private final @NonNull CsvReader reader;
+    private @Nullable List<@NonNull String> header;
+
+    private CsvRecordReader(final @NonNull CsvReader reader) {
+      this.reader = reader;
+    }
+
+    @Override
+    public @Nullable Map<@NonNull String, @NonNull String> next() throws IOException {
+      if (this.header == null) {
+        this.header = this.reader.readRecord();
+        if (this.header == null) {
+          return null;
+        }
+      }
+
+      final List<String> values = this.reader.readRecord();
+      if (values == null) {
+        return null;
+      }
+
+      final Map<String, String> record = new HashMap<>(this.header.size());
+      for (int i = 0; i < this.header.size() && i < values.size(); ++i) {
+        record.put(this.header.get(i).trim().toLowerCase(Locale.ENGLISH), values.get(i));
+      }
+      return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.reader.close();
+    }
+  }
+
+  private static final class JsonRecordReader implements RecordReader {
+    private final @NonNull JsonReader reader;
+    private boolean started;
+    private boolean array;
+
+    private JsonRecordReader(final @NonNull JsonReader reader) {
+      this.reader = reader;
+      // Allows objects to simply follow one another, as in JSON lines.
+      this.reader.setLenient(true);
+    }
+
+    @Override
+    public @Nullable Map<@NonNull String, @NonNull String> next() throws IOException {
+      if (!this.started) {
+        this.started = true;
+        if (this.reader.peek() == JsonToken.BEGIN_ARRAY) {
+          this.reader.beginArray();
+          this.array = true;
+        }
+      }
+
+      final JsonToken token = this.reader.peek();
+      if (token == JsonToken.END_DOCUMENT || this.array && token == JsonToken.END_ARRAY) {
+        return null;
+      }
+
+      final Map<String, String> record = new HashMap<>();
+      this.reader.beginObject();
+      while (this.reader.hasNext()) {
+        final String name = this.reader.nextName().toLowerCase(Locale.ENGLISH);
+        switch (this.reader.peek()) {
+          case NULL:
+            this.reader.nextNull();
+            break;
+          case BOOLEAN:
+            record.put(name, Boolean.toString(this.reader.nextBoolean()));
+            break;
+          case STRING:
+          case NUMBER:
+            record.put(name, this.reader.nextString());
+            break;
+          default:
+            this.reader.skipValue();
+            break;
+        }
+      }
+      this.reader.endObject();
+      return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.reader.close();
+    }
+  }
+}
@@ -55,7 +55,8 @@ public final class PunishmentJdbiRowMapper implements RowMapper<Punishment> {
     final boolean lifted = rs.getBoolean("lifted");
     final UUID liftedBy = lifted ? uuidMapper.map(rs, "lifted_by", ctx) : null;
     final Timestamp time = rs.getTimestamp("timestamp");
-    final long duration = rs.getLong("duration");
+    final Timestamp expiresAt = rs.getTimestamp("expires_at");
+    final long duration = expiresAt == null ? 0 : expiresAt.getTime() - time.getTime();
 
     final IDataService dataService = this.dataServiceProvider.get();
     final PunishmentType type = PunishmentType.valueOf(rawType);
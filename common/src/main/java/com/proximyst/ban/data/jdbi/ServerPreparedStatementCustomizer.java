@@ -0,0 +1,53 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.data.jdbi;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.core.statement.StatementCustomizer;
+import org.postgresql.PGStatement;
+
+/**
+ * A {@link StatementCustomizer} which has PostgreSQL prepare a statement as a reusable server-side plan on its first
+ * execution, rather than after {@code prepareThreshold} executions.
+ * <p>
+ * This is meant for the few queries run on every login or chat message. It does nothing on other databases, or if
+ * server-side prepared statements are disabled altogether.
+ */
+public final class ServerPreparedStatementCustomizer implements StatementCustomizer {
+  public static final @NonNull ServerPreparedStatementCustomizer INSTANCE = new ServerPreparedStatementCustomizer();
+
+  private ServerPreparedStatementCustomizer() {
+  }
+
+  @Override
+  public void beforeExecution(final @NonNull PreparedStatement stmt, final @NonNull StatementContext ctx)
+      throws SQLException {
+    if (!stmt.isWrapperFor(PGStatement.class)) {
+      return;
+    }
+
+    final PGStatement statement = stmt.unwrap(PGStatement.class);
+    if (statement.getPrepareThreshold() > 1) {
+      statement.setPrepareThreshold(1);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.inject;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.proximyst.ban.inject.annotation.BanScheduler;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+public final class ExecutorModule extends AbstractModule {
+  /**
+   * A single daemon thread for periodic background work of the plugin itself, such as snapshots and flushing.
+   * <p>
+   * Tasks on this must be short; anything blocking for long should be handed off to the async executor.
+   */
+  @Provides
+  @Singleton
+  @BanScheduler @NonNull ScheduledExecutorService scheduler() {
+    return Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("ban-scheduler-%d")
+        .setDaemon(true)
+        .build());
+  }
+}
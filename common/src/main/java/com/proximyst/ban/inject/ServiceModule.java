@@ -20,6 +20,8 @@ package com.proximyst.ban.inject;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
+import com.proximyst.ban.config.Configuration;
+import com.proximyst.ban.config.StorageType;
 import com.proximyst.ban.message.BanIdentityPlaceholderResolver;
 import com.proximyst.ban.message.BanMessageParser;
 import com.proximyst.ban.message.BanMessageSender;
@@ -32,30 +34,48 @@ import com.proximyst.ban.message.PunishmentPlaceholderResolver;
 import com.proximyst.ban.message.ServerReceiverResolver;
 import com.proximyst.ban.model.BanIdentity;
 import com.proximyst.ban.model.Punishment;
+import com.proximyst.ban.service.IAltService;
 import com.proximyst.ban.service.IDataService;
 import com.proximyst.ban.service.IMessageService;
 import com.proximyst.ban.service.IMojangService;
 import com.proximyst.ban.service.IPunishmentService;
+import com.proximyst.ban.service.ISuggestionService;
 import com.proximyst.ban.service.IUserService;
+import com.proximyst.ban.service.impl.ImplAltService;
 import com.proximyst.ban.service.impl.ImplAshconMojangService;
 import com.proximyst.ban.service.impl.ImplGenericSqlDataService;
+import com.proximyst.ban.service.impl.ImplInMemoryDataService;
 import com.proximyst.ban.service.impl.ImplPunishmentService;
+import com.proximyst.ban.service.impl.ImplSuggestionService;
 import com.proximyst.ban.service.impl.ImplUserService;
+import com.proximyst.ban.service.impl.ImplWriteBehindDataService;
 import com.proximyst.moonshine.Moonshine;
 import java.util.Date;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.Component;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 public final class ServiceModule extends AbstractModule {
-  // TODO(Proximyst): Support non-SQL data?
   @Provides
   @Singleton
-  @NonNull IDataService dataService(final @NonNull ImplGenericSqlDataService sqlDataService) {
-    return sqlDataService;
+  @NonNull IDataService dataService(final @NonNull Configuration configuration,
+      final @NonNull Provider<@NonNull ImplGenericSqlDataService> sqlDataService,
+      final @NonNull Provider<@NonNull ImplInMemoryDataService> inMemoryDataService,
+      final @NonNull Provider<@NonNull ImplWriteBehindDataService> writeBehindDataService) {
+    switch (configuration.storage) {
+      case MEMORY:
+        return inMemoryDataService.get();
+      case POSTGRESQL:
+        return configuration.sql.writeBehind
+            ? writeBehindDataService.get()
+            : sqlDataService.get();
+      default:
+        return sqlDataService.get();
+    }
   }
 
   // TODO(Proximyst): Support official Mojang API
@@ -71,12 +91,24 @@ public final class ServiceModule extends AbstractModule {
     return punishmentService;
   }
 
+  @Provides
+  @Singleton
+  @NonNull IAltService altService(final @NonNull ImplAltService altService) {
+    return altService;
+  }
+
   @Provides
   @Singleton
   @NonNull IUserService userService(final @NonNull ImplUserService userService) {
     return userService;
   }
 
+  @Provides
+  @Singleton
+  @NonNull ISuggestionService suggestionService(final @NonNull ImplSuggestionService suggestionService) {
+    return suggestionService;
+  }
+
   @Provides
   @Singleton
   @NonNull IMessageService messageService(final @NonNull ServerReceiverResolver serverReceiverResolver,
@@ -0,0 +1,89 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.message;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.proximyst.ban.model.Punishment;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.inject.Singleton;
+import net.kyori.adventure.text.Component;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A cache of rendered {@link Punishment#applicationMessage application messages}, keyed by punishment ID and locale.
+ * <p>
+ * Application messages only depend on immutable data of the punishment and the message templates, so they can be kept
+ * until the punishment is lifted or the templates are reloaded.
+ */
+@Singleton
+public final class ApplicationMessageCache {
+  private static final @NonNegative int MAXIMUM_APPLICATION_MESSAGE_CACHE_CAPACITY =
+      Integer.getInteger("ban.maxApplicationMessageCacheCapacity", 1024);
+
+  private final @NonNull Cache<@NonNull Long, @NonNull Map<@NonNull Locale, @NonNull Component>> cache =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAXIMUM_APPLICATION_MESSAGE_CACHE_CAPACITY)
+          .expireAfterAccess(30, TimeUnit.MINUTES)
+          .build();
+
+  /**
+   * Get the rendered application message of a punishment, rendering it if it is not yet cached.
+   *
+   * @param punishment The punishment to get the application message of.
+   * @param locale     The locale to render the message in.
+   * @param renderer   The renderer to use if the message is not yet cached.
+   * @return The rendered application message.
+   */
+  public @NonNull Component get(final @NonNull Punishment punishment,
+      final @NonNull Locale locale,
+      final @NonNull Function<@NonNull Punishment, @NonNull Component> renderer) {
+    final Map<Locale, Component> rendered;
+    try {
+      rendered = this.cache.get(punishment.getId(), ConcurrentHashMap::new);
+    } catch (final ExecutionException ex) {
+      // Creating a map cannot throw.
+      throw new IllegalStateException(ex);
+    }
+
+    return rendered.computeIfAbsent(locale, $ -> renderer.apply(punishment));
+  }
+
+  /**
+   * Invalidate all rendered messages of a punishment, e.g. once it has been lifted.
+   *
+   * @param punishment The punishment whose messages to invalidate.
+   */
+  public void invalidate(final @NonNull Punishment punishment) {
+    this.cache.invalidate(punishment.getId());
+  }
+
+  /**
+   * Invalidate all rendered messages, e.g. once the message templates have changed.
+   */
+  public void invalidateAll() {
+    this.cache.invalidateAll();
+  }
+}
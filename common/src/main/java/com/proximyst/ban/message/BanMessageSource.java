@@ -19,6 +19,7 @@
 package com.proximyst.ban.message;
 
 import com.proximyst.ban.inject.annotation.PluginData;
+import com.proximyst.ban.platform.IBanAudience;
 import com.proximyst.ban.platform.IBanPlugin;
 import com.proximyst.moonshine.message.IMessageSource;
 import java.io.File;
@@ -29,50 +30,210 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import net.kyori.adventure.audience.Audience;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.slf4j.Logger;
 
-// TODO(Mariell Hoversholm): Support more than just English.
+/**
+ * The source of message templates, with one bundle per locale.
+ * <p>
+ * The packaged English messages are written to {@code messages-en.properties} in the data directory, where they can be
+ * edited. Any other {@code messages-<locale>.properties} file in the data directory is loaded as a translation, and
+ * falls back to its language and then English for any missing keys.
+ */
 @Singleton
-public final class BanMessageSource implements IMessageSource<String, Audience> {
-  private final @NonNull Properties properties;
+public final class BanMessageSource implements IMessageSource<String, Audience>, AutoCloseable {
+  private static final @NonNull String DEFAULT_FILE_NAME = "messages-en.properties";
+  private static final @NonNull Pattern FILE_NAME_PATTERN = Pattern.compile("messages-([A-Za-z0-9_-]+)\\.properties");
+
+  private final @NonNull Path dataDir;
+  private final @NonNull IBanPlugin plugin;
+  private final @NonNull Logger logger;
+  private final @NonNull ApplicationMessageCache applicationMessageCache;
+
+  /**
+   * The current messages. This is replaced as a whole on reload, such that lookups never need to lock.
+   */
+  private volatile @NonNull MessageBundles messages;
+
+  private @MonotonicNonNull WatchService watchService;
 
   @Inject
   BanMessageSource(final @NonNull @PluginData Path dataDir,
-      final @NonNull IBanPlugin plugin) throws IOException {
-    // We need to read the existing file, merge the missing keys, and write the file.
-    this.properties = new Properties();
-    final File file = dataDir.resolve("messages-en.properties").toFile();
+      final @NonNull IBanPlugin plugin,
+      final @NonNull Logger logger,
+      final @NonNull ApplicationMessageCache applicationMessageCache) throws IOException {
+    this.dataDir = dataDir;
+    this.plugin = plugin;
+    this.logger = logger;
+    this.applicationMessageCache = applicationMessageCache;
+    this.messages = this.load(true);
+  }
+
+  /**
+   * Read all message files, merging the missing keys of the English file from the packaged file.
+   *
+   * @param save Whether to write the English file if any keys were missing.
+   * @return The messages read.
+   * @throws IOException If the messages could not be read or written.
+   */
+  private @NonNull MessageBundles load(final boolean save) throws IOException {
+    final Properties properties = new Properties();
+    final File file = this.dataDir.resolve(DEFAULT_FILE_NAME).toFile();
     if (file.isFile()) {
       try (final Reader reader = new FileReader(file, StandardCharsets.UTF_8)) {
-        this.properties.load(reader);
+        properties.load(reader);
       }
     }
 
     boolean write = !file.isFile();
-    try (final InputStream stream = plugin.getClass().getResourceAsStream("/messages-en.properties")) {
+    try (final InputStream stream = this.plugin.getClass().getResourceAsStream("/" + DEFAULT_FILE_NAME)) {
       final Properties packaged = new Properties();
       packaged.load(stream);
       for (final Entry<Object, Object> entry : packaged.entrySet()) {
-        write |= this.properties.putIfAbsent(entry.getKey(), entry.getValue()) == null;
+        write |= properties.putIfAbsent(entry.getKey(), entry.getValue()) == null;
       }
     }
 
-    if (write) {
+    if (save && write) {
       try (final Writer writer = new FileWriter(file, StandardCharsets.UTF_8)) {
-        this.properties.store(writer, null);
+        properties.store(writer, null);
+      }
+    }
+
+    final Map<Locale, Map<String, String>> locales = new HashMap<>();
+    try (final DirectoryStream<Path> stream = Files.newDirectoryStream(this.dataDir)) {
+      for (final Path path : stream) {
+        final Matcher matcher = FILE_NAME_PATTERN.matcher(path.getFileName().toString());
+        if (!matcher.matches() || !Files.isRegularFile(path)) {
+          continue;
+        }
+
+        final Locale locale = Locale.forLanguageTag(matcher.group(1).replace('_', '-'));
+        if (locale.getLanguage().isEmpty() || locale.equals(MessageBundles.DEFAULT_LOCALE)) {
+          continue;
+        }
+
+        final Properties translation = new Properties();
+        try (final Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+          translation.load(reader);
+        }
+        locales.put(locale, toMap(translation));
       }
     }
+
+    return MessageBundles.build(toMap(properties), locales);
+  }
+
+  private static @NonNull Map<@NonNull String, @NonNull String> toMap(final @NonNull Properties properties) {
+    final Map<String, String> map = new HashMap<>(properties.size());
+    for (final String key : properties.stringPropertyNames()) {
+      map.put(key, properties.getProperty(key));
+    }
+    return map;
+  }
+
+  /**
+   * Reload the messages from disk, and drop any messages rendered from the previous ones.
+   * <p>
+   * If the messages cannot be read, the previous messages are kept. The file is never written here, as it may be in the
+   * middle of being edited.
+   */
+  public void reload() {
+    try {
+      this.messages = this.load(false);
+    } catch (final IOException ex) {
+      this.logger.warn("Could not reload messages; keeping the previous ones", ex);
+      return;
+    }
+
+    this.applicationMessageCache.invalidateAll();
+    this.logger.info("Reloaded messages");
+  }
+
+  /**
+   * Start watching the message files for changes, {@link #reload() reloading} them whenever any is modified.
+   *
+   * @throws IOException If the data directory cannot be watched.
+   */
+  public synchronized void watch() throws IOException {
+    if (this.watchService != null) {
+      return;
+    }
+
+    final WatchService watchService = this.dataDir.getFileSystem().newWatchService();
+    this.dataDir.register(watchService,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY);
+    this.watchService = watchService;
+
+    final Thread thread = new Thread(() -> this.watchLoop(watchService), "ban-message-watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void watchLoop(final @NonNull WatchService watchService) {
+    try {
+      while (true) {
+        final WatchKey key = watchService.take();
+        boolean changed = false;
+        for (final WatchEvent<?> event : key.pollEvents()) {
+          changed |= event.context() instanceof Path
+              && FILE_NAME_PATTERN.matcher(((Path) event.context()).toString()).matches();
+        }
+
+        if (changed) {
+          this.reload();
+        }
+
+        if (!key.reset()) {
+          this.logger.warn("The data directory is no longer accessible; messages will not be reloaded");
+          return;
+        }
+      }
+    } catch (final ClosedWatchServiceException | InterruptedException ignored) {
+      // We're shutting down.
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (this.watchService != null) {
+      this.watchService.close();
+    }
   }
 
   @Override
   public String message(final String key, final Audience receiver) {
-    final String value = this.properties.getProperty(key);
+    final Locale locale;
+    if (receiver instanceof IBanAudience) {
+      locale = ((IBanAudience) receiver).locale();
+    } else if (receiver instanceof LocaleReceiver) {
+      locale = ((LocaleReceiver) receiver).locale();
+    } else {
+      // Broadcasts and the like have no single locale.
+      locale = MessageBundles.DEFAULT_LOCALE;
+    }
+
+    final String value = this.messages.message(key, locale);
     if (value == null) {
       throw new IllegalStateException("No message mapping for key " + key);
     }
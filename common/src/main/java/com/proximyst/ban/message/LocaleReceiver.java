@@ -0,0 +1,45 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.message;
+
+import java.util.Locale;
+import net.kyori.adventure.audience.Audience;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A receiver which only carries a locale, for rendering messages that are not sent to anyone directly.
+ * <p>
+ * This is used to pick the locale of messages which are returned rather than sent, such as application messages shown
+ * on disconnect screens.
+ */
+public final class LocaleReceiver implements Audience {
+  private final @NonNull Locale locale;
+
+  private LocaleReceiver(final @NonNull Locale locale) {
+    this.locale = locale;
+  }
+
+  public static @NonNull LocaleReceiver of(final @NonNull Locale locale) {
+    return new LocaleReceiver(locale);
+  }
+
+  public @NonNull Locale locale() {
+    return this.locale;
+  }
+}
@@ -0,0 +1,137 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.message;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An immutable set of message tables, one per locale.
+ * <p>
+ * Fallback chains are flattened when the bundles are built: every table already contains the messages of its parent
+ * locales and the default locale. Which table serves a given locale is resolved once and cached, so looking up a
+ * message is a single map lookup regardless of the locale.
+ */
+final class MessageBundles {
+  /**
+   * The locale of the packaged messages, which every other locale falls back to.
+   */
+  static final @NonNull Locale DEFAULT_LOCALE = Locale.ENGLISH;
+
+  /**
+   * The maximum amount of locales to cache the resolution of. Clients choose their own locale, so this must be bounded.
+   */
+  private static final int MAXIMUM_RESOLVED_LOCALES = 256;
+
+  private final @NonNull ImmutableMap<@NonNull Locale, @NonNull ImmutableMap<@NonNull String, @NonNull String>> tables;
+  private final @NonNull ImmutableMap<@NonNull String, @NonNull String> defaults;
+  private final @NonNull Map<@NonNull Locale, @NonNull ImmutableMap<@NonNull String, @NonNull String>> resolved =
+      new ConcurrentHashMap<>();
+
+  private MessageBundles(
+      final @NonNull ImmutableMap<@NonNull Locale, @NonNull ImmutableMap<@NonNull String, @NonNull String>> tables) {
+    this.tables = tables;
+    this.defaults = tables.get(DEFAULT_LOCALE);
+  }
+
+  /**
+   * Build the bundles from the raw messages of each locale.
+   *
+   * @param defaults The messages of the {@link #DEFAULT_LOCALE default locale}, which must contain every key.
+   * @param locales  The messages of every other locale, which may be partial.
+   * @return The bundles built.
+   */
+  static @NonNull MessageBundles build(final @NonNull Map<@NonNull String, @NonNull String> defaults,
+      final @NonNull Map<@NonNull Locale, @NonNull Map<@NonNull String, @NonNull String>> locales) {
+    // Keys and values repeat a lot across locales; share the instances.
+    final Interner<String> interner = Interners.newStrongInterner();
+
+    final ImmutableMap.Builder<Locale, ImmutableMap<String, String>> tables = ImmutableMap.builder();
+    tables.put(DEFAULT_LOCALE, intern(interner, defaults));
+    for (final Entry<Locale, Map<String, String>> entry : locales.entrySet()) {
+      final Locale locale = entry.getKey();
+      if (locale.equals(DEFAULT_LOCALE)) {
+        continue;
+      }
+
+      final Map<String, String> table = new HashMap<>(defaults);
+      final Locale language = new Locale(locale.getLanguage());
+      if (!language.equals(locale) && locales.containsKey(language)) {
+        table.putAll(locales.get(language));
+      }
+      table.putAll(entry.getValue());
+      tables.put(locale, intern(interner, table));
+    }
+
+    return new MessageBundles(tables.build());
+  }
+
+  private static @NonNull ImmutableMap<@NonNull String, @NonNull String> intern(
+      final @NonNull Interner<@NonNull String> interner,
+      final @NonNull Map<@NonNull String, @NonNull String> table) {
+    final ImmutableMap.Builder<String, String> builder = ImmutableMap.builderWithExpectedSize(table.size());
+    for (final Entry<String, String> entry : table.entrySet()) {
+      builder.put(interner.intern(entry.getKey()), interner.intern(entry.getValue()));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Get a message in the given locale, falling back to less specific locales and finally the default locale.
+   *
+   * @param key    The key of the message.
+   * @param locale The locale to get the message in.
+   * @return The message, or {@code null} if no locale has it.
+   */
+  @Nullable String message(final @NonNull String key, final @NonNull Locale locale) {
+    return this.table(locale).get(key);
+  }
+
+  private @NonNull ImmutableMap<@NonNull String, @NonNull String> table(final @NonNull Locale locale) {
+    final ImmutableMap<String, String> table = this.resolved.get(locale);
+    if (table != null) {
+      return table;
+    }
+
+    if (this.resolved.size() >= MAXIMUM_RESOLVED_LOCALES) {
+      return this.resolve(locale);
+    }
+
+    return this.resolved.computeIfAbsent(locale, this::resolve);
+  }
+
+  private @NonNull ImmutableMap<@NonNull String, @NonNull String> resolve(final @NonNull Locale locale) {
+    ImmutableMap<String, String> table = this.tables.get(locale);
+    if (table == null) {
+      table = this.tables.get(new Locale(locale.getLanguage(), locale.getCountry()));
+    }
+    if (table == null) {
+      table = this.tables.get(new Locale(locale.getLanguage()));
+    }
+    return table == null ? this.defaults : table;
+  }
+}
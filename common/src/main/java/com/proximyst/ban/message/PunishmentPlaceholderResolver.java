@@ -10,11 +10,12 @@ import com.proximyst.moonshine.component.placeholder.PlaceholderContext;
 import com.proximyst.moonshine.component.placeholder.ResolveResult;
 import javax.inject.Inject;
 import javax.inject.Provider;
+import net.kyori.adventure.audience.Audience;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-public final class PunishmentPlaceholderResolver<R> implements IPlaceholderResolver<R, Punishment> {
+public final class PunishmentPlaceholderResolver<R extends Audience> implements IPlaceholderResolver<R, Punishment> {
   private final @NonNull Provider<@NonNull IMessageService> messageServiceProvider;
   private final @NonNull Provider<@NonNull IUserService> userServiceProvider;
 
@@ -28,16 +29,18 @@ public final class PunishmentPlaceholderResolver<R> implements IPlaceholderResol
   @Override
   public ResolveResult resolve(final String placeholderName, final Punishment value, final PlaceholderContext<R> ctx,
       final Multimap<String, @Nullable Object> flags) {
+    final R receiver = ctx.receiver();
     return ResolveResult.ok(ImmutableMap.<String, Object>builder()
         .put(placeholderName + "Id", value.getId())
         .put(placeholderName + "Date", value.getDate())
         .put(placeholderName + "Duration", value.getDuration() == 0
-            ? this.messageServiceProvider.get().formattingPermanently()
-            : this.messageServiceProvider.get().formattingDuration(
+            ? this.messageServiceProvider.get().formattingPermanently(receiver)
+            : this.messageServiceProvider.get().formattingDuration(receiver,
                 DurationFormatUtils.formatDurationWords(value.getDuration(), true, true)))
         .put(placeholderName + "Expiration", value.getExpirationDate().map(Object.class::cast)
-            .orElseGet(this.messageServiceProvider.get()::formattingNever))
-        .put(placeholderName + "Verb", this.messageServiceProvider.get().formattingVerbsPast(value.getPunishmentType()))
+            .orElseGet(() -> this.messageServiceProvider.get().formattingNever(receiver)))
+        .put(placeholderName + "Verb",
+            this.messageServiceProvider.get().formattingVerbsPast(receiver, value.getPunishmentType()))
         .put(placeholderName + "Punisher", value.getPunisher())
         .put(placeholderName + "Target", value.getTarget())
         .put(placeholderName + "Lifted", value.isLifted())
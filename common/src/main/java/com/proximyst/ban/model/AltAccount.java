@@ -0,0 +1,76 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.model;
+
+import java.util.UUID;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * An account linked to another through the IP addresses they have connected from.
+ */
+public final class AltAccount {
+  private final @NonNull UUID uuid;
+  private final @NonNull String username;
+  private final @Positive int hops;
+  private final boolean banned;
+
+  public AltAccount(final @NonNull UUID uuid,
+      final @NonNull String username,
+      final @Positive int hops,
+      final boolean banned) {
+    this.uuid = uuid;
+    this.username = username;
+    this.hops = hops;
+    this.banned = banned;
+  }
+
+  public @NonNull UUID getUuid() {
+    return this.uuid;
+  }
+
+  public @NonNull String getUsername() {
+    return this.username;
+  }
+
+  /**
+   * @return How many shared addresses the link goes through; accounts sharing an address directly are one hop apart.
+   */
+  public @Positive int getHops() {
+    return this.hops;
+  }
+
+  /**
+   * @return Whether the account had a ban which currently applied when this was looked up.
+   */
+  public boolean isBanned() {
+    return this.banned;
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("uuid", this.uuid)
+        .append("username", this.username)
+        .append("hops", this.hops)
+        .append("banned", this.banned)
+        .toString();
+  }
+}
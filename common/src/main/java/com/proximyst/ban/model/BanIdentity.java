@@ -18,6 +18,7 @@
 
 package com.proximyst.ban.model;
 
+import com.google.common.collect.ImmutableList;
 import com.google.inject.assistedinject.Assisted;
 import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
 import com.proximyst.ban.model.sql.IdentityType;
@@ -35,7 +36,6 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import net.kyori.adventure.audience.Audience;
@@ -215,13 +215,25 @@ public abstract class BanIdentity {
           : IdentityType.IPV6;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * These are the users currently connected from this address, which are known without any queries.
+     */
     @Override
     public @NonNull CompletableFuture<@NonNull Iterable<@NonNull IBanAudience>> audiences() {
-      return CompletableFuture.supplyAsync(() -> this.dataService.getUsersByIp(this.address), this.executor)
-          .thenApply(users -> users.stream()
-              .map(user -> this.banServer.audienceOf(user.uuid()))
-              .filter(Objects::nonNull)
-              .collect(Collectors.toUnmodifiableList()));
+      return CompletableFuture.completedFuture(List.copyOf(this.banServer.audiencesAt(this.address)));
+    }
+
+    /**
+     * Get every user who has ever connected from this address, online or not.
+     * <p>
+     * This queries the full address history, and should only be used when that history is asked for.
+     *
+     * @return The users who have connected from this address.
+     */
+    public @NonNull CompletableFuture<@NonNull ImmutableList<@NonNull UuidIdentity>> historicalUsers() {
+      return CompletableFuture.supplyAsync(() -> this.dataService.getUsersByIp(this.address), this.executor);
     }
 
     @Override
@@ -18,8 +18,10 @@
 
 package com.proximyst.ban.model;
 
+import com.proximyst.ban.message.LocaleReceiver;
 import com.proximyst.ban.service.IMessageService;
 import java.util.Date;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 import net.kyori.adventure.text.Component;
@@ -235,26 +237,29 @@ public final class Punishment {
 
   /**
    * @param messageService The messaging service to get the messages from.
+   * @param locale         The locale to get the message in.
    * @return The applicable message for application of this punishment.
    */
-  public @NonNull Component applicationMessage(final @NonNull IMessageService messageService) {
+  public @NonNull Component applicationMessage(final @NonNull IMessageService messageService,
+      final @NonNull Locale locale) {
+    final LocaleReceiver receiver = LocaleReceiver.of(locale);
     switch (this.getPunishmentType()) {
       case BAN:
         return this.getReason().isPresent()
-            ? messageService.applicationsReasonedBan(this)
-            : messageService.applicationsReasonlessBan(this);
+            ? messageService.applicationsReasonedBan(receiver, this)
+            : messageService.applicationsReasonlessBan(receiver, this);
       case KICK:
         return this.getReason().isPresent()
-            ? messageService.applicationsReasonedKick(this)
-            : messageService.applicationsReasonlessKick(this);
+            ? messageService.applicationsReasonedKick(receiver, this)
+            : messageService.applicationsReasonlessKick(receiver, this);
       case WARNING:
         return this.getReason().isPresent()
-            ? messageService.applicationsReasonedWarn(this)
-            : messageService.applicationsReasonlessWarn(this);
+            ? messageService.applicationsReasonedWarn(receiver, this)
+            : messageService.applicationsReasonlessWarn(receiver, this);
       case MUTE:
         return this.getReason().isPresent()
-            ? messageService.applicationsReasonedMute(this)
-            : messageService.applicationsReasonlessMute(this);
+            ? messageService.applicationsReasonedMute(receiver, this)
+            : messageService.applicationsReasonlessMute(receiver, this);
 
       case NOTE:
         // Fall-through
@@ -18,6 +18,7 @@
 
 package com.proximyst.ban.platform;
 
+import java.util.Locale;
 import java.util.UUID;
 import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.identity.Identified;
@@ -50,6 +51,14 @@ public interface IBanAudience extends Identified, Identity, Audience {
   @SideEffectFree
   @NonNull String username();
 
+  /**
+   * The locale of this user, used to pick the language of messages sent to them.
+   *
+   * @return The locale of this user; this is not a deterministic result.
+   */
+  @SideEffectFree
+  @NonNull Locale locale();
+
   /**
    * Checks whether this user has the permission. If the platform supports tristates, it will return {@code true} if
    * granted, else the default value.
@@ -101,5 +110,12 @@ public interface IBanAudience extends Identified, Identity, Audience {
   }
 
   interface IBanPlayer extends IBanAudience {
+    /**
+     * The state kept for this player while they are online.
+     *
+     * @return The session of this player.
+     */
+    @Pure
+    @NonNull PlayerSession session();
   }
 }
@@ -22,14 +22,18 @@ import cloud.commandframework.CommandManager;
 import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.proximyst.ban.BanPluginImpl.BanPluginImplModule;
+import com.proximyst.ban.commands.AltsCommand;
 import com.proximyst.ban.commands.BanCommand;
+import com.proximyst.ban.commands.ExportCommand;
 import com.proximyst.ban.commands.HistoryCommand;
+import com.proximyst.ban.commands.ImportCommand;
 import com.proximyst.ban.commands.KickCommand;
 import com.proximyst.ban.commands.MuteCommand;
 import com.proximyst.ban.commands.UnbanCommand;
 import com.proximyst.ban.commands.UnmuteCommand;
 import com.proximyst.ban.commands.cloud.BaseCommand;
 import com.proximyst.ban.inject.ConfigurationModule;
+import com.proximyst.ban.inject.ExecutorModule;
 import com.proximyst.ban.inject.FactoryModule;
 import com.proximyst.ban.inject.FeignModule;
 import com.proximyst.ban.inject.ServiceModule;
@@ -46,6 +50,7 @@ public interface IBanPlugin {
    */
   @NonNull Module @NonNull [] STANDARD_MODULES = new Module[]{
       new ConfigurationModule(),
+      new ExecutorModule(),
       new FactoryModule(),
       new ServiceModule(),
       new FeignModule(),
@@ -56,8 +61,11 @@ public interface IBanPlugin {
    * The {@link BaseCommand} types to be registered to the {@link #commandManager()}.
    */
   @NonNull Class<? extends BaseCommand> @NonNull [] COMMAND_CLASSES = createArray(
+      AltsCommand.class,
       BanCommand.class,
+      ExportCommand.class,
       HistoryCommand.class,
+      ImportCommand.class,
       KickCommand.class,
       MuteCommand.class,
       UnbanCommand.class,
@@ -20,6 +20,8 @@ package com.proximyst.ban.platform;
 
 import com.proximyst.ban.platform.IBanAudience.IBanConsole;
 import com.proximyst.ban.platform.IBanAudience.IBanPlayer;
+import java.net.InetAddress;
+import java.util.Collection;
 import java.util.UUID;
 import net.kyori.adventure.audience.Audience;
 import org.checkerframework.checker.index.qual.NonNegative;
@@ -64,6 +66,14 @@ public interface IBanServer extends Audience {
    */
   @Nullable IBanPlayer audienceOf(final @NonNull String username);
 
+  /**
+   * Gets the audiences of the users currently connected from the given IP address.
+   *
+   * @param address The address to get the audiences of.
+   * @return The audiences of the users connected from the address; this is not a live view.
+   */
+  @NonNull Collection<? extends IBanPlayer> audiencesAt(final @NonNull InetAddress address);
+
   /**
    * @return Whether the server currently only accepts valid paying users of the game.
    */
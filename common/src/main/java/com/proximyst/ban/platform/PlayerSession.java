@@ -0,0 +1,132 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.platform;
+
+import com.proximyst.ban.model.Punishment;
+import com.proximyst.ban.service.IPunishmentService;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The state kept for an online player for as long as they are connected.
+ * <p>
+ * The mute is loaded when the player logs in, and kept up to date by the {@link IPunishmentService} as they are muted
+ * and unmuted. Expiry is checked on every read, so checking a mute never hits the database.
+ */
+public final class PlayerSession {
+  private final @NonNull AtomicReference<@Nullable Punishment> mute = new AtomicReference<>();
+  private volatile boolean loaded;
+
+  /**
+   * The last of the chat messages held back until the state is loaded, or {@code null} if none are held. Guarded by
+   * {@code this}.
+   */
+  private @Nullable CompletableFuture<@Nullable Void> heldMessages;
+
+  /**
+   * @return Whether the state of the player has been loaded since they logged in.
+   */
+  public boolean isLoaded() {
+    return this.loaded;
+  }
+
+  /**
+   * @return The mute currently applying to the player, if any.
+   */
+  public @NonNull Optional<@NonNull Punishment> activeMute() {
+    final Punishment mute = this.mute.get();
+    if (mute == null) {
+      return Optional.empty();
+    }
+
+    if (!mute.currentlyApplies()) {
+      // It has expired; don't clear a newer mute set in the meantime.
+      this.mute.compareAndSet(mute, null);
+      return Optional.empty();
+    }
+
+    return Optional.of(mute);
+  }
+
+  /**
+   * Set the mute loaded when the player logged in, unless they have been muted since.
+   *
+   * @param mute The mute loaded, if any.
+   */
+  public void loadMute(final @Nullable Punishment mute) {
+    if (mute != null) {
+      this.mute.compareAndSet(null, mute);
+    }
+    this.loaded = true;
+  }
+
+  /**
+   * Hold a chat message back until the state of the player is loaded, and every message held before it is released.
+   *
+   * @param load    Loads the state of the player, if no messages are held yet. It must complete normally.
+   * @param release Releases the message.
+   * @return Whether the message was held; messages are not held once the state is loaded and no others are left.
+   */
+  public synchronized boolean holdMessage(final @NonNull Supplier<@NonNull CompletableFuture<@Nullable Void>> load,
+      final @NonNull Runnable release) {
+    if (this.heldMessages == null) {
+      if (this.loaded) {
+        return false;
+      }
+      this.heldMessages = load.get();
+    }
+
+    // Each message is only released after the one before it, even if that one failed to be released.
+    final CompletableFuture<Void> next = this.heldMessages.handle(($, $$) -> {
+      release.run();
+      return null;
+    });
+    this.heldMessages = next;
+    next.whenComplete(($, $$) -> {
+      synchronized (this) {
+        if (this.heldMessages == next) {
+          this.heldMessages = null;
+        }
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Set the mute currently applying to the player.
+   *
+   * @param mute The new mute.
+   */
+  public void mute(final @NonNull Punishment mute) {
+    this.mute.set(mute);
+  }
+
+  /**
+   * Clear the mute of the player, if it is the given one.
+   *
+   * @param mute The mute which was lifted.
+   */
+  public void unmute(final @NonNull Punishment mute) {
+    this.mute.updateAndGet(current -> current != null && current.getId() == mute.getId() ? null : current);
+  }
+}
@@ -0,0 +1,81 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.service;
+
+import com.google.common.collect.ImmutableList;
+import com.proximyst.ban.model.AltAccount;
+import com.proximyst.ban.model.BanIdentity;
+import com.proximyst.ban.model.BanIdentity.UuidIdentity;
+import com.proximyst.ban.model.Punishment;
+import java.net.InetAddress;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Detects alternative accounts through the IP addresses accounts have connected from.
+ * <p>
+ * Accounts and addresses form a graph held in memory, with an edge for every address an account has connected from.
+ * Two accounts are alts of each other if they are connected in this graph.
+ */
+public interface IAltService {
+  /**
+   * Load every known link between accounts and addresses into memory.
+   *
+   * @return A future completed once the links are loaded.
+   */
+  @NonNull CompletableFuture<@Nullable Void> load();
+
+  /**
+   * Record that a user has connected from an address, both in memory and in the database.
+   *
+   * @param identity The user who connected.
+   * @param address  The address they connected from.
+   * @return A future completed once the link is saved.
+   */
+  @NonNull CompletableFuture<@Nullable Void> recordLogin(final @NonNull UuidIdentity identity,
+      final @NonNull InetAddress address);
+
+  /**
+   * Keep track of a ban being saved or lifted, such that alts of banned accounts can be found.
+   *
+   * @param ban The ban which was saved or lifted.
+   */
+  void trackBan(final @NonNull Punishment ban);
+
+  /**
+   * Get the accounts linked to the target within the given amount of hops, nearest first.
+   *
+   * @param target  The account or address to find the alts of.
+   * @param maxHops The maximum amount of shared addresses to go through.
+   * @return The linked accounts, excluding the target itself.
+   */
+  @NonNull ImmutableList<@NonNull AltAccount> getAlts(final @NonNull BanIdentity target, final @Positive int maxHops);
+
+  /**
+   * Get the nearest banned account linked to the given account, within the configured amount of hops.
+   *
+   * @param uuid The account to check.
+   * @return The nearest banned alt, if any.
+   */
+  @NonNull Optional<@NonNull AltAccount> getBannedAlt(final @NonNull UUID uuid);
+}
@@ -24,11 +24,16 @@ import com.proximyst.ban.model.BanIdentity.IpIdentity;
 import com.proximyst.ban.model.BanIdentity.UuidIdentity;
 import com.proximyst.ban.model.Punishment;
 import com.proximyst.ban.model.PunishmentBuilder;
+import com.proximyst.ban.model.PunishmentType;
+import java.io.IOException;
 import java.net.InetAddress;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.index.qual.Positive;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -52,6 +57,54 @@ public interface IDataService {
    */
   @NonNull List<@NonNull Punishment> getPunishmentsForTarget(final @NonNull BanIdentity identity);
 
+  /**
+   * Get all archived punishments for a {@link BanIdentity}.
+   *
+   * @param identity The target of the punishments.
+   * @return The archived punishments of the target in a mutable list.
+   */
+  @NonNull List<@NonNull Punishment> getArchivedPunishmentsForTarget(final @NonNull BanIdentity identity);
+
+  /**
+   * Move old punishments which no longer apply into the archive. Bans are never archived.
+   *
+   * @param horizon The time in milliseconds since the UNIX epoch before which punishments may be archived.
+   * @param limit   The maximum amount of punishments to archive.
+   * @return The amount of punishments archived.
+   */
+  @NonNegative int archivePunishments(final long horizon, final @Positive int limit);
+
+  /**
+   * Make sure punishments from the given year have a partition to be stored in, if the storage is partitioned.
+   *
+   * @param year The year to create a partition for.
+   */
+  void createPunishmentPartition(final int year);
+
+  /**
+   * Get all bans of IP addresses which currently apply.
+   *
+   * @return The active IP bans, in no particular order.
+   */
+  @NonNull List<@NonNull Punishment> getActiveIpBans();
+
+  /**
+   * Get all bans of users which currently apply.
+   *
+   * @return The active user bans, in no particular order.
+   */
+  @NonNull List<@NonNull Punishment> getActiveUserBans();
+
+  /**
+   * Get the latest punishment of a type which currently applies to a {@link BanIdentity}.
+   *
+   * @param identity The target of the punishment.
+   * @param type     The type of the punishment.
+   * @return The latest active punishment of the type, if any.
+   */
+  @NonNull Optional<@NonNull Punishment> getActivePunishment(final @NonNull BanIdentity identity,
+      final @NonNull PunishmentType type);
+
   /**
    * Save a punishment in the database.
    *
@@ -60,6 +113,19 @@ public interface IDataService {
    */
   @NonNull Punishment savePunishment(final @NonNull PunishmentBuilder punishmentBuilder);
 
+  /**
+   * Save many punishments at once, skipping those which already exist.
+   * <p>
+   * A punishment already exists if one of the same type was issued to the same target at the same time, whether it is
+   * archived or not, which makes importing the same punishments twice harmless.
+   *
+   * @param punishments The punishments to save.
+   * @param archived    Whether to save the punishments straight into the archive.
+   * @return The amount of punishments saved.
+   */
+  @NonNegative int importPunishments(final @NonNull List<@NonNull PunishmentBuilder> punishments,
+      final boolean archived);
+
   /**
    * Lift a punishment.
    *
@@ -99,6 +165,16 @@ public interface IDataService {
    */
   @NonNull Optional<@NonNull BanIdentity> getUser(final long id);
 
+  /**
+   * Get an {@link IpIdentity} from the database.
+   * <p>
+   * This will not create the identity if it is not in the database.
+   *
+   * @param address The IP address of the identity to get.
+   * @return The identity found, if any.
+   */
+  @NonNull Optional<@NonNull IpIdentity> getIpIdentity(final @NonNull InetAddress address);
+
   /**
    * Get {@link UuidIdentity}s from the database.
    *
@@ -107,6 +183,13 @@ public interface IDataService {
    */
   @NonNull ImmutableList<@NonNull UuidIdentity> getUsersByIp(final @NonNull InetAddress address);
 
+  /**
+   * Read every link between a user and an IP address they have connected from.
+   *
+   * @param consumer The consumer to pass each link to.
+   */
+  void readAddressLinks(final @NonNull AddressLinkConsumer consumer);
+
   /**
    * Get {@link UuidIdentity}s from the database.
    *
@@ -133,8 +216,28 @@ public interface IDataService {
    */
   @NonNull Optional<@NonNull Long> getUserCacheDate(final @NonNull UUID uuid);
 
+  /**
+   * Get the usernames of the most recently seen users.
+   *
+   * @param limit The maximum amount of usernames to get.
+   * @return The usernames found, ordered by most recently seen first.
+   */
+  @NonNull List<@NonNull String> getRecentUsernames(final @NonNegative int limit);
+
   @NonNull UuidIdentity createIdentity(final @NonNull UUID uuid, final @NonNull String username);
 
+  /**
+   * Find the identities of many users at once, creating those which do not exist yet.
+   * <p>
+   * Only users whose username is given can be created; the others are left out of the result unless they already
+   * exist. Nothing is looked up outside of the storage.
+   *
+   * @param users The usernames of the users by their UUIDs, or {@code null} where unknown.
+   * @return The identities of the users by their UUIDs.
+   */
+  @NonNull Map<@NonNull UUID, @NonNull UuidIdentity> getOrCreateIdentities(
+      final @NonNull Map<@NonNull UUID, @Nullable String> users);
+
   @NonNull IpIdentity createIdentity(final @NonNull InetAddress address,
       final @NonNull UuidIdentity @NonNull ... identities);
 
@@ -142,4 +245,34 @@ public interface IDataService {
    * Update the expirations of all existing punishments.
    */
   void updateExpirations();
+
+  /**
+   * Stream all users, IP addresses, and punishments, including archived ones, to a sink, in that order.
+   * <p>
+   * The data is streamed rather than loaded all at once, and is read from a single consistent view of the storage
+   * where possible.
+   *
+   * @param sink The sink to write the data to.
+   * @throws IOException If the sink fails.
+   */
+  void exportData(final @NonNull ExportSink sink) throws IOException;
+
+  /**
+   * A receiver of the links read by {@link #readAddressLinks(AddressLinkConsumer)}.
+   */
+  @FunctionalInterface
+  interface AddressLinkConsumer {
+    void accept(final @NonNull InetAddress address, final @NonNull UUID uuid, final @NonNull String username);
+  }
+
+  /**
+   * A receiver of the data of an {@link #exportData(ExportSink) export}.
+   */
+  interface ExportSink {
+    void user(final @NonNull UUID uuid, final @NonNull String username) throws IOException;
+
+    void address(final @NonNull InetAddress address, final @NonNull UUID uuid) throws IOException;
+
+    void punishment(final @NonNull Punishment punishment, final boolean archived) throws IOException;
+  }
 }
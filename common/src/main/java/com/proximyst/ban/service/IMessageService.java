@@ -27,6 +27,7 @@ import com.proximyst.ban.platform.IBanAudience;
 import com.proximyst.moonshine.annotation.Message;
 import com.proximyst.moonshine.annotation.Placeholder;
 import com.proximyst.moonshine.annotation.Receiver;
+import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.Component;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
@@ -39,6 +40,19 @@ public interface IMessageService {
   void errorNoActiveMute(@Receiver final IBanAudience audience,
       @Placeholder final BanIdentity target);
 
+  @Message("error.unknown-identity")
+  void errorUnknownIdentity(@Receiver final IBanAudience audience,
+      @Placeholder final String input);
+
+  @Message("error.export-failed")
+  void errorExportFailed(@Receiver final IBanAudience audience,
+      @Placeholder final String error);
+
+  @Message("error.import-failed")
+  void errorImportFailed(@Receiver final IBanAudience audience,
+      @Placeholder final String file,
+      @Placeholder final String error);
+
   @Message("commands.feedback.ban")
   void feedbackBan(@Receiver final IBanAudience audience,
       @Placeholder final BanIdentity target);
@@ -63,6 +77,31 @@ public interface IMessageService {
   void feedbackUnmute(@Receiver final IBanAudience audience,
       @Placeholder final BanIdentity target);
 
+  @Message("commands.feedback.export")
+  void feedbackExport(@Receiver final IBanAudience audience);
+
+  @Message("commands.feedback.export.done")
+  void feedbackExportDone(@Receiver final IBanAudience audience,
+      @Placeholder final String file,
+      @Placeholder final int records,
+      @Placeholder final int seconds);
+
+  @Message("commands.feedback.import")
+  void feedbackImport(@Receiver final IBanAudience audience,
+      @Placeholder final String file);
+
+  @Message("commands.feedback.import.progress")
+  void feedbackImportProgress(@Receiver final IBanAudience audience,
+      @Placeholder final int imported,
+      @Placeholder final int skipped,
+      @Placeholder final int rate);
+
+  @Message("commands.feedback.import.done")
+  void feedbackImportDone(@Receiver final IBanAudience audience,
+      @Placeholder final int imported,
+      @Placeholder final int skipped,
+      @Placeholder final int seconds);
+
   @Message("commands.feedback.history.header")
   void feedbackHistoryHeader(@Receiver final IBanAudience audience,
       @Placeholder final BanIdentity target,
@@ -72,6 +111,27 @@ public interface IMessageService {
   void feedbackHistoryEntry(@Receiver final IBanAudience audience,
       @Placeholder final Punishment punishment);
 
+  @Message("commands.feedback.alts.header")
+  void feedbackAltsHeader(@Receiver final IBanAudience audience,
+      @Placeholder final BanIdentity target,
+      @Placeholder final int amount);
+
+  @Message("commands.feedback.alts.entry")
+  void feedbackAltsEntry(@Receiver final IBanAudience audience,
+      @Placeholder final String name,
+      @Placeholder final int hops);
+
+  @Message("commands.feedback.alts.entry.banned")
+  void feedbackAltsEntryBanned(@Receiver final IBanAudience audience,
+      @Placeholder final String name,
+      @Placeholder final int hops);
+
+  @Message("broadcasts.alt-login")
+  @ServerReceiver(permission = BanPermissions.NOTIFY_ALTS)
+  void broadcastsAltLogin(@Placeholder final String name,
+      @Placeholder final String alt,
+      @Placeholder final int hops);
+
   @Message("broadcasts.reasonless.ban")
   @ServerReceiver(permission = BanPermissions.NOTIFY_BAN)
   void broadcastsReasonlessBan(@Placeholder final Punishment punishment);
@@ -113,68 +173,81 @@ public interface IMessageService {
   void broadcastsUnmute(@Placeholder final Punishment punishment);
 
   @Message("applications.reasonless.ban")
-  @NonNull Component applicationsReasonlessBan(@Placeholder final Punishment punishment);
+  @NonNull Component applicationsReasonlessBan(@Receiver final Audience receiver,
+      @Placeholder final Punishment punishment);
 
   @Message("applications.reasonless.mute")
-  @NonNull Component applicationsReasonlessMute(@Placeholder final Punishment punishment);
+  @NonNull Component applicationsReasonlessMute(@Receiver final Audience receiver,
+      @Placeholder final Punishment punishment);
 
   @Message("applications.reasonless.kick")
-  @NonNull Component applicationsReasonlessKick(@Placeholder final Punishment punishment);
+  @NonNull Component applicationsReasonlessKick(@Receiver final Audience receiver,
+      @Placeholder final Punishment punishment);
 
   @Message("applications.reasonless.warn")
-  @NonNull Component applicationsReasonlessWarn(@Placeholder final Punishment punishment);
+  @NonNull Component applicationsReasonlessWarn(@Receiver final Audience receiver,
+      @Placeholder final Punishment punishment);
 
   @Message("applications.reasoned.ban")
-  @NonNull Component applicationsReasonedBan(@Placeholder final Punishment punishment);
+  @NonNull Component applicationsReasonedBan(@Receiver final Audience receiver,
+      @Placeholder final Punishment punishment);
 
   @Message("applications.reasoned.mute")
-  @NonNull Component applicationsReasonedMute(@Placeholder final Punishment punishment);
+  @NonNull Component applicationsReasonedMute(@Receiver final Audience receiver,
+      @Placeholder final Punishment punishment);
 
   @Message("applications.reasoned.kick")
-  @NonNull Component applicationsReasonedKick(@Placeholder final Punishment punishment);
+  @NonNull Component applicationsReasonedKick(@Receiver final Audience receiver,
+      @Placeholder final Punishment punishment);
 
   @Message("applications.reasoned.warn")
-  @NonNull Component applicationsReasonedWarn(@Placeholder final Punishment punishment);
+  @NonNull Component applicationsReasonedWarn(@Receiver final Audience receiver,
+      @Placeholder final Punishment punishment);
+
+  @Message("applications.not-ready")
+  @NonNull Component applicationsNotReady(@Receiver final Audience receiver);
 
   @Message("formatting.permanently")
-  @NonNull Component formattingPermanently();
+  @NonNull Component formattingPermanently(@Receiver final Audience receiver);
 
   @Message("formatting.never")
-  @NonNull Component formattingNever();
+  @NonNull Component formattingNever(@Receiver final Audience receiver);
 
   @Message("formatting.duration")
-  @NonNull Component formattingDuration(@Placeholder final String duration);
+  @NonNull Component formattingDuration(@Receiver final Audience receiver,
+      @Placeholder final String duration);
 
   @Message("formatting.lifted")
-  @NonNull Component formattingLifted();
+  @NonNull Component formattingLifted(@Receiver final Audience receiver);
 
   @Message("formatting.verbs.past.ban")
-  @NonNull Component formattingVerbsPastBan();
+  @NonNull Component formattingVerbsPastBan(@Receiver final Audience receiver);
 
   @Message("formatting.verbs.past.kick")
-  @NonNull Component formattingVerbsPastKick();
+  @NonNull Component formattingVerbsPastKick(@Receiver final Audience receiver);
 
   @Message("formatting.verbs.past.mute")
-  @NonNull Component formattingVerbsPastMute();
+  @NonNull Component formattingVerbsPastMute(@Receiver final Audience receiver);
 
   @Message("formatting.verbs.past.warn")
-  @NonNull Component formattingVerbsPastWarn();
+  @NonNull Component formattingVerbsPastWarn(@Receiver final Audience receiver);
 
   @Message("formatting.verbs.past.note")
-  @NonNull Component formattingVerbsPastNote();
+  @NonNull Component formattingVerbsPastNote(@Receiver final Audience receiver);
 
-  default @NonNull Component formattingVerbsPast(final @NonNull PunishmentType type) {
+  default @NonNull Component formattingVerbsPast(final @NonNull Audience receiver,
+      final @NonNull PunishmentType type) {
     switch (type) {
       case BAN:
-        return this.formattingVerbsPastBan();
+        return this.formattingVerbsPastBan(receiver);
       case KICK:
-        return this.formattingVerbsPastKick();
+        return this.formattingVerbsPastKick(receiver);
       case WARNING:
-        return this.formattingVerbsPastWarn();
+        return this.formattingVerbsPastWarn(receiver);
       case MUTE:
-        return this.formattingVerbsPastMute();
+        return this.formattingVerbsPastMute(receiver);
       case NOTE:
-        return this.formattingVerbsPastNote();
+        return this.formattingVerbsPastNote(receiver);
     }
 
     throw new IllegalStateException("Unknown type; open an issue at https://github.com/Proximyst/ban");
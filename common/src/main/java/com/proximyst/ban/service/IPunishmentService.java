@@ -23,10 +23,14 @@ import com.proximyst.ban.model.BanIdentity;
 import com.proximyst.ban.model.Punishment;
 import com.proximyst.ban.model.PunishmentBuilder;
 import com.proximyst.ban.model.PunishmentType;
+import com.proximyst.ban.platform.IBanAudience.IBanPlayer;
+import java.net.InetAddress;
 import java.util.Comparator;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import net.kyori.adventure.text.Component;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -40,6 +44,17 @@ public interface IPunishmentService {
   @NonNull CompletableFuture<@NonNull ImmutableList<@NonNull Punishment>> getPunishments(
       final @NonNull BanIdentity identity);
 
+  /**
+   * Get the archived punishments of a user.
+   * <p>
+   * These are not included in {@link #getPunishments(BanIdentity)}.
+   *
+   * @param identity The target whose archived punishments are requested.
+   * @return An immutable copy of the archived punishments of the player where order is not guaranteed.
+   */
+  @NonNull CompletableFuture<@NonNull ImmutableList<@NonNull Punishment>> getArchivedPunishments(
+      final @NonNull BanIdentity identity);
+
   /**
    * Save the given punishment data as a new punishment.
    *
@@ -48,6 +63,15 @@ public interface IPunishmentService {
    */
   @NonNull CompletableFuture<@NonNull Punishment> savePunishment(final @NonNull PunishmentBuilder punishmentBuilder);
 
+  /**
+   * Load the session state of a player who is logging in, such as their active mute.
+   *
+   * @param player   The player logging in.
+   * @param identity The identity of the player.
+   */
+  @NonNull CompletableFuture<@Nullable Void> loadSession(final @NonNull IBanPlayer player,
+      final @NonNull BanIdentity identity);
+
   /**
    * Apply the punishment to the target if they are online.
    * <p>
@@ -57,6 +81,18 @@ public interface IPunishmentService {
    */
   @NonNull CompletableFuture<@Nullable Void> applyPunishment(final @NonNull Punishment punishment);
 
+  /**
+   * Get the message shown to the target upon application of the punishment.
+   * <p>
+   * The message is rendered once per punishment and locale, and reused until the punishment is lifted.
+   *
+   * @param punishment The punishment to get the message of.
+   * @param locale     The locale of the target.
+   * @return The rendered application message.
+   * @see Punishment#applicationMessage(IMessageService)
+   */
+  @NonNull Component applicationMessage(final @NonNull Punishment punishment, final @NonNull Locale locale);
+
   /**
    * Lift a punishment if possible.
    *
@@ -73,6 +109,16 @@ public interface IPunishmentService {
    */
   void announcePunishment(final @NonNull Punishment punishment);
 
+  /**
+   * Get the latest punishment of a type which currently applies to a target, if any.
+   *
+   * @param identity The target of the punishment.
+   * @param type     The type of the punishment.
+   * @return An optional of the punishment record.
+   */
+  @NonNull CompletableFuture<@NonNull Optional<@NonNull Punishment>> getActivePunishment(
+      final @NonNull BanIdentity identity, final @NonNull PunishmentType type);
+
   /**
    * Get the current active ban on a target, if any.
    *
@@ -81,12 +127,7 @@ public interface IPunishmentService {
    */
   default @NonNull CompletableFuture<@NonNull Optional<@NonNull Punishment>> getActiveBan(
       final @NonNull BanIdentity identity) {
-    return this.getPunishments(identity)
-        .thenApply(list -> list.stream()
-            .filter(punishment -> punishment.getPunishmentType() == PunishmentType.BAN
-                && punishment.currentlyApplies())
-            .max(Comparator.comparingLong(Punishment::getTime))
-        );
+    return this.getActivePunishment(identity, PunishmentType.BAN);
   }
 
   /**
@@ -97,14 +138,28 @@ public interface IPunishmentService {
    */
   default @NonNull CompletableFuture<@NonNull Optional<@NonNull Punishment>> getActiveMute(
       final @NonNull BanIdentity identity) {
-    return this.getPunishments(identity)
-        .thenApply(list -> list.stream()
-            .filter(punishment -> punishment.getPunishmentType() == PunishmentType.MUTE
-                && punishment.currentlyApplies())
-            .max(Comparator.comparingLong(Punishment::getTime))
-        );
+    return this.getActivePunishment(identity, PunishmentType.MUTE);
   }
 
+  /**
+   * Load the active IP bans into memory, such that {@link #getActiveIpBan(InetAddress)} needs no queries.
+   * <p>
+   * This must complete before players are let in, or IP bans will not be enforced.
+   *
+   * @return A future completed once the IP bans are loaded.
+   */
+  @NonNull CompletableFuture<@Nullable Void> loadIpBans();
+
+  /**
+   * Get the current active ban on an IP address, if any.
+   * <p>
+   * This is a lookup in memory, and is kept up to date as bans are saved and lifted.
+   *
+   * @param address The address to check.
+   * @return The active ban on the address, if any.
+   */
+  @NonNull Optional<@NonNull Punishment> getActiveIpBan(final @NonNull InetAddress address);
+
   /**
    * Get all notes applied to a target.
    *
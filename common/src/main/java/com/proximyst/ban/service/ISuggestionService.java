@@ -0,0 +1,61 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A service to provide command suggestions without having to scan every online player.
+ */
+public interface ISuggestionService {
+  /**
+   * Get the usernames starting with the given input, ignoring case.
+   * <p>
+   * This includes both online players and recently seen offline players.
+   *
+   * @param input The input to complete.
+   * @return The usernames found, capped to a reasonable amount.
+   */
+  @NonNull List<@NonNull String> suggestUsernames(final @NonNull String input);
+
+  /**
+   * Get the usernames of online players starting with the given input, ignoring case.
+   *
+   * @param input The input to complete.
+   * @return The usernames found, capped to a reasonable amount.
+   */
+  @NonNull List<@NonNull String> suggestOnlineUsernames(final @NonNull String input);
+
+  /**
+   * Add a username to the suggestions, such as when a player logs in.
+   *
+   * @param username The username to add.
+   */
+  void indexUsername(final @NonNull String username);
+
+  /**
+   * Add the most recently seen users from the data storage to the suggestions.
+   *
+   * @return A future completed once the users have been added.
+   */
+  @NonNull CompletableFuture<@Nullable Void> indexRecentUsers();
+}
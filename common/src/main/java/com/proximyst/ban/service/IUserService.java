@@ -26,13 +26,18 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 
 public interface IUserService {
   /**
-   * Save the given user.
+   * Save the given user, and cache their identity until {@link #uncachePlayer(UUID, Object)} is called for the same
+   * connection.
+   * <p>
+   * This is meant to be called when a player logs in, such that lookups of online players never hit the database.
    *
    * @param uuid The {@link UUID} of the user to save.
    * @param username The username of the user to save.
+   * @param connection The platform's object for the connection they are logging in on.
    * @see IDataService#createIdentity(UUID, String)
    */
-  @NonNull CompletableFuture<@NonNull UuidIdentity> saveUser(final @NonNull UUID uuid, final @NonNull String username);
+  @NonNull CompletableFuture<@NonNull UuidIdentity> saveUser(final @NonNull UUID uuid, final @NonNull String username,
+      final @NonNull Object connection);
 
   /**
    * Get the user data of a user with the given name, if they exist.
@@ -67,9 +72,13 @@ public interface IUserService {
   @NonNull CompletableFuture<@NonNull Optional<@NonNull UuidIdentity>> getUserUpdated(final @NonNull UUID uuid);
 
   /**
-   * Remove the player from the caches, if they were there.
+   * Remove the player from the caches, if they were cached by the given connection.
+   * <p>
+   * A player who reconnects may log in again before their old connection is gone; the identity cached for the new
+   * connection is kept when the old one disconnects.
    *
    * @param uuid The UUID of the player to remove.
+   * @param connection The connection passed to {@link #saveUser(UUID, String, Object)}.
    */
-  void uncachePlayer(final @NonNull UUID uuid);
+  void uncachePlayer(final @NonNull UUID uuid, final @NonNull Object connection);
 }
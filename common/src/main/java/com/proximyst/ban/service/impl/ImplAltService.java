@@ -0,0 +1,337 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
+import com.proximyst.ban.model.AltAccount;
+import com.proximyst.ban.model.BanIdentity;
+import com.proximyst.ban.model.BanIdentity.UuidIdentity;
+import com.proximyst.ban.model.Punishment;
+import com.proximyst.ban.model.PunishmentType;
+import com.proximyst.ban.service.IAltService;
+import com.proximyst.ban.service.IDataService;
+import com.proximyst.ban.utils.UnionFind;
+import java.net.InetAddress;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An {@link IAltService} keeping the account and address graph in memory.
+ * <p>
+ * Accounts and addresses are both nodes, numbered in the order they are first seen. Connected components are tracked
+ * with a {@link UnionFind}, along with how many banned accounts each component has, so logins of accounts with no
+ * banned account anywhere in their component are cleared without walking the graph at all.
+ */
+@Singleton
+public final class ImplAltService implements IAltService {
+  private static final @Positive int ALERT_HOPS = Integer.getInteger("ban.altAlertHops", 2);
+  private static final @Positive int MAXIMUM_RESULTS = Integer.getInteger("ban.altMaxResults", 100);
+  /**
+   * The maximum amount of nodes visited per lookup, such that addresses shared by huge amounts of accounts, like those
+   * of public proxies, cannot make lookups slow.
+   */
+  private static final @Positive int MAXIMUM_VISITED = Integer.getInteger("ban.altMaxVisited", 10_000);
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int @NonNull [] NO_EDGES = new int[0];
+
+  private final @NonNull IDataService dataService;
+  private final @NonNull Executor executor;
+
+  /**
+   * The active bans of accounts, by their UUIDs.
+   */
+  private final @NonNull Map<@NonNull UUID, @NonNull Punishment> bans = new ConcurrentHashMap<>();
+
+  // Everything below is guarded by the graph lock.
+  private final @NonNull Object graphLock = new Object();
+  /**
+   * The node of every account ({@link UUID}) and address ({@link InetAddress}).
+   */
+  private final @NonNull Map<@NonNull Object, @NonNull Integer> nodes = new HashMap<>(INITIAL_CAPACITY);
+  private final @NonNull UnionFind components = new UnionFind(INITIAL_CAPACITY);
+  private @Nullable Object @NonNull [] keys = new Object[INITIAL_CAPACITY];
+  /**
+   * The usernames of account nodes; {@code null} for address nodes.
+   */
+  private @Nullable String @NonNull [] usernames = new String[INITIAL_CAPACITY];
+  private int @NonNull [] @NonNull [] edges = new int[INITIAL_CAPACITY][];
+  private int @NonNull [] degrees = new int[INITIAL_CAPACITY];
+  /**
+   * How many banned accounts each component has, by the {@link UnionFind#find(int) representative} of the component.
+   */
+  private int @NonNull [] bannedCounts = new int[INITIAL_CAPACITY];
+  private boolean @NonNull [] countedAsBanned = new boolean[INITIAL_CAPACITY];
+
+  @Inject
+  ImplAltService(final @NonNull IDataService dataService,
+      final @NonNull @BanAsyncExecutor Executor executor) {
+    this.dataService = dataService;
+    this.executor = executor;
+  }
+
+  @Override
+  public @NonNull CompletableFuture<@Nullable Void> load() {
+    return CompletableFuture.runAsync(() -> {
+      this.dataService.readAddressLinks((address, uuid, username) -> {
+        synchronized (this.graphLock) {
+          this.link(uuid, username, address);
+        }
+      });
+
+      for (final Punishment ban : this.dataService.getActiveUserBans()) {
+        this.trackBan(ban);
+      }
+    }, this.executor);
+  }
+
+  @Override
+  public @NonNull CompletableFuture<@Nullable Void> recordLogin(final @NonNull UuidIdentity identity,
+      final @NonNull InetAddress address) {
+    final boolean added;
+    synchronized (this.graphLock) {
+      added = this.link(identity.uuid(), identity.username(), address);
+    }
+
+    if (!added) {
+      // The link is already known, and therefore already saved.
+      return CompletableFuture.completedFuture(null);
+    }
+
+    return CompletableFuture.runAsync(() -> this.dataService.createIdentity(address, identity), this.executor);
+  }
+
+  @Override
+  public void trackBan(final @NonNull Punishment ban) {
+    if (ban.getPunishmentType() != PunishmentType.BAN) {
+      return;
+    }
+
+    final UUID uuid = ban.getTarget().asUuidIdentity().map(UuidIdentity::uuid).orElse(null);
+    if (uuid == null) {
+      return;
+    }
+
+    if (ban.currentlyApplies()) {
+      this.bans.put(uuid, ban);
+    } else {
+      // Only forget the ban if it is the one lifted; it may already have been replaced by a newer one.
+      this.bans.computeIfPresent(uuid, ($, current) -> current.getId() == ban.getId() ? null : current);
+    }
+
+    synchronized (this.graphLock) {
+      final Integer node = this.nodes.get(uuid);
+      if (node != null) {
+        this.countBanned(node, this.bans.containsKey(uuid));
+      }
+    }
+  }
+
+  @Override
+  public @NonNull ImmutableList<@NonNull AltAccount> getAlts(final @NonNull BanIdentity target,
+      final @Positive int maxHops) {
+    final Object key = target.asUuidIdentity().<Object>map(UuidIdentity::uuid)
+        .or(() -> target.asIpIdentity().map(BanIdentity.IpIdentity::address))
+        .orElse(null);
+    if (key == null) {
+      return ImmutableList.of();
+    }
+
+    synchronized (this.graphLock) {
+      final Integer start = this.nodes.get(key);
+      if (start == null) {
+        return ImmutableList.of();
+      }
+
+      final ImmutableList.Builder<AltAccount> alts = ImmutableList.builder();
+      this.walk(start, maxHops, MAXIMUM_RESULTS, alt -> {
+        alts.add(alt);
+        return true;
+      });
+      return alts.build();
+    }
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull AltAccount> getBannedAlt(final @NonNull UUID uuid) {
+    synchronized (this.graphLock) {
+      final Integer start = this.nodes.get(uuid);
+      if (start == null || this.bannedCounts[this.components.find(start)] == 0) {
+        // Nothing they are linked to has been banned.
+        return Optional.empty();
+      }
+
+      final AltAccount[] found = new AltAccount[1];
+      this.walk(start, ALERT_HOPS, Integer.MAX_VALUE, alt -> {
+        if (!alt.isBanned()) {
+          return true;
+        }
+
+        // The walk is breadth first, so this is the nearest one.
+        found[0] = alt;
+        return false;
+      });
+      return Optional.ofNullable(found[0]);
+    }
+  }
+
+  /**
+   * Walk the accounts linked to a node breadth first, and therefore nearest first.
+   * <p>
+   * The graph lock must be held.
+   *
+   * @param start      The node to start from.
+   * @param maxHops    The maximum amount of addresses to go through.
+   * @param maxResults The maximum amount of accounts to visit.
+   * @param visitor    The visitor of each account, returning whether to continue.
+   */
+  private void walk(final @NonNegative int start,
+      final @Positive int maxHops,
+      final @Positive int maxResults,
+      final @NonNull AltVisitor visitor) {
+    final Map<Integer, Integer> distances = new HashMap<>();
+    final ArrayDeque<Integer> queue = new ArrayDeque<>();
+    distances.put(start, 0);
+    queue.add(start);
+
+    // Accounts and addresses alternate, so every other edge is a hop through an address.
+    final int maxDistance = maxHops * 2;
+    int results = 0;
+    while (!queue.isEmpty() && distances.size() < MAXIMUM_VISITED) {
+      final int node = queue.poll();
+      final int distance = distances.get(node);
+
+      final String username = this.usernames[node];
+      if (node != start && username != null) {
+        final UUID uuid = (UUID) this.keys[node];
+        final Punishment ban = this.bans.get(uuid);
+        final boolean banned = ban != null && ban.currentlyApplies();
+        final AltAccount alt = new AltAccount(uuid, username, (distance + 1) / 2, banned);
+        if (!visitor.visit(alt) || ++results >= maxResults) {
+          return;
+        }
+      }
+
+      if (distance >= maxDistance) {
+        continue;
+      }
+
+      final int[] neighbours = this.edges[node];
+      for (int i = 0; i < this.degrees[node]; ++i) {
+        if (distances.putIfAbsent(neighbours[i], distance + 1) == null) {
+          queue.add(neighbours[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Link an account to an address. The graph lock must be held.
+   *
+   * @return Whether the link is new.
+   */
+  private boolean link(final @NonNull UUID uuid, final @NonNull String username, final @NonNull InetAddress address) {
+    final int account = this.node(uuid);
+    this.usernames[account] = username;
+    final int addressNode = this.node(address);
+
+    // Accounts rarely have many addresses, but addresses may have many accounts; search the smaller list.
+    final int from = this.degrees[account] <= this.degrees[addressNode] ? account : addressNode;
+    final int to = from == account ? addressNode : account;
+    for (int i = 0; i < this.degrees[from]; ++i) {
+      if (this.edges[from][i] == to) {
+        return false;
+      }
+    }
+
+    this.addEdge(account, addressNode);
+    this.addEdge(addressNode, account);
+
+    final int rootA = this.components.find(account);
+    final int rootB = this.components.find(addressNode);
+    if (rootA != rootB) {
+      final int banned = this.bannedCounts[rootA] + this.bannedCounts[rootB];
+      this.bannedCounts[this.components.union(rootA, rootB)] = banned;
+    }
+    return true;
+  }
+
+  private int node(final @NonNull Object key) {
+    final Integer existing = this.nodes.get(key);
+    if (existing != null) {
+      return existing;
+    }
+
+    final int node = this.components.add();
+    if (node == this.keys.length) {
+      final int capacity = this.keys.length * 2;
+      this.keys = Arrays.copyOf(this.keys, capacity);
+      this.usernames = Arrays.copyOf(this.usernames, capacity);
+      this.edges = Arrays.copyOf(this.edges, capacity);
+      this.degrees = Arrays.copyOf(this.degrees, capacity);
+      this.bannedCounts = Arrays.copyOf(this.bannedCounts, capacity);
+      this.countedAsBanned = Arrays.copyOf(this.countedAsBanned, capacity);
+    }
+
+    this.keys[node] = key;
+    this.edges[node] = NO_EDGES;
+    this.nodes.put(key, node);
+
+    if (key instanceof UUID && this.bans.containsKey(key)) {
+      this.countBanned(node, true);
+    }
+    return node;
+  }
+
+  private void addEdge(final int from, final int to) {
+    int[] edges = this.edges[from];
+    if (this.degrees[from] == edges.length) {
+      edges = Arrays.copyOf(edges, Math.max(4, edges.length * 2));
+      this.edges[from] = edges;
+    }
+    edges[this.degrees[from]++] = to;
+  }
+
+  private void countBanned(final int node, final boolean banned) {
+    if (this.countedAsBanned[node] == banned) {
+      return;
+    }
+
+    this.countedAsBanned[node] = banned;
+    this.bannedCounts[this.components.find(node)] += banned ? 1 : -1;
+  }
+
+  @FunctionalInterface
+  private interface AltVisitor {
+    boolean visit(final @NonNull AltAccount alt);
+  }
+}
@@ -18,15 +18,21 @@
 
 package com.proximyst.ban.service.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
-import com.proximyst.ban.config.SqlConfig;
+import com.proximyst.ban.config.Configuration;
+import com.proximyst.ban.config.StorageType;
+import com.proximyst.ban.data.jdbi.ServerPreparedStatementCustomizer;
 import com.proximyst.ban.factory.IIdentityFactory;
+import com.proximyst.ban.inject.annotation.ReadReplica;
 import com.proximyst.ban.model.BanIdentity;
 import com.proximyst.ban.model.BanIdentity.ConsoleIdentity;
 import com.proximyst.ban.model.BanIdentity.IpIdentity;
 import com.proximyst.ban.model.BanIdentity.UuidIdentity;
 import com.proximyst.ban.model.Punishment;
 import com.proximyst.ban.model.PunishmentBuilder;
+import com.proximyst.ban.model.PunishmentType;
 import com.proximyst.ban.model.sql.IdentityType;
 import com.proximyst.ban.model.sql.IpAddressType;
 import com.proximyst.ban.platform.IBanAudience.IBanConsole;
@@ -34,8 +40,10 @@ import com.proximyst.ban.service.IDataService;
 import com.proximyst.ban.utils.ResourceReader;
 import com.proximyst.ban.utils.ThrowableUtils;
 import com.proximyst.ban.utils.ThrowingConsumer;
+import java.io.IOException;
 import java.net.Inet4Address;
 import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
@@ -44,27 +52,70 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.index.qual.Positive;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.jdbi.v3.core.HandleCallback;
 import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.JdbiException;
+import org.jdbi.v3.core.result.ResultIterator;
 import org.jdbi.v3.core.result.RowView;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.jdbi.v3.core.transaction.TransactionIsolationLevel;
 
 @Singleton
 public final class ImplGenericSqlDataService implements IDataService {
+  private static final @NonNegative int MAXIMUM_RECENT_WRITE_CAPACITY =
+      Integer.getInteger("ban.maxRecentWriteCapacity", 4096);
+  private static final @NonNegative long REPLICA_LAG_SECONDS = Long.getLong("ban.replicaLagSeconds", 10);
+  private static final @Positive int EXPORT_FETCH_SIZE = Integer.getInteger("ban.exportFetchSize", 1000);
+  private static final @NonNull String SQL_STATE_UNIQUE_VIOLATION = "23505";
+
   private final @NonNull ConsoleIdentity consoleIdentity;
   private final @NonNull IIdentityFactory identityFactory;
 
   private final @NonNull Jdbi jdbi;
+  private final @NonNull Jdbi replicaJdbi;
   private final @NonNull String path;
 
+  /**
+   * The keys of data this proxy wrote recently, which are read from the primary until the replica has caught up.
+   * <p>
+   * Keys are identity IDs, UUIDs, usernames, and IP addresses.
+   */
+  private final @NonNull Cache<@NonNull Object, @NonNull Boolean> recentWrites = CacheBuilder.newBuilder()
+      .maximumSize(MAXIMUM_RECENT_WRITE_CAPACITY)
+      .expireAfterWrite(REPLICA_LAG_SECONDS, TimeUnit.SECONDS)
+      .build();
+
+  private final @NonNull Query queryArchiveImportedPunishment;
+  private final @NonNull Query queryArchivePunishments;
   private final @NonNull Query queryCreatePunishment;
+  private final @NonNull Query queryExportIpAddresses;
+  private final @NonNull Query queryExportPunishments;
+  private final @NonNull Query queryExportUsers;
+  private final @NonNull Query queryImportPunishment;
+  private final @NonNull Query queryInsertUserIdentity;
+  /**
+   * Only PostgreSQL partitions the punishments.
+   */
+  private final @Nullable Query queryCreatePunishmentPartition;
   private final @NonNull Query queryLiftPunishment;
+  private final @NonNull Query querySelectActiveIpBans;
+  private final @NonNull Query querySelectActiveUserBans;
+  private final @NonNull Query querySelectAddressLinks;
+  private final @NonNull Query querySelectActivePunishmentByTarget;
+  private final @NonNull Query querySelectArchivedPunishmentsByTarget;
   private final @NonNull Query querySaveIdentity;
   private final @NonNull Query querySaveIpAddress;
   private final @NonNull Query querySaveUser;
@@ -72,26 +123,46 @@ public final class ImplGenericSqlDataService implements IDataService {
   private final @NonNull Query querySelectIdentityByIp;
   private final @NonNull Query querySelectIdentityByUsername;
   private final @NonNull Query querySelectIdentityByUuid;
+  private final @NonNull Query querySelectIdentityIdsByUuids;
   private final @NonNull Query querySelectPunishmentById;
   private final @NonNull Query querySelectPunishmentsByTarget;
+  private final @NonNull Query querySelectRecentUsernames;
   private final @NonNull Query querySelectUserByUsername;
   private final @NonNull Query querySelectUserByUuid;
   private final @NonNull Query querySelectUsersByIp;
+  private final @NonNull Query querySelectUsersByUuids;
   private final @NonNull Query queryUpdateExpirations;
 
   @Inject
   ImplGenericSqlDataService(final @NonNull ConsoleIdentity consoleIdentity,
       final @NonNull IIdentityFactory identityFactory,
       final @NonNull Jdbi jdbi,
-      final @NonNull SqlConfig sqlConfig) {
+      final @NonNull @ReadReplica Jdbi replicaJdbi,
+      final @NonNull Configuration configuration) {
     this.consoleIdentity = consoleIdentity;
     this.identityFactory = identityFactory;
 
     this.jdbi = jdbi;
-    this.path = "sql/";
+    this.replicaJdbi = replicaJdbi;
+    this.path = configuration.storage == StorageType.H2 ? "sql/h2/" : "sql/";
 
+    this.queryArchiveImportedPunishment = new Query("archive-imported-punishment.sql", this.path);
+    this.queryArchivePunishments = new Query("archive-punishments.sql", this.path);
     this.queryCreatePunishment = new Query("create-punishment.sql", this.path);
+    this.queryCreatePunishmentPartition = configuration.storage == StorageType.POSTGRESQL
+        ? new Query("create-punishment-partition.sql", this.path)
+        : null;
+    this.queryExportIpAddresses = new Query("export-ip-addresses.sql", this.path);
+    this.queryExportPunishments = new Query("export-punishments.sql", this.path);
+    this.queryExportUsers = new Query("export-users.sql", this.path);
+    this.queryImportPunishment = new Query("import-punishment.sql", this.path);
+    this.queryInsertUserIdentity = new Query("insert-user-identity.sql", this.path);
     this.queryLiftPunishment = new Query("lift-punishment.sql", this.path);
+    this.querySelectActiveIpBans = new Query("select-active-ip-bans.sql", this.path);
+    this.querySelectActiveUserBans = new Query("select-active-user-bans.sql", this.path);
+    this.querySelectAddressLinks = new Query("select-address-links.sql", this.path);
+    this.querySelectActivePunishmentByTarget = new Query("select-active-punishment-by-target.sql", this.path);
+    this.querySelectArchivedPunishmentsByTarget = new Query("select-archived-punishments-by-target.sql", this.path);
     this.querySaveIdentity = new Query("save-identity.sql", this.path);
     this.querySaveIpAddress = new Query("save-ip-address.sql", this.path);
     this.querySaveUser = new Query("save-user.sql", this.path);
@@ -99,11 +170,14 @@ public final class ImplGenericSqlDataService implements IDataService {
     this.querySelectIdentityByIp = new Query("select-identity-by-ip.sql", this.path);
     this.querySelectIdentityByUsername = new Query("select-identity-by-username.sql", this.path);
     this.querySelectIdentityByUuid = new Query("select-identity-by-uuid.sql", this.path);
+    this.querySelectIdentityIdsByUuids = new Query("select-identity-ids-by-uuids.sql", this.path);
     this.querySelectPunishmentById = new Query("select-punishment-by-id.sql", this.path);
     this.querySelectPunishmentsByTarget = new Query("select-punishments-by-target.sql", this.path);
+    this.querySelectRecentUsernames = new Query("select-recent-usernames.sql", this.path);
     this.querySelectUserByUsername = new Query("select-user-by-username.sql", this.path);
     this.querySelectUserByUuid = new Query("select-user-by-uuid.sql", this.path);
     this.querySelectUsersByIp = new Query("select-users-by-ip.sql", this.path);
+    this.querySelectUsersByUuids = new Query("select-users-by-uuids.sql", this.path);
     this.queryUpdateExpirations = new Query("update-expirations.sql", this.path);
   }
 
@@ -114,8 +188,9 @@ public final class ImplGenericSqlDataService implements IDataService {
 
   @Override
   public @NonNull List<@NonNull Punishment> getPunishmentsForTarget(final @NonNull BanIdentity identity) {
-    return this.jdbi.withHandle(handle ->
+    return this.read(identity.getId(), handle ->
         handle.createQuery(this.querySelectPunishmentsByTarget.getQuery())
+            .addCustomizer(ServerPreparedStatementCustomizer.INSTANCE)
             .bind("target", identity.getId())
             .mapTo(Punishment.class)
             .stream()
@@ -124,6 +199,67 @@ public final class ImplGenericSqlDataService implements IDataService {
     );
   }
 
+  @Override
+  public @NonNull List<@NonNull Punishment> getArchivedPunishmentsForTarget(final @NonNull BanIdentity identity) {
+    // Archived punishments never change, so they can always come from the replica.
+    return this.read(null, handle ->
+        handle.createQuery(this.querySelectArchivedPunishmentsByTarget.getQuery())
+            .bind("target", identity.getId())
+            .mapTo(Punishment.class)
+            .stream()
+            .sorted(Comparator.comparingLong(Punishment::getTime))
+            .collect(Collectors.toCollection(ArrayList::new)) // toList has no mutability guarantee
+    );
+  }
+
+  @Override
+  public @NonNegative int archivePunishments(final long horizon, final @Positive int limit) {
+    return this.jdbi.inTransaction(handle -> handle.createUpdate(this.queryArchivePunishments.getQuery())
+        .bind("horizon", timestamp(horizon))
+        .bind("limit", limit)
+        .execute());
+  }
+
+  @Override
+  public void createPunishmentPartition(final int year) {
+    final Query query = this.queryCreatePunishmentPartition;
+    if (query == null) {
+      return;
+    }
+
+    this.jdbi.useHandle(handle -> handle.createQuery(query.getQuery())
+        .bind("year", year)
+        .mapTo(Object.class)
+        .findFirst());
+  }
+
+  @Override
+  public @NonNull List<@NonNull Punishment> getActiveIpBans() {
+    // This is read into memory once, and kept up to date in memory; it must not be stale.
+    return this.jdbi.withHandle(handle -> handle.createQuery(this.querySelectActiveIpBans.getQuery())
+        .map((RowView row) -> this.joinedPunishment(row))
+        .collect(Collectors.toCollection(ArrayList::new)));
+  }
+
+  @Override
+  public @NonNull List<@NonNull Punishment> getActiveUserBans() {
+    return this.jdbi.withHandle(handle -> handle.createQuery(this.querySelectActiveUserBans.getQuery())
+        .map((RowView row) -> this.joinedPunishment(row))
+        .collect(Collectors.toCollection(ArrayList::new)));
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull Punishment> getActivePunishment(final @NonNull BanIdentity identity,
+      final @NonNull PunishmentType type) {
+    return this.read(identity.getId(), handle ->
+        handle.createQuery(this.querySelectActivePunishmentByTarget.getQuery())
+            .addCustomizer(ServerPreparedStatementCustomizer.INSTANCE)
+            .bind("target", identity.getId())
+            .bind("type", type)
+            .mapTo(Punishment.class)
+            .findOne());
+  }
+
   @Override
   public @NonNull Punishment savePunishment(final @NonNull PunishmentBuilder punishment) {
     return this.jdbi.inTransaction(handle -> {
@@ -134,11 +270,12 @@ public final class ImplGenericSqlDataService implements IDataService {
           .bind("reason", punishment.getReason())
           .bind("lifted", punishment.isLifted())
           .bind("lifted_by", punishment.getLiftedBy())
-          .bind("time", ZonedDateTime.ofInstant(Instant.ofEpochMilli(punishment.getTime()), ZoneId.systemDefault()))
-          .bind("duration", punishment.getDuration())
+          .bind("time", timestamp(punishment.getTime()))
+          .bindByType("expires_at", expiresAt(punishment.getTime(), punishment.getDuration()), ZonedDateTime.class)
           .executeAndReturnGeneratedKeys("id")
           .map((RowView row) -> row.getColumn("id", Long.class))
           .one();
+      this.markWritten(punishment.getTarget().getId());
 
       return new Punishment(id,
           punishment.getType(),
@@ -152,6 +289,55 @@ public final class ImplGenericSqlDataService implements IDataService {
     });
   }
 
+  @Override
+  public @NonNegative int importPunishments(final @NonNull List<@NonNull PunishmentBuilder> punishments,
+      final boolean archived) {
+    if (punishments.isEmpty()) {
+      return 0;
+    }
+
+    return this.jdbi.inTransaction(handle -> {
+      final PreparedBatch batch = handle.prepareBatch(this.queryImportPunishment.getQuery());
+      for (final PunishmentBuilder punishment : punishments) {
+        batch.bind("type", punishment.getType())
+            .bind("target", punishment.getTarget().getId())
+            .bind("punisher", punishment.getPunisher().getId())
+            .bindByType("reason", punishment.getReason(), String.class)
+            .bind("lifted", punishment.isLifted())
+            .bindByType("lifted_by", punishment.getLiftedBy(), UUID.class)
+            .bind("time", timestamp(punishment.getTime()))
+            .bindByType("expires_at", expiresAt(punishment.getTime(), punishment.getDuration()), ZonedDateTime.class)
+            .add();
+        this.markWritten(punishment.getTarget().getId());
+      }
+
+      // Archived punishments are moved into the archive once inserted, as only the punishments table assigns IDs.
+      final PreparedBatch archive = handle.prepareBatch(this.queryArchiveImportedPunishment.getQuery());
+      final int[] inserted = batch.execute();
+      int saved = 0;
+      for (int i = 0; i < inserted.length; ++i) {
+        // Punishments which already exist insert no rows. An unknown row count is not counted as saved.
+        if (inserted[i] <= 0) {
+          continue;
+        }
+
+        saved += inserted[i];
+        if (archived) {
+          final PunishmentBuilder punishment = punishments.get(i);
+          archive.bind("type", punishment.getType())
+              .bind("target", punishment.getTarget().getId())
+              .bind("time", timestamp(punishment.getTime()))
+              .add();
+        }
+      }
+
+      if (archive.size() != 0) {
+        archive.execute();
+      }
+      return saved;
+    });
+  }
+
   @Override
   public @NonNull Punishment liftPunishment(final @NonNull Punishment punishment, final @Nullable UUID liftedBy) {
     return this.jdbi.inTransaction(handle -> {
@@ -160,6 +346,7 @@ public final class ImplGenericSqlDataService implements IDataService {
           .bind("lifted_by", liftedBy)
           .bind("id", punishment.getId())
           .execute();
+      this.markWritten(punishment.getTarget().getId());
 
       return handle.createQuery(this.querySelectPunishmentById.getQuery())
           .bind("id", punishment.getId())
@@ -174,7 +361,8 @@ public final class ImplGenericSqlDataService implements IDataService {
       return Optional.of(this.consoleIdentity);
     }
 
-    return this.jdbi.withHandle(handle -> handle.createQuery(this.querySelectIdentityByUuid.getQuery())
+    return this.read(uuid, handle -> handle.createQuery(this.querySelectIdentityByUuid.getQuery())
+        .addCustomizer(ServerPreparedStatementCustomizer.INSTANCE)
         .bind("uuid", uuid)
         .setMaxRows(1)
         .mapTo(BanIdentity.class)
@@ -183,7 +371,7 @@ public final class ImplGenericSqlDataService implements IDataService {
 
   @Override
   public @NonNull Optional<@NonNull BanIdentity> getUser(final @NonNull String username) {
-    return this.jdbi.withHandle(handle -> handle.createQuery(this.querySelectIdentityByUsername.getQuery())
+    return this.read(username, handle -> handle.createQuery(this.querySelectIdentityByUsername.getQuery())
         .bind("username", username)
         .setMaxRows(1)
         .mapTo(BanIdentity.class)
@@ -192,18 +380,30 @@ public final class ImplGenericSqlDataService implements IDataService {
 
   @Override
   public @NonNull Optional<@NonNull BanIdentity> getUser(final long id) {
-    return this.jdbi.withHandle(handle -> handle.createQuery(this.querySelectIdentityById.getQuery())
+    return this.read(id, handle -> handle.createQuery(this.querySelectIdentityById.getQuery())
         .bind("id", id)
         .setMaxRows(1)
         .mapTo(BanIdentity.class)
         .findOne());
   }
 
+  @Override
+  public @NonNull Optional<@NonNull IpIdentity> getIpIdentity(final @NonNull InetAddress address) {
+    final byte[] bytes = address.getAddress();
+
+    return this.read(address, handle -> handle.createQuery(this.querySelectIdentityByIp.getQuery())
+        .bind("address", bytes)
+        .setMaxRows(1)
+        .mapTo(BanIdentity.class)
+        .findOne()
+        .flatMap(BanIdentity::asIpIdentity));
+  }
+
   @Override
   public @NonNull ImmutableList<@NonNull UuidIdentity> getUsersByIp(final @NonNull InetAddress address) {
     final byte[] bytes = address.getAddress();
 
-    return this.jdbi.withHandle(handle -> handle.createQuery(this.querySelectUsersByIp.getQuery())
+    return this.read(address, handle -> handle.createQuery(this.querySelectUsersByIp.getQuery())
         .bind("address", bytes)
         .mapTo(BanIdentity.class)
         .reduce(ImmutableList.<UuidIdentity>builder(), (builder, identity) -> {
@@ -213,13 +413,24 @@ public final class ImplGenericSqlDataService implements IDataService {
         .build());
   }
 
+  @Override
+  public void readAddressLinks(final @NonNull AddressLinkConsumer consumer) {
+    // Every link there is may be a lot of rows; fetch them in chunks rather than all at once.
+    this.replicaJdbi.useTransaction(handle -> handle.createQuery(this.querySelectAddressLinks.getQuery())
+        .setFetchSize(EXPORT_FETCH_SIZE)
+        .map((RowView row) -> new AddressLink(address(row.getColumn("address", byte[].class)),
+            row.getColumn("uuid", UUID.class),
+            row.getColumn("username", String.class)))
+        .forEach(link -> consumer.accept(link.address, link.uuid, link.username)));
+  }
+
   @Override
   public @NonNull Optional<@NonNull Long> getUserCacheDate(final long id) {
     if (id == 0) {
       return Optional.empty();
     }
 
-    return this.jdbi.withHandle(handle ->
+    return this.read(id, handle ->
         handle.createQuery(this.querySelectIdentityById.getQuery())
             .bind("id", id)
             .setMaxRows(1)
@@ -234,8 +445,9 @@ public final class ImplGenericSqlDataService implements IDataService {
       return Optional.empty();
     }
 
-    return this.jdbi.withHandle(handle ->
+    return this.read(uuid, handle ->
         handle.createQuery(this.querySelectIdentityByUuid.getQuery())
+            .addCustomizer(ServerPreparedStatementCustomizer.INSTANCE)
             .bind("uuid", uuid)
             .setMaxRows(1)
             .map((RowView rowView) -> rowView.getColumn("timestamp", Timestamp.class))
@@ -243,56 +455,292 @@ public final class ImplGenericSqlDataService implements IDataService {
             .map(Timestamp::getTime));
   }
 
+  @Override
+  public @NonNull List<@NonNull String> getRecentUsernames(final @NonNegative int limit) {
+    return this.read(null, handle ->
+        handle.createQuery(this.querySelectRecentUsernames.getQuery())
+            .bind("limit", limit)
+            .mapTo(String.class)
+            .list());
+  }
+
   @Override
   public @NonNull UuidIdentity createIdentity(final @NonNull UUID uuid, final @NonNull String username) {
-    return this.jdbi.inTransaction(handle -> {
+    return this.upsert(handle -> {
       final long id = handle.createQuery(this.querySaveIdentity.getQuery())
+          .addCustomizer(ServerPreparedStatementCustomizer.INSTANCE)
           .bind("type", IdentityType.UUID)
           .bind("uuid", uuid)
           .bindNull("address", Types.BINARY)
           .map(row -> row.getColumn("id", Long.class))
           .one();
       handle.createUpdate(this.querySaveUser.getQuery())
+          .addCustomizer(ServerPreparedStatementCustomizer.INSTANCE)
           .bind("uuid", uuid)
           .bind("username", username)
           .bind("identity", id)
           .execute();
+      this.markWritten(id, uuid, username);
 
       return this.identityFactory.uuid(id, uuid, username);
     });
   }
 
+  @Override
+  public @NonNull Map<@NonNull UUID, @NonNull UuidIdentity> getOrCreateIdentities(
+      final @NonNull Map<@NonNull UUID, @Nullable String> users) {
+    final Map<UUID, UuidIdentity> identities = new HashMap<>(users.size());
+    if (users.isEmpty()) {
+      return identities;
+    }
+
+    return this.upsert(handle -> {
+      handle.createQuery(this.querySelectUsersByUuids.getQuery())
+          .bindArray("uuids", UUID.class, users.keySet())
+          .mapTo(BanIdentity.class)
+          .forEach(identity -> identity.asUuidIdentity()
+              .ifPresent(uuidIdentity -> identities.put(uuidIdentity.uuid(), uuidIdentity)));
+
+      final Map<UUID, String> missing = new HashMap<>();
+      users.forEach((uuid, username) -> {
+        if (username != null && !identities.containsKey(uuid)) {
+          missing.put(uuid, username);
+        }
+      });
+      if (missing.isEmpty()) {
+        return identities;
+      }
+
+      final PreparedBatch identityBatch = handle.prepareBatch(this.queryInsertUserIdentity.getQuery());
+      for (final UUID uuid : missing.keySet()) {
+        identityBatch.bind("uuid", uuid).add();
+      }
+      identityBatch.execute();
+
+      final PreparedBatch userBatch = handle.prepareBatch(this.querySaveUser.getQuery());
+      handle.createQuery(this.querySelectIdentityIdsByUuids.getQuery())
+          .bindArray("uuids", UUID.class, missing.keySet())
+          .map((RowView row) -> this.identityFactory.uuid(row.getColumn("id", Long.class),
+              row.getColumn("uuid", UUID.class),
+              missing.get(row.getColumn("uuid", UUID.class))))
+          .forEach(identity -> {
+            userBatch.bind("uuid", identity.uuid())
+                .bind("username", identity.username())
+                .bind("identity", identity.getId())
+                .add();
+            identities.put(identity.uuid(), identity);
+            this.markWritten(identity.getId(), identity.uuid(), identity.username());
+          });
+      userBatch.execute();
+
+      return identities;
+    });
+  }
+
   @Override
   public @NonNull IpIdentity createIdentity(final @NonNull InetAddress address,
       final @NonNull UuidIdentity @NonNull ... identities) {
     final IpAddressType type = address instanceof Inet4Address ? IpAddressType.IPV4 : IpAddressType.IPV6;
     final byte[] bytes = address.getAddress();
 
-    return this.jdbi.inTransaction(handle -> {
-      final long id = handle.createUpdate(this.querySaveIdentity.getQuery())
+    return this.upsert(handle -> {
+      final long id = handle.createQuery(this.querySaveIdentity.getQuery())
+          .addCustomizer(ServerPreparedStatementCustomizer.INSTANCE)
           .bind("type", type)
           .bindNull("uuid", Types.OTHER)
           .bind("address", bytes)
-          .executeAndReturnGeneratedKeys("id")
           .map(row -> row.getColumn("id", Long.class))
           .one();
 
       final IpIdentity identity = this.identityFactory.ip(id, address);
+      this.markWritten(id, address);
 
       for (final UuidIdentity uuidIdentity : identities) {
         handle.createUpdate(this.querySaveIpAddress.getQuery())
             .bind("type", type)
             .bind("address", bytes)
-            .bind("uuid", uuidIdentity.uuid());
+            .bind("uuid", uuidIdentity.uuid())
+            .execute();
       }
 
       return identity;
     });
   }
 
+  @Override
+  public void exportData(final @NonNull ExportSink sink) throws IOException {
+    // One repeatable read transaction sees the same snapshot of every table. Exports are big reads, which is what the
+    // replica is for; the cursors are fetched in chunks, as PostgreSQL otherwise reads the whole result at once.
+    this.replicaJdbi.useTransaction(TransactionIsolationLevel.REPEATABLE_READ, handle -> {
+      try (final ResultIterator<Map.Entry<UUID, String>> users = handle.createQuery(this.queryExportUsers.getQuery())
+          .setFetchSize(EXPORT_FETCH_SIZE)
+          .map((RowView row) -> Map.entry(row.getColumn("uuid", UUID.class), row.getColumn("username", String.class)))
+          .iterator()) {
+        while (users.hasNext()) {
+          final Map.Entry<UUID, String> user = users.next();
+          sink.user(user.getKey(), user.getValue());
+        }
+      }
+
+      try (final ResultIterator<Map.Entry<InetAddress, UUID>> addresses =
+          handle.createQuery(this.queryExportIpAddresses.getQuery())
+              .setFetchSize(EXPORT_FETCH_SIZE)
+              .map((RowView row) -> Map.entry(address(row.getColumn("address", byte[].class)),
+                  row.getColumn("uuid", UUID.class)))
+              .iterator()) {
+        while (addresses.hasNext()) {
+          final Map.Entry<InetAddress, UUID> address = addresses.next();
+          sink.address(address.getKey(), address.getValue());
+        }
+      }
+
+      try (final ResultIterator<Map.Entry<Punishment, Boolean>> punishments =
+          handle.createQuery(this.queryExportPunishments.getQuery())
+              .setFetchSize(EXPORT_FETCH_SIZE)
+              .map((RowView row) -> Map.entry(this.joinedPunishment(row), row.getColumn("archived", Boolean.class)))
+              .iterator()) {
+        while (punishments.hasNext()) {
+          final Map.Entry<Punishment, Boolean> punishment = punishments.next();
+          sink.punishment(punishment.getKey(), punishment.getValue());
+        }
+      }
+    });
+  }
+
+  /**
+   * Map a punishment whose identities are joined in rather than looked up one by one.
+   */
+  private @NonNull Punishment joinedPunishment(final @NonNull RowView row) {
+    final Timestamp time = row.getColumn("timestamp", Timestamp.class);
+    final Timestamp expiresAt = row.getColumn("expires_at", Timestamp.class);
+    final Boolean lifted = row.getColumn("lifted", Boolean.class);
+
+    return new Punishment(row.getColumn("id", Long.class),
+        PunishmentType.valueOf(row.getColumn("type", String.class)),
+        this.joinedIdentity(row, "target"),
+        this.joinedIdentity(row, "punisher"),
+        row.getColumn("reason", String.class),
+        lifted,
+        lifted ? row.getColumn("lifted_by", UUID.class) : null,
+        time.getTime(),
+        expiresAt == null ? 0 : expiresAt.getTime() - time.getTime());
+  }
+
+  private @NonNull BanIdentity joinedIdentity(final @NonNull RowView row, final @NonNull String prefix) {
+    final long id = row.getColumn(prefix, Long.class);
+    switch (IdentityType.valueOf(row.getColumn(prefix + "_type", String.class))) {
+      case CONSOLE:
+        return this.consoleIdentity;
+      case UUID:
+        final String username = row.getColumn(prefix + "_name", String.class);
+        if (username == null) {
+          throw new IllegalStateException("identity (" + id + ") has no username");
+        }
+        return this.identityFactory.uuid(id, row.getColumn(prefix + "_uuid", UUID.class), username);
+      default:
+        return this.identityFactory.ip(id, address(row.getColumn(prefix + "_address", byte[].class)));
+    }
+  }
+
+  private static @NonNull InetAddress address(final byte @NonNull [] bytes) {
+    try {
+      return InetAddress.getByAddress(bytes);
+    } catch (final UnknownHostException ex) {
+      // Only thrown for addresses of an illegal length.
+      throw new IllegalStateException("stored IP address has " + bytes.length + " bytes", ex);
+    }
+  }
+
   @Override
   public void updateExpirations() {
-    this.jdbi.useTransaction(handle -> handle.createUpdate(this.queryUpdateExpirations.getQuery()));
+    this.jdbi.useTransaction(handle -> handle.createUpdate(this.queryUpdateExpirations.getQuery()).execute());
+  }
+
+  static @NonNull ZonedDateTime timestamp(final long time) {
+    return ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+  }
+
+  /**
+   * @param time     The time of a punishment in milliseconds since the UNIX epoch.
+   * @param duration The duration of the punishment in milliseconds.
+   * @return When the punishment expires, or {@code null} if it is permanent.
+   */
+  static @Nullable ZonedDateTime expiresAt(final long time, final long duration) {
+    return duration == 0 ? null : timestamp(time + duration);
+  }
+
+  /**
+   * Run a read-only query on the read replica, unless the data it reads was written by this proxy too recently for
+   * the replica to be sure to have it.
+   *
+   * @param key      The key of the data read, or {@code null} if it does not matter whether the data is stale.
+   * @param callback The query to run.
+   * @param <R>      The type of the query's result.
+   * @return The result of the query.
+   */
+  private <R> R read(final @Nullable Object key, final @NonNull HandleCallback<R, RuntimeException> callback) {
+    if (this.replicaJdbi == this.jdbi || key != null && this.recentWrites.getIfPresent(key) != null) {
+      return this.jdbi.withHandle(callback);
+    }
+
+    try {
+      return this.replicaJdbi.withHandle(callback);
+    } catch (final JdbiException ex) {
+      // An unavailable replica should not take the reads down with it.
+      return this.jdbi.withHandle(callback);
+    }
+  }
+
+  /**
+   * Run a transaction which inserts rows unless their unique keys already exist.
+   * <p>
+   * PostgreSQL settles such conflicts within the statement, but H2's {@code MERGE} does not, so a concurrent insert of
+   * the same key fails on the unique index instead. The transaction is then run once more, now finding the key.
+   *
+   * @param callback The transaction to run.
+   * @param <R>      The type of the transaction's result.
+   * @return The result of the transaction.
+   */
+  private <R> R upsert(final @NonNull HandleCallback<R, RuntimeException> callback) {
+    try {
+      return this.jdbi.inTransaction(callback);
+    } catch (final JdbiException ex) {
+      if (!(ex.getCause() instanceof SQLException)
+          || !SQL_STATE_UNIQUE_VIOLATION.equals(((SQLException) ex.getCause()).getSQLState())) {
+        throw ex;
+      }
+
+      return this.jdbi.inTransaction(callback);
+    }
+  }
+
+  /**
+   * Mark data as written, such that it is read from the primary until the replica has caught up.
+   *
+   * @param keys The keys of the data written.
+   */
+  void markWritten(final @NonNull Object @NonNull ... keys) {
+    if (this.replicaJdbi == this.jdbi) {
+      return;
+    }
+
+    for (final Object key : keys) {
+      this.recentWrites.put(key, Boolean.TRUE);
+    }
+  }
+
+  private static final class AddressLink {
+    private final @NonNull InetAddress address;
+    private final @NonNull UUID uuid;
+    private final @NonNull String username;
+
+    private AddressLink(final @NonNull InetAddress address,
+        final @NonNull UUID uuid,
+        final @NonNull String username) {
+      this.address = address;
+      this.uuid = uuid;
+      this.username = username;
+    }
   }
 
   private static final class Query {
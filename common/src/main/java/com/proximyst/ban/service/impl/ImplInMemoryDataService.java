@@ -0,0 +1,665 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.proximyst.ban.factory.IIdentityFactory;
+import com.proximyst.ban.inject.annotation.BanScheduler;
+import com.proximyst.ban.inject.annotation.PluginData;
+import com.proximyst.ban.model.BanIdentity;
+import com.proximyst.ban.model.BanIdentity.ConsoleIdentity;
+import com.proximyst.ban.model.BanIdentity.IpIdentity;
+import com.proximyst.ban.model.BanIdentity.UuidIdentity;
+import com.proximyst.ban.model.Punishment;
+import com.proximyst.ban.model.PunishmentBuilder;
+import com.proximyst.ban.model.PunishmentType;
+import com.proximyst.ban.platform.IBanAudience.IBanConsole;
+import com.proximyst.ban.service.IDataService;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * An {@link IDataService} keeping all data in memory, with periodic snapshots to the plugin's data directory.
+ * <p>
+ * All lookups are plain map lookups. This is meant for single-proxy deployments, tests, and load generation; data
+ * written after the latest snapshot is lost if the process dies.
+ */
+@Singleton
+public final class ImplInMemoryDataService implements IDataService, AutoCloseable {
+  private static final @NonNegative long SNAPSHOT_INTERVAL_SECONDS =
+      Long.getLong("ban.memorySnapshotIntervalSeconds", 60);
+  private static final int SNAPSHOT_MAGIC = 0x42414e4d; // "BANM"
+  private static final int SNAPSHOT_VERSION = 2;
+
+  private final @NonNull ConsoleIdentity consoleIdentity;
+  private final @NonNull IIdentityFactory identityFactory;
+  private final @NonNull ScheduledExecutorService scheduler;
+  private final @NonNull Logger logger;
+  private final @NonNull Path snapshotFile;
+
+  private final @NonNull AtomicLong identitySequence = new AtomicLong(1);
+  private final @NonNull AtomicLong punishmentSequence = new AtomicLong(0);
+  private final @NonNull AtomicBoolean dirty = new AtomicBoolean();
+
+  private final @NonNull Map<@NonNull Long, @NonNull BanIdentity> identities = new ConcurrentHashMap<>();
+  private final @NonNull Map<@NonNull UUID, @NonNull UserRecord> users = new ConcurrentHashMap<>();
+  private final @NonNull Map<@NonNull String, @NonNull UUID> usernames = new ConcurrentHashMap<>();
+  private final @NonNull Map<@NonNull InetAddress, @NonNull Long> addresses = new ConcurrentHashMap<>();
+  private final @NonNull Map<@NonNull InetAddress, @NonNull Set<@NonNull UUID>> addressUsers =
+      new ConcurrentHashMap<>();
+  private final @NonNull Map<@NonNull Long, @NonNull Punishment> punishments = new ConcurrentHashMap<>();
+  private final @NonNull Map<@NonNull Long, @NonNull Set<@NonNull Long>> punishmentsByTarget =
+      new ConcurrentHashMap<>();
+  private final @NonNull Map<@NonNull Long, @NonNull List<@NonNull Punishment>> archivedByTarget =
+      new ConcurrentHashMap<>();
+
+  private @Nullable ScheduledFuture<?> snapshotTask;
+
+  @Inject
+  ImplInMemoryDataService(final @NonNull ConsoleIdentity consoleIdentity,
+      final @NonNull IIdentityFactory identityFactory,
+      final @NonNull @BanScheduler ScheduledExecutorService scheduler,
+      final @NonNull Logger logger,
+      final @NonNull @PluginData Path dataDirectory) {
+    this.consoleIdentity = consoleIdentity;
+    this.identityFactory = identityFactory;
+    this.scheduler = scheduler;
+    this.logger = logger;
+    this.snapshotFile = dataDirectory.resolve("memory-snapshot.bin");
+
+    this.identities.put(consoleIdentity.getId(), consoleIdentity);
+  }
+
+  /**
+   * Load the latest snapshot, if any, and start taking snapshots periodically.
+   *
+   * @throws IOException If the snapshot exists but cannot be read.
+   */
+  public synchronized void start() throws IOException {
+    if (Files.isRegularFile(this.snapshotFile)) {
+      this.readSnapshot();
+    }
+
+    this.snapshotTask = this.scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        this.snapshot();
+      } catch (final IOException ex) {
+        this.logger.warn("Could not write the in-memory data snapshot", ex);
+      }
+    }, SNAPSHOT_INTERVAL_SECONDS, SNAPSHOT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Stop taking periodic snapshots, and take a final one.
+   *
+   * @throws IOException If the snapshot cannot be written.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (this.snapshotTask != null) {
+      this.snapshotTask.cancel(false);
+      this.snapshotTask = null;
+    }
+
+    this.snapshot();
+  }
+
+  @Override
+  public @NonNull String getClassPathPrefix() {
+    // There are no migrations to run.
+    return "sql/";
+  }
+
+  @Override
+  public @NonNull List<@NonNull Punishment> getPunishmentsForTarget(final @NonNull BanIdentity identity) {
+    final Set<Long> ids = this.punishmentsByTarget.get(identity.getId());
+    if (ids == null) {
+      return List.of();
+    }
+
+    final List<Punishment> list = new ArrayList<>(ids.size());
+    for (final long id : ids) {
+      final Punishment punishment = this.punishments.get(id);
+      if (punishment != null) {
+        list.add(punishment);
+      }
+    }
+    return list;
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull Punishment> getActivePunishment(final @NonNull BanIdentity identity,
+      final @NonNull PunishmentType type) {
+    return this.getPunishmentsForTarget(identity).stream()
+        .filter(punishment -> punishment.getPunishmentType() == type && punishment.currentlyApplies())
+        .max(Comparator.comparingLong(Punishment::getTime));
+  }
+
+  @Override
+  public @NonNull List<@NonNull Punishment> getActiveIpBans() {
+    return this.punishments.values().stream()
+        .filter(punishment -> punishment.getPunishmentType() == PunishmentType.BAN
+            && punishment.getTarget().asIpIdentity().isPresent()
+            && punishment.currentlyApplies())
+        .collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  @Override
+  public @NonNull List<@NonNull Punishment> getActiveUserBans() {
+    return this.punishments.values().stream()
+        .filter(punishment -> punishment.getPunishmentType() == PunishmentType.BAN
+            && punishment.getTarget().asUuidIdentity().isPresent()
+            && punishment.currentlyApplies())
+        .collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  @Override
+  public @NonNull List<@NonNull Punishment> getArchivedPunishmentsForTarget(final @NonNull BanIdentity identity) {
+    final List<Punishment> archived = this.archivedByTarget.get(identity.getId());
+    return archived == null ? List.of() : new ArrayList<>(archived);
+  }
+
+  @Override
+  public synchronized @NonNegative int archivePunishments(final long horizon, final @Positive int limit) {
+    // Mirrors sql/archive-punishments.sql: bans stay, and so do mutes which still apply.
+    final long now = System.currentTimeMillis();
+    int archived = 0;
+    for (final Punishment punishment : this.punishments.values()) {
+      if (archived >= limit) {
+        break;
+      }
+      if (punishment.getTime() >= horizon
+          || punishment.getPunishmentType() == PunishmentType.BAN
+          || punishment.getPunishmentType() == PunishmentType.MUTE && !punishment.isLifted()
+          && (punishment.isPermanent() || punishment.getExpiration() > now)) {
+        continue;
+      }
+
+      if (this.punishments.remove(punishment.getId(), punishment)) {
+        this.punishmentsByTarget.getOrDefault(punishment.getTarget().getId(), Set.of()).remove(punishment.getId());
+        this.putArchived(punishment);
+        ++archived;
+      }
+    }
+
+    if (archived != 0) {
+      this.dirty.set(true);
+    }
+    return archived;
+  }
+
+  private void putArchived(final @NonNull Punishment punishment) {
+    this.archivedByTarget.computeIfAbsent(punishment.getTarget().getId(), $ -> new CopyOnWriteArrayList<>())
+        .add(punishment);
+  }
+
+  @Override
+  public void createPunishmentPartition(final int year) {
+    // Nothing is partitioned in memory.
+  }
+
+  @Override
+  public @NonNull Punishment savePunishment(final @NonNull PunishmentBuilder punishment) {
+    final Punishment saved = new Punishment(this.punishmentSequence.incrementAndGet(),
+        punishment.getType(),
+        punishment.getTarget(),
+        punishment.getPunisher(),
+        punishment.getReason(),
+        punishment.isLifted(),
+        punishment.getLiftedBy(),
+        punishment.getTime(),
+        punishment.getDuration());
+    this.putPunishment(saved);
+    this.dirty.set(true);
+    return saved;
+  }
+
+  @Override
+  public synchronized @NonNegative int importPunishments(final @NonNull List<@NonNull PunishmentBuilder> punishments,
+      final boolean archived) {
+    int saved = 0;
+    for (final PunishmentBuilder punishment : punishments) {
+      // Like the SQL storage, a punishment of the same type on the same target at the same time already exists.
+      final boolean exists = Stream.concat(this.getPunishmentsForTarget(punishment.getTarget()).stream(),
+          this.getArchivedPunishmentsForTarget(punishment.getTarget()).stream())
+          .anyMatch(existing -> existing.getPunishmentType() == punishment.getType()
+              && existing.getTime() == punishment.getTime());
+      if (exists) {
+        continue;
+      }
+
+      final Punishment imported = this.savePunishment(punishment);
+      if (archived) {
+        this.punishments.remove(imported.getId());
+        this.punishmentsByTarget.getOrDefault(imported.getTarget().getId(), Set.of()).remove(imported.getId());
+        this.putArchived(imported);
+      }
+      ++saved;
+    }
+    return saved;
+  }
+
+  private void putPunishment(final @NonNull Punishment punishment) {
+    this.punishments.put(punishment.getId(), punishment);
+    this.punishmentsByTarget.computeIfAbsent(punishment.getTarget().getId(), $ -> ConcurrentHashMap.newKeySet())
+        .add(punishment.getId());
+  }
+
+  @Override
+  public @NonNull Punishment liftPunishment(final @NonNull Punishment punishment, final @Nullable UUID liftedBy) {
+    // Like the SQL storage, only known identities are recorded as having lifted anything.
+    final UUID knownLiftedBy =
+        liftedBy != null && (IBanConsole.UUID.equals(liftedBy) || this.users.containsKey(liftedBy))
+            ? liftedBy
+            : null;
+    final Punishment lifted = this.punishments.computeIfPresent(punishment.getId(),
+        ($, existing) -> lifted(existing, knownLiftedBy));
+    if (lifted == null) {
+      // Like the SQL storage, which finds no row to return; archived punishments are never lifted either.
+      throw new IllegalStateException("no current punishment with ID " + punishment.getId());
+    }
+
+    this.dirty.set(true);
+    return lifted;
+  }
+
+  private static @NonNull Punishment lifted(final @NonNull Punishment punishment, final @Nullable UUID liftedBy) {
+    return new Punishment(punishment.getId(),
+        punishment.getPunishmentType(),
+        punishment.getTarget(),
+        punishment.getPunisher(),
+        punishment.getReason().orElse(null),
+        true,
+        liftedBy,
+        punishment.getTime(),
+        punishment.getDuration());
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull BanIdentity> getUser(final @NonNull UUID uuid) {
+    if (IBanConsole.UUID.equals(uuid)) {
+      return Optional.of(this.consoleIdentity);
+    }
+
+    final UserRecord user = this.users.get(uuid);
+    return user == null ? Optional.empty() : Optional.ofNullable(this.identities.get(user.identity));
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull BanIdentity> getUser(final @NonNull String username) {
+    final UUID uuid = this.usernames.get(username);
+    return uuid == null ? Optional.empty() : this.getUser(uuid);
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull BanIdentity> getUser(final long id) {
+    return Optional.ofNullable(this.identities.get(id));
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull IpIdentity> getIpIdentity(final @NonNull InetAddress address) {
+    final Long id = this.addresses.get(address);
+    return id == null
+        ? Optional.empty()
+        : Optional.ofNullable(this.identities.get(id)).flatMap(BanIdentity::asIpIdentity);
+  }
+
+  @Override
+  public @NonNull ImmutableList<@NonNull UuidIdentity> getUsersByIp(final @NonNull InetAddress address) {
+    final Set<UUID> uuids = this.addressUsers.get(address);
+    if (uuids == null) {
+      return ImmutableList.of();
+    }
+
+    final ImmutableList.Builder<UuidIdentity> builder = ImmutableList.builder();
+    for (final UUID uuid : uuids) {
+      this.getUser(uuid).flatMap(BanIdentity::asUuidIdentity).ifPresent(builder::add);
+    }
+    return builder.build();
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull Long> getUserCacheDate(final long id) {
+    final BanIdentity identity = this.identities.get(id);
+    if (!(identity instanceof UuidIdentity) || identity instanceof ConsoleIdentity) {
+      return Optional.empty();
+    }
+
+    return this.getUserCacheDate(((UuidIdentity) identity).uuid());
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull Long> getUserCacheDate(final @NonNull UUID uuid) {
+    final UserRecord user = this.users.get(uuid);
+    return user == null ? Optional.empty() : Optional.of(user.timestamp);
+  }
+
+  @Override
+  public @NonNull List<@NonNull String> getRecentUsernames(final @NonNegative int limit) {
+    return this.users.values().stream()
+        .sorted(Comparator.comparingLong((UserRecord user) -> user.timestamp).reversed())
+        .limit(limit)
+        .map(user -> user.username)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public @NonNull UuidIdentity createIdentity(final @NonNull UUID uuid, final @NonNull String username) {
+    // Like the SQL storage, an existing user only has their timestamp updated.
+    final UserRecord user = this.users.compute(uuid, ($, existing) -> existing == null
+        ? new UserRecord(this.identitySequence.incrementAndGet(), username, System.currentTimeMillis())
+        : new UserRecord(existing.identity, existing.username, System.currentTimeMillis()));
+    this.usernames.put(user.username, uuid);
+    this.identities.computeIfAbsent(user.identity, id -> this.identityFactory.uuid(id, uuid, user.username));
+    this.dirty.set(true);
+
+    return this.identityFactory.uuid(user.identity, uuid, username);
+  }
+
+  @Override
+  public @NonNull Map<@NonNull UUID, @NonNull UuidIdentity> getOrCreateIdentities(
+      final @NonNull Map<@NonNull UUID, @Nullable String> users) {
+    final Map<UUID, UuidIdentity> identities = new HashMap<>(users.size());
+    users.forEach((uuid, username) -> {
+      final Optional<UuidIdentity> existing = this.getUser(uuid).flatMap(BanIdentity::asUuidIdentity);
+      if (existing.isPresent()) {
+        identities.put(uuid, existing.get());
+      } else if (username != null) {
+        identities.put(uuid, this.createIdentity(uuid, username));
+      }
+    });
+    return identities;
+  }
+
+  @Override
+  public @NonNull IpIdentity createIdentity(final @NonNull InetAddress address,
+      final @NonNull UuidIdentity @NonNull ... identities) {
+    final long id = this.addresses.computeIfAbsent(address, $ -> this.identitySequence.incrementAndGet());
+    final IpIdentity identity = (IpIdentity) this.identities.computeIfAbsent(id,
+        $ -> this.identityFactory.ip(id, address));
+
+    if (identities.length != 0) {
+      final Set<UUID> users = this.addressUsers.computeIfAbsent(address, $ -> ConcurrentHashMap.newKeySet());
+      for (final UuidIdentity uuidIdentity : identities) {
+        users.add(uuidIdentity.uuid());
+      }
+    }
+
+    this.dirty.set(true);
+    return identity;
+  }
+
+  @Override
+  public void readAddressLinks(final @NonNull AddressLinkConsumer consumer) {
+    for (final Map.Entry<InetAddress, Set<UUID>> link : this.addressUsers.entrySet()) {
+      for (final UUID uuid : link.getValue()) {
+        final UserRecord user = this.users.get(uuid);
+        if (user != null) {
+          consumer.accept(link.getKey(), uuid, user.username);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void updateExpirations() {
+    final long now = System.currentTimeMillis();
+    for (final Punishment punishment : this.punishments.values()) {
+      if (!punishment.isLifted() && !punishment.isPermanent() && punishment.getExpiration() <= now) {
+        this.punishments.computeIfPresent(punishment.getId(), ($, existing) -> lifted(existing, null));
+        this.dirty.set(true);
+      }
+    }
+  }
+
+  @Override
+  public void exportData(final @NonNull ExportSink sink) throws IOException {
+    for (final Map.Entry<UUID, UserRecord> user : this.users.entrySet()) {
+      sink.user(user.getKey(), user.getValue().username);
+    }
+
+    for (final Map.Entry<InetAddress, Set<UUID>> address : this.addressUsers.entrySet()) {
+      for (final UUID uuid : address.getValue()) {
+        sink.address(address.getKey(), uuid);
+      }
+    }
+
+    for (final Punishment punishment : this.punishments.values()) {
+      sink.punishment(punishment, false);
+    }
+    for (final List<Punishment> archived : this.archivedByTarget.values()) {
+      for (final Punishment punishment : archived) {
+        sink.punishment(punishment, true);
+      }
+    }
+  }
+
+  /**
+   * Write a snapshot of all data, if anything has changed since the last one.
+   * <p>
+   * The snapshot is written to a temporary file first, and then moved over the previous snapshot.
+   *
+   * @throws IOException If the snapshot cannot be written.
+   */
+  public synchronized void snapshot() throws IOException {
+    if (!this.dirty.getAndSet(false)) {
+      return;
+    }
+
+    final Path temporary = this.snapshotFile.resolveSibling(this.snapshotFile.getFileName() + ".tmp");
+    try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        Files.newOutputStream(temporary)))) {
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeInt(SNAPSHOT_VERSION);
+      out.writeLong(this.identitySequence.get());
+      out.writeLong(this.punishmentSequence.get());
+
+      final List<Map.Entry<UUID, UserRecord>> users = new ArrayList<>(this.users.entrySet());
+      out.writeInt(users.size());
+      for (final Map.Entry<UUID, UserRecord> entry : users) {
+        writeUuid(out, entry.getKey());
+        out.writeLong(entry.getValue().identity);
+        out.writeUTF(entry.getValue().username);
+        out.writeLong(entry.getValue().timestamp);
+      }
+
+      final List<Map.Entry<InetAddress, Long>> addresses = new ArrayList<>(this.addresses.entrySet());
+      out.writeInt(addresses.size());
+      for (final Map.Entry<InetAddress, Long> entry : addresses) {
+        writeAddress(out, entry.getKey());
+        out.writeLong(entry.getValue());
+
+        final List<UUID> addressUsers = new ArrayList<>(this.addressUsers.getOrDefault(entry.getKey(), Set.of()));
+        out.writeInt(addressUsers.size());
+        for (final UUID uuid : addressUsers) {
+          writeUuid(out, uuid);
+        }
+      }
+
+      writePunishments(out, new ArrayList<>(this.punishments.values()));
+
+      // Since version 2.
+      writePunishments(out, this.archivedByTarget.values().stream()
+          .flatMap(List::stream)
+          .collect(Collectors.toList()));
+    } catch (final IOException ex) {
+      // Make sure the next attempt writes the data again.
+      this.dirty.set(true);
+      throw ex;
+    }
+
+    Files.move(temporary, this.snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private void readSnapshot() throws IOException {
+    try (final DataInputStream in = new DataInputStream(new BufferedInputStream(
+        Files.newInputStream(this.snapshotFile)))) {
+      if (in.readInt() != SNAPSHOT_MAGIC) {
+        throw new IOException("not an in-memory data snapshot: " + this.snapshotFile);
+      }
+      final int version = in.readInt();
+      if (version < 1 || version > SNAPSHOT_VERSION) {
+        throw new IOException("unsupported in-memory data snapshot version " + version);
+      }
+
+      this.identitySequence.set(in.readLong());
+      this.punishmentSequence.set(in.readLong());
+
+      for (int i = in.readInt(); i > 0; --i) {
+        final UUID uuid = readUuid(in);
+        final UserRecord user = new UserRecord(in.readLong(), in.readUTF(), in.readLong());
+        this.users.put(uuid, user);
+        this.usernames.put(user.username, uuid);
+        this.identities.put(user.identity, this.identityFactory.uuid(user.identity, uuid, user.username));
+      }
+
+      for (int i = in.readInt(); i > 0; --i) {
+        final InetAddress address = readAddress(in);
+        final long id = in.readLong();
+        this.addresses.put(address, id);
+        this.identities.put(id, this.identityFactory.ip(id, address));
+
+        final Set<UUID> addressUsers = ConcurrentHashMap.newKeySet();
+        for (int j = in.readInt(); j > 0; --j) {
+          addressUsers.add(readUuid(in));
+        }
+        if (!addressUsers.isEmpty()) {
+          this.addressUsers.put(address, addressUsers);
+        }
+      }
+
+      for (int i = in.readInt(); i > 0; --i) {
+        this.putPunishment(this.readPunishment(in));
+      }
+
+      if (version >= 2) {
+        for (int i = in.readInt(); i > 0; --i) {
+          this.putArchived(this.readPunishment(in));
+        }
+      }
+    }
+  }
+
+  private static void writePunishments(final @NonNull DataOutputStream out,
+      final @NonNull List<@NonNull Punishment> punishments) throws IOException {
+    out.writeInt(punishments.size());
+    for (final Punishment punishment : punishments) {
+      out.writeLong(punishment.getId());
+      out.writeUTF(punishment.getPunishmentType().name());
+      out.writeLong(punishment.getTarget().getId());
+      out.writeLong(punishment.getPunisher().getId());
+      out.writeBoolean(punishment.getReason().isPresent());
+      if (punishment.getReason().isPresent()) {
+        out.writeUTF(punishment.getReason().get());
+      }
+      out.writeBoolean(punishment.isLifted());
+      out.writeBoolean(punishment.getLiftedBy().isPresent());
+      if (punishment.getLiftedBy().isPresent()) {
+        writeUuid(out, punishment.getLiftedBy().get());
+      }
+      out.writeLong(punishment.getTime());
+      out.writeLong(punishment.getDuration());
+    }
+  }
+
+  private @NonNull Punishment readPunishment(final @NonNull DataInputStream in) throws IOException {
+    final long id = in.readLong();
+    final PunishmentType type = PunishmentType.valueOf(in.readUTF());
+    final long targetId = in.readLong();
+    final long punisherId = in.readLong();
+    final String reason = in.readBoolean() ? in.readUTF() : null;
+    final boolean lifted = in.readBoolean();
+    final UUID liftedBy = in.readBoolean() ? readUuid(in) : null;
+    final long time = in.readLong();
+    final long duration = in.readLong();
+
+    final BanIdentity target = this.getUser(targetId)
+        .orElseThrow(() -> new IOException("punishment (" + id + "): target id " + targetId + " is unknown"));
+    final BanIdentity punisher = this.getUser(punisherId)
+        .orElseThrow(() -> new IOException("punishment (" + id + "): punisher id " + punisherId + " is unknown"));
+    return new Punishment(id, type, target, punisher, reason, lifted, liftedBy, time, duration);
+  }
+
+  private static void writeUuid(final @NonNull DataOutputStream out, final @NonNull UUID uuid) throws IOException {
+    out.writeLong(uuid.getMostSignificantBits());
+    out.writeLong(uuid.getLeastSignificantBits());
+  }
+
+  private static @NonNull UUID readUuid(final @NonNull DataInputStream in) throws IOException {
+    return new UUID(in.readLong(), in.readLong());
+  }
+
+  private static void writeAddress(final @NonNull DataOutputStream out, final @NonNull InetAddress address)
+      throws IOException {
+    final byte[] bytes = address.getAddress();
+    out.writeByte(bytes.length);
+    out.write(bytes);
+  }
+
+  private static @NonNull InetAddress readAddress(final @NonNull DataInputStream in) throws IOException {
+    final byte[] bytes = new byte[in.readUnsignedByte()];
+    in.readFully(bytes);
+    return InetAddress.getByAddress(bytes);
+  }
+
+  private static final class UserRecord {
+    private final long identity;
+    private final @NonNull String username;
+    private final long timestamp;
+
+    private UserRecord(final long identity,
+        final @NonNull String username,
+        final long timestamp) {
+      this.identity = identity;
+      this.username = username;
+      this.timestamp = timestamp;
+    }
+  }
+}
@@ -18,36 +18,80 @@
 
 package com.proximyst.ban.service.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
+import com.proximyst.ban.message.ApplicationMessageCache;
 import com.proximyst.ban.model.BanIdentity;
+import com.proximyst.ban.model.BanIdentity.IpIdentity;
 import com.proximyst.ban.model.Punishment;
 import com.proximyst.ban.model.PunishmentBuilder;
+import com.proximyst.ban.model.PunishmentType;
+import com.proximyst.ban.platform.IBanAudience.IBanPlayer;
+import com.proximyst.ban.platform.IBanServer;
+import com.proximyst.ban.platform.PlayerSession;
+import com.proximyst.ban.service.IAltService;
 import com.proximyst.ban.service.IDataService;
 import com.proximyst.ban.service.IMessageService;
 import com.proximyst.ban.service.IPunishmentService;
+import com.proximyst.ban.utils.InetAddressTable;
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import net.kyori.adventure.text.Component;
+import org.checkerframework.checker.index.qual.NonNegative;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 @Singleton
 public final class ImplPunishmentService implements IPunishmentService {
+  private static final @NonNegative int MAXIMUM_ACTIVE_BAN_CACHE_CAPACITY =
+      Integer.getInteger("ban.maxActiveBanCacheCapacity", 512);
+
   private final @NonNull IDataService dataService;
   private final @NonNull IMessageService messageService;
+  private final @NonNull ApplicationMessageCache applicationMessageCache;
   private final @NonNull Executor executor;
+  private final @NonNull IBanServer banServer;
+  private final @NonNull IAltService altService;
+
+  /**
+   * The active bans of targets, by target ID.
+   * <p>
+   * Only present bans are cached, as these are what banned players reconnecting over and over hit.
+   */
+  private final @NonNull Cache<@NonNull Long, @NonNull Punishment> activeBanCache = CacheBuilder.newBuilder()
+      .maximumSize(MAXIMUM_ACTIVE_BAN_CACHE_CAPACITY)
+      .expireAfterWrite(1, TimeUnit.MINUTES)
+      .build();
+
+  /**
+   * The active bans of IP addresses, kept in memory so logins never query for them.
+   */
+  private final @NonNull InetAddressTable<@NonNull Punishment> activeIpBans = new InetAddressTable<>();
 
   @Inject
   ImplPunishmentService(final @NonNull IDataService dataService,
       final @NonNull IMessageService messageService,
-      final @NonNull @BanAsyncExecutor Executor executor) {
+      final @NonNull ApplicationMessageCache applicationMessageCache,
+      final @NonNull @BanAsyncExecutor Executor executor,
+      final @NonNull IBanServer banServer,
+      final @NonNull IAltService altService) {
     this.dataService = dataService;
     this.messageService = messageService;
+    this.applicationMessageCache = applicationMessageCache;
     this.executor = executor;
+    this.banServer = banServer;
+    this.altService = altService;
   }
 
   @Override
@@ -57,10 +101,100 @@ public final class ImplPunishmentService implements IPunishmentService {
         this.dataService.getPunishmentsForTarget(identity)), this.executor);
   }
 
+  @Override
+  public @NonNull CompletableFuture<@NonNull ImmutableList<@NonNull Punishment>> getArchivedPunishments(
+      final @NonNull BanIdentity identity) {
+    return CompletableFuture.supplyAsync(() -> ImmutableList.copyOf(
+        this.dataService.getArchivedPunishmentsForTarget(identity)), this.executor);
+  }
+
   @Override
   public @NonNull CompletableFuture<@NonNull Punishment> savePunishment(
       final @NonNull PunishmentBuilder punishmentBuilder) {
-    return CompletableFuture.supplyAsync(() -> this.dataService.savePunishment(punishmentBuilder), this.executor);
+    return CompletableFuture.supplyAsync(() -> this.dataService.savePunishment(punishmentBuilder), this.executor)
+        .thenApply(punishment -> {
+          if (punishment.getPunishmentType() == PunishmentType.BAN && punishment.currentlyApplies()) {
+            this.activeBanCache.put(punishment.getTarget().getId(), punishment);
+            punishment.getTarget().asIpIdentity()
+                .ifPresent(ip -> this.activeIpBans.put(ip.address(), punishment));
+            this.altService.trackBan(punishment);
+          } else if (punishment.getPunishmentType() == PunishmentType.MUTE && punishment.currentlyApplies()) {
+            this.sessionOf(punishment.getTarget()).ifPresent(session -> session.mute(punishment));
+          }
+
+          return punishment;
+        });
+  }
+
+  @Override
+  public @NonNull CompletableFuture<@NonNull Optional<@NonNull Punishment>> getActivePunishment(
+      final @NonNull BanIdentity identity, final @NonNull PunishmentType type) {
+    return CompletableFuture.supplyAsync(() -> this.dataService.getActivePunishment(identity, type), this.executor);
+  }
+
+  @Override
+  public @NonNull CompletableFuture<@NonNull Optional<@NonNull Punishment>> getActiveBan(
+      final @NonNull BanIdentity identity) {
+    final Punishment cached = this.activeBanCache.getIfPresent(identity.getId());
+    if (cached != null) {
+      if (cached.currentlyApplies()) {
+        return CompletableFuture.completedFuture(Optional.of(cached));
+      }
+
+      // The ban has expired since it was cached.
+      this.activeBanCache.invalidate(identity.getId());
+    }
+
+    return IPunishmentService.super.getActiveBan(identity)
+        .thenApply(optBan -> {
+          optBan.ifPresent(ban -> this.activeBanCache.put(identity.getId(), ban));
+          return optBan;
+        });
+  }
+
+  @Override
+  public @NonNull CompletableFuture<@Nullable Void> loadIpBans() {
+    return CompletableFuture.runAsync(() -> {
+      final Map<InetAddress, Punishment> bans = new HashMap<>();
+      for (final Punishment ban : this.dataService.getActiveIpBans()) {
+        // Keep the latest ban of each address, as getActivePunishment does.
+        final InetAddress address = ban.getTarget().asIpIdentity()
+            .orElseThrow(() -> new IllegalStateException("IP ban (" + ban.getId() + ") has no IP target"))
+            .address();
+        bans.merge(address, ban, (a, b) -> a.getTime() >= b.getTime() ? a : b);
+      }
+
+      this.activeIpBans.replaceAll(bans);
+    }, this.executor);
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull Punishment> getActiveIpBan(final @NonNull InetAddress address) {
+    final Punishment ban = this.activeIpBans.get(address);
+    if (ban == null) {
+      return Optional.empty();
+    }
+
+    if (!ban.currentlyApplies()) {
+      // The ban has expired since it was loaded.
+      this.activeIpBans.remove(address, expired -> expired.getId() == ban.getId());
+      return Optional.empty();
+    }
+
+    return Optional.of(ban);
+  }
+
+  @Override
+  public @NonNull CompletableFuture<@Nullable Void> loadSession(final @NonNull IBanPlayer player,
+      final @NonNull BanIdentity identity) {
+    return this.getActiveMute(identity)
+        .thenAccept(mute -> player.session().loadMute(mute.orElse(null)));
+  }
+
+  @Override
+  public @NonNull Component applicationMessage(final @NonNull Punishment punishment, final @NonNull Locale locale) {
+    return this.applicationMessageCache.get(punishment, locale,
+        uncached -> uncached.applicationMessage(this.messageService, locale));
   }
 
   @Override
@@ -74,17 +208,13 @@ public final class ImplPunishmentService implements IPunishmentService {
         .thenAccept(target -> {
           switch (punishment.getPunishmentType()) {
             case KICK:
-            case BAN: {
-              final Component reason = punishment.applicationMessage(this.messageService);
-              target.forEach(audience -> audience.disconnect(reason));
+            case BAN:
+              target.forEach(audience -> audience.disconnect(this.applicationMessage(punishment, audience.locale())));
               break;
-            }
             case MUTE:
-            case WARNING: {
-              final Component reason = punishment.applicationMessage(this.messageService);
-              target.forEach(audience -> audience.sendMessage(reason));
+            case WARNING:
+              target.forEach(audience -> audience.sendMessage(this.applicationMessage(punishment, audience.locale())));
               break;
-            }
 
             case NOTE:
               // Fall-through
@@ -96,7 +226,18 @@ public final class ImplPunishmentService implements IPunishmentService {
   @Override
   public @NonNull CompletableFuture<@NonNull Punishment> liftPunishment(final @NonNull Punishment punishment,
       final @Nullable UUID liftedBy) {
-    return CompletableFuture.supplyAsync(() -> this.dataService.liftPunishment(punishment, liftedBy), this.executor);
+    return CompletableFuture.supplyAsync(() -> this.dataService.liftPunishment(punishment, liftedBy), this.executor)
+        .thenApplyAsync(lifted -> {
+          this.activeBanCache.invalidate(lifted.getTarget().getId());
+          this.applicationMessageCache.invalidate(lifted);
+          if (lifted.getPunishmentType() == PunishmentType.MUTE) {
+            this.sessionOf(lifted.getTarget()).ifPresent(session -> session.unmute(lifted));
+          } else if (lifted.getPunishmentType() == PunishmentType.BAN) {
+            lifted.getTarget().asIpIdentity().ifPresent(ip -> this.unloadIpBan(ip, lifted));
+            this.altService.trackBan(lifted);
+          }
+          return lifted;
+        }, this.executor);
   }
 
   @Override
@@ -140,4 +281,22 @@ public final class ImplPunishmentService implements IPunishmentService {
       default:
     }
   }
+
+  private void unloadIpBan(final @NonNull IpIdentity ip, final @NonNull Punishment lifted) {
+    if (!this.activeIpBans.remove(ip.address(), ban -> ban.getId() == lifted.getId())) {
+      return;
+    }
+
+    // Only the latest ban of an address is kept in memory; an older one may still apply now that it is lifted.
+    // A ban saved meanwhile is newer than anything loaded here, so it is not replaced.
+    this.dataService.getActivePunishment(ip, PunishmentType.BAN)
+        .filter(Punishment::currentlyApplies)
+        .ifPresent(ban -> this.activeIpBans.putIfAbsent(ip.address(), ban));
+  }
+
+  private @NonNull Optional<@NonNull PlayerSession> sessionOf(final @NonNull BanIdentity target) {
+    return target.asUuidIdentity()
+        .map(identity -> this.banServer.audienceOf(identity.uuid()))
+        .map(IBanPlayer::session);
+  }
 }
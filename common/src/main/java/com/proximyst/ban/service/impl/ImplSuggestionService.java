@@ -0,0 +1,98 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.service.impl;
+
+import com.google.common.collect.Lists;
+import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
+import com.proximyst.ban.platform.IBanAudience.IBanPlayer;
+import com.proximyst.ban.platform.IBanServer;
+import com.proximyst.ban.service.IDataService;
+import com.proximyst.ban.service.ISuggestionService;
+import com.proximyst.ban.utils.PrefixIndex;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+@Singleton
+public final class ImplSuggestionService implements ISuggestionService {
+  private static final @Positive int MAXIMUM_INDEXED_USERNAMES =
+      Integer.getInteger("ban.maxIndexedUsernames", 10_000);
+  private static final @NonNegative int MAXIMUM_USERNAME_SUGGESTIONS =
+      Integer.getInteger("ban.maxUsernameSuggestions", 50);
+
+  private final @NonNull IDataService dataService;
+  private final @NonNull IBanServer banServer;
+  private final @NonNull Executor executor;
+
+  private final @NonNull PrefixIndex usernameIndex = new PrefixIndex(MAXIMUM_INDEXED_USERNAMES);
+
+  @Inject
+  ImplSuggestionService(final @NonNull IDataService dataService,
+      final @NonNull IBanServer banServer,
+      final @NonNull @BanAsyncExecutor Executor executor) {
+    this.dataService = dataService;
+    this.banServer = banServer;
+    this.executor = executor;
+  }
+
+  @Override
+  public @NonNull List<@NonNull String> suggestUsernames(final @NonNull String input) {
+    return this.usernameIndex.search(input.trim(), MAXIMUM_USERNAME_SUGGESTIONS);
+  }
+
+  @Override
+  public @NonNull List<@NonNull String> suggestOnlineUsernames(final @NonNull String input) {
+    // The index also holds offline players, who may crowd out every online one before the cap; scan those online.
+    final String prefix = input.trim();
+    final List<String> usernames = new ArrayList<>();
+    for (final IBanPlayer player : this.banServer.onlineAudiences()) {
+      if (usernames.size() >= MAXIMUM_USERNAME_SUGGESTIONS) {
+        break;
+      }
+
+      final String username = player.username();
+      if (username.regionMatches(true, 0, prefix, 0, prefix.length())) {
+        usernames.add(username);
+      }
+    }
+    return usernames;
+  }
+
+  @Override
+  public void indexUsername(final @NonNull String username) {
+    this.usernameIndex.add(username);
+  }
+
+  @Override
+  public @NonNull CompletableFuture<@Nullable Void> indexRecentUsers() {
+    return CompletableFuture.runAsync(() -> {
+      final List<String> usernames = this.dataService.getRecentUsernames(MAXIMUM_INDEXED_USERNAMES);
+
+      // The list is ordered by most recently seen, so we add it backwards to keep those the last to be evicted.
+      this.usernameIndex.addAll(Lists.reverse(usernames));
+    }, this.executor);
+  }
+}
@@ -24,15 +24,14 @@ import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
 import com.proximyst.ban.model.BanIdentity;
 import com.proximyst.ban.model.BanIdentity.ConsoleIdentity;
 import com.proximyst.ban.model.BanIdentity.UuidIdentity;
-import com.proximyst.ban.platform.IBanServer;
 import com.proximyst.ban.service.IDataService;
 import com.proximyst.ban.service.IMojangService;
 import com.proximyst.ban.service.IUserService;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
@@ -45,10 +44,14 @@ public final class ImplUserService implements IUserService {
   private final @NonNull IMojangService mojangService;
   private final @NonNull IDataService dataService;
   private final @NonNull Executor executor;
-  private final @NonNull IBanServer banServer;
   private final @NonNull ConsoleIdentity consoleIdentity;
 
-  private final @NonNull Map<@NonNull UUID, @NonNull UuidIdentity> uuidIdentityCache = new HashMap<>(512);
+  /**
+   * The identities of the players currently online. Entries are added when a player's identity is saved on login, and
+   * removed when their connection disconnects; see {@link #saveUser(UUID, String, Object)} and
+   * {@link #uncachePlayer(UUID, Object)}.
+   */
+  private final @NonNull Map<@NonNull UUID, @NonNull OnlineIdentity> onlineIdentities = new ConcurrentHashMap<>(512);
   private final @NonNull Cache<@NonNull String, @NonNull UUID> usernameUuidCache = CacheBuilder.newBuilder()
       .expireAfterWrite(5, TimeUnit.MINUTES)
       .maximumSize(512)
@@ -58,12 +61,10 @@ public final class ImplUserService implements IUserService {
   ImplUserService(final @NonNull IMojangService mojangService,
       final @NonNull IDataService dataService,
       final @NonNull @BanAsyncExecutor Executor executor,
-      final @NonNull IBanServer banServer,
       final @NonNull ConsoleIdentity consoleIdentity) {
     this.mojangService = mojangService;
     this.dataService = dataService;
     this.executor = executor;
-    this.banServer = banServer;
     this.consoleIdentity = consoleIdentity;
   }
 
@@ -73,9 +74,9 @@ public final class ImplUserService implements IUserService {
       return CompletableFuture.completedFuture(Optional.of(this.consoleIdentity));
     }
 
-    final UuidIdentity cachedIdentity = this.uuidIdentityCache.get(uuid);
-    if (cachedIdentity != null) {
-      return CompletableFuture.completedFuture(Optional.of(cachedIdentity));
+    final OnlineIdentity onlineIdentity = this.onlineIdentities.get(uuid);
+    if (onlineIdentity != null) {
+      return CompletableFuture.completedFuture(Optional.of(onlineIdentity.identity));
     }
 
     return this.getUserInternal(() -> this.dataService.getUser(uuid).flatMap(BanIdentity::asUuidIdentity),
@@ -115,13 +116,21 @@ public final class ImplUserService implements IUserService {
 
   @Override
   public @NonNull CompletableFuture<@NonNull UuidIdentity> saveUser(final @NonNull UUID uuid,
-      final @NonNull String username) {
-    return CompletableFuture.supplyAsync(() -> this.dataService.createIdentity(uuid, username), this.executor);
+      final @NonNull String username,
+      final @NonNull Object connection) {
+    return CompletableFuture.supplyAsync(() -> this.dataService.createIdentity(uuid, username), this.executor)
+        .thenApply(identity -> {
+          this.onlineIdentities.put(uuid, new OnlineIdentity(connection, identity));
+          this.usernameUuidCache.put(identity.username(), uuid);
+          return identity;
+        });
   }
 
   @Override
-  public void uncachePlayer(final @NonNull UUID uuid) {
-    this.uuidIdentityCache.remove(uuid);
+  public void uncachePlayer(final @NonNull UUID uuid, final @NonNull Object connection) {
+    // A newer connection of theirs may already have replaced the entry.
+    this.onlineIdentities.computeIfPresent(uuid,
+        ($, online) -> online.connection == connection ? null : online);
   }
 
   private @NonNull CompletableFuture<@NonNull Optional<@NonNull UuidIdentity>> getUserInternal(
@@ -138,13 +147,18 @@ public final class ImplUserService implements IUserService {
               .thenApplyAsync(mojangUser -> mojangUser
                   .map(identity -> {
                     this.usernameUuidCache.put(identity.username(), identity.uuid());
-
-                    if (this.banServer.audienceOf(identity.uuid()) != null) {
-                      this.uuidIdentityCache.put(identity.uuid(), identity);
-                    }
-
                     return identity;
                   }), this.executor);
         });
   }
+
+  private static final class OnlineIdentity {
+    private final @NonNull Object connection;
+    private final @NonNull UuidIdentity identity;
+
+    private OnlineIdentity(final @NonNull Object connection, final @NonNull UuidIdentity identity) {
+      this.connection = connection;
+      this.identity = identity;
+    }
+  }
 }
@@ -0,0 +1,969 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.proximyst.ban.factory.IIdentityFactory;
+import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
+import com.proximyst.ban.inject.annotation.BanScheduler;
+import com.proximyst.ban.inject.annotation.PluginData;
+import com.proximyst.ban.model.BanIdentity;
+import com.proximyst.ban.model.BanIdentity.ConsoleIdentity;
+import com.proximyst.ban.model.BanIdentity.IpIdentity;
+import com.proximyst.ban.model.BanIdentity.UuidIdentity;
+import com.proximyst.ban.model.Punishment;
+import com.proximyst.ban.model.PunishmentBuilder;
+import com.proximyst.ban.model.PunishmentType;
+import com.proximyst.ban.model.sql.IdentityType;
+import com.proximyst.ban.service.IDataService;
+import com.proximyst.ban.utils.ResourceReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.slf4j.Logger;
+
+/**
+ * An {@link IDataService} which applies punishment changes immediately, and writes them to the database in the
+ * background.
+ * <p>
+ * Every change is appended to a local write-ahead log and synced to disk before it is returned. A background flusher
+ * upserts the logged changes in batches, and empties the log once everything is in the database. Replaying a change
+ * is idempotent, so the log is simply replayed in full after a crash. Changes the database keeps rejecting while it is
+ * otherwise available are set aside in a file of their own, rather than holding up everything logged after them.
+ * <p>
+ * Punishment IDs are reserved from the database sequence ahead of time by the flusher, such that new punishments have
+ * their final ID without ever waiting on the database. The unused reserved IDs are kept on disk, so punishing keeps
+ * working across a restart while the database is unavailable, until they run out. Everything but punishment changes
+ * is delegated to {@link ImplGenericSqlDataService}.
+ */
+@Singleton
+public final class ImplWriteBehindDataService implements IDataService, AutoCloseable {
+  private static final @Positive long FLUSH_INTERVAL_MILLIS = Long.getLong("ban.writeBehindFlushIntervalMillis", 250);
+  private static final @Positive int MAXIMUM_FLUSH_BATCH_SIZE = Integer.getInteger("ban.writeBehindBatchSize", 256);
+  private static final @Positive int RESERVED_ID_BATCH_SIZE = Integer.getInteger("ban.writeBehindReservedIds", 256);
+  /**
+   * How many times a change may be rejected while the database is available before it is set aside.
+   */
+  private static final @Positive int MAXIMUM_WRITE_ATTEMPTS = Integer.getInteger("ban.writeBehindMaxAttempts", 5);
+  private static final int CONNECTION_VALIDATION_TIMEOUT_SECONDS = 5;
+
+  private final @NonNull ImplGenericSqlDataService delegate;
+  private final @NonNull IIdentityFactory identityFactory;
+  private final @NonNull ConsoleIdentity consoleIdentity;
+  private final @NonNull Jdbi jdbi;
+  private final @NonNull Executor executor;
+  private final @NonNull ScheduledExecutorService scheduler;
+  private final @NonNull Logger logger;
+  private final @NonNull Path logFile;
+  private final @NonNull Path rejectedFile;
+  private final @NonNull Path reservedIdsFile;
+
+  private final @NonNull String queryReservePunishmentIds;
+  private final @NonNull String queryUpsertPunishment;
+
+  /**
+   * Guards {@link #channel} and {@link #unflushed}, such that the log and the queue always agree.
+   */
+  private final @NonNull Object logLock = new Object();
+  private final @NonNull Deque<@NonNull Entry> unflushed = new ArrayDeque<>();
+  private @Nullable FileChannel channel;
+
+  /**
+   * The punishments which are not yet known to be in the database, by ID.
+   */
+  private final @NonNull Map<@NonNull Long, @NonNull Punishment> pending = new ConcurrentHashMap<>();
+
+  private final @NonNull Deque<@NonNull Long> reservedIds = new ArrayDeque<>();
+  /**
+   * Whether {@link #reservedIds} has changed since it was last written to disk. Guarded by {@link #reservedIds}.
+   */
+  private boolean reservedIdsChanged;
+  private final @NonNull AtomicBoolean flushing = new AtomicBoolean();
+  /**
+   * Whether the latest flush failed. Only written while holding {@code this}.
+   */
+  private volatile boolean failing;
+  private @Nullable ScheduledFuture<?> flushTask;
+
+  @Inject
+  ImplWriteBehindDataService(final @NonNull ImplGenericSqlDataService delegate,
+      final @NonNull IIdentityFactory identityFactory,
+      final @NonNull ConsoleIdentity consoleIdentity,
+      final @NonNull Jdbi jdbi,
+      final @NonNull @BanAsyncExecutor Executor executor,
+      final @NonNull @BanScheduler ScheduledExecutorService scheduler,
+      final @NonNull Logger logger,
+      final @NonNull @PluginData Path dataDirectory) {
+    this.delegate = delegate;
+    this.identityFactory = identityFactory;
+    this.consoleIdentity = consoleIdentity;
+    this.jdbi = jdbi;
+    this.executor = executor;
+    this.scheduler = scheduler;
+    this.logger = logger;
+    this.logFile = dataDirectory.resolve("punishments.wal");
+    this.rejectedFile = dataDirectory.resolve("punishments.rejected");
+    this.reservedIdsFile = dataDirectory.resolve("punishments.ids");
+
+    this.queryReservePunishmentIds = ResourceReader.readResource(delegate.getClassPathPrefix()
+        + "reserve-punishment-ids.sql");
+    this.queryUpsertPunishment = ResourceReader.readResource(delegate.getClassPathPrefix()
+        + "upsert-punishment.sql");
+  }
+
+  /**
+   * Open the write-ahead log, queue any changes left in it by a previous run, reserve the first punishment IDs, and
+   * start flushing in the background.
+   * <p>
+   * If the database is unavailable, the IDs left reserved by the previous run are used until it is back.
+   *
+   * @throws IOException If the log or the reserved IDs cannot be opened or read.
+   */
+  public void start() throws IOException {
+    synchronized (this.logLock) {
+      this.channel = FileChannel.open(this.logFile,
+          StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      final int recovered = this.recover(this.channel);
+      if (recovered != 0) {
+        this.logger.info("Replaying {} punishment changes left in the write-ahead log", recovered);
+      }
+    }
+
+    synchronized (this) {
+      try {
+        this.refillReservedIds();
+      } catch (final RuntimeException ex) {
+        final int restored = this.restoreReservedIds();
+        this.failing = true;
+        this.logger.warn("Could not reserve punishment IDs; the database is unavailable. "
+            + "{} IDs reserved by the last run are left to punish with", restored, ex);
+      }
+    }
+
+    this.flushTask = this.scheduler.scheduleWithFixedDelay(() -> {
+      if (this.flushing.compareAndSet(false, true)) {
+        CompletableFuture.runAsync(this::flush, this.executor)
+            .whenComplete(($, $$) -> this.flushing.set(false));
+      }
+    }, 0, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop flushing in the background, flush what is left, and close the write-ahead log.
+   * <p>
+   * Anything which could not be flushed stays in the log until the next start.
+   *
+   * @throws IOException If the log cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.flushTask != null) {
+      this.flushTask.cancel(false);
+    }
+
+    this.flush();
+
+    synchronized (this.logLock) {
+      if (this.channel != null) {
+        this.channel.close();
+        this.channel = null;
+      }
+    }
+  }
+
+  @Override
+  public @NonNull String getClassPathPrefix() {
+    return this.delegate.getClassPathPrefix();
+  }
+
+  @Override
+  public @NonNull List<@NonNull Punishment> getPunishmentsForTarget(final @NonNull BanIdentity identity) {
+    final List<Punishment> pending = this.pendingPunishments(identity, null);
+    List<Punishment> punishments;
+    try {
+      punishments = this.delegate.getPunishmentsForTarget(identity);
+    } catch (final RuntimeException ex) {
+      if (!this.failing || pending.isEmpty()) {
+        throw ex;
+      }
+
+      // The database is unavailable; the latest punishments are better than none.
+      punishments = new ArrayList<>(pending.size());
+    }
+    if (pending.isEmpty()) {
+      return punishments;
+    }
+
+    // The pending changes are newer than whatever the database has.
+    for (final Punishment punishment : pending) {
+      punishments.removeIf(stored -> stored.getId() == punishment.getId());
+      punishments.add(punishment);
+    }
+    punishments.sort(Comparator.comparingLong(Punishment::getTime));
+    return punishments;
+  }
+
+  @Override
+  public @NonNegative int importPunishments(final @NonNull List<@NonNull PunishmentBuilder> punishments,
+      final boolean archived) {
+    // Bulk imports are already batched, and are written directly rather than through the log.
+    return this.delegate.importPunishments(punishments, archived);
+  }
+
+  @Override
+  public @NonNull List<@NonNull Punishment> getArchivedPunishmentsForTarget(final @NonNull BanIdentity identity) {
+    return this.delegate.getArchivedPunishmentsForTarget(identity);
+  }
+
+  @Override
+  public @NonNegative int archivePunishments(final long horizon, final @Positive int limit) {
+    return this.delegate.archivePunishments(horizon, limit);
+  }
+
+  @Override
+  public void createPunishmentPartition(final int year) {
+    this.delegate.createPunishmentPartition(year);
+  }
+
+  @Override
+  public void readAddressLinks(final @NonNull AddressLinkConsumer consumer) {
+    this.delegate.readAddressLinks(consumer);
+  }
+
+  @Override
+  public @NonNull List<@NonNull Punishment> getActiveIpBans() {
+    // This is only read on start-up, so the pending changes can simply be written first.
+    this.flush();
+    return this.delegate.getActiveIpBans();
+  }
+
+  @Override
+  public @NonNull List<@NonNull Punishment> getActiveUserBans() {
+    this.flush();
+    return this.delegate.getActiveUserBans();
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull Punishment> getActivePunishment(final @NonNull BanIdentity identity,
+      final @NonNull PunishmentType type) {
+    final List<Punishment> pending = this.pendingPunishments(identity, type);
+    final Optional<Punishment> pendingActive = pending.stream()
+        .filter(Punishment::currentlyApplies)
+        .max(Comparator.comparingLong(Punishment::getTime));
+    if (this.failing && pendingActive.isPresent()) {
+      // A pending punishment is newer than any stored one, so there is no need to wait on an unavailable database.
+      return pendingActive;
+    }
+
+    final Optional<Punishment> stored;
+    try {
+      stored = this.delegate.getActivePunishment(identity, type);
+    } catch (final RuntimeException ex) {
+      if (pendingActive.isPresent()) {
+        return pendingActive;
+      }
+      throw ex;
+    }
+    if (pending.isEmpty()) {
+      return stored;
+    }
+
+    // A pending change may have lifted the stored punishment, or added a newer one.
+    final List<Punishment> candidates = new ArrayList<>(pending);
+    stored.filter(punishment -> candidates.stream().noneMatch(candidate -> candidate.getId() == punishment.getId()))
+        .ifPresent(candidates::add);
+    return candidates.stream()
+        .filter(Punishment::currentlyApplies)
+        .max(Comparator.comparingLong(Punishment::getTime));
+  }
+
+  @Override
+  public @NonNull Punishment savePunishment(final @NonNull PunishmentBuilder punishment) {
+    final Punishment saved = new Punishment(this.nextPunishmentId(),
+        punishment.getType(),
+        punishment.getTarget(),
+        punishment.getPunisher(),
+        punishment.getReason(),
+        punishment.isLifted(),
+        punishment.getLiftedBy(),
+        punishment.getTime(),
+        punishment.getDuration());
+    this.append(saved);
+    return saved;
+  }
+
+  @Override
+  public @NonNull Punishment liftPunishment(final @NonNull Punishment punishment, final @Nullable UUID liftedBy) {
+    final Punishment lifted = new Punishment(punishment.getId(),
+        punishment.getPunishmentType(),
+        punishment.getTarget(),
+        punishment.getPunisher(),
+        punishment.getReason().orElse(null),
+        true,
+        liftedBy,
+        punishment.getTime(),
+        punishment.getDuration());
+    this.append(lifted);
+    return lifted;
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull BanIdentity> getUser(final @NonNull UUID uuid) {
+    return this.delegate.getUser(uuid);
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull BanIdentity> getUser(final @NonNull String username) {
+    return this.delegate.getUser(username);
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull BanIdentity> getUser(final long id) {
+    return this.delegate.getUser(id);
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull IpIdentity> getIpIdentity(final @NonNull InetAddress address) {
+    return this.delegate.getIpIdentity(address);
+  }
+
+  @Override
+  public @NonNull ImmutableList<@NonNull UuidIdentity> getUsersByIp(final @NonNull InetAddress address) {
+    return this.delegate.getUsersByIp(address);
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull Long> getUserCacheDate(final long id) {
+    return this.delegate.getUserCacheDate(id);
+  }
+
+  @Override
+  public @NonNull Optional<@NonNull Long> getUserCacheDate(final @NonNull UUID uuid) {
+    return this.delegate.getUserCacheDate(uuid);
+  }
+
+  @Override
+  public @NonNull List<@NonNull String> getRecentUsernames(final @NonNegative int limit) {
+    return this.delegate.getRecentUsernames(limit);
+  }
+
+  @Override
+  public @NonNull UuidIdentity createIdentity(final @NonNull UUID uuid, final @NonNull String username) {
+    return this.delegate.createIdentity(uuid, username);
+  }
+
+  @Override
+  public void exportData(final @NonNull ExportSink sink) throws IOException {
+    // Everything logged so far should be in the export.
+    this.flush();
+    this.delegate.exportData(sink);
+  }
+
+  @Override
+  public @NonNull Map<@NonNull UUID, @NonNull UuidIdentity> getOrCreateIdentities(
+      final @NonNull Map<@NonNull UUID, @Nullable String> users) {
+    return this.delegate.getOrCreateIdentities(users);
+  }
+
+  @Override
+  public @NonNull IpIdentity createIdentity(final @NonNull InetAddress address,
+      final @NonNull UuidIdentity @NonNull ... identities) {
+    return this.delegate.createIdentity(address, identities);
+  }
+
+  @Override
+  public void updateExpirations() {
+    this.delegate.updateExpirations();
+  }
+
+  /**
+   * Get the pending punishments of a target.
+   *
+   * @param identity The target of the punishments.
+   * @param type     The type of the punishments, or {@code null} for any type.
+   * @return The pending punishments.
+   */
+  private @NonNull List<@NonNull Punishment> pendingPunishments(final @NonNull BanIdentity identity,
+      final @Nullable PunishmentType type) {
+    if (this.pending.isEmpty()) {
+      return List.of();
+    }
+
+    final List<Punishment> punishments = new ArrayList<>(2);
+    for (final Punishment punishment : this.pending.values()) {
+      if (punishment.getTarget().getId() == identity.getId()
+          && (type == null || punishment.getPunishmentType() == type)) {
+        punishments.add(punishment);
+      }
+    }
+    return punishments;
+  }
+
+  private long nextPunishmentId() {
+    // The flusher keeps the reserve topped up, so this never waits on the database.
+    synchronized (this.reservedIds) {
+      final Long id = this.reservedIds.pollFirst();
+      if (id == null) {
+        throw new IllegalStateException("no punishment IDs are left; the database has been unavailable too long");
+      }
+
+      this.reservedIdsChanged = true;
+      return id;
+    }
+  }
+
+  private @NonNull List<@NonNull Long> reservePunishmentIds() {
+    return this.jdbi.withHandle(handle -> handle.createQuery(this.queryReservePunishmentIds)
+        .bind("count", RESERVED_ID_BATCH_SIZE)
+        .mapTo(Long.class)
+        .list());
+  }
+
+  private void append(final @NonNull Punishment punishment) {
+    final Entry entry = new Entry(punishment);
+    final ByteBuffer record = entry.toRecord();
+
+    synchronized (this.logLock) {
+      if (this.channel == null) {
+        throw new IllegalStateException("the write-ahead log is not open");
+      }
+
+      try {
+        while (record.hasRemaining()) {
+          this.channel.write(record);
+        }
+        this.channel.force(false);
+      } catch (final IOException ex) {
+        throw new UncheckedIOException("could not append to the write-ahead log", ex);
+      }
+
+      this.unflushed.addLast(entry);
+      this.pending.put(punishment.getId(), punishment);
+    }
+  }
+
+  /**
+   * Write the unflushed changes to the database, and empty the log if nothing is left afterwards.
+   */
+  private synchronized void flush() {
+    try {
+      this.refillReservedIds();
+
+      while (true) {
+        final List<Entry> batch = new ArrayList<>();
+        synchronized (this.logLock) {
+          for (int i = 0; i < MAXIMUM_FLUSH_BATCH_SIZE && !this.unflushed.isEmpty(); ++i) {
+            batch.add(this.unflushed.pollFirst());
+          }
+        }
+        if (batch.isEmpty()) {
+          break;
+        }
+
+        // Every entry holds the full state of its punishment, so only the latest of each needs writing.
+        final Map<Long, Entry> latest = new LinkedHashMap<>();
+        for (final Entry entry : batch) {
+          latest.put(entry.id, entry);
+        }
+
+        final List<Entry> retry;
+        try {
+          retry = this.write(latest.values());
+        } catch (final RuntimeException ex) {
+          this.requeue(batch);
+          throw ex;
+        }
+        this.requeue(retry);
+
+        for (final Entry entry : batch) {
+          if (!retry.contains(entry)) {
+            this.delegate.markWritten(entry.target);
+            // A newer change to the same punishment stays pending.
+            this.pending.remove(entry.id, entry.punishment);
+          }
+        }
+
+        if (!retry.isEmpty()) {
+          // They are tried again on the next flush, rather than over and over right away.
+          break;
+        }
+
+        // The IDs used by the changes written must not be handed out again should the process die once the log is
+        // emptied, so the reserve is written to disk first.
+        this.persistReservedIds();
+        synchronized (this.logLock) {
+          if (this.unflushed.isEmpty() && this.channel != null) {
+            this.channel.truncate(0);
+          }
+        }
+      }
+
+      if (this.failing) {
+        this.failing = false;
+        this.logger.info("Punishments are being written to the database again");
+      }
+    } catch (final Exception ex) {
+      // Only log the first failure; the database is likely unavailable, and will be for a while.
+      if (!this.failing) {
+        this.failing = true;
+        this.logger.warn("Could not write punishments to the database; they are kept in the write-ahead log", ex);
+      }
+    }
+  }
+
+  /**
+   * Write changes to the database, setting aside those it keeps rejecting.
+   *
+   * @param entries The changes to write.
+   * @return The changes which were rejected, but should be tried again.
+   * @throws RuntimeException If the database is unavailable.
+   */
+  private @NonNull List<@NonNull Entry> write(final @NonNull Collection<@NonNull Entry> entries) {
+    try {
+      this.upsert(entries);
+      return List.of();
+    } catch (final RuntimeException ex) {
+      if (!this.isDatabaseAvailable()) {
+        throw ex;
+      }
+    }
+
+    // A single bad change fails the entire batch, so they are written one by one to find the bad ones.
+    final List<Entry> retry = new ArrayList<>();
+    for (final Entry entry : entries) {
+      try {
+        this.upsert(List.of(entry));
+      } catch (final RuntimeException ex) {
+        if (!this.isDatabaseAvailable()) {
+          // It went away in the meantime; whatever was written is simply written again later.
+          throw ex;
+        }
+
+        if (++entry.attempts < MAXIMUM_WRITE_ATTEMPTS) {
+          retry.add(entry);
+        } else {
+          this.setAside(entry, ex);
+        }
+      }
+    }
+    return retry;
+  }
+
+  private boolean isDatabaseAvailable() {
+    try {
+      return this.jdbi.withHandle(handle -> handle.getConnection().isValid(CONNECTION_VALIDATION_TIMEOUT_SECONDS));
+    } catch (final SQLException | RuntimeException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Give up on writing a change, keeping it in the file of rejected changes instead.
+   */
+  private void setAside(final @NonNull Entry entry, final @NonNull RuntimeException cause) {
+    try (final FileChannel rejected = FileChannel.open(this.rejectedFile,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      final ByteBuffer record = entry.toRecord();
+      while (record.hasRemaining()) {
+        rejected.write(record);
+      }
+      rejected.force(false);
+    } catch (final IOException ex) {
+      cause.addSuppressed(ex);
+      this.logger.error("Could not write punishment {} to the database after {} attempts, nor set it aside; "
+          + "it is dropped", entry.id, entry.attempts, cause);
+      return;
+    }
+
+    this.logger.error("Could not write punishment {} to the database after {} attempts; it is set aside in {}",
+        entry.id, entry.attempts, this.rejectedFile, cause);
+  }
+
+  private void requeue(final @NonNull List<@NonNull Entry> entries) {
+    synchronized (this.logLock) {
+      for (int i = entries.size() - 1; i >= 0; --i) {
+        this.unflushed.addFirst(entries.get(i));
+      }
+    }
+  }
+
+  /**
+   * Reserve more punishment IDs if they are running low. This must only be called while holding {@code this}.
+   */
+  private void refillReservedIds() throws IOException {
+    synchronized (this.reservedIds) {
+      if (this.reservedIds.size() >= RESERVED_ID_BATCH_SIZE / 2) {
+        return;
+      }
+    }
+
+    final List<Long> reserved = this.reservePunishmentIds();
+    synchronized (this.reservedIds) {
+      this.reservedIds.addAll(reserved);
+      this.reservedIdsChanged = true;
+    }
+    this.persistReservedIds();
+  }
+
+  /**
+   * Write the reserved IDs to disk, if they have changed. This must only be called while holding {@code this}.
+   */
+  private void persistReservedIds() throws IOException {
+    final List<Long> reserved;
+    synchronized (this.reservedIds) {
+      if (!this.reservedIdsChanged) {
+        return;
+      }
+      reserved = new ArrayList<>(this.reservedIds);
+      this.reservedIdsChanged = false;
+    }
+
+    final StringBuilder contents = new StringBuilder(reserved.size() * 8);
+    for (final Long id : reserved) {
+      contents.append(id).append('\n');
+    }
+
+    final Path temporary = this.reservedIdsFile.resolveSibling(this.reservedIdsFile.getFileName() + ".tmp");
+    try (final FileChannel channel = FileChannel.open(temporary,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      final ByteBuffer buffer = StandardCharsets.UTF_8.encode(contents.toString());
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    } catch (final IOException ex) {
+      synchronized (this.reservedIds) {
+        this.reservedIdsChanged = true;
+      }
+      throw ex;
+    }
+    Files.move(temporary, this.reservedIdsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Take the IDs reserved by the previous run, less those used by the changes left in the log. This must only be called
+   * while holding {@code this}, after the log is recovered.
+   *
+   * @return The amount of IDs restored.
+   * @throws IOException If the reserved IDs cannot be read.
+   */
+  private int restoreReservedIds() throws IOException {
+    if (!Files.isRegularFile(this.reservedIdsFile)) {
+      return 0;
+    }
+
+    final Set<Long> used = new HashSet<>();
+    synchronized (this.logLock) {
+      for (final Entry entry : this.unflushed) {
+        used.add(entry.id);
+      }
+    }
+
+    int restored = 0;
+    synchronized (this.reservedIds) {
+      for (final String line : Files.readAllLines(this.reservedIdsFile, StandardCharsets.UTF_8)) {
+        if (line.isBlank()) {
+          continue;
+        }
+
+        final long id = Long.parseLong(line.trim());
+        if (!used.contains(id)) {
+          this.reservedIds.addLast(id);
+          ++restored;
+        }
+      }
+      this.reservedIdsChanged = true;
+    }
+    return restored;
+  }
+
+  private void upsert(final @NonNull Collection<@NonNull Entry> batch) {
+    this.jdbi.useTransaction(handle -> {
+      final PreparedBatch preparedBatch = handle.prepareBatch(this.queryUpsertPunishment);
+      for (final Entry entry : batch) {
+        preparedBatch.bind("id", entry.id)
+            .bind("type", entry.type)
+            .bind("target", entry.target)
+            .bind("punisher", entry.punisher)
+            .bind("reason", entry.reason)
+            .bind("lifted", entry.lifted)
+            .bind("lifted_by", entry.liftedBy)
+            .bind("time", ImplGenericSqlDataService.timestamp(entry.time))
+            .bindByType("expires_at", ImplGenericSqlDataService.expiresAt(entry.time, entry.duration),
+                ZonedDateTime.class)
+            .add();
+      }
+      preparedBatch.execute();
+    });
+  }
+
+  /**
+   * Queue every intact record in the log as pending, and cut off a torn record at its end, if any.
+   *
+   * @param channel The log to read.
+   * @return The amount of records recovered.
+   * @throws IOException If the log cannot be read.
+   */
+  private int recover(final @NonNull FileChannel channel) throws IOException {
+    final ByteBuffer contents = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+    while (contents.hasRemaining() && channel.read(contents, contents.position()) >= 0) {
+      // Keep reading until the buffer is full.
+    }
+    contents.flip();
+
+    int recovered = 0;
+    while (true) {
+      final int start = contents.position();
+      final Entry entry = Entry.fromRecord(contents, this.identityFactory, this.consoleIdentity);
+      if (entry == null) {
+        contents.position(start);
+        break;
+      }
+
+      this.unflushed.addLast(entry);
+      this.pending.put(entry.id, entry.punishment);
+      ++recovered;
+    }
+
+    channel.truncate(contents.position());
+    channel.position(contents.position());
+    return recovered;
+  }
+
+  /**
+   * A single punishment change in the write-ahead log, holding the full state of the punishment after the change.
+   * <p>
+   * Records are laid out as the payload length, the CRC32 of the payload, and the payload itself. The payload holds the
+   * target and punisher in full, such that recovered changes can be read before the database is available again.
+   */
+  private static final class Entry {
+    private final long id;
+    private final @NonNull PunishmentType type;
+    private final long target;
+    private final long punisher;
+    private final @Nullable String reason;
+    private final boolean lifted;
+    private final @Nullable UUID liftedBy;
+    private final long time;
+    private final long duration;
+    private final @NonNull Punishment punishment;
+    /**
+     * How many times the database has rejected this change. Only accessed by the flusher.
+     */
+    private int attempts;
+
+    private Entry(final @NonNull Punishment punishment) {
+      this.id = punishment.getId();
+      this.type = punishment.getPunishmentType();
+      this.target = punishment.getTarget().getId();
+      this.punisher = punishment.getPunisher().getId();
+      this.reason = punishment.getReason().orElse(null);
+      this.lifted = punishment.isLifted();
+      this.liftedBy = punishment.getLiftedBy().orElse(null);
+      this.time = punishment.getTime();
+      this.duration = punishment.getDuration();
+      this.punishment = punishment;
+    }
+
+    private @NonNull ByteBuffer toRecord() {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+      try (final DataOutputStream out = new DataOutputStream(bytes)) {
+        out.writeLong(this.id);
+        out.writeUTF(this.type.name());
+        writeIdentity(out, this.punishment.getTarget());
+        writeIdentity(out, this.punishment.getPunisher());
+        out.writeBoolean(this.reason != null);
+        if (this.reason != null) {
+          // Reasons may be longer than writeUTF can take.
+          final byte[] reason = this.reason.getBytes(StandardCharsets.UTF_8);
+          out.writeInt(reason.length);
+          out.write(reason);
+        }
+        out.writeBoolean(this.lifted);
+        out.writeBoolean(this.liftedBy != null);
+        if (this.liftedBy != null) {
+          out.writeLong(this.liftedBy.getMostSignificantBits());
+          out.writeLong(this.liftedBy.getLeastSignificantBits());
+        }
+        out.writeLong(this.time);
+        out.writeLong(this.duration);
+      } catch (final IOException ex) {
+        // ByteArrayOutputStream does not throw, and the strings written with writeUTF are all short names.
+        throw new UncheckedIOException(ex);
+      }
+
+      final byte[] payload = bytes.toByteArray();
+      final CRC32 crc = new CRC32();
+      crc.update(payload);
+
+      final ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + Long.BYTES + payload.length);
+      record.putInt(payload.length)
+          .putLong(crc.getValue())
+          .put(payload)
+          .flip();
+      return record;
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @param buffer          The buffer to read from.
+     * @param identityFactory The factory to recreate the identities in the record with.
+     * @param consoleIdentity The identity of the console.
+     * @return The entry, or {@code null} if there is no intact record left.
+     */
+    private static @Nullable Entry fromRecord(final @NonNull ByteBuffer buffer,
+        final @NonNull IIdentityFactory identityFactory,
+        final @NonNull ConsoleIdentity consoleIdentity) {
+      if (buffer.remaining() < Integer.BYTES + Long.BYTES) {
+        return null;
+      }
+
+      final int length = buffer.getInt();
+      final long checksum = buffer.getLong();
+      if (length < 0 || buffer.remaining() < length) {
+        return null;
+      }
+
+      final byte[] payload = new byte[length];
+      buffer.get(payload);
+      final CRC32 crc = new CRC32();
+      crc.update(payload);
+      if (crc.getValue() != checksum) {
+        return null;
+      }
+
+      try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+        final long id = in.readLong();
+        final PunishmentType type = PunishmentType.valueOf(in.readUTF());
+        final BanIdentity target = readIdentity(in, identityFactory, consoleIdentity);
+        final BanIdentity punisher = readIdentity(in, identityFactory, consoleIdentity);
+        final String reason = in.readBoolean() ? readString(in) : null;
+        final boolean lifted = in.readBoolean();
+        final UUID liftedBy = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+        final long time = in.readLong();
+        final long duration = in.readLong();
+        return new Entry(new Punishment(id, type, target, punisher, reason, lifted, liftedBy, time, duration));
+      } catch (final IOException ex) {
+        // The checksum matched, so this is a record from an incompatible version.
+        throw new UncheckedIOException("could not read a write-ahead log record", ex);
+      }
+    }
+
+    private static @NonNull String readString(final @NonNull DataInputStream in) throws IOException {
+      final int length = in.readInt();
+      if (length < 0 || length > in.available()) {
+        throw new IOException("invalid string length in a write-ahead log record");
+      }
+
+      final byte[] bytes = new byte[length];
+      in.readFully(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeIdentity(final @NonNull DataOutputStream out, final @NonNull BanIdentity identity)
+        throws IOException {
+      out.writeUTF(identity.type().name());
+      out.writeLong(identity.getId());
+      switch (identity.type()) {
+        case UUID:
+          final UuidIdentity uuidIdentity = (UuidIdentity) identity;
+          out.writeLong(uuidIdentity.uuid().getMostSignificantBits());
+          out.writeLong(uuidIdentity.uuid().getLeastSignificantBits());
+          out.writeUTF(uuidIdentity.username());
+          break;
+        case IPV4:
+        case IPV6:
+          final byte[] address = ((IpIdentity) identity).address().getAddress();
+          out.writeByte(address.length);
+          out.write(address);
+          break;
+        case CONSOLE:
+        default:
+          break;
+      }
+    }
+
+    private static @NonNull BanIdentity readIdentity(final @NonNull DataInputStream in,
+        final @NonNull IIdentityFactory identityFactory,
+        final @NonNull ConsoleIdentity consoleIdentity) throws IOException {
+      final IdentityType type = IdentityType.valueOf(in.readUTF());
+      final long id = in.readLong();
+      switch (type) {
+        case UUID:
+          final UUID uuid = new UUID(in.readLong(), in.readLong());
+          return identityFactory.uuid(id, uuid, in.readUTF());
+        case IPV4:
+        case IPV6:
+          final byte[] address = new byte[in.readUnsignedByte()];
+          in.readFully(address);
+          try {
+            return identityFactory.ip(id, InetAddress.getByAddress(address));
+          } catch (final UnknownHostException ex) {
+            throw new IOException("invalid address in a write-ahead log record", ex);
+          }
+        case CONSOLE:
+        default:
+          return consoleIdentity;
+      }
+    }
+  }
+}
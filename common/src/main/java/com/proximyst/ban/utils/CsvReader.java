@@ -0,0 +1,121 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A streaming reader of comma-separated values, as described by RFC 4180.
+ * <p>
+ * Fields may be quoted with double quotes, in which case they may contain commas, line breaks, and escaped
+ * ({@code ""}) double quotes. Empty lines are skipped.
+ */
+public final class CsvReader implements Closeable {
+  private final @NonNull Reader reader;
+  private final @NonNull StringBuilder field = new StringBuilder();
+
+  public CsvReader(final @NonNull Reader reader) {
+    this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+  }
+
+  /**
+   * Read the next record.
+   *
+   * @return The fields of the record, or {@code null} if there are no more records.
+   * @throws IOException If the underlying reader fails, or a quoted field is never closed.
+   */
+  public @Nullable List<@NonNull String> readRecord() throws IOException {
+    final List<String> record = new ArrayList<>();
+    boolean quoted = false;
+    boolean empty = true;
+
+    while (true) {
+      final int read = this.reader.read();
+      if (read == -1) {
+        if (quoted) {
+          throw new IOException("unexpected end of input in a quoted field");
+        }
+        if (empty) {
+          return null;
+        }
+        record.add(this.takeField());
+        return record;
+      }
+
+      final char c = (char) read;
+      if (quoted) {
+        if (c != '"') {
+          this.field.append(c);
+          continue;
+        }
+
+        this.reader.mark(1);
+        if (this.reader.read() == '"') {
+          this.field.append('"');
+        } else {
+          this.reader.reset();
+          quoted = false;
+        }
+        continue;
+      }
+
+      switch (c) {
+        case '"':
+          quoted = true;
+          empty = false;
+          break;
+        case ',':
+          record.add(this.takeField());
+          empty = false;
+          break;
+        case '\r':
+          // Only a part of a line break.
+          break;
+        case '\n':
+          if (empty) {
+            break;
+          }
+          record.add(this.takeField());
+          return record;
+        default:
+          this.field.append(c);
+          empty = false;
+          break;
+      }
+    }
+  }
+
+  private @NonNull String takeField() {
+    final String value = this.field.toString();
+    this.field.setLength(0);
+    return value;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.reader.close();
+  }
+}
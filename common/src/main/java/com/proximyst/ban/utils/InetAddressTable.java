@@ -0,0 +1,257 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.utils;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A hash table keyed by IP addresses, which are stored packed into two {@code long}s each rather than as
+ * {@link InetAddress} objects. IPv4 addresses are stored as their IPv4-mapped IPv6 address.
+ * <p>
+ * The table uses open addressing with linear probing. Lookups are lock-free; writes copy the table, and are therefore
+ * meant to be far rarer than lookups.
+ *
+ * @param <V> The type of the values.
+ */
+public final class InetAddressTable<V> {
+  private static final int MINIMUM_CAPACITY = 16;
+  private static final long IPV4_MAPPED_PREFIX = 0xFFFF_0000_0000L;
+
+  private final @NonNull Object writeLock = new Object();
+  private volatile @NonNull Table<V> table = new Table<>(MINIMUM_CAPACITY);
+
+  /**
+   * Get the value of an address.
+   *
+   * @param address The address to look up.
+   * @return The value of the address, or {@code null} if it has none.
+   */
+  public @Nullable V get(final @NonNull InetAddress address) {
+    final byte[] bytes = address.getAddress();
+    return this.table.get(high(bytes), low(bytes));
+  }
+
+  /**
+   * Set the value of an address, replacing any previous value.
+   *
+   * @param address The address to set the value of.
+   * @param value   The new value.
+   */
+  public void put(final @NonNull InetAddress address, final @NonNull V value) {
+    final byte[] bytes = address.getAddress();
+    synchronized (this.writeLock) {
+      final Table<V> current = this.table;
+      final Table<V> copy = current.copy(current.size + 1, null);
+      copy.put(high(bytes), low(bytes), value);
+      this.table = copy;
+    }
+  }
+
+  /**
+   * Set the value of an address, unless it already has one.
+   *
+   * @param address The address to set the value of.
+   * @param value   The new value.
+   * @return Whether the value was set.
+   */
+  public boolean putIfAbsent(final @NonNull InetAddress address, final @NonNull V value) {
+    final byte[] bytes = address.getAddress();
+    final long high = high(bytes);
+    final long low = low(bytes);
+    synchronized (this.writeLock) {
+      final Table<V> current = this.table;
+      if (current.get(high, low) != null) {
+        return false;
+      }
+
+      final Table<V> copy = current.copy(current.size + 1, null);
+      copy.put(high, low, value);
+      this.table = copy;
+      return true;
+    }
+  }
+
+  /**
+   * Replace the entire contents of the table.
+   *
+   * @param values The new values, by address.
+   */
+  public void replaceAll(final @NonNull Map<@NonNull InetAddress, @NonNull V> values) {
+    final Table<V> table = new Table<>(Table.capacityFor(values.size()));
+    for (final Map.Entry<InetAddress, V> entry : values.entrySet()) {
+      final byte[] bytes = entry.getKey().getAddress();
+      table.put(high(bytes), low(bytes), entry.getValue());
+    }
+
+    synchronized (this.writeLock) {
+      this.table = table;
+    }
+  }
+
+  /**
+   * Remove the value of an address, if it matches the given predicate.
+   *
+   * @param address The address to remove the value of.
+   * @param filter  The predicate the current value must match.
+   * @return Whether a value was removed.
+   */
+  public boolean remove(final @NonNull InetAddress address, final @NonNull Predicate<? super V> filter) {
+    final byte[] bytes = address.getAddress();
+    final long high = high(bytes);
+    final long low = low(bytes);
+    synchronized (this.writeLock) {
+      final Table<V> current = this.table;
+      final V value = current.get(high, low);
+      if (value == null || !filter.test(value)) {
+        return false;
+      }
+
+      // Removing from a linearly probed table needs the cluster after it moved back, so it is simply rebuilt.
+      this.table = current.copy(current.size - 1, index -> current.keys[index * 2] == high
+          && current.keys[index * 2 + 1] == low);
+      return true;
+    }
+  }
+
+  /**
+   * @return The amount of addresses in the table.
+   */
+  public @NonNegative int size() {
+    return this.table.size;
+  }
+
+  private static long high(final byte @NonNull [] bytes) {
+    if (bytes.length == 4) {
+      return 0L;
+    }
+
+    return pack(bytes, 0);
+  }
+
+  private static long low(final byte @NonNull [] bytes) {
+    if (bytes.length == 4) {
+      return IPV4_MAPPED_PREFIX | (pack(bytes, 0) >>> 32);
+    }
+
+    return pack(bytes, 8);
+  }
+
+  /**
+   * Pack up to 8 bytes from the offset, big-endian, into the high end of a {@code long}.
+   */
+  private static long pack(final byte @NonNull [] bytes, final int offset) {
+    long value = 0L;
+    for (int i = 0; i < Long.BYTES; ++i) {
+      value <<= Byte.SIZE;
+      if (offset + i < bytes.length) {
+        value |= bytes[offset + i] & 0xFFL;
+      }
+    }
+    return value;
+  }
+
+  private static final class Table<V> {
+    /**
+     * The packed addresses, two {@code long}s per slot.
+     */
+    private final long @NonNull [] keys;
+    /**
+     * The values per slot, {@code null} for empty slots.
+     */
+    private final @Nullable Object @NonNull [] values;
+    private final int mask;
+    private int size;
+
+    private Table(final int capacity) {
+      this.keys = new long[capacity * 2];
+      this.values = new Object[capacity];
+      this.mask = capacity - 1;
+    }
+
+    /**
+     * @return A power of two capacity keeping the load factor at or below one half.
+     */
+    private static int capacityFor(final int size) {
+      final int wanted = Math.max(MINIMUM_CAPACITY, size * 2);
+      return Integer.highestOneBit(wanted - 1) << 1;
+    }
+
+    private static int hash(final long high, final long low) {
+      long hash = high * 0x9E37_79B9_7F4A_7C15L ^ low;
+      hash ^= hash >>> 33;
+      hash *= 0xFF51_AFD7_ED55_8CCDL;
+      hash ^= hash >>> 33;
+      return (int) hash;
+    }
+
+    @SuppressWarnings("unchecked") // Only Vs are ever stored.
+    private @Nullable V get(final long high, final long low) {
+      for (int index = hash(high, low) & this.mask; ; index = index + 1 & this.mask) {
+        final Object value = this.values[index];
+        if (value == null) {
+          return null;
+        }
+        if (this.keys[index * 2] == high && this.keys[index * 2 + 1] == low) {
+          return (V) value;
+        }
+      }
+    }
+
+    private void put(final long high, final long low, final @NonNull V value) {
+      for (int index = hash(high, low) & this.mask; ; index = index + 1 & this.mask) {
+        if (this.values[index] == null) {
+          this.keys[index * 2] = high;
+          this.keys[index * 2 + 1] = low;
+          this.values[index] = value;
+          ++this.size;
+          return;
+        }
+        if (this.keys[index * 2] == high && this.keys[index * 2 + 1] == low) {
+          this.values[index] = value;
+          return;
+        }
+      }
+    }
+
+    /**
+     * Copy this table into a new one sized for the given amount of entries.
+     *
+     * @param size    The amount of entries the new table should fit.
+     * @param exclude Which slots to leave out, if any.
+     * @return The new table.
+     */
+    @SuppressWarnings("unchecked") // Only Vs are ever stored.
+    private @NonNull Table<V> copy(final int size, final @Nullable IntPredicate exclude) {
+      final Table<V> copy = new Table<>(capacityFor(size));
+      for (int index = 0; index < this.values.length; ++index) {
+        final Object value = this.values[index];
+        if (value != null && (exclude == null || !exclude.test(index))) {
+          copy.put(this.keys[index * 2], this.keys[index * 2 + 1], (V) value);
+        }
+      }
+      return copy;
+    }
+  }
+}
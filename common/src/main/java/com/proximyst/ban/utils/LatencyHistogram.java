@@ -0,0 +1,114 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A lock-free histogram of latencies, bucketed by powers of two of nanoseconds.
+ * <p>
+ * Percentiles are therefore only accurate to within a factor of two, which is plenty to tell whether something is
+ * queueing for microseconds or for seconds.
+ */
+public final class LatencyHistogram {
+  private static final int BUCKETS = Long.SIZE;
+
+  private final @NonNull AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final @NonNull LongAdder count = new LongAdder();
+  private final @NonNull LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+  /**
+   * Record a latency.
+   *
+   * @param duration The latency to record.
+   * @param unit     The unit of the latency.
+   */
+  public void record(final @NonNegative long duration, final @NonNull TimeUnit unit) {
+    final long nanos = Math.max(0L, unit.toNanos(duration));
+    this.buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+    this.count.increment();
+    this.max.accumulate(nanos);
+  }
+
+  /**
+   * @return The amount of latencies recorded since the last reset.
+   */
+  public @NonNegative long count() {
+    return this.count.sum();
+  }
+
+  /**
+   * @return The highest latency recorded since the last reset, in nanoseconds.
+   */
+  public @NonNegative long maxNanos() {
+    return this.max.get();
+  }
+
+  /**
+   * Get an upper bound of the given percentile of the latencies recorded.
+   *
+   * @param percentile The percentile to get, between 0 and 100.
+   * @return The upper bound of the bucket the percentile falls in, in nanoseconds, or 0 if nothing was recorded.
+   */
+  public @NonNegative long percentileNanos(final double percentile) {
+    long total = 0L;
+    final long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; ++i) {
+      counts[i] = this.buckets.get(i);
+      total += counts[i];
+    }
+
+    final long rank = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+    long seen = 0L;
+    for (int i = 0; i < BUCKETS; ++i) {
+      seen += counts[i];
+      if (seen >= rank && counts[i] != 0) {
+        // Bucket i holds values below 2^i.
+        return Math.min((1L << i) - 1, this.maxNanos());
+      }
+    }
+
+    return 0L;
+  }
+
+  /**
+   * Clear all recorded latencies. Latencies recorded concurrently may or may not be kept.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; ++i) {
+      this.buckets.set(i, 0L);
+    }
+    this.count.reset();
+    this.max.reset();
+  }
+
+  @Override
+  public @NonNull String toString() {
+    return String.format("count=%d p50=%.2fms p99=%.2fms max=%.2fms",
+        this.count(),
+        this.percentileNanos(50) / 1e6,
+        this.percentileNanos(99) / 1e6,
+        this.maxNanos() / 1e6);
+  }
+}
@@ -0,0 +1,94 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.utils;
+
+import com.proximyst.ban.BanPermissions;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A memo of a single player's permission checks, limited to the plugin's own {@link BanPermissions} nodes.
+ * <p>
+ * Results are kept until {@link #invalidate()} is called, or until they are older than the time to live. Other
+ * permissions are always passed straight through to the underlying check.
+ */
+public final class PermissionCache {
+  /**
+   * How long permission results are kept for, in milliseconds.
+   */
+  public static final long DEFAULT_TTL_MILLIS = Long.getLong("ban.permissionCacheMillis", 5000L);
+
+  private final @NonNull Predicate<@NonNull String> permissionCheck;
+  private final @NonNegative long ttlNanos;
+
+  private volatile @NonNull Snapshot snapshot;
+
+  public PermissionCache(final @NonNull Predicate<@NonNull String> permissionCheck) {
+    this(permissionCheck, DEFAULT_TTL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  public PermissionCache(final @NonNull Predicate<@NonNull String> permissionCheck,
+      final @NonNegative long ttl,
+      final @NonNull TimeUnit unit) {
+    this.permissionCheck = permissionCheck;
+    this.ttlNanos = unit.toNanos(ttl);
+    this.snapshot = new Snapshot(System.nanoTime());
+  }
+
+  /**
+   * Check whether the player has the given permission, using a memoised result if there is a fresh one.
+   *
+   * @param permission The permission to check.
+   * @return Whether the player has the permission.
+   */
+  public boolean hasPermission(final @NonNull String permission) {
+    if (!BanPermissions.isBanPermission(permission)) {
+      return this.permissionCheck.test(permission);
+    }
+
+    Snapshot snapshot = this.snapshot;
+    if (System.nanoTime() - snapshot.createdAt > this.ttlNanos) {
+      // Racing threads may each replace it; they all start empty, so it does not matter which one wins.
+      snapshot = new Snapshot(System.nanoTime());
+      this.snapshot = snapshot;
+    }
+
+    return snapshot.results.computeIfAbsent(permission, this.permissionCheck::test);
+  }
+
+  /**
+   * Drop all memoised results, such as when the player's permissions may have changed.
+   */
+  public void invalidate() {
+    this.snapshot = new Snapshot(System.nanoTime());
+  }
+
+  private static final class Snapshot {
+    private final long createdAt;
+    private final @NonNull Map<@NonNull String, @NonNull Boolean> results = new ConcurrentHashMap<>(8);
+
+    private Snapshot(final long createdAt) {
+      this.createdAt = createdAt;
+    }
+  }
+}
@@ -0,0 +1,220 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.utils;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A case-insensitive prefix index over strings, backed by a sorted array.
+ * <p>
+ * Lookups are lock-free and run in {@code O(log n + k)}, where {@code k} is the amount of results. Writes copy the
+ * array, and are therefore meant to be far rarer than lookups. Once the capacity is reached, the least recently
+ * added entries are evicted first.
+ */
+public final class PrefixIndex {
+  private static final @NonNull Snapshot EMPTY = new Snapshot(new String[0], new String[0]);
+
+  private final @Positive int capacity;
+  private final @NonNull Object writeLock = new Object();
+
+  /**
+   * The lowercase keys in insertion order, used for eviction. Guarded by {@link #writeLock}.
+   */
+  private final @NonNull LinkedHashSet<@NonNull String> insertionOrder = new LinkedHashSet<>();
+
+  private volatile @NonNull Snapshot snapshot = EMPTY;
+
+  public PrefixIndex(final @Positive int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * Add a value to the index, replacing any value with the same lowercase key.
+   *
+   * @param value The value to add.
+   */
+  public void add(final @NonNull String value) {
+    final String key = value.toLowerCase(Locale.ENGLISH);
+
+    synchronized (this.writeLock) {
+      // Re-inserting moves the key to the back of the eviction queue.
+      this.insertionOrder.remove(key);
+      this.insertionOrder.add(key);
+
+      Snapshot current = this.snapshot;
+      if (this.insertionOrder.size() > this.capacity) {
+        final Iterator<String> eldest = this.insertionOrder.iterator();
+        current = current.without(eldest.next());
+        eldest.remove();
+      }
+
+      this.snapshot = current.with(key, value);
+    }
+  }
+
+  /**
+   * Add many values to the index at once, sorting them only once rather than copying the arrays for each value.
+   *
+   * @param values The values to add, in the order they would otherwise be added one by one.
+   */
+  public void addAll(final @NonNull List<@NonNull String> values) {
+    synchronized (this.writeLock) {
+      final Snapshot current = this.snapshot;
+      final LinkedHashMap<String, String> entries = new LinkedHashMap<>();
+      for (final String key : this.insertionOrder) {
+        entries.put(key, current.values[current.lowerBound(key)]);
+      }
+
+      for (final String value : values) {
+        final String key = value.toLowerCase(Locale.ENGLISH);
+        // Re-inserting moves the key to the back of the eviction queue.
+        entries.remove(key);
+        entries.put(key, value);
+      }
+
+      final Iterator<String> eldest = entries.keySet().iterator();
+      for (int excess = entries.size() - this.capacity; excess > 0; --excess) {
+        eldest.next();
+        eldest.remove();
+      }
+
+      this.insertionOrder.clear();
+      this.insertionOrder.addAll(entries.keySet());
+
+      final List<Map.Entry<String, String>> sorted = new ArrayList<>(entries.entrySet());
+      sorted.sort(Map.Entry.comparingByKey());
+      final String[] keys = new String[sorted.size()];
+      final String[] sortedValues = new String[sorted.size()];
+      for (int i = 0; i < keys.length; ++i) {
+        keys[i] = sorted.get(i).getKey();
+        sortedValues[i] = sorted.get(i).getValue();
+      }
+
+      this.snapshot = new Snapshot(keys, sortedValues);
+    }
+  }
+
+  /**
+   * Remove a value from the index.
+   *
+   * @param value The value to remove, in any case.
+   */
+  public void remove(final @NonNull String value) {
+    final String key = value.toLowerCase(Locale.ENGLISH);
+
+    synchronized (this.writeLock) {
+      if (this.insertionOrder.remove(key)) {
+        this.snapshot = this.snapshot.without(key);
+      }
+    }
+  }
+
+  /**
+   * Find the values starting with the given prefix, ignoring case.
+   *
+   * @param prefix The prefix to search for.
+   * @param limit  The maximum amount of values to return.
+   * @return The values found, in lexicographical order of their lowercase keys.
+   */
+  public @NonNull ImmutableList<@NonNull String> search(final @NonNull String prefix, final @NonNegative int limit) {
+    final Snapshot snapshot = this.snapshot;
+    final String key = prefix.toLowerCase(Locale.ENGLISH);
+
+    final int from = snapshot.lowerBound(key);
+    final ImmutableList.Builder<String> builder = ImmutableList.builder();
+    for (int i = from, found = 0; i < snapshot.keys.length && found < limit; ++i, ++found) {
+      if (!snapshot.keys[i].startsWith(key)) {
+        break;
+      }
+
+      builder.add(snapshot.values[i]);
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * @return The amount of values in the index.
+   */
+  public @NonNegative int size() {
+    return this.snapshot.keys.length;
+  }
+
+  private static final class Snapshot {
+    private final @NonNull String @NonNull [] keys;
+    private final @NonNull String @NonNull [] values;
+
+    private Snapshot(final @NonNull String @NonNull [] keys,
+        final @NonNull String @NonNull [] values) {
+      this.keys = keys;
+      this.values = values;
+    }
+
+    private int lowerBound(final @NonNull String key) {
+      final int index = Arrays.binarySearch(this.keys, key);
+      return index < 0 ? -(index + 1) : index;
+    }
+
+    private @NonNull Snapshot with(final @NonNull String key, final @NonNull String value) {
+      final int index = Arrays.binarySearch(this.keys, key);
+      if (index >= 0) {
+        final String[] values = this.values.clone();
+        values[index] = value;
+        return new Snapshot(this.keys, values);
+      }
+
+      final int insertion = -(index + 1);
+      final String[] keys = new String[this.keys.length + 1];
+      final String[] values = new String[this.values.length + 1];
+      System.arraycopy(this.keys, 0, keys, 0, insertion);
+      System.arraycopy(this.values, 0, values, 0, insertion);
+      keys[insertion] = key;
+      values[insertion] = value;
+      System.arraycopy(this.keys, insertion, keys, insertion + 1, this.keys.length - insertion);
+      System.arraycopy(this.values, insertion, values, insertion + 1, this.values.length - insertion);
+      return new Snapshot(keys, values);
+    }
+
+    private @NonNull Snapshot without(final @NonNull String key) {
+      final int index = Arrays.binarySearch(this.keys, key);
+      if (index < 0) {
+        return this;
+      }
+
+      final String[] keys = new String[this.keys.length - 1];
+      final String[] values = new String[this.values.length - 1];
+      System.arraycopy(this.keys, 0, keys, 0, index);
+      System.arraycopy(this.values, 0, values, 0, index);
+      System.arraycopy(this.keys, index + 1, keys, index, this.keys.length - index - 1);
+      System.arraycopy(this.values, index + 1, values, index, this.values.length - index - 1);
+      return new Snapshot(keys, values);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.utils;
+
+import java.util.Arrays;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.index.qual.Positive;
+
+/**
+ * A disjoint-set forest over the integers {@code 0} up to {@link #size()}, with union by size and path halving.
+ * <p>
+ * Both {@link #find(int)} and {@link #union(int, int)} run in amortised near-constant time. This is not thread-safe.
+ */
+public final class UnionFind {
+  private int[] parent;
+  private int[] sizes;
+  private @NonNegative int size;
+
+  public UnionFind(final @Positive int initialCapacity) {
+    this.parent = new int[initialCapacity];
+    this.sizes = new int[initialCapacity];
+  }
+
+  /**
+   * Add a new element in a set of its own.
+   *
+   * @return The new element.
+   */
+  public @NonNegative int add() {
+    if (this.size == this.parent.length) {
+      this.parent = Arrays.copyOf(this.parent, this.size * 2);
+      this.sizes = Arrays.copyOf(this.sizes, this.size * 2);
+    }
+
+    final int element = this.size++;
+    this.parent[element] = element;
+    this.sizes[element] = 1;
+    return element;
+  }
+
+  /**
+   * Find the representative of the set an element is in.
+   *
+   * @param element The element to find the set of.
+   * @return The representative of the set; this is the same for every element in the set until the next union.
+   */
+  public @NonNegative int find(int element) {
+    while (this.parent[element] != element) {
+      // Path halving: point every other element on the path to its grandparent.
+      this.parent[element] = this.parent[this.parent[element]];
+      element = this.parent[element];
+    }
+    return element;
+  }
+
+  /**
+   * Merge the sets of two elements.
+   *
+   * @param a The first element.
+   * @param b The second element.
+   * @return The representative of the merged set.
+   */
+  public @NonNegative int union(final @NonNegative int a, final @NonNegative int b) {
+    int rootA = this.find(a);
+    int rootB = this.find(b);
+    if (rootA == rootB) {
+      return rootA;
+    }
+
+    if (this.sizes[rootA] < this.sizes[rootB]) {
+      final int swap = rootA;
+      rootA = rootB;
+      rootB = swap;
+    }
+
+    this.parent[rootB] = rootA;
+    this.sizes[rootA] += this.sizes[rootB];
+    return rootA;
+  }
+
+  /**
+   * @param element An element of the set.
+   * @return The amount of elements in the set of the element.
+   */
+  public @Positive int setSize(final @NonNegative int element) {
+    return this.sizes[this.find(element)];
+  }
+
+  /**
+   * @return The amount of elements.
+   */
+  public @NonNegative int size() {
+    return this.size;
+  }
+}
@@ -0,0 +1,11 @@
+WITH archived AS (
+    DELETE FROM ban.punishments
+        WHERE target = :target
+            AND type = CAST(:type AS ban.punishment_type)
+            AND timestamp = :time
+        RETURNING id, type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at
+)
+INSERT
+INTO ban.punishments_archive (id, type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at)
+SELECT id, type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at
+FROM archived;
\ No newline at end of file
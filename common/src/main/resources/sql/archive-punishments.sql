@@ -0,0 +1,14 @@
+WITH archived AS (
+    DELETE FROM ban.punishments
+        WHERE (id, timestamp) IN (SELECT id, timestamp
+                                  FROM ban.punishments
+                                  WHERE timestamp < :horizon
+                                    AND type <> 'BAN'
+                                    AND (type <> 'MUTE' OR lifted OR expires_at <= CURRENT_TIMESTAMP)
+                                  LIMIT :limit)
+        RETURNING id, type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at
+)
+INSERT
+INTO ban.punishments_archive (id, type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at)
+SELECT id, type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at
+FROM archived;
\ No newline at end of file
@@ -0,0 +1 @@
+SELECT ban.create_punishment_partition(:year);
\ No newline at end of file
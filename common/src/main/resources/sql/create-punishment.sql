@@ -1,4 +1,4 @@
 INSERT INTO ban.punishments
-(type, target, punisher, reason, lifted, lifted_by, timestamp, duration)
-VALUES (:type, :target, :punisher, :reason, :lifted, :lifted_by, :time, :duration)
+(type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at)
+VALUES (:type, :target, :punisher, :reason, :lifted, :lifted_by, :time, :expires_at)
 RETURNING id;
\ No newline at end of file
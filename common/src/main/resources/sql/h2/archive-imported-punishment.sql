@@ -0,0 +1,8 @@
+INSERT INTO ban.punishments_archive (id, type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at)
+SELECT id, type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at
+FROM OLD TABLE (
+         DELETE FROM ban.punishments
+         WHERE target = :target
+           AND type = :type
+           AND timestamp = :time
+     );
\ No newline at end of file
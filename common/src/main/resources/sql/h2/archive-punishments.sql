@@ -0,0 +1,9 @@
+INSERT INTO ban.punishments_archive (id, type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at)
+SELECT id, type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at
+FROM OLD TABLE (
+         DELETE FROM ban.punishments
+         WHERE timestamp < :horizon
+           AND type <> 'BAN'
+           AND (type <> 'MUTE' OR lifted OR expires_at <= CURRENT_TIMESTAMP)
+         LIMIT :limit
+     );
\ No newline at end of file
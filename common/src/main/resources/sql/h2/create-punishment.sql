@@ -0,0 +1,3 @@
+INSERT INTO ban.punishments
+(type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at)
+VALUES (:type, :target, :punisher, :reason, :lifted, :lifted_by, :time, :expires_at);
@@ -0,0 +1,2 @@
+SELECT type, address, uuid
+FROM ban.ip_addresses;
\ No newline at end of file
@@ -0,0 +1,59 @@
+SELECT a.id
+     , a.type
+     , a.target
+     , target.type            AS target_type
+     , target.uuid            AS target_uuid
+     , target.address         AS target_address
+     , target_user.username   AS target_name
+     , a.punisher
+     , punisher.type          AS punisher_type
+     , punisher.uuid          AS punisher_uuid
+     , punisher.address       AS punisher_address
+     , punisher_user.username AS punisher_name
+     , a.reason
+     , a.lifted
+     , lifted_by.uuid         AS lifted_by
+     , a.timestamp
+     , a.expires_at
+     , FALSE                  AS archived
+FROM ban.punishments a
+         JOIN ban.identities target
+              ON a.target = target.id
+         LEFT JOIN ban.users target_user
+                   ON target.id = target_user.identity
+         JOIN ban.identities punisher
+              ON a.punisher = punisher.id
+         LEFT JOIN ban.users punisher_user
+                   ON punisher.id = punisher_user.identity
+         LEFT JOIN ban.identities lifted_by
+                   ON a.lifted_by = lifted_by.id
+UNION ALL
+SELECT a.id
+     , a.type
+     , a.target
+     , target.type
+     , target.uuid
+     , target.address
+     , target_user.username
+     , a.punisher
+     , punisher.type
+     , punisher.uuid
+     , punisher.address
+     , punisher_user.username
+     , a.reason
+     , a.lifted
+     , lifted_by.uuid
+     , a.timestamp
+     , a.expires_at
+     , TRUE
+FROM ban.punishments_archive a
+         JOIN ban.identities target
+              ON a.target = target.id
+         LEFT JOIN ban.users target_user
+                   ON target.id = target_user.identity
+         JOIN ban.identities punisher
+              ON a.punisher = punisher.id
+         LEFT JOIN ban.users punisher_user
+                   ON punisher.id = punisher_user.identity
+         LEFT JOIN ban.identities lifted_by
+                   ON a.lifted_by = lifted_by.id;
\ No newline at end of file
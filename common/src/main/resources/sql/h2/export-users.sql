@@ -0,0 +1,2 @@
+SELECT uuid, username
+FROM ban.users;
\ No newline at end of file
@@ -0,0 +1,21 @@
+INSERT INTO ban.punishments
+(type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at)
+SELECT CAST(:type AS VARCHAR(8))
+     , CAST(:target AS INTEGER)
+     , CAST(:punisher AS INTEGER)
+     , CAST(:reason AS VARCHAR)
+     , CAST(:lifted AS BOOLEAN)
+     , (SELECT identities.id FROM ban.identities WHERE uuid = :lifted_by)
+     , CAST(:time AS TIMESTAMP WITH TIME ZONE)
+     , CAST(:expires_at AS TIMESTAMP WITH TIME ZONE)
+FROM DUAL
+WHERE NOT EXISTS(SELECT 1
+                 FROM ban.punishments
+                 WHERE target = :target
+                   AND type = :type
+                   AND timestamp = :time)
+  AND NOT EXISTS(SELECT 1
+                 FROM ban.punishments_archive
+                 WHERE target = :target
+                   AND type = :type
+                   AND timestamp = :time);
\ No newline at end of file
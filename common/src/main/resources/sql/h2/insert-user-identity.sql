@@ -0,0 +1,3 @@
+MERGE INTO ban.identities (type, uuid)
+    KEY (uuid)
+    VALUES ('UUID', :uuid);
\ No newline at end of file
@@ -0,0 +1,55 @@
+CREATE SCHEMA IF NOT EXISTS ban;
+
+CREATE TABLE ban.identities
+(
+    id      INTEGER AUTO_INCREMENT PRIMARY KEY,
+    type    VARCHAR(8) NOT NULL CHECK (type IN ('UUID', 'IPV4', 'IPV6', 'CONSOLE')),
+    uuid    UUID           DEFAULT NULL,
+    address VARBINARY(16)  DEFAULT NULL,
+
+    UNIQUE (type, uuid, address)
+);
+CREATE UNIQUE INDEX identities_uuid_index ON ban.identities (uuid);
+CREATE UNIQUE INDEX identities_address_index ON ban.identities (address);
+-- Insert console into row 1.
+INSERT INTO ban.identities (type, uuid, address)
+VALUES ('CONSOLE', '00000000-0000-0000-0000-000000000000', NULL);
+
+CREATE TABLE ban.ip_addresses
+(
+    type    VARCHAR(4)    NOT NULL CHECK (type IN ('IPV4', 'IPV6')),
+    uuid    UUID          NOT NULL,
+    address VARBINARY(16) NOT NULL,
+
+    PRIMARY KEY (type, uuid, address)
+);
+CREATE INDEX ip_addresses_uuid ON ban.ip_addresses (uuid);
+CREATE INDEX ip_addresses_address ON ban.ip_addresses (type, address);
+
+CREATE TABLE ban.users
+(
+    uuid      UUID                     NOT NULL PRIMARY KEY,
+    username  VARCHAR(24)              NOT NULL,
+    timestamp TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    identity  INTEGER                  NOT NULL REFERENCES ban.identities (id)
+        ON DELETE CASCADE
+);
+CREATE INDEX users_username ON ban.users (username);
+
+CREATE TABLE ban.punishments
+(
+    id        INTEGER AUTO_INCREMENT PRIMARY KEY,
+    type      VARCHAR(8)               NOT NULL CHECK (type IN ('BAN', 'KICK', 'MUTE', 'WARNING', 'NOTE')),
+    target    INTEGER                  NOT NULL REFERENCES ban.identities (id)
+        ON DELETE CASCADE,
+    punisher  INTEGER                  NOT NULL REFERENCES ban.identities (id)
+        ON DELETE CASCADE,
+    reason    VARCHAR,
+    lifted    BOOLEAN                  NOT NULL DEFAULT FALSE,
+    lifted_by INTEGER REFERENCES ban.identities (id)
+        ON DELETE CASCADE,
+    timestamp TIMESTAMP WITH TIME ZONE NOT NULL,
+    duration  BIGINT                   NOT NULL
+);
+CREATE INDEX punishments_target ON ban.punishments (target);
+CREATE INDEX punishments_punisher ON ban.punishments (punisher);
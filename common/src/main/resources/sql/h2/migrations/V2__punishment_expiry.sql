@@ -0,0 +1,12 @@
+-- Store when punishments expire, rather than computing it in every predicate. Permanent punishments never expire.
+ALTER TABLE ban.punishments
+    ADD COLUMN expires_at TIMESTAMP WITH TIME ZONE DEFAULT NULL;
+UPDATE ban.punishments
+SET expires_at = DATEADD(MILLISECOND, duration, timestamp)
+WHERE duration > 0;
+ALTER TABLE ban.punishments
+    DROP COLUMN duration;
+
+-- H2 has no included columns, so lifted is part of the key instead.
+CREATE INDEX punishments_target_active ON ban.punishments (target, type, expires_at, lifted);
+CREATE INDEX punishments_expiring ON ban.punishments (lifted, expires_at);
\ No newline at end of file
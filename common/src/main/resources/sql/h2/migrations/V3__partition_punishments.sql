@@ -0,0 +1,14 @@
+-- H2 has no table partitioning, so only the archive is created.
+CREATE TABLE ban.punishments_archive
+(
+    id         INTEGER                  NOT NULL,
+    type       VARCHAR(8)               NOT NULL,
+    target     INTEGER                  NOT NULL,
+    punisher   INTEGER                  NOT NULL,
+    reason     VARCHAR,
+    lifted     BOOLEAN                  NOT NULL,
+    lifted_by  INTEGER,
+    timestamp  TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE
+);
+CREATE INDEX punishments_archive_target ON ban.punishments_archive (target);
\ No newline at end of file
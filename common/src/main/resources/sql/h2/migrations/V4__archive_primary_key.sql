@@ -0,0 +1,4 @@
+-- Archived punishments keep their IDs, so they may as well be the key. H2 also fails to read a table without any
+-- constraints in a repeatable read transaction, which is how exports read.
+ALTER TABLE ban.punishments_archive
+    ADD PRIMARY KEY (id);
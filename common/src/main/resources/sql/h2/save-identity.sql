@@ -0,0 +1,14 @@
+SELECT id
+FROM FINAL TABLE (
+    MERGE INTO ban.identities target
+    USING (SELECT CAST(:type AS VARCHAR(8))        AS type
+                , CAST(:uuid AS UUID)              AS uuid
+                , CAST(:address AS VARBINARY(16))  AS address) source
+    ON target.type = source.type
+        AND target.uuid IS NOT DISTINCT FROM source.uuid
+        AND target.address IS NOT DISTINCT FROM source.address
+    WHEN MATCHED THEN
+        UPDATE SET type = source.type
+    WHEN NOT MATCHED THEN
+        INSERT (type, uuid, address) VALUES (source.type, source.uuid, source.address)
+);
@@ -0,0 +1,3 @@
+MERGE INTO ban.ip_addresses (type, uuid, address)
+KEY (type, uuid, address)
+VALUES (:type, :uuid, :address);
@@ -0,0 +1,9 @@
+MERGE INTO ban.users target
+USING (SELECT CAST(:uuid AS UUID)            AS uuid
+            , CAST(:username AS VARCHAR(24)) AS username
+            , CAST(:identity AS INTEGER)     AS identity) source
+ON target.uuid = source.uuid
+WHEN MATCHED THEN
+    UPDATE SET timestamp = CURRENT_TIMESTAMP
+WHEN NOT MATCHED THEN
+    INSERT (uuid, username, identity) VALUES (source.uuid, source.username, source.identity);
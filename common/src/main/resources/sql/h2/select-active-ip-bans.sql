@@ -0,0 +1,29 @@
+SELECT a.id
+     , a.type
+     , a.target
+     , target.type            AS target_type
+     , target.uuid            AS target_uuid
+     , target.address         AS target_address
+     , CAST(NULL AS VARCHAR) AS target_name
+     , a.punisher
+     , punisher.type          AS punisher_type
+     , punisher.uuid          AS punisher_uuid
+     , punisher_user.username AS punisher_name
+     , a.reason
+     , a.lifted
+     , lifted_by.uuid         AS lifted_by
+     , a.timestamp
+     , a.expires_at
+FROM ban.punishments a
+         JOIN ban.identities target
+              ON a.target = target.id
+         JOIN ban.identities punisher
+              ON a.punisher = punisher.id
+         LEFT JOIN ban.users punisher_user
+                   ON punisher.id = punisher_user.identity
+         LEFT JOIN ban.identities lifted_by
+                   ON a.lifted_by = lifted_by.id
+WHERE a.type = 'BAN'
+  AND target.type IN ('IPV4', 'IPV6')
+  AND a.lifted = FALSE
+  AND (a.expires_at IS NULL OR a.expires_at > CURRENT_TIMESTAMP);
\ No newline at end of file
@@ -0,0 +1,6 @@
+SELECT b.address
+     , b.uuid
+     , a.username
+FROM ban.ip_addresses b
+         JOIN ban.users a
+              ON b.uuid = a.uuid;
\ No newline at end of file
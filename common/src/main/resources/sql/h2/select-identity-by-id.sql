@@ -0,0 +1,5 @@
+SELECT a.id, a.type, a.uuid, a.address, b.username, b.timestamp
+FROM ban.identities a
+         LEFT JOIN ban.users b
+                   ON a.id = b.identity
+WHERE a.id = :id;
\ No newline at end of file
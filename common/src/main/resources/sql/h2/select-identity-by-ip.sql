@@ -0,0 +1,4 @@
+SELECT id, type, address, CAST(NULL AS VARCHAR) AS username
+FROM ban.identities
+WHERE type IN ('IPV4', 'IPV6')
+  AND address = :address;
@@ -0,0 +1,6 @@
+SELECT a.id, a.type, a.uuid, b.username, b.timestamp
+FROM ban.identities a
+         JOIN ban.users b
+              ON a.id = b.identity
+WHERE a.type IN ('UUID', 'CONSOLE')
+  AND a.uuid = :uuid;
\ No newline at end of file
@@ -0,0 +1,5 @@
+SELECT uuid, username
+FROM ban.users
+WHERE uuid = :uuid
+ORDER BY timestamp DESC
+LIMIT 1;
\ No newline at end of file
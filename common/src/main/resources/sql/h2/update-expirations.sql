@@ -0,0 +1,4 @@
+UPDATE ban.punishments
+SET lifted = TRUE
+WHERE lifted = FALSE
+  AND expires_at <= CURRENT_TIMESTAMP;
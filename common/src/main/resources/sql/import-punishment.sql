@@ -0,0 +1,20 @@
+INSERT INTO ban.punishments
+(type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at)
+SELECT CAST(:type AS ban.punishment_type)
+     , :target
+     , :punisher
+     , :reason
+     , :lifted
+     , (SELECT identities.id FROM ban.identities WHERE uuid = :lifted_by)
+     , :time
+     , :expires_at
+WHERE NOT EXISTS(SELECT 1
+                 FROM ban.punishments
+                 WHERE target = :target
+                   AND type = CAST(:type AS ban.punishment_type)
+                   AND timestamp = :time)
+  AND NOT EXISTS(SELECT 1
+                 FROM ban.punishments_archive
+                 WHERE target = :target
+                   AND type = CAST(:type AS ban.punishment_type)
+                   AND timestamp = :time);
\ No newline at end of file
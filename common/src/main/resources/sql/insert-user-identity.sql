@@ -0,0 +1,3 @@
+INSERT INTO ban.identities (type, uuid)
+VALUES ('UUID', :uuid)
+ON CONFLICT DO NOTHING;
\ No newline at end of file
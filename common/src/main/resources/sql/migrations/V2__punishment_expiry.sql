@@ -0,0 +1,23 @@
+-- V1 declared the identity references as SERIAL, which gave each of them a pointless sequence and default.
+ALTER TABLE ban.users
+    ALTER COLUMN identity DROP DEFAULT;
+ALTER TABLE ban.punishments
+    ALTER COLUMN target DROP DEFAULT,
+    ALTER COLUMN punisher DROP DEFAULT;
+DROP SEQUENCE IF EXISTS ban.users_identity_seq;
+DROP SEQUENCE IF EXISTS ban.punishments_target_seq;
+DROP SEQUENCE IF EXISTS ban.punishments_punisher_seq;
+
+-- Store when punishments expire, rather than computing it in every predicate. Permanent punishments never expire.
+ALTER TABLE ban.punishments
+    ADD COLUMN expires_at timestamptz DEFAULT NULL;
+UPDATE ban.punishments
+SET expires_at = timestamp + duration * INTERVAL '1 millisecond'
+WHERE duration > 0;
+ALTER TABLE ban.punishments
+    DROP COLUMN duration;
+
+-- Active punishment lookups only need the index, and the expiration scan only sees what is yet to expire.
+DROP INDEX ban.punishments_target;
+CREATE INDEX punishments_target_active ON ban.punishments (target, type, expires_at) INCLUDE (lifted);
+CREATE INDEX punishments_expiring ON ban.punishments (expires_at) WHERE lifted = FALSE AND expires_at IS NOT NULL;
\ No newline at end of file
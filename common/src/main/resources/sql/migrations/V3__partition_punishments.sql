@@ -0,0 +1,72 @@
+-- Partition punishments by year, such that old data can be vacuumed and archived without touching recent data.
+-- The ID sequence is kept, as IDs are reserved from it ahead of time.
+ALTER SEQUENCE ban.punishments_id_seq OWNED BY NONE;
+ALTER TABLE ban.punishments
+    RENAME TO punishments_unpartitioned;
+ALTER INDEX ban.punishments_punisher RENAME TO punishments_unpartitioned_punisher;
+ALTER INDEX ban.punishments_target_active RENAME TO punishments_unpartitioned_target_active;
+ALTER INDEX ban.punishments_expiring RENAME TO punishments_unpartitioned_expiring;
+
+CREATE TABLE ban.punishments
+(
+    id         INTEGER             NOT NULL DEFAULT nextval('ban.punishments_id_seq'),
+    type       ban.punishment_type NOT NULL,
+    target     INTEGER             NOT NULL REFERENCES ban.identities (id)
+        ON DELETE CASCADE,
+    punisher   INTEGER             NOT NULL REFERENCES ban.identities (id)
+        ON DELETE CASCADE,
+    reason     TEXT,
+    lifted     BOOLEAN             NOT NULL DEFAULT FALSE,
+    lifted_by  INTEGER REFERENCES ban.identities (id)
+        ON DELETE CASCADE,
+    timestamp  timestamptz         NOT NULL,
+    expires_at timestamptz                  DEFAULT NULL,
+
+    -- The partition key must be part of the primary key.
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+ALTER SEQUENCE ban.punishments_id_seq OWNED BY ban.punishments.id;
+CREATE INDEX punishments_punisher ON ban.punishments (punisher);
+CREATE INDEX punishments_target_active ON ban.punishments (target, type, expires_at) INCLUDE (lifted);
+CREATE INDEX punishments_expiring ON ban.punishments (expires_at) WHERE lifted = FALSE AND expires_at IS NOT NULL;
+
+-- Anything outside the yearly partitions lands here, rather than failing to be inserted.
+CREATE TABLE ban.punishments_default PARTITION OF ban.punishments DEFAULT;
+
+CREATE FUNCTION ban.create_punishment_partition(year INTEGER) RETURNS VOID AS
+$$
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS ban.punishments_y%s PARTITION OF ban.punishments '
+                       || 'FOR VALUES FROM (%L) TO (%L)',
+                   year, make_date(year, 1, 1), make_date(year + 1, 1, 1));
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT ban.create_punishment_partition(year)
+FROM generate_series(
+             (SELECT COALESCE(MIN(EXTRACT(YEAR FROM timestamp))::INTEGER, EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER)
+              FROM ban.punishments_unpartitioned),
+             EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER + 1) year;
+
+INSERT INTO ban.punishments (id, type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at)
+SELECT id, type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at
+FROM ban.punishments_unpartitioned;
+DROP TABLE ban.punishments_unpartitioned;
+
+-- Archived punishments are never updated, so their pages are filled completely, and long reasons are compressed
+-- in place rather than moved out of line.
+CREATE TABLE ban.punishments_archive
+(
+    id         INTEGER             NOT NULL,
+    type       ban.punishment_type NOT NULL,
+    target     INTEGER             NOT NULL,
+    punisher   INTEGER             NOT NULL,
+    reason     TEXT,
+    lifted     BOOLEAN             NOT NULL,
+    lifted_by  INTEGER,
+    timestamp  timestamptz         NOT NULL,
+    expires_at timestamptz
+) WITH (fillfactor = 100);
+ALTER TABLE ban.punishments_archive
+    ALTER COLUMN reason SET STORAGE MAIN;
+CREATE INDEX punishments_archive_target ON ban.punishments_archive (target);
\ No newline at end of file
@@ -0,0 +1,3 @@
+-- Archived punishments keep their IDs, so they may as well be the key.
+ALTER TABLE ban.punishments_archive
+    ADD PRIMARY KEY (id);
@@ -0,0 +1,28 @@
+-- Punishments from a year without a partition land in the default partition, which then keeps that year's partition
+-- from being created. Those rows are now moved into the new partition before it is attached.
+CREATE OR REPLACE FUNCTION ban.create_punishment_partition(year INTEGER) RETURNS VOID AS
+$$
+DECLARE
+    partition_name TEXT := format('ban.punishments_y%s', year);
+    lower_bound    DATE := make_date(year, 1, 1);
+    upper_bound    DATE := make_date(year + 1, 1, 1);
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    -- Attaching takes this lock anyway; taking it first keeps rows from arriving while the year is moved out.
+    LOCK TABLE ban.punishments_default IN ACCESS EXCLUSIVE MODE;
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        -- Another server created it meanwhile.
+        RETURN;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %s (LIKE ban.punishments INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM ban.punishments_default WHERE timestamp >= %L AND timestamp < %L '
+                       || 'RETURNING *) INSERT INTO %s SELECT * FROM moved',
+                   lower_bound, upper_bound, partition_name);
+    EXECUTE format('ALTER TABLE ban.punishments ATTACH PARTITION %s FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, lower_bound, upper_bound);
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,2 @@
+SELECT nextval('ban.punishments_id_seq') AS id
+FROM generate_series(1, :count);
\ No newline at end of file
@@ -0,0 +1,18 @@
+SELECT a.id
+     , a.type
+     , a.target
+     , a.punisher
+     , a.reason
+     , a.lifted
+     , lifted_by.uuid AS lifted_by
+     , a.timestamp
+     , a.expires_at
+FROM ban.punishments a
+         LEFT JOIN ban.identities lifted_by
+                   ON a.lifted_by = lifted_by.id
+WHERE a.target = :target
+  AND a.type = CAST(:type AS ban.punishment_type)
+  AND a.lifted = FALSE
+  AND (a.expires_at IS NULL OR a.expires_at > CURRENT_TIMESTAMP)
+ORDER BY a.timestamp DESC
+LIMIT 1;
\ No newline at end of file
@@ -1,4 +1,4 @@
-SELECT a.id, a.type, a.uuid, a.address, b.username
+SELECT a.id, a.type, a.uuid, a.address, b.username, b.timestamp
 FROM ban.identities a
          LEFT JOIN ban.users b
                    ON a.id = b.identity
@@ -1,4 +1,4 @@
-SELECT a.id, a.type, a.uuid
+SELECT a.id, a.type, a.uuid, b.username, b.timestamp
 FROM ban.identities a
          JOIN ban.users b
               ON a.id = b.identity
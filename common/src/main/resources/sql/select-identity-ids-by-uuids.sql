@@ -0,0 +1,4 @@
+SELECT id, uuid
+FROM ban.identities
+WHERE type = 'UUID'
+  AND uuid = ANY (:uuids);
\ No newline at end of file
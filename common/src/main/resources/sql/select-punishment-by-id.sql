@@ -6,7 +6,7 @@ SELECT a.id
      , a.lifted
      , lifted_by.uuid AS lifted_by
      , a.timestamp
-     , a.duration
+     , a.expires_at
 FROM ban.punishments a
          LEFT JOIN ban.identities lifted_by
                    ON a.lifted_by = lifted_by.id
@@ -0,0 +1,4 @@
+SELECT username
+FROM ban.users
+ORDER BY timestamp DESC
+LIMIT :limit;
\ No newline at end of file
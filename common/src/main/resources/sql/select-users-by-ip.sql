@@ -1,5 +1,7 @@
-SELECT a.*
+SELECT c.id, c.type, c.uuid, a.username
 FROM ban.users a
          JOIN ban.ip_addresses b
               ON a.uuid = b.uuid
+         JOIN ban.identities c
+              ON a.identity = c.id
 WHERE b.address = :address;
\ No newline at end of file
@@ -1,5 +1,4 @@
 UPDATE ban.punishments
 SET lifted = TRUE
 WHERE lifted = FALSE
-  AND duration > 0
-  AND timestamp + duration * INTERVAL '1 millisecond' <= CURRENT_TIMESTAMP;
\ No newline at end of file
+  AND expires_at <= CURRENT_TIMESTAMP;
\ No newline at end of file
@@ -0,0 +1,7 @@
+INSERT INTO ban.punishments
+(id, type, target, punisher, reason, lifted, lifted_by, timestamp, expires_at)
+VALUES (:id, :type, :target, :punisher, :reason, :lifted,
+        (SELECT identities.id FROM ban.identities WHERE uuid = :lifted_by), :time, :expires_at)
+ON CONFLICT (id, timestamp) DO UPDATE
+    SET lifted    = excluded.lifted
+      , lifted_by = excluded.lifted_by;
\ No newline at end of file
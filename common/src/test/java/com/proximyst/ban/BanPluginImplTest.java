@@ -0,0 +1,142 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.proximyst.ban.model.BanIdentity;
+import com.proximyst.ban.model.BanIdentity.ConsoleIdentity;
+import com.proximyst.ban.model.BanIdentity.IpIdentity;
+import com.proximyst.ban.model.BanIdentity.UuidIdentity;
+import com.proximyst.ban.model.Punishment;
+import com.proximyst.ban.model.PunishmentBuilder;
+import com.proximyst.ban.model.PunishmentType;
+import com.proximyst.ban.service.IDataService;
+import com.proximyst.ban.service.IPunishmentService;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BanPluginImplTest {
+  @Test
+  void migratesTheDatabaseOnStart(final @TempDir Path dataDirectory) throws Exception {
+    try (final EmbeddedBan ban = EmbeddedBan.start(dataDirectory)) {
+      assertThat(ban.getInstance(BanReadiness.class).isReady()).isTrue();
+
+      final String migrations = ban.getInstance(IDataService.class).getClassPathPrefix() + "migrations";
+      final List<String> versions;
+      try (final Stream<Path> files = Files.list(Path.of(this.getClass().getClassLoader().getResource(migrations)
+          .toURI()))) {
+        versions = files.map(file -> file.getFileName().toString())
+            .map(name -> name.substring(1, name.indexOf("__")))
+            .collect(Collectors.toList());
+      }
+
+      final List<String> applied = ban.getInstance(Jdbi.class).withHandle(handle -> handle
+          .createQuery("SELECT version FROM flyway_schema_history WHERE success")
+          .mapTo(String.class)
+          .list());
+      assertThat(versions).isNotEmpty();
+      assertThat(applied).containsAll(versions);
+    }
+  }
+
+  @Test
+  void keepsDataAcrossRestarts(final @TempDir Path dataDirectory) throws Exception {
+    final UUID uuid = UUID.randomUUID();
+    final InetAddress address = InetAddress.getByAddress(new byte[]{10, 0, 0, (byte) 1});
+    final long userId;
+    final long userBan;
+    final long ipBan;
+
+    try (final EmbeddedBan ban = EmbeddedBan.start(dataDirectory)) {
+      final IDataService dataService = ban.getInstance(IDataService.class);
+      final ConsoleIdentity console = ban.getInstance(ConsoleIdentity.class);
+      final UuidIdentity user = dataService.createIdentity(uuid, "restarted");
+      userId = user.getId();
+      final IpIdentity ip = dataService.createIdentity(address, user);
+
+      userBan = dataService.savePunishment(new PunishmentBuilder()
+          .type(PunishmentType.BAN)
+          .target(user)
+          .punisher(console))
+          .getId();
+      ipBan = dataService.savePunishment(new PunishmentBuilder()
+          .type(PunishmentType.BAN)
+          .target(ip)
+          .punisher(console))
+          .getId();
+    }
+
+    try (final EmbeddedBan ban = EmbeddedBan.start(dataDirectory)) {
+      final BanIdentity user = ban.getInstance(IDataService.class).getUser(uuid).orElseThrow();
+      assertThat(user.getId()).isEqualTo(userId);
+
+      final IPunishmentService punishmentService = ban.getInstance(IPunishmentService.class);
+      assertThat(punishmentService.getActiveBan(user).join())
+          .map(Punishment::getId)
+          .hasValue(userBan);
+
+      // IP bans are loaded into memory before the plugin is ready.
+      assertThat(punishmentService.getActiveIpBan(address))
+          .map(Punishment::getId)
+          .hasValue(ipBan);
+    }
+  }
+
+  @Test
+  void liftingAnIpBanRestoresAnOlderOne(final @TempDir Path dataDirectory) throws Exception {
+    final InetAddress address = InetAddress.getByAddress(new byte[]{10, 0, 0, (byte) 2});
+
+    try (final EmbeddedBan ban = EmbeddedBan.start(dataDirectory)) {
+      final IDataService dataService = ban.getInstance(IDataService.class);
+      final IPunishmentService punishmentService = ban.getInstance(IPunishmentService.class);
+      final ConsoleIdentity console = ban.getInstance(ConsoleIdentity.class);
+      final UuidIdentity user = dataService.createIdentity(UUID.randomUUID(), "lifted");
+      final IpIdentity ip = dataService.createIdentity(address, user);
+
+      final Punishment older = punishmentService.savePunishment(new PunishmentBuilder()
+          .type(PunishmentType.BAN)
+          .target(ip)
+          .punisher(console)
+          .time(System.currentTimeMillis() - 1_000L))
+          .join();
+      final Punishment newer = punishmentService.savePunishment(new PunishmentBuilder()
+          .type(PunishmentType.BAN)
+          .target(ip)
+          .punisher(console))
+          .join();
+      assertThat(punishmentService.getActiveIpBan(address))
+          .map(Punishment::getId)
+          .hasValue(newer.getId());
+
+      punishmentService.liftPunishment(newer, null).join();
+      assertThat(punishmentService.getActiveIpBan(address))
+          .map(Punishment::getId)
+          .hasValue(older.getId());
+    }
+  }
+}
@@ -0,0 +1,179 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Provides;
+import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
+import com.proximyst.ban.inject.annotation.PluginData;
+import com.proximyst.ban.platform.IBanAudience.IBanConsole;
+import com.proximyst.ban.platform.IBanPlugin;
+import com.proximyst.ban.platform.IBanServer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.inject.Singleton;
+import org.apache.commons.lang3.ArrayUtils;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The plugin, started on its own with an embedded H2 database in a given data directory.
+ * <p>
+ * Set {@code BAN_TEST_POSTGRESQL} to {@code host:port/database}, and optionally {@code BAN_TEST_POSTGRESQL_USERNAME}
+ * and {@code BAN_TEST_POSTGRESQL_PASSWORD}, to use a PostgreSQL server instead. The data is not cleared between runs,
+ * so tests must not depend on the database being empty.
+ */
+public final class EmbeddedBan implements AutoCloseable {
+  private final @NonNull Injector injector;
+  private final @NonNull BanPluginImpl plugin;
+
+  private EmbeddedBan(final @NonNull Injector injector, final @NonNull BanPluginImpl plugin) {
+    this.injector = injector;
+    this.plugin = plugin;
+  }
+
+  /**
+   * Start the plugin, and wait for it to be ready.
+   *
+   * @param dataDirectory The data directory of the plugin. A configuration is written to it if it has none.
+   * @return The started plugin.
+   */
+  public static @NonNull EmbeddedBan start(final @NonNull Path dataDirectory)
+      throws IOException, InterruptedException, ExecutionException, TimeoutException {
+    final Path configuration = dataDirectory.resolve("config.conf");
+    if (Files.notExists(configuration)) {
+      Files.writeString(configuration, configuration());
+    }
+
+    final Injector injector = Guice.createInjector(ArrayUtils.add(IBanPlugin.STANDARD_MODULES,
+        new TestPlatformModule(dataDirectory)));
+    final BanPluginImpl plugin = injector.getInstance(BanPluginImpl.class);
+    if (!plugin.enable()) {
+      throw new IllegalStateException("the plugin could not be enabled");
+    }
+
+    injector.getInstance(BanReadiness.class).future().get(1, TimeUnit.MINUTES);
+    return new EmbeddedBan(injector, plugin);
+  }
+
+  private static @NonNull String configuration() {
+    // The archiver runs on a timer, and would change the data under the tests.
+    final String archival = "archival { enabled = false }\n";
+
+    final @Nullable String postgres = System.getenv("BAN_TEST_POSTGRESQL");
+    if (postgres == null) {
+      return "storage = H2\n" + archival;
+    }
+
+    final String[] hostAndDatabase = postgres.split("/", 2);
+    final String[] hostAndPort = hostAndDatabase[0].split(":", 2);
+    return "storage = POSTGRESQL\n"
+        + archival
+        + "sql {\n"
+        + "  hostname = \"" + hostAndPort[0] + "\"\n"
+        + "  port = " + (hostAndPort.length > 1 ? hostAndPort[1] : "5432") + "\n"
+        + "  database = \"" + (hostAndDatabase.length > 1 ? hostAndDatabase[1] : "ban") + "\"\n"
+        + "  username = \"" + System.getenv().getOrDefault("BAN_TEST_POSTGRESQL_USERNAME", "postgres") + "\"\n"
+        + "  password = \"" + System.getenv().getOrDefault("BAN_TEST_POSTGRESQL_PASSWORD", "") + "\"\n"
+        + "}\n";
+  }
+
+  public <T> @NonNull T getInstance(final @NonNull Class<T> type) {
+    return this.injector.getInstance(type);
+  }
+
+  @Override
+  public void close() {
+    this.plugin.disable();
+  }
+
+  /**
+   * The bindings the proxy would otherwise provide. There are no players online.
+   */
+  private static final class TestPlatformModule extends AbstractModule {
+    private final @NonNull Path dataDirectory;
+
+    private TestPlatformModule(final @NonNull Path dataDirectory) {
+      this.dataDirectory = dataDirectory;
+    }
+
+    @Singleton
+    @Provides
+    @NonNull IBanPlugin banPlugin() {
+      return mock(IBanPlugin.class);
+    }
+
+    @Singleton
+    @Provides
+    @NonNull IBanConsole banConsole() {
+      return mock(IBanConsole.class);
+    }
+
+    @Singleton
+    @Provides
+    @NonNull IBanServer banServer(final @NonNull IBanConsole console) {
+      final IBanServer server = mock(IBanServer.class);
+      when(server.consoleAudience()).thenReturn(console);
+      when(server.isOnlineMode()).thenReturn(true);
+      return server;
+    }
+
+    @Singleton
+    @Provides
+    @BanAsyncExecutor @NonNull Executor asyncExecutor() {
+      return Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+          .setNameFormat("ban-test-async-%d")
+          .setDaemon(true)
+          .build());
+    }
+
+    @Singleton
+    @Provides
+    @PluginData @NonNull Path dataDirectory() {
+      return this.dataDirectory;
+    }
+
+    @Singleton
+    @Provides
+    @PluginData @NonNull File dataDirectoryFile() {
+      return this.dataDirectory.toFile();
+    }
+
+    @Singleton
+    @Provides
+    @NonNull Logger logger() {
+      return LoggerFactory.getLogger("ban");
+    }
+  }
+}
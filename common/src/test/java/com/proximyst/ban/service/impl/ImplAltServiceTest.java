@@ -0,0 +1,211 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.proximyst.ban.EmbeddedBan;
+import com.proximyst.ban.model.AltAccount;
+import com.proximyst.ban.model.BanIdentity.ConsoleIdentity;
+import com.proximyst.ban.model.BanIdentity.UuidIdentity;
+import com.proximyst.ban.model.Punishment;
+import com.proximyst.ban.model.PunishmentBuilder;
+import com.proximyst.ban.model.PunishmentType;
+import com.proximyst.ban.service.IAltService;
+import com.proximyst.ban.service.IDataService;
+import com.proximyst.ban.service.IPunishmentService;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs {@link ImplAltService} against accounts and bans saved through the plugin.
+ */
+class ImplAltServiceTest {
+  private static final AtomicInteger USERS = new AtomicInteger();
+
+  @TempDir
+  static Path dataDirectory;
+
+  private static EmbeddedBan ban;
+  private static IDataService dataService;
+  private static IPunishmentService punishmentService;
+  private static IAltService altService;
+  private static ConsoleIdentity console;
+
+  @BeforeAll
+  static void start() throws Exception {
+    ban = EmbeddedBan.start(dataDirectory);
+    dataService = ban.getInstance(IDataService.class);
+    punishmentService = ban.getInstance(IPunishmentService.class);
+    altService = ban.getInstance(IAltService.class);
+    console = ban.getInstance(ConsoleIdentity.class);
+  }
+
+  @AfterAll
+  static void stop() {
+    ban.close();
+  }
+
+  static UuidIdentity createUser() {
+    return dataService.createIdentity(UUID.randomUUID(), "alt" + USERS.incrementAndGet());
+  }
+
+  static InetAddress address() throws UnknownHostException {
+    // Random IPv6 addresses, so every test has a graph of its own.
+    final byte[] bytes = new byte[16];
+    ThreadLocalRandom.current().nextBytes(bytes);
+    return InetAddress.getByAddress(bytes);
+  }
+
+  static void link(final UuidIdentity user, final InetAddress address) {
+    altService.recordLogin(user, address).join();
+  }
+
+  static Punishment banUser(final UuidIdentity user) {
+    return punishmentService.savePunishment(new PunishmentBuilder()
+        .type(PunishmentType.BAN)
+        .target(user)
+        .punisher(console))
+        .join();
+  }
+
+  @Test
+  void findsBansMadeBeforeTheLink() throws Exception {
+    final UuidIdentity banned = createUser();
+    final UuidIdentity alt = createUser();
+    final InetAddress address = address();
+    banUser(banned);
+
+    assertThat(altService.getBannedAlt(alt.uuid())).isEmpty();
+    link(banned, address);
+    link(alt, address);
+
+    assertThat(altService.getBannedAlt(alt.uuid()))
+        .map(AltAccount::getUuid)
+        .hasValue(banned.uuid());
+  }
+
+  @Test
+  void findsBansMadeAfterTheLink() throws Exception {
+    final UuidIdentity banned = createUser();
+    final UuidIdentity alt = createUser();
+    final InetAddress address = address();
+    link(banned, address);
+    link(alt, address);
+
+    assertThat(altService.getBannedAlt(alt.uuid())).isEmpty();
+    banUser(banned);
+
+    assertThat(altService.getBannedAlt(alt.uuid()))
+        .hasValueSatisfying(found -> {
+          assertThat(found.getUuid()).isEqualTo(banned.uuid());
+          assertThat(found.getHops()).isEqualTo(1);
+          assertThat(found.isBanned()).isTrue();
+        });
+  }
+
+  @Test
+  void forgetsLiftedBans() throws Exception {
+    final UuidIdentity banned = createUser();
+    final UuidIdentity alt = createUser();
+    final InetAddress address = address();
+    link(banned, address);
+    link(alt, address);
+
+    final Punishment punishment = banUser(banned);
+    assertThat(altService.getBannedAlt(alt.uuid())).isPresent();
+
+    punishmentService.liftPunishment(punishment, null).join();
+    assertThat(altService.getBannedAlt(alt.uuid())).isEmpty();
+  }
+
+  @Test
+  void keepsTheBansOfBothMergedComponents() throws Exception {
+    final UuidIdentity firstBanned = createUser();
+    final UuidIdentity first = createUser();
+    final InetAddress firstAddress = address();
+    link(firstBanned, firstAddress);
+    link(first, firstAddress);
+
+    final UuidIdentity secondBanned = createUser();
+    final UuidIdentity second = createUser();
+    final InetAddress secondAddress = address();
+    link(secondBanned, secondAddress);
+    link(second, secondAddress);
+
+    final Punishment firstBan = banUser(firstBanned);
+    banUser(secondBanned);
+
+    // The first account joining from the second address merges the two components.
+    link(first, secondAddress);
+    assertThat(altService.getBannedAlt(first.uuid()))
+        .map(AltAccount::getUuid)
+        .hasValue(firstBanned.uuid());
+
+    // The merged component still has the second ban once the first is lifted.
+    punishmentService.liftPunishment(firstBan, null).join();
+    assertThat(altService.getBannedAlt(first.uuid()))
+        .map(AltAccount::getUuid)
+        .hasValue(secondBanned.uuid());
+  }
+
+  @Test
+  void stopsWalkingAtTheHopLimit() throws Exception {
+    // A chain of accounts, each sharing an address with the next: start - a - middle - b - end - c - banned.
+    final UuidIdentity start = createUser();
+    final UuidIdentity middle = createUser();
+    final UuidIdentity end = createUser();
+    final UuidIdentity banned = createUser();
+    final InetAddress a = address();
+    final InetAddress b = address();
+    final InetAddress c = address();
+    link(start, a);
+    link(middle, a);
+    link(middle, b);
+    link(end, b);
+    link(end, c);
+    link(banned, c);
+    banUser(banned);
+
+    assertThat(altService.getAlts(start, 1))
+        .extracting(AltAccount::getUuid)
+        .containsExactly(middle.uuid());
+    assertThat(altService.getAlts(start, 3))
+        .extracting(AltAccount::getUuid, AltAccount::getHops)
+        .containsExactly(
+            tuple(middle.uuid(), 1),
+            tuple(end.uuid(), 2),
+            tuple(banned.uuid(), 3));
+
+    // Alerts only go two hops out by default.
+    assertThat(altService.getBannedAlt(start.uuid())).isEmpty();
+    assertThat(altService.getBannedAlt(middle.uuid()))
+        .map(AltAccount::getHops)
+        .hasValue(2);
+  }
+}
@@ -0,0 +1,222 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.proximyst.ban.EmbeddedBan;
+import com.proximyst.ban.model.BanIdentity;
+import com.proximyst.ban.model.BanIdentity.ConsoleIdentity;
+import com.proximyst.ban.model.BanIdentity.UuidIdentity;
+import com.proximyst.ban.model.Punishment;
+import com.proximyst.ban.model.PunishmentBuilder;
+import com.proximyst.ban.model.PunishmentType;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs the queries of {@link ImplGenericSqlDataService} from many threads at once, as logins and commands do.
+ */
+class ImplGenericSqlDataServiceConcurrencyTest {
+  private static final int THREADS = 16;
+  private static final AtomicInteger USERS = new AtomicInteger();
+
+  @TempDir
+  static Path dataDirectory;
+
+  private static EmbeddedBan ban;
+  private static ImplGenericSqlDataService dataService;
+  private static ConsoleIdentity console;
+  private static ExecutorService executor;
+
+  @BeforeAll
+  static void start() throws Exception {
+    ban = EmbeddedBan.start(dataDirectory);
+    dataService = ban.getInstance(ImplGenericSqlDataService.class);
+    console = ban.getInstance(ConsoleIdentity.class);
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @AfterAll
+  static void stop() {
+    executor.shutdownNow();
+    ban.close();
+  }
+
+  /**
+   * Run tasks at the same time, rather than as they happen to be started.
+   *
+   * @param tasks The tasks to run.
+   * @return The results of the tasks, in the same order.
+   */
+  private static <T> List<T> simultaneously(final List<Callable<T>> tasks) throws Exception {
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<T>> futures = new ArrayList<>(tasks.size());
+    for (final Callable<T> task : tasks) {
+      futures.add(executor.submit(() -> {
+        start.await();
+        return task.call();
+      }));
+    }
+
+    start.countDown();
+    final List<T> results = new ArrayList<>(futures.size());
+    for (final Future<T> future : futures) {
+      results.add(future.get(1, TimeUnit.MINUTES));
+    }
+    return results;
+  }
+
+  private static <T> List<Callable<T>> repeat(final int times, final Callable<T> task) {
+    final List<Callable<T>> tasks = new ArrayList<>(times);
+    for (int i = 0; i < times; ++i) {
+      tasks.add(task);
+    }
+    return tasks;
+  }
+
+  private static String username() {
+    return "concurrent" + USERS.incrementAndGet();
+  }
+
+  @Test
+  void simultaneousLoginsOfOneUserShareTheirIdentity() throws Exception {
+    final UUID uuid = UUID.randomUUID();
+    final String username = username();
+
+    final List<UuidIdentity> identities = simultaneously(repeat(THREADS,
+        () -> dataService.createIdentity(uuid, username)));
+
+    assertThat(identities)
+        .extracting(BanIdentity::getId)
+        .containsOnly(identities.get(0).getId());
+    assertThat(dataService.getUser(uuid)).map(BanIdentity::getId).hasValue(identities.get(0).getId());
+  }
+
+  @Test
+  void simultaneousLoginsOfDifferentUsersGetDifferentIdentities() throws Exception {
+    final List<Callable<UuidIdentity>> logins = new ArrayList<>();
+    for (int i = 0; i < THREADS * 4; ++i) {
+      final UUID uuid = UUID.randomUUID();
+      final String username = username();
+      logins.add(() -> dataService.createIdentity(uuid, username));
+    }
+
+    final List<UuidIdentity> identities = simultaneously(logins);
+
+    assertThat(identities)
+        .extracting(BanIdentity::getId)
+        .doesNotHaveDuplicates();
+    for (final UuidIdentity identity : identities) {
+      assertThat(dataService.getUser(identity.uuid())).map(BanIdentity::getId).hasValue(identity.getId());
+    }
+  }
+
+  @Test
+  void simultaneousImportsOfTheSameUsersShareTheirIdentities() throws Exception {
+    final Map<UUID, String> users = new HashMap<>();
+    for (int i = 0; i < THREADS; ++i) {
+      users.put(UUID.randomUUID(), username());
+    }
+
+    final List<Map<UUID, UuidIdentity>> results = simultaneously(repeat(THREADS,
+        () -> dataService.getOrCreateIdentities(users)));
+
+    for (final Map<UUID, UuidIdentity> result : results) {
+      assertThat(result).containsOnlyKeys(users.keySet());
+      result.forEach((uuid, identity) ->
+          assertThat(identity.getId()).isEqualTo(results.get(0).get(uuid).getId()));
+    }
+  }
+
+  @Test
+  void simultaneousBansOfOneTargetAreAllSaved() throws Exception {
+    final UuidIdentity target = dataService.createIdentity(UUID.randomUUID(), username());
+
+    final List<Punishment> bans = simultaneously(repeat(THREADS, () -> dataService.savePunishment(
+        new PunishmentBuilder()
+            .type(PunishmentType.BAN)
+            .target(target)
+            .punisher(console))));
+
+    assertThat(bans)
+        .extracting(Punishment::getId)
+        .doesNotHaveDuplicates();
+    assertThat(dataService.getPunishmentsForTarget(target)).hasSize(THREADS);
+    assertThat(dataService.getActivePunishment(target, PunishmentType.BAN)).isPresent();
+  }
+
+  @Test
+  void simultaneousBansAndLiftsLeaveOnlyTheUnliftedActive() throws Exception {
+    final List<Callable<Punishment>> bans = new ArrayList<>();
+    for (int i = 0; i < THREADS * 2; ++i) {
+      final UuidIdentity target = dataService.createIdentity(UUID.randomUUID(), username());
+      bans.add(() -> dataService.savePunishment(new PunishmentBuilder()
+          .type(PunishmentType.BAN)
+          .target(target)
+          .punisher(console)));
+    }
+    final List<Punishment> saved = simultaneously(bans);
+
+    // Lift every other ban, while banning the same targets again for a while.
+    final List<Callable<Punishment>> changes = new ArrayList<>();
+    for (int i = 0; i < saved.size(); i += 2) {
+      final Punishment punishment = saved.get(i);
+      changes.add(() -> dataService.liftPunishment(punishment, console.uuid()));
+      changes.add(() -> dataService.savePunishment(new PunishmentBuilder()
+          .type(PunishmentType.BAN)
+          .target(punishment.getTarget())
+          .punisher(console)
+          .duration(1, TimeUnit.HOURS)));
+    }
+    simultaneously(changes);
+
+    final List<Long> active = new ArrayList<>();
+    dataService.getActiveUserBans().forEach(punishment -> active.add(punishment.getId()));
+    for (int i = 0; i < saved.size(); ++i) {
+      final Punishment punishment = saved.get(i);
+      final Optional<Punishment> ban = dataService.getActivePunishment(punishment.getTarget(), PunishmentType.BAN);
+      if (i % 2 == 0) {
+        // Only the new ban applies.
+        assertThat(active).doesNotContain(punishment.getId());
+        assertThat(ban).get().extracting(Punishment::getId).isNotEqualTo(punishment.getId());
+        assertThat(active).contains(ban.get().getId());
+      } else {
+        assertThat(active).contains(punishment.getId());
+        assertThat(ban).get().extracting(Punishment::getId).isEqualTo(punishment.getId());
+      }
+    }
+  }
+}
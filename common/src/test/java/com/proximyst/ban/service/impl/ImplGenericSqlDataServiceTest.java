@@ -0,0 +1,347 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.proximyst.ban.EmbeddedBan;
+import com.proximyst.ban.model.BanIdentity;
+import com.proximyst.ban.model.BanIdentity.ConsoleIdentity;
+import com.proximyst.ban.model.BanIdentity.IpIdentity;
+import com.proximyst.ban.model.BanIdentity.UuidIdentity;
+import com.proximyst.ban.model.Punishment;
+import com.proximyst.ban.model.PunishmentBuilder;
+import com.proximyst.ban.model.PunishmentType;
+import com.proximyst.ban.service.IDataService.ExportSink;
+import com.proximyst.ban.utils.ResourceReader;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs every query of {@link ImplGenericSqlDataService} against the migrated database.
+ */
+class ImplGenericSqlDataServiceTest {
+  private static final AtomicInteger USERS = new AtomicInteger();
+
+  @TempDir
+  static Path dataDirectory;
+
+  private static EmbeddedBan ban;
+  private static ImplGenericSqlDataService dataService;
+  private static ConsoleIdentity console;
+
+  @BeforeAll
+  static void start() throws Exception {
+    ban = EmbeddedBan.start(dataDirectory);
+    dataService = ban.getInstance(ImplGenericSqlDataService.class);
+    console = ban.getInstance(ConsoleIdentity.class);
+  }
+
+  @AfterAll
+  static void stop() {
+    ban.close();
+  }
+
+  static UuidIdentity createUser() {
+    return dataService.createIdentity(UUID.randomUUID(), username());
+  }
+
+  static String username() {
+    return "user" + USERS.incrementAndGet();
+  }
+
+  static InetAddress address() throws UnknownHostException {
+    final byte[] bytes = new byte[16];
+    ThreadLocalRandom.current().nextBytes(bytes);
+    return InetAddress.getByAddress(bytes);
+  }
+
+  static PunishmentBuilder punishment(final PunishmentType type, final BanIdentity target) {
+    return new PunishmentBuilder()
+        .type(type)
+        .target(target)
+        .punisher(console)
+        .reason("testing");
+  }
+
+  @Test
+  void everyStatementPrepares() throws Exception {
+    final String prefix = dataService.getClassPathPrefix();
+    final List<String> files;
+    try (final Stream<Path> paths = Files.list(Path.of(this.getClass().getClassLoader().getResource(prefix).toURI()))) {
+      files = paths.map(path -> path.getFileName().toString())
+          .filter(name -> name.endsWith(".sql"))
+          .collect(Collectors.toList());
+    }
+    assertThat(files).isNotEmpty();
+
+    // This also covers the files no method uses. JDBI's named parameters are turned into plain ones, leaving casts.
+    ban.getInstance(Jdbi.class).useHandle(handle -> {
+      for (final String file : files) {
+        for (final String statement : ResourceReader.readResource(prefix + file).split(";")) {
+          if (statement.isBlank()) {
+            continue;
+          }
+
+          try (final PreparedStatement prepared = handle.getConnection()
+              .prepareStatement(statement.replaceAll("(?<!:):(?!:)\\w+", "?"))) {
+            assertThat(prepared).as(file).isNotNull();
+          }
+        }
+      }
+    });
+  }
+
+  @Test
+  void createsUserIdentitiesOnce() {
+    final UUID uuid = UUID.randomUUID();
+    final String username = username();
+
+    final UuidIdentity created = dataService.createIdentity(uuid, username);
+    assertThat(dataService.createIdentity(uuid, username).getId()).isEqualTo(created.getId());
+
+    assertThat(dataService.getUser(uuid)).map(BanIdentity::getId).hasValue(created.getId());
+    assertThat(dataService.getUser(username)).map(BanIdentity::getId).hasValue(created.getId());
+    assertThat(dataService.getUser(created.getId()))
+        .flatMap(BanIdentity::asUuidIdentity)
+        .map(UuidIdentity::uuid)
+        .hasValue(uuid);
+    assertThat(dataService.getUserCacheDate(uuid)).isPresent();
+    assertThat(dataService.getUserCacheDate(created.getId())).isPresent();
+  }
+
+  @Test
+  void findsNothingForUnknownUsers() {
+    assertThat(dataService.getUser(UUID.randomUUID())).isEmpty();
+    assertThat(dataService.getUser(username())).isEmpty();
+    assertThat(dataService.getUser(Long.MAX_VALUE)).isEmpty();
+  }
+
+  @Test
+  void getsOrCreatesOnlyNamedIdentities() {
+    final UuidIdentity existing = createUser();
+    final UUID created = UUID.randomUUID();
+    final UUID unnamed = UUID.randomUUID();
+
+    final Map<UUID, String> users = new HashMap<>();
+    users.put(existing.uuid(), null);
+    users.put(created, username());
+    users.put(unnamed, null);
+    final Map<UUID, UuidIdentity> identities = dataService.getOrCreateIdentities(users);
+
+    assertThat(identities).containsOnlyKeys(existing.uuid(), created);
+    assertThat(identities.get(existing.uuid()).getId()).isEqualTo(existing.getId());
+    assertThat(dataService.getUser(created)).map(BanIdentity::getId).hasValue(identities.get(created).getId());
+    assertThat(dataService.getUser(unnamed)).isEmpty();
+  }
+
+  @Test
+  void linksAddressesToUsers() throws Exception {
+    final UuidIdentity first = createUser();
+    final UuidIdentity second = createUser();
+    final InetAddress address = address();
+
+    final IpIdentity identity = dataService.createIdentity(address, first, second);
+    assertThat(dataService.createIdentity(address, first).getId()).isEqualTo(identity.getId());
+
+    assertThat(dataService.getIpIdentity(address)).map(BanIdentity::getId).hasValue(identity.getId());
+    assertThat(dataService.getUsersByIp(address))
+        .extracting(UuidIdentity::uuid)
+        .containsExactlyInAnyOrder(first.uuid(), second.uuid());
+
+    final Set<UUID> linked = new HashSet<>();
+    dataService.readAddressLinks((linkedAddress, uuid, username) -> {
+      if (linkedAddress.equals(address)) {
+        linked.add(uuid);
+      }
+    });
+    assertThat(linked).containsExactlyInAnyOrder(first.uuid(), second.uuid());
+  }
+
+  @Test
+  void savesAndLiftsPunishments() {
+    final UuidIdentity target = createUser();
+    final UuidIdentity staff = createUser();
+
+    final Punishment ban = dataService.savePunishment(punishment(PunishmentType.BAN, target));
+    final Punishment note = dataService.savePunishment(punishment(PunishmentType.NOTE, target));
+    assertThat(ban.getId()).isNotEqualTo(note.getId());
+
+    assertThat(dataService.getActivePunishment(target, PunishmentType.BAN))
+        .map(Punishment::getId)
+        .hasValue(ban.getId());
+    assertThat(dataService.getActivePunishment(target, PunishmentType.MUTE)).isEmpty();
+    assertThat(dataService.getPunishmentsForTarget(target))
+        .extracting(Punishment::getId)
+        .containsExactly(ban.getId(), note.getId());
+    assertThat(dataService.getActiveUserBans())
+        .extracting(Punishment::getId)
+        .contains(ban.getId());
+
+    final Punishment lifted = dataService.liftPunishment(ban, staff.uuid());
+    assertThat(lifted.isLifted()).isTrue();
+    assertThat(lifted.getLiftedBy()).hasValue(staff.uuid());
+    assertThat(dataService.getActivePunishment(target, PunishmentType.BAN)).isEmpty();
+    assertThat(dataService.getActiveUserBans())
+        .extracting(Punishment::getId)
+        .doesNotContain(ban.getId());
+  }
+
+  @Test
+  void listsActiveIpBans() throws Exception {
+    final IpIdentity target = dataService.createIdentity(address(), createUser());
+
+    final Punishment ban = dataService.savePunishment(punishment(PunishmentType.BAN, target));
+    assertThat(dataService.getActiveIpBans())
+        .filteredOn(punishment -> punishment.getId() == ban.getId())
+        .singleElement()
+        .extracting(punishment -> punishment.getTarget().getId())
+        .isEqualTo(target.getId());
+    assertThat(dataService.getActiveUserBans())
+        .extracting(Punishment::getId)
+        .doesNotContain(ban.getId());
+  }
+
+  @Test
+  void liftsExpiredPunishments() {
+    final UuidIdentity target = createUser();
+    final Punishment expired = dataService.savePunishment(punishment(PunishmentType.MUTE, target)
+        .time(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2))
+        .duration(1, TimeUnit.HOURS));
+    final Punishment active = dataService.savePunishment(punishment(PunishmentType.MUTE, target)
+        .duration(1, TimeUnit.HOURS));
+
+    dataService.updateExpirations();
+
+    assertThat(dataService.getPunishmentsForTarget(target))
+        .filteredOn(Punishment::isLifted)
+        .extracting(Punishment::getId)
+        .containsExactly(expired.getId())
+        .doesNotContain(active.getId());
+  }
+
+  @Test
+  void archivesOldPunishments() {
+    final UuidIdentity target = createUser();
+    final long old = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(400);
+    final Punishment kick = dataService.savePunishment(punishment(PunishmentType.KICK, target).time(old));
+    final Punishment ban = dataService.savePunishment(punishment(PunishmentType.BAN, target).time(old));
+
+    assertThat(dataService.archivePunishments(old + 1, 1000)).isPositive();
+
+    // Bans are never archived, as they may still apply.
+    assertThat(dataService.getPunishmentsForTarget(target))
+        .extracting(Punishment::getId)
+        .containsExactly(ban.getId());
+    assertThat(dataService.getArchivedPunishmentsForTarget(target))
+        .extracting(Punishment::getId)
+        .containsExactly(kick.getId());
+  }
+
+  @Test
+  void importsPunishments() {
+    final UuidIdentity target = createUser();
+    final List<PunishmentBuilder> punishments = List.of(
+        punishment(PunishmentType.WARNING, target),
+        punishment(PunishmentType.NOTE, target).reason(null).lifted(console.uuid()));
+
+    assertThat(dataService.importPunishments(punishments, false)).isEqualTo(2);
+    assertThat(dataService.getPunishmentsForTarget(target))
+        .extracting(Punishment::getPunishmentType)
+        .containsExactlyInAnyOrder(PunishmentType.WARNING, PunishmentType.NOTE);
+    assertThat(dataService.importPunishments(punishments, false)).isZero();
+  }
+
+  @Test
+  void importsArchivedPunishments() {
+    final UuidIdentity target = createUser();
+    final List<PunishmentBuilder> punishments = List.of(punishment(PunishmentType.KICK, target));
+
+    assertThat(dataService.importPunishments(punishments, true)).isEqualTo(1);
+    assertThat(dataService.getPunishmentsForTarget(target)).isEmpty();
+    assertThat(dataService.getArchivedPunishmentsForTarget(target))
+        .extracting(Punishment::getPunishmentType)
+        .containsExactly(PunishmentType.KICK);
+
+    // Already archived punishments are not imported again, archived or not.
+    assertThat(dataService.importPunishments(punishments, true)).isZero();
+    assertThat(dataService.importPunishments(punishments, false)).isZero();
+  }
+
+  @Test
+  void listsRecentUsernames() {
+    final UuidIdentity user = createUser();
+
+    assertThat(dataService.getRecentUsernames(Integer.MAX_VALUE)).contains(user.username());
+  }
+
+  @Test
+  void exportsEverything() throws Exception {
+    final UuidIdentity user = createUser();
+    final InetAddress address = address();
+    dataService.createIdentity(address, user);
+    final Punishment punishment = dataService.savePunishment(punishment(PunishmentType.WARNING, user));
+
+    final Map<UUID, String> users = new HashMap<>();
+    final List<UUID> addressUsers = new ArrayList<>();
+    final List<Long> punishments = new ArrayList<>();
+    dataService.exportData(new ExportSink() {
+      @Override
+      public void user(final UUID uuid, final String username) {
+        users.put(uuid, username);
+      }
+
+      @Override
+      public void address(final InetAddress exported, final UUID uuid) {
+        if (exported.equals(address)) {
+          addressUsers.add(uuid);
+        }
+      }
+
+      @Override
+      public void punishment(final Punishment exported, final boolean archived) {
+        punishments.add(exported.getId());
+      }
+    });
+
+    assertThat(users).containsEntry(user.uuid(), user.username());
+    assertThat(addressUsers).containsExactly(user.uuid());
+    assertThat(punishments).contains(punishment.getId());
+  }
+}
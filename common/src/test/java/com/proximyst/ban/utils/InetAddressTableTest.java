@@ -0,0 +1,125 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class InetAddressTableTest {
+  @Test
+  void putsGetsAndRemovesValues() throws Exception {
+    final InetAddressTable<String> table = new InetAddressTable<>();
+    final InetAddress address = InetAddress.getByName("10.0.0.1");
+
+    assertThat(table.get(address)).isNull();
+    table.put(address, "first");
+    assertThat(table.get(address)).isEqualTo("first");
+    table.put(address, "second");
+    assertThat(table.get(address)).isEqualTo("second");
+    assertThat(table.size()).isEqualTo(1);
+
+    assertThat(table.putIfAbsent(address, "third")).isFalse();
+    assertThat(table.get(address)).isEqualTo("second");
+
+    assertThat(table.remove(address, "first"::equals)).isFalse();
+    assertThat(table.get(address)).isEqualTo("second");
+    assertThat(table.remove(address, "second"::equals)).isTrue();
+    assertThat(table.get(address)).isNull();
+    assertThat(table.size()).isZero();
+
+    assertThat(table.putIfAbsent(address, "third")).isTrue();
+    assertThat(table.get(address)).isEqualTo("third");
+  }
+
+  @Test
+  void keepsCollidingAddressesApart() throws Exception {
+    // Far more addresses than the minimum capacity, so they share and probe past each others' slots.
+    final InetAddressTable<Integer> table = new InetAddressTable<>();
+    final List<InetAddress> addresses = new ArrayList<>();
+    for (int i = 0; i < 1_000; ++i) {
+      final InetAddress address = InetAddress.getByAddress(new byte[]{10, 0, (byte) (i >>> 8), (byte) i});
+      addresses.add(address);
+      table.put(address, i);
+    }
+    assertThat(table.size()).isEqualTo(addresses.size());
+
+    // Removing from the middle of probe clusters must not hide the entries after them.
+    for (int i = 0; i < addresses.size(); i += 2) {
+      assertThat(table.remove(addresses.get(i), $ -> true)).isTrue();
+    }
+    assertThat(table.size()).isEqualTo(addresses.size() / 2);
+    for (int i = 0; i < addresses.size(); ++i) {
+      assertThat(table.get(addresses.get(i))).isEqualTo(i % 2 == 0 ? null : i);
+    }
+  }
+
+  @Test
+  void replacesAllValues() throws Exception {
+    final InetAddressTable<String> table = new InetAddressTable<>();
+    final InetAddress stale = InetAddress.getByName("10.0.0.1");
+    final InetAddress fresh = InetAddress.getByName("10.0.0.2");
+    table.put(stale, "stale");
+
+    final Map<InetAddress, String> values = new HashMap<>();
+    values.put(fresh, "fresh");
+    table.replaceAll(values);
+
+    assertThat(table.get(stale)).isNull();
+    assertThat(table.get(fresh)).isEqualTo("fresh");
+    assertThat(table.size()).isEqualTo(1);
+  }
+
+  @Test
+  void packsIpv4AsItsMappedIpv6Address() throws Exception {
+    final InetAddressTable<String> table = new InetAddressTable<>();
+    final InetAddress ipv4 = InetAddress.getByName("192.0.2.1");
+    // InetAddress itself turns mapped addresses into IPv4 ones, so the mapped address is built by hand.
+    final InetAddress mapped = Inet6Address.getByAddress(null,
+        new byte[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 192, 0, 2, 1}, -1);
+    final InetAddress compatible = InetAddress.getByName("::192.0.2.1");
+
+    table.put(ipv4, "ipv4");
+    assertThat(table.get(mapped)).isEqualTo("ipv4");
+    assertThat(table.get(compatible)).isNull();
+  }
+
+  @Test
+  void keepsIpv6AddressesApartByEitherHalf() throws Exception {
+    final InetAddressTable<String> table = new InetAddressTable<>();
+    final InetAddress address = InetAddress.getByName("2001:db8::1");
+    final InetAddress otherHigh = InetAddress.getByName("2001:db9::1");
+    final InetAddress otherLow = InetAddress.getByName("2001:db8::2");
+
+    table.put(address, "address");
+    table.put(otherHigh, "high");
+    table.put(otherLow, "low");
+
+    assertThat(table.get(address)).isEqualTo("address");
+    assertThat(table.get(otherHigh)).isEqualTo("high");
+    assertThat(table.get(otherLow)).isEqualTo("low");
+    assertThat(table.get(InetAddress.getByName("::1"))).isNull();
+  }
+}
@@ -0,0 +1,75 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class UnionFindTest {
+  @Test
+  void startsWithEveryElementInASetOfItsOwn() {
+    final UnionFind sets = new UnionFind(4);
+    final int a = sets.add();
+    final int b = sets.add();
+
+    assertThat(sets.size()).isEqualTo(2);
+    assertThat(sets.find(a)).isEqualTo(a);
+    assertThat(sets.find(b)).isEqualTo(b);
+    assertThat(sets.setSize(a)).isEqualTo(1);
+  }
+
+  @Test
+  void mergesSets() {
+    final UnionFind sets = new UnionFind(4);
+    final int a = sets.add();
+    final int b = sets.add();
+    final int c = sets.add();
+    final int d = sets.add();
+
+    sets.union(a, b);
+    sets.union(c, d);
+    assertThat(sets.find(a)).isEqualTo(sets.find(b)).isNotEqualTo(sets.find(c));
+    assertThat(sets.setSize(a)).isEqualTo(2);
+
+    final int root = sets.union(b, d);
+    assertThat(sets.find(a)).isEqualTo(root);
+    assertThat(sets.find(c)).isEqualTo(root);
+    assertThat(sets.setSize(d)).isEqualTo(4);
+
+    // Merging a set with itself changes nothing.
+    assertThat(sets.union(a, c)).isEqualTo(root);
+    assertThat(sets.setSize(a)).isEqualTo(4);
+  }
+
+  @Test
+  void growsPastItsInitialCapacity() {
+    final UnionFind sets = new UnionFind(1);
+    int previous = sets.add();
+    for (int i = 1; i < 100; ++i) {
+      final int element = sets.add();
+      sets.union(previous, element);
+      previous = element;
+    }
+
+    assertThat(sets.size()).isEqualTo(100);
+    assertThat(sets.setSize(0)).isEqualTo(100);
+    assertThat(sets.find(99)).isEqualTo(sets.find(0));
+  }
+}
@@ -0,0 +1,31 @@
+import com.proximyst.ban.ADVENTURE_VER
+import com.proximyst.ban.COMMONS_LANG_VER
+import com.proximyst.ban.CONFIGURATE_VER
+import com.proximyst.ban.GSON_VER
+import com.proximyst.ban.GUICE_VER
+import com.proximyst.ban.MOONSHINE_VER
+import com.proximyst.ban.SLF4J_VER
+
+plugins {
+    application
+}
+
+dependencies {
+    implementation(project(":common"))
+
+    // The platform would usually provide these; here, we are the platform.
+    implementation("com.google.inject:guice:$GUICE_VER")
+    implementation("net.kyori:adventure-api:$ADVENTURE_VER")
+    implementation("org.slf4j:slf4j-api:$SLF4J_VER")
+    implementation("org.spongepowered:configurate-core:$CONFIGURATE_VER")
+    implementation("org.spongepowered:configurate-hocon:$CONFIGURATE_VER")
+    implementation("org.apache.commons:commons-lang3:$COMMONS_LANG_VER")
+    implementation("com.google.code.gson:gson:$GSON_VER")
+    implementation("com.proximyst.moonshine:core:$MOONSHINE_VER")
+    runtimeOnly("org.slf4j:slf4j-simple:$SLF4J_VER")
+}
+
+application {
+    // Run with e.g.: ./gradlew :loadgen:run --args="--storage=H2 --logins=50 --chats=400"
+    mainClass.set("com.proximyst.ban.loadgen.LoadGenerator")
+}
\ No newline at end of file
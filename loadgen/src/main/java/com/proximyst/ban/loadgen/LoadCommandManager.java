@@ -0,0 +1,53 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.loadgen;
+
+import cloud.commandframework.CommandManager;
+import cloud.commandframework.execution.AsynchronousCommandExecutionCoordinator;
+import cloud.commandframework.internal.CommandRegistrationHandler;
+import cloud.commandframework.meta.CommandMeta;
+import cloud.commandframework.meta.SimpleCommandMeta;
+import com.proximyst.ban.platform.IBanAudience;
+import java.util.concurrent.Executor;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A command manager which is not attached to any platform; commands are only ever run through
+ * {@link #executeCommand(Object, String)}.
+ */
+final class LoadCommandManager extends CommandManager<IBanAudience> {
+  LoadCommandManager(final @NonNull Executor executor) {
+    // The same execution as on Velocity.
+    super(AsynchronousCommandExecutionCoordinator.<IBanAudience>newBuilder()
+            .withAsynchronousParsing()
+            .withExecutor(executor)
+            .build(),
+        CommandRegistrationHandler.nullCommandRegistrationHandler());
+  }
+
+  @Override
+  public boolean hasPermission(final @NonNull IBanAudience sender, final @NonNull String permission) {
+    return sender.hasPermission(permission);
+  }
+
+  @Override
+  public @NonNull CommandMeta createDefaultCommandMeta() {
+    return SimpleCommandMeta.empty();
+  }
+}
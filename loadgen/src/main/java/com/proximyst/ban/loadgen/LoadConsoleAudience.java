@@ -0,0 +1,57 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.loadgen;
+
+import com.proximyst.ban.platform.IBanAudience.IBanConsole;
+import java.util.Locale;
+import java.util.UUID;
+import javax.inject.Singleton;
+import net.kyori.adventure.text.Component;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A console which discards everything sent to it; it is sent every notification, and printing them would drown out the
+ * report.
+ */
+@Singleton
+public final class LoadConsoleAudience implements IBanConsole {
+  @Override
+  public @NonNull UUID uuid() {
+    return UUID;
+  }
+
+  @Override
+  public @NonNull String username() {
+    return USERNAME;
+  }
+
+  @Override
+  public @NonNull Locale locale() {
+    return Locale.ENGLISH;
+  }
+
+  @Override
+  public boolean hasPermission(final @NonNull String permission) {
+    return true;
+  }
+
+  @Override
+  public void disconnect(final @NonNull Component reason) {
+  }
+}
@@ -0,0 +1,202 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.loadgen;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.proximyst.ban.platform.IBanPlugin;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.commons.lang3.ArrayUtils;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives synthetic proxy traffic through the plugin's real services and storage, and reports the throughput and
+ * latency of each kind of operation.
+ * <p>
+ * Operations are started at fixed rates regardless of how long earlier ones take, as players do not wait for the
+ * proxy before connecting. Latencies are upper bounds, rounded up to the next power of two nanoseconds.
+ */
+public final class LoadGenerator {
+  private static final @NonNull Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+
+  private final @NonNull LoadSettings settings;
+  private final @NonNull LoadTraffic traffic;
+  private final @NonNull LoadServer server;
+
+  private final @NonNull List<@NonNull OperationStats> operations = new ArrayList<>();
+  private final @NonNull ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+          .setNameFormat("loadgen-scheduler-%d")
+          .setDaemon(true)
+          .build());
+
+  private LoadGenerator(final @NonNull LoadSettings settings,
+      final @NonNull LoadTraffic traffic,
+      final @NonNull LoadServer server) {
+    this.settings = settings;
+    this.traffic = traffic;
+    this.server = server;
+  }
+
+  public static void main(final @NonNull String @NonNull [] args) throws IOException {
+    final LoadSettings settings;
+    try {
+      settings = LoadSettings.parse(args);
+    } catch (final IllegalArgumentException ex) {
+      LOGGER.error("Invalid arguments: {}", ex.getMessage());
+      System.exit(2);
+      return;
+    }
+
+    final Path dataDirectory = settings.data == null
+        ? Files.createTempDirectory("ban-loadgen")
+        : Files.createDirectories(settings.data);
+    final Path configuration = dataDirectory.resolve("config.conf");
+    if (Files.notExists(configuration)) {
+      // The plugin fills in the rest with its defaults.
+      Files.writeString(configuration, "storage=" + settings.storage.name() + "\n");
+    }
+    LOGGER.info("Using the data directory {}", dataDirectory);
+
+    final Injector injector = Guice.createInjector(ArrayUtils.add(IBanPlugin.STANDARD_MODULES,
+        new LoadPlatformModule(settings, dataDirectory)));
+    final LoadPlugin plugin = injector.getInstance(LoadPlugin.class);
+    try {
+      plugin.enable().join();
+    } catch (final CompletionException ex) {
+      LOGGER.error("Could not start the plugin", ex.getCause());
+      plugin.disable();
+      System.exit(1);
+      return;
+    }
+
+    new LoadGenerator(settings, injector.getInstance(LoadTraffic.class), injector.getInstance(LoadServer.class))
+        .run();
+
+    plugin.disable();
+    // The connection pools do not use daemon threads.
+    System.exit(0);
+  }
+
+  private void run() {
+    this.traffic.loginStaff().join();
+
+    this.schedule("login", this.settings.logins, this.traffic::login);
+    this.schedule("chat", this.settings.chats, this.traffic::chat);
+    this.schedule("disconnect", this.settings.disconnects, this.traffic::disconnect);
+    this.schedule("/ban", this.settings.bans, this.traffic::ban);
+    this.schedule("/mute", this.settings.mutes, this.traffic::mute);
+    this.schedule("/history", this.settings.histories, this.traffic::history);
+
+    if (this.settings.warmupSeconds > 0) {
+      LOGGER.info("Warming up for {} s", this.settings.warmupSeconds);
+      sleep(TimeUnit.SECONDS.toNanos(this.settings.warmupSeconds));
+      this.operations.forEach(OperationStats::reset);
+    }
+
+    final long start = System.nanoTime();
+    final long end = start + TimeUnit.SECONDS.toNanos(this.settings.durationSeconds);
+    long intervalStart = start;
+    while (System.nanoTime() < end) {
+      sleep(Math.min(TimeUnit.SECONDS.toNanos(this.settings.reportSeconds), end - System.nanoTime()));
+
+      final long now = System.nanoTime();
+      final double seconds = (now - intervalStart) / 1e9;
+      intervalStart = now;
+      LOGGER.info("{} online, {} broadcasts", this.server.onlineCount(), this.server.broadcasts());
+      for (final OperationStats operation : this.operations) {
+        LOGGER.info(operation.reportInterval(seconds));
+      }
+    }
+
+    this.scheduler.shutdownNow();
+
+    final double seconds = (System.nanoTime() - start) / 1e9;
+    LOGGER.info("Total over {} s:", String.format("%.1f", seconds));
+    for (final OperationStats operation : this.operations) {
+      LOGGER.info(operation.reportTotal(seconds));
+    }
+  }
+
+  /**
+   * Start an operation at a fixed rate.
+   *
+   * @param name      The name of the operation in the reports.
+   * @param rate      The amount of operations to start per second; nothing is started if this is {@code 0}.
+   * @param operation The operation to run, returning {@code null} if it could not be started.
+   */
+  private void schedule(final @NonNull String name,
+      final @NonNegative double rate,
+      final @NonNull Supplier<@Nullable CompletableFuture<?>> operation) {
+    if (rate <= 0) {
+      return;
+    }
+
+    final OperationStats stats = new OperationStats(name);
+    this.operations.add(stats);
+    this.scheduler.scheduleAtFixedRate(() -> {
+      final long start = System.nanoTime();
+      final CompletableFuture<?> future;
+      try {
+        future = operation.get();
+      } catch (final RuntimeException ex) {
+        // Throwing would stop this operation from ever being run again.
+        LOGGER.warn("Could not start {}", name, ex);
+        stats.failed();
+        return;
+      }
+
+      if (future == null) {
+        stats.skipped();
+        return;
+      }
+
+      future.whenComplete(($, ex) -> {
+        if (ex == null) {
+          stats.succeeded(System.nanoTime() - start);
+        } else {
+          stats.failed();
+        }
+      });
+    }, 0L, Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / rate)), TimeUnit.NANOSECONDS);
+  }
+
+  private static void sleep(final @NonNegative long nanos) {
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
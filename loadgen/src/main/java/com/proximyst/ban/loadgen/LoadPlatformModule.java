@@ -0,0 +1,102 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.loadgen;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
+import com.proximyst.ban.inject.annotation.PluginData;
+import com.proximyst.ban.platform.IBanAudience.IBanConsole;
+import com.proximyst.ban.platform.IBanPlugin;
+import com.proximyst.ban.platform.IBanServer;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import javax.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The bindings the proxy would otherwise provide.
+ */
+public final class LoadPlatformModule extends AbstractModule {
+  private final @NonNull LoadSettings settings;
+  private final @NonNull Path dataDirectory;
+
+  LoadPlatformModule(final @NonNull LoadSettings settings, final @NonNull Path dataDirectory) {
+    this.settings = settings;
+    this.dataDirectory = dataDirectory;
+  }
+
+  @Override
+  protected void configure() {
+    this.bind(LoadSettings.class).toInstance(this.settings);
+  }
+
+  @Singleton
+  @Provides
+  @NonNull IBanPlugin banPlugin(final @NonNull LoadPlugin loadPlugin) {
+    return loadPlugin;
+  }
+
+  @Singleton
+  @Provides
+  @NonNull IBanServer banServer(final @NonNull LoadServer server) {
+    return server;
+  }
+
+  @Singleton
+  @Provides
+  @NonNull IBanConsole banConsole(final @NonNull LoadConsoleAudience console) {
+    return console;
+  }
+
+  /**
+   * The Velocity scheduler runs every task on a new or idle thread, so this does too.
+   */
+  @Singleton
+  @Provides
+  @BanAsyncExecutor @NonNull Executor asyncExecutor() {
+    return Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+        .setNameFormat("ban-async-%d")
+        .setDaemon(true)
+        .build());
+  }
+
+  @Singleton
+  @Provides
+  @PluginData @NonNull Path dataDirectory() {
+    return this.dataDirectory;
+  }
+
+  @Singleton
+  @Provides
+  @PluginData @NonNull File dataDirectoryFile() {
+    return this.dataDirectory.toFile();
+  }
+
+  @Singleton
+  @Provides
+  @NonNull Logger logger() {
+    return LoggerFactory.getLogger("ban");
+  }
+}
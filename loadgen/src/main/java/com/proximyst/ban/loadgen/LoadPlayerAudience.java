@@ -0,0 +1,167 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.loadgen;
+
+import com.proximyst.ban.BanPermissions;
+import com.proximyst.ban.platform.IBanAudience.IBanPlayer;
+import com.proximyst.ban.platform.PlayerSession;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import net.kyori.adventure.audience.MessageType;
+import net.kyori.adventure.identity.Identity;
+import net.kyori.adventure.text.Component;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.qual.Pure;
+
+/**
+ * A synthetic player. Nothing is rendered; messages and disconnects are only counted, so the driver can tell when the
+ * plugin has gotten back to them.
+ */
+public final class LoadPlayerAudience implements IBanPlayer {
+  private static final @NonNull Set<@NonNull String> STAFF_PERMISSIONS = Set.of(
+      BanPermissions.COMMAND_BAN,
+      BanPermissions.COMMAND_MUTE,
+      BanPermissions.COMMAND_HISTORY
+  );
+
+  private final @NonNull UUID uuid;
+  private final @NonNull String username;
+  private final @NonNull InetAddress address;
+  private final boolean staff;
+  private final @NonNull PlayerSession session = new PlayerSession();
+
+  private final @NonNull CompletableFuture<@NonNull Component> disconnected = new CompletableFuture<>();
+
+  /**
+   * The futures waiting on a given amount of messages. Guarded by {@code this}.
+   */
+  private final @NonNull List<@NonNull MessageWaiter> waiters = new ArrayList<>();
+  private @NonNegative int messages;
+
+  LoadPlayerAudience(final @NonNull UUID uuid,
+      final @NonNull String username,
+      final @NonNull InetAddress address,
+      final boolean staff) {
+    this.uuid = uuid;
+    this.username = username;
+    this.address = address;
+    this.staff = staff;
+  }
+
+  @Override
+  @Pure
+  public @NonNull UUID uuid() {
+    return this.uuid;
+  }
+
+  @Override
+  @Pure
+  public @NonNull String username() {
+    return this.username;
+  }
+
+  @Pure
+  public @NonNull InetAddress address() {
+    return this.address;
+  }
+
+  @Pure
+  public boolean isStaff() {
+    return this.staff;
+  }
+
+  @Override
+  public @NonNull Locale locale() {
+    return Locale.ENGLISH;
+  }
+
+  @Override
+  @Pure
+  public @NonNull PlayerSession session() {
+    return this.session;
+  }
+
+  @Override
+  public boolean hasPermission(final @NonNull String permission) {
+    // Staff may run commands, but are not notified of anything; the driver counts their messages to find out when a
+    // command is done, and broadcasts from other commands would throw that off.
+    return this.staff && STAFF_PERMISSIONS.contains(permission);
+  }
+
+  @Override
+  public void disconnect(final @NonNull Component reason) {
+    this.disconnected.complete(reason);
+  }
+
+  /**
+   * @return A future completed once the plugin disconnects this player.
+   */
+  public @NonNull CompletableFuture<@NonNull Component> disconnected() {
+    return this.disconnected;
+  }
+
+  @Override
+  public void sendMessage(final @NonNull Identity source,
+      final @NonNull Component message,
+      final @NonNull MessageType type) {
+    final List<MessageWaiter> done = new ArrayList<>(1);
+    synchronized (this) {
+      ++this.messages;
+      this.waiters.removeIf(waiter -> {
+        if (waiter.messages <= this.messages) {
+          done.add(waiter);
+          return true;
+        }
+        return false;
+      });
+    }
+
+    // Complete outside of the lock, as whatever is waiting may well send us more messages.
+    done.forEach(waiter -> waiter.future.complete(null));
+  }
+
+  /**
+   * Wait for this player to receive more messages.
+   *
+   * @param amount The amount of messages to wait for, counted from now.
+   * @return A future completed once the messages have been received.
+   */
+  public synchronized @NonNull CompletableFuture<@Nullable Void> awaitMessages(final @Positive int amount) {
+    final MessageWaiter waiter = new MessageWaiter(this.messages + amount);
+    this.waiters.add(waiter);
+    return waiter.future;
+  }
+
+  private static final class MessageWaiter {
+    private final @Positive int messages;
+    private final @NonNull CompletableFuture<@Nullable Void> future = new CompletableFuture<>();
+
+    private MessageWaiter(final @Positive int messages) {
+      this.messages = messages;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.loadgen;
+
+import cloud.commandframework.CommandManager;
+import com.google.inject.Injector;
+import com.proximyst.ban.BanPluginImpl;
+import com.proximyst.ban.BanReadiness;
+import com.proximyst.ban.commands.cloud.BaseCommand;
+import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
+import com.proximyst.ban.platform.IBanAudience;
+import com.proximyst.ban.platform.IBanPlugin;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * The plugin as started by the load generator, in place of a proxy.
+ */
+@Singleton
+public final class LoadPlugin implements IBanPlugin {
+  private final @NonNull Logger logger;
+  private final @NonNull Injector injector;
+  private final @NonNull LoadCommandManager commandManager;
+
+  private @MonotonicNonNull BanPluginImpl banPluginImpl;
+
+  @Inject
+  LoadPlugin(final @NonNull Logger logger,
+      final @NonNull Injector injector,
+      final @NonNull @BanAsyncExecutor Executor executor) {
+    this.logger = logger;
+    this.injector = injector;
+    this.commandManager = new LoadCommandManager(executor);
+  }
+
+  @Override
+  public @NonNull String pluginId() {
+    return "ban";
+  }
+
+  @Override
+  public @NonNull Logger pluginLogger() {
+    return this.logger;
+  }
+
+  @Override
+  public @NonNull Injector pluginInjector() {
+    return this.injector;
+  }
+
+  @Override
+  public @NonNull CommandManager<IBanAudience> commandManager() {
+    return this.commandManager;
+  }
+
+  /**
+   * Start the plugin the same way the proxy would.
+   *
+   * @return A future completed once the plugin is ready and its commands are registered.
+   */
+  public @NonNull CompletableFuture<@Nullable Void> enable() {
+    this.banPluginImpl = this.injector.getInstance(BanPluginImpl.class);
+    if (!this.banPluginImpl.enable()) {
+      return CompletableFuture.failedFuture(new IllegalStateException("Could not enable the plugin"));
+    }
+
+    return this.injector.getInstance(BanReadiness.class).future()
+        .thenRun(() -> {
+          for (final Class<? extends BaseCommand> commandType : COMMAND_CLASSES) {
+            this.injector.getInstance(commandType).register(this.commandManager);
+          }
+        });
+  }
+
+  public void disable() {
+    if (this.banPluginImpl != null) {
+      this.banPluginImpl.disable();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.loadgen;
+
+import com.proximyst.ban.platform.IBanAudience.IBanConsole;
+import com.proximyst.ban.platform.IBanAudience.IBanPlayer;
+import com.proximyst.ban.platform.IBanServer;
+import java.net.InetAddress;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.kyori.adventure.audience.MessageType;
+import net.kyori.adventure.identity.Identity;
+import net.kyori.adventure.text.Component;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The server of the synthetic players, keeping the same indices as the Velocity one.
+ */
+@Singleton
+public final class LoadServer implements IBanServer {
+  private final @NonNull LoadConsoleAudience console;
+
+  private final @NonNull Map<@NonNull UUID, @NonNull LoadPlayerAudience> audiences = new ConcurrentHashMap<>();
+  private final @NonNull Map<@NonNull String, @NonNull LoadPlayerAudience> audiencesByName = new ConcurrentHashMap<>();
+  private final @NonNull Map<@NonNull InetAddress, @NonNull Set<@NonNull LoadPlayerAudience>> audiencesByAddress =
+      new ConcurrentHashMap<>();
+
+  /**
+   * The messages sent to everyone on the server. These are counted rather than delivered, as delivering them is the
+   * proxy's cost, not ours.
+   */
+  private final @NonNull LongAdder broadcasts = new LongAdder();
+
+  @Inject
+  LoadServer(final @NonNull LoadConsoleAudience console) {
+    this.console = console;
+  }
+
+  /**
+   * Register a player which has finished logging in.
+   *
+   * @param audience The player to register.
+   */
+  public void register(final @NonNull LoadPlayerAudience audience) {
+    this.audiences.put(audience.uuid(), audience);
+    this.audiencesByName.put(audience.username().toLowerCase(Locale.ENGLISH), audience);
+    this.audiencesByAddress.computeIfAbsent(audience.address(), $ -> ConcurrentHashMap.newKeySet()).add(audience);
+  }
+
+  /**
+   * Unregister a player, such as when they disconnect.
+   *
+   * @param audience The player to unregister.
+   */
+  public void unregister(final @NonNull LoadPlayerAudience audience) {
+    this.audiences.remove(audience.uuid(), audience);
+    this.audiencesByName.remove(audience.username().toLowerCase(Locale.ENGLISH), audience);
+    this.audiencesByAddress.computeIfPresent(audience.address(), ($, set) -> {
+      set.remove(audience);
+      return set.isEmpty() ? null : set;
+    });
+  }
+
+  /**
+   * @return The amount of messages sent to the whole server.
+   */
+  public @NonNegative long broadcasts() {
+    return this.broadcasts.sum();
+  }
+
+  @Override
+  public void sendMessage(final @NonNull Identity source,
+      final @NonNull Component message,
+      final @NonNull MessageType type) {
+    this.broadcasts.increment();
+  }
+
+  @Override
+  public @NonNull Iterable<? extends IBanPlayer> onlineAudiences() {
+    return Collections.unmodifiableCollection(this.audiences.values());
+  }
+
+  @Override
+  public @NonNull IBanConsole consoleAudience() {
+    return this.console;
+  }
+
+  @Override
+  public @NonNegative int onlineCount() {
+    return this.audiences.size();
+  }
+
+  @Override
+  public @Nullable IBanPlayer audienceOf(final @NonNull UUID uuid) {
+    return this.audiences.get(uuid);
+  }
+
+  @Override
+  public @Nullable IBanPlayer audienceOf(final @NonNull String username) {
+    return this.audiencesByName.get(username.toLowerCase(Locale.ENGLISH));
+  }
+
+  @Override
+  public @NonNull Collection<? extends IBanPlayer> audiencesAt(final @NonNull InetAddress address) {
+    final Set<LoadPlayerAudience> audiences = this.audiencesByAddress.get(address);
+    return audiences == null ? List.of() : List.copyOf(audiences);
+  }
+
+  @Override
+  public boolean isOnlineMode() {
+    return true;
+  }
+}
@@ -0,0 +1,135 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.loadgen;
+
+import com.proximyst.ban.config.StorageType;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The settings of a load generation run, given as {@code --name=value} arguments.
+ * <p>
+ * Rates are per second; a rate of {@code 0} disables the operation.
+ */
+public final class LoadSettings {
+  /**
+   * The data directory of the plugin. If this has a {@code config.conf}, its storage is used over {@link #storage}.
+   */
+  public final @Nullable Path data;
+  /**
+   * The storage to use when the data directory has no configuration yet.
+   */
+  public final @NonNull StorageType storage;
+
+  public final @Positive long durationSeconds;
+  public final @NonNegative long warmupSeconds;
+  public final @Positive long reportSeconds;
+  /**
+   * How long an operation may take before it is counted as failed.
+   */
+  public final @Positive long timeoutSeconds;
+
+  public final @NonNegative double logins;
+  public final @NonNegative double chats;
+  public final @NonNegative double disconnects;
+  public final @NonNegative double bans;
+  public final @NonNegative double mutes;
+  public final @NonNegative double histories;
+
+  /**
+   * The amount of staff members running the commands; each runs one command at a time.
+   */
+  public final @Positive int staff;
+  /**
+   * The amount of distinct addresses players connect from. Fewer addresses means more alt links.
+   */
+  public final @Positive int addresses;
+  /**
+   * The chance, in percent, that a login is of a player who has played before rather than of a new one.
+   */
+  public final @NonNegative int returningPercent;
+
+  private LoadSettings(final @NonNull Map<@NonNull String, @NonNull String> values) {
+    final String data = values.remove("data");
+    this.data = data == null ? null : Path.of(data);
+    this.storage = StorageType.valueOf(values.getOrDefault("storage", "H2").toUpperCase(Locale.ENGLISH));
+    values.remove("storage");
+
+    this.durationSeconds = longValue(values, "duration", 60);
+    this.warmupSeconds = longValue(values, "warmup", 10);
+    this.reportSeconds = longValue(values, "report", 10);
+    this.timeoutSeconds = longValue(values, "timeout", 30);
+
+    this.logins = doubleValue(values, "logins", 20);
+    this.chats = doubleValue(values, "chats", 200);
+    this.disconnects = doubleValue(values, "disconnects", 18);
+    this.bans = doubleValue(values, "bans", 1);
+    this.mutes = doubleValue(values, "mutes", 2);
+    this.histories = doubleValue(values, "histories", 5);
+
+    this.staff = (int) longValue(values, "staff", 8);
+    this.addresses = (int) longValue(values, "addresses", 5000);
+    this.returningPercent = (int) longValue(values, "returning", 30);
+
+    if (!values.isEmpty()) {
+      throw new IllegalArgumentException("unknown settings " + values.keySet());
+    }
+  }
+
+  /**
+   * Parse the settings from the program's arguments.
+   *
+   * @param args The arguments, each on the form {@code --name=value}.
+   * @return The settings parsed.
+   * @throws IllegalArgumentException If an argument is not a known setting, or its value is invalid.
+   */
+  public static @NonNull LoadSettings parse(final @NonNull String @NonNull [] args) {
+    final Map<String, String> values = new HashMap<>();
+    for (final String arg : args) {
+      final int separator = arg.indexOf('=');
+      if (!arg.startsWith("--") || separator < 0) {
+        throw new IllegalArgumentException("expected --name=value, got " + arg);
+      }
+
+      values.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+
+    return new LoadSettings(values);
+  }
+
+  private static long longValue(final @NonNull Map<@NonNull String, @NonNull String> values,
+      final @NonNull String name,
+      final long defaultValue) {
+    final String value = values.remove(name);
+    return value == null ? defaultValue : Long.parseLong(value);
+  }
+
+  private static double doubleValue(final @NonNull Map<@NonNull String, @NonNull String> values,
+      final @NonNull String name,
+      final double defaultValue) {
+    final String value = values.remove(name);
+    return value == null ? defaultValue : Double.parseDouble(value);
+  }
+}
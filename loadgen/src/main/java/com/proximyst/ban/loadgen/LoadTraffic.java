@@ -0,0 +1,303 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.loadgen;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.proximyst.ban.factory.IBanExceptionalFutureLoggerFactory;
+import com.proximyst.ban.model.BanIdentity.UuidIdentity;
+import com.proximyst.ban.model.Punishment;
+import com.proximyst.ban.platform.IBanPlugin;
+import com.proximyst.ban.service.IAltService;
+import com.proximyst.ban.service.IMessageService;
+import com.proximyst.ban.service.IPunishmentService;
+import com.proximyst.ban.service.ISuggestionService;
+import com.proximyst.ban.service.IUserService;
+import com.proximyst.ban.utils.BanExceptionalFutureLogger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The synthetic traffic: logins, chat, disconnects, and commands, each going through the same services and in the same
+ * order as the Velocity subscribers and commands do.
+ * <p>
+ * Every operation borrows the players it acts on, so that no two operations act on the same player at once. This lets
+ * the commands tell when they are done by the messages and disconnects their players receive, rather than by when
+ * cloud has dispatched them.
+ */
+@Singleton
+public final class LoadTraffic {
+  private final @NonNull BanExceptionalFutureLogger<?> banExceptionalFutureLogger;
+  private final @NonNull LoadSettings settings;
+  private final @NonNull LoadServer server;
+  private final @NonNull IBanPlugin plugin;
+  private final @NonNull IUserService userService;
+  private final @NonNull IPunishmentService punishmentService;
+  private final @NonNull ISuggestionService suggestionService;
+  private final @NonNull IAltService altService;
+  private final @NonNull IMessageService messageService;
+
+  /**
+   * The threads the operations block on, like the proxy's connection and event threads.
+   */
+  private final @NonNull Executor executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+      .setNameFormat("loadgen-%d")
+      .setDaemon(true)
+      .build());
+
+  private final @NonNull Queue<@NonNull LoadPlayerAudience> idlePlayers = new ConcurrentLinkedQueue<>();
+  private final @NonNull Queue<@NonNull LoadPlayerAudience> idleStaff = new ConcurrentLinkedQueue<>();
+  /**
+   * The players who have disconnected or were denied, and may come back.
+   */
+  private final @NonNull Queue<@NonNull LoadPlayerAudience> offlinePlayers = new ConcurrentLinkedQueue<>();
+  private final @NonNull AtomicLong createdPlayers = new AtomicLong();
+
+  @Inject
+  LoadTraffic(final @NonNull IBanExceptionalFutureLoggerFactory banExceptionalFutureLoggerFactory,
+      final @NonNull LoadSettings settings,
+      final @NonNull LoadServer server,
+      final @NonNull IBanPlugin plugin,
+      final @NonNull IUserService userService,
+      final @NonNull IPunishmentService punishmentService,
+      final @NonNull ISuggestionService suggestionService,
+      final @NonNull IAltService altService,
+      final @NonNull IMessageService messageService) {
+    this.banExceptionalFutureLogger = banExceptionalFutureLoggerFactory.createLogger(this.getClass());
+    this.settings = settings;
+    this.server = server;
+    this.plugin = plugin;
+    this.userService = userService;
+    this.punishmentService = punishmentService;
+    this.suggestionService = suggestionService;
+    this.altService = altService;
+    this.messageService = messageService;
+  }
+
+  /**
+   * Log in the staff members who run the commands.
+   *
+   * @return A future completed once all staff members are online.
+   */
+  public @NonNull CompletableFuture<@Nullable Void> loginStaff() {
+    final CompletableFuture<?>[] logins = new CompletableFuture<?>[this.settings.staff];
+    for (int i = 0; i < logins.length; ++i) {
+      final LoadPlayerAudience staff = this.createPlayer(true);
+      logins[i] = CompletableFuture.runAsync(() -> this.login(staff), this.executor);
+    }
+    return CompletableFuture.allOf(logins);
+  }
+
+  /**
+   * Log in a new or returning player.
+   *
+   * @return A future completed once the player is online or has been denied.
+   */
+  public @NonNull CompletableFuture<?> login() {
+    final LoadPlayerAudience previous = ThreadLocalRandom.current().nextInt(100) < this.settings.returningPercent
+        ? this.offlinePlayers.poll()
+        : null;
+
+    // Every connection gets a new player, as on the proxy.
+    final LoadPlayerAudience player = previous == null
+        ? this.createPlayer(false)
+        : new LoadPlayerAudience(previous.uuid(), previous.username(), previous.address(), false);
+    return CompletableFuture.runAsync(() -> this.login(player), this.executor);
+  }
+
+  /**
+   * Send a chat message from an online player.
+   *
+   * @return A future completed once the message has been checked, or {@code null} if nobody is online.
+   */
+  public @Nullable CompletableFuture<?> chat() {
+    final LoadPlayerAudience player = this.idlePlayers.poll();
+    if (player == null) {
+      return null;
+    }
+
+    return CompletableFuture.runAsync(() -> this.chat(player), this.executor)
+        .whenComplete(($, ex) -> this.idlePlayers.add(player));
+  }
+
+  /**
+   * Disconnect an online player.
+   *
+   * @return A future completed once the player is gone, or {@code null} if nobody is online.
+   */
+  public @Nullable CompletableFuture<?> disconnect() {
+    final LoadPlayerAudience player = this.idlePlayers.poll();
+    if (player == null) {
+      return null;
+    }
+
+    return CompletableFuture.runAsync(() -> this.disconnect(player), this.executor);
+  }
+
+  /**
+   * Run {@code /ban} on an online player.
+   *
+   * @return A future completed once the player has been disconnected, or {@code null} if nobody is available.
+   */
+  public @Nullable CompletableFuture<?> ban() {
+    return this.commandOnTarget("ban", LoadPlayerAudience::disconnected, this::disconnect);
+  }
+
+  /**
+   * Run {@code /mute} on an online player.
+   *
+   * @return A future completed once the player has been told, or {@code null} if nobody is available.
+   */
+  public @Nullable CompletableFuture<?> mute() {
+    return this.commandOnTarget("mute", target -> target.awaitMessages(1), this.idlePlayers::add);
+  }
+
+  /**
+   * Run {@code /history} on an online player.
+   *
+   * @return A future completed once the history has been sent, or {@code null} if nobody is available.
+   */
+  public @Nullable CompletableFuture<?> history() {
+    final LoadPlayerAudience target = this.idlePlayers.peek();
+    final LoadPlayerAudience staff = this.idleStaff.poll();
+    if (staff == null || target == null) {
+      if (staff != null) {
+        this.idleStaff.add(staff);
+      }
+      return null;
+    }
+
+    // The command first acknowledges the lookup, then sends the history once it has been fetched.
+    return this.command(staff, "history " + target.username(), staff.awaitMessages(2))
+        .whenComplete(($, ex) -> this.idleStaff.add(staff));
+  }
+
+  private @Nullable CompletableFuture<?> commandOnTarget(final @NonNull String command,
+      final @NonNull Function<@NonNull LoadPlayerAudience, @NonNull CompletableFuture<?>> completion,
+      final @NonNull Consumer<@NonNull LoadPlayerAudience> onSuccess) {
+    final LoadPlayerAudience staff = this.idleStaff.poll();
+    if (staff == null) {
+      return null;
+    }
+
+    final LoadPlayerAudience target = this.idlePlayers.poll();
+    if (target == null) {
+      this.idleStaff.add(staff);
+      return null;
+    }
+
+    return this.command(staff, command + ' ' + target.username() + " load test", completion.apply(target))
+        .whenComplete(($, ex) -> {
+          this.idleStaff.add(staff);
+          if (ex == null) {
+            onSuccess.accept(target);
+          } else {
+            this.idlePlayers.add(target);
+          }
+        });
+  }
+
+  private @NonNull CompletableFuture<?> command(final @NonNull LoadPlayerAudience sender,
+      final @NonNull String input,
+      final @NonNull CompletableFuture<?> completion) {
+    return this.plugin.commandManager().executeCommand(sender, input)
+        .thenCompose($ -> completion)
+        .orTimeout(this.settings.timeoutSeconds, TimeUnit.SECONDS);
+  }
+
+  private void login(final @NonNull LoadPlayerAudience player) {
+    // EARLY: save their identity, which everything else needs.
+    final UuidIdentity identity = this.userService.saveUser(player.uuid(), player.username(), player).join();
+
+    // NORMAL: check their bans. Staff bypass these.
+    if (!player.isStaff()) {
+      final Optional<Punishment> ban = this.punishmentService.getActiveBan(identity)
+          .join()
+          .or(() -> this.punishmentService.getActiveIpBan(player.address()));
+      if (ban.isPresent()) {
+        this.userService.uncachePlayer(player.uuid(), player);
+        this.offlinePlayers.add(player);
+        return;
+      }
+    }
+
+    // LAST: register them, and load their session before they can chat.
+    this.server.register(player);
+    this.suggestionService.indexUsername(player.username());
+    this.punishmentService.loadSession(player, identity).join();
+
+    // This does not hold up the login on the proxy either.
+    this.altService.recordLogin(identity, player.address())
+        .thenRun(() -> this.altService.getBannedAlt(player.uuid())
+            .ifPresent(alt -> this.messageService.broadcastsAltLogin(player.username(), alt.getUsername(),
+                alt.getHops())))
+        .exceptionally(this.banExceptionalFutureLogger.cast());
+
+    (player.isStaff() ? this.idleStaff : this.idlePlayers).add(player);
+  }
+
+  private void chat(final @NonNull LoadPlayerAudience player) {
+    if (!player.session().isLoaded()) {
+      final UuidIdentity identity = this.userService.getUser(player.uuid())
+          .join()
+          .orElseThrow(() -> new IllegalStateException("online players must have identities"));
+      this.punishmentService.loadSession(player, identity).join();
+    }
+
+    player.session().activeMute()
+        .ifPresent(mute -> player.sendMessage(this.punishmentService.applicationMessage(mute, player.locale())));
+  }
+
+  private void disconnect(final @NonNull LoadPlayerAudience player) {
+    this.server.unregister(player);
+    this.userService.uncachePlayer(player.uuid(), player);
+    this.offlinePlayers.add(player);
+  }
+
+  private @NonNull LoadPlayerAudience createPlayer(final boolean staff) {
+    final long id = this.createdPlayers.incrementAndGet();
+    final String username = (staff ? "staff" : "player") + Long.toString(id, 36);
+
+    // Addresses are drawn from a limited pool, so that accounts share them like alts do.
+    final int address = ThreadLocalRandom.current().nextInt(this.settings.addresses);
+    try {
+      return new LoadPlayerAudience(UUID.randomUUID(), username, InetAddress.getByAddress(new byte[]{
+          10, (byte) (address >>> 16), (byte) (address >>> 8), (byte) address
+      }), staff);
+    } catch (final UnknownHostException ex) {
+      // This is only thrown for addresses of an invalid length.
+      throw new IllegalStateException(ex);
+    }
+  }
+}
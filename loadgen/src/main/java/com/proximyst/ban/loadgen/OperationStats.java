@@ -0,0 +1,102 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.loadgen;
+
+import com.proximyst.ban.utils.LatencyHistogram;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * The throughput and latency of one kind of operation, both since the last report and in total.
+ */
+final class OperationStats {
+  private final @NonNull String name;
+
+  private final @NonNull LatencyHistogram interval = new LatencyHistogram();
+  private final @NonNull LatencyHistogram total = new LatencyHistogram();
+  private final @NonNull LongAdder failed = new LongAdder();
+  /**
+   * The operations which could not be started at all, e.g. because nobody was online to chat.
+   */
+  private final @NonNull LongAdder skipped = new LongAdder();
+
+  OperationStats(final @NonNull String name) {
+    this.name = name;
+  }
+
+  void succeeded(final @NonNegative long nanos) {
+    this.interval.record(nanos, TimeUnit.NANOSECONDS);
+    this.total.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  void failed() {
+    this.failed.increment();
+  }
+
+  void skipped() {
+    this.skipped.increment();
+  }
+
+  /**
+   * Forget everything recorded so far, such as after warming up.
+   */
+  void reset() {
+    this.interval.reset();
+    this.total.reset();
+    this.failed.reset();
+    this.skipped.reset();
+  }
+
+  /**
+   * Format the operations since the last report, and start a new interval.
+   *
+   * @param seconds The length of the interval.
+   * @return The formatted report line.
+   */
+  @NonNull String reportInterval(final @Positive double seconds) {
+    final String line = this.format(this.interval, seconds);
+    this.interval.reset();
+    return line;
+  }
+
+  /**
+   * Format all operations since the start, or since the last {@link #reset()}.
+   *
+   * @param seconds The time since the start.
+   * @return The formatted report line.
+   */
+  @NonNull String reportTotal(final @Positive double seconds) {
+    return this.format(this.total, seconds) + String.format(" failed=%d skipped=%d",
+        this.failed.sum(),
+        this.skipped.sum());
+  }
+
+  private @NonNull String format(final @NonNull LatencyHistogram histogram, final @Positive double seconds) {
+    return String.format("%-11s %9.1f/s p50=%8.2fms p95=%8.2fms p99=%8.2fms max=%8.2fms",
+        this.name,
+        histogram.count() / seconds,
+        histogram.percentileNanos(50) / 1e6,
+        histogram.percentileNanos(95) / 1e6,
+        histogram.percentileNanos(99) / 1e6,
+        histogram.maxNanos() / 1e6);
+  }
+}
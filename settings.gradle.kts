@@ -1,3 +1,4 @@
 rootProject.name = "ban"
 include("common")
 include("velocity")
+include("loadgen")
@@ -24,15 +24,18 @@ import cloud.commandframework.velocity.VelocityCommandManager;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.proximyst.ban.commands.cloud.BaseCommand;
+import com.proximyst.ban.event.subscriber.AltDetectionSubscriber;
 import com.proximyst.ban.event.subscriber.BannedPlayerJoinSubscriber;
 import com.proximyst.ban.event.subscriber.CacheUpdatePlayerSubscriber;
 import com.proximyst.ban.event.subscriber.MutedPlayerChatSubscriber;
+import com.proximyst.ban.event.subscriber.ReadinessGateSubscriber;
 import com.proximyst.ban.inject.PlatformModule;
 import com.proximyst.ban.inject.annotation.BanAsyncExecutor;
 import com.proximyst.ban.platform.IBanAudience;
 import com.proximyst.ban.platform.IBanAudience.IBanConsole;
 import com.proximyst.ban.platform.IBanPlugin;
 import com.proximyst.ban.platform.VelocityPlayerAudience;
+import com.proximyst.ban.platform.VelocityServer;
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
@@ -118,23 +121,32 @@ public final class BanPlugin implements IBanPlugin {
             .withExecutor(this.injector.getInstance(Key.get(Executor.class, BanAsyncExecutor.class)))
             .build(),
         (CommandSource sender) -> sender instanceof Player
-            ? VelocityPlayerAudience.getAudience((Player) sender)
+            ? this.injector.getInstance(VelocityServer.class).audienceOf((Player) sender)
             : this.injector.getInstance(IBanConsole.class),
         (IBanAudience audience) -> audience instanceof VelocityPlayerAudience
             ? ((VelocityPlayerAudience) audience).player()
             : this.proxyServer.getConsoleCommandSource()
     );
 
+    // Logins wait for the plugin to be ready, rather than the proxy waiting for it to start.
+    this.proxyServer.getEventManager()
+        .register(this, this.injector.getInstance(ReadinessGateSubscriber.class));
     this.proxyServer.getEventManager()
         .register(this, this.injector.getInstance(BannedPlayerJoinSubscriber.class));
     this.proxyServer.getEventManager()
         .register(this, this.injector.getInstance(MutedPlayerChatSubscriber.class));
     this.proxyServer.getEventManager()
         .register(this, this.injector.getInstance(CacheUpdatePlayerSubscriber.class));
-
-    for (final Class<? extends BaseCommand> commandType : COMMAND_CLASSES) {
-      this.injector.getInstance(commandType).register(this.commandManager);
-    }
+    this.proxyServer.getEventManager()
+        .register(this, this.injector.getInstance(AltDetectionSubscriber.class));
+
+    // Commands are only useful once the storage is ready; a failure to start is logged by the implementation.
+    this.injector.getInstance(BanReadiness.class).future()
+        .thenRun(() -> {
+          for (final Class<? extends BaseCommand> commandType : COMMAND_CLASSES) {
+            this.injector.getInstance(commandType).register(this.commandManager);
+          }
+        });
   }
 
   @Subscribe
@@ -0,0 +1,71 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.event.subscriber;
+
+import com.proximyst.ban.factory.IBanExceptionalFutureLoggerFactory;
+import com.proximyst.ban.service.IAltService;
+import com.proximyst.ban.service.IMessageService;
+import com.proximyst.ban.service.IUserService;
+import com.proximyst.ban.utils.BanExceptionalFutureLogger;
+import com.velocitypowered.api.event.PostOrder;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.LoginEvent;
+import com.velocitypowered.api.proxy.Player;
+import java.net.InetAddress;
+import javax.inject.Inject;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+public class AltDetectionSubscriber {
+  private final @NonNull BanExceptionalFutureLogger<?> banExceptionalFutureLogger;
+  private final @NonNull IAltService altService;
+  private final @NonNull IUserService userService;
+  private final @NonNull IMessageService messageService;
+
+  @Inject
+  AltDetectionSubscriber(final @NonNull IBanExceptionalFutureLoggerFactory banExceptionalFutureLoggerFactory,
+      final @NonNull IAltService altService,
+      final @NonNull IUserService userService,
+      final @NonNull IMessageService messageService) {
+    this.banExceptionalFutureLogger = banExceptionalFutureLoggerFactory.createLogger(this.getClass());
+    this.altService = altService;
+    this.userService = userService;
+    this.messageService = messageService;
+  }
+
+  @Subscribe(order = PostOrder.LAST)
+  public void onLogin(final @NonNull LoginEvent event) {
+    if (!event.getResult().isAllowed()) {
+      // Banned players are not let in, so there is nothing to flag.
+      return;
+    }
+
+    final Player player = event.getPlayer();
+    final InetAddress address = player.getRemoteAddress().getAddress();
+
+    // None of this needs to hold up the login.
+    this.userService.getUser(player.getUniqueId())
+        .thenCompose(identity -> identity
+            .map(id -> this.altService.recordLogin(id, address))
+            .orElseThrow(() -> new IllegalStateException("online players must have identities")))
+        .thenRun(() -> this.altService.getBannedAlt(player.getUniqueId())
+            .ifPresent(alt -> this.messageService.broadcastsAltLogin(player.getUsername(), alt.getUsername(),
+                alt.getHops())))
+        .exceptionally(this.banExceptionalFutureLogger.cast());
+  }
+}
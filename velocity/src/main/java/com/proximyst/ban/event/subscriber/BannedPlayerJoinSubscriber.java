@@ -20,31 +20,35 @@ package com.proximyst.ban.event.subscriber;
 
 import com.proximyst.ban.BanPermissions;
 import com.proximyst.ban.model.BanIdentity;
-import com.proximyst.ban.service.IMessageService;
+import com.proximyst.ban.model.Punishment;
+import com.proximyst.ban.platform.VelocityPlayerAudience;
 import com.proximyst.ban.service.IPunishmentService;
 import com.proximyst.ban.service.IUserService;
 import com.velocitypowered.api.event.ResultedEvent.ComponentResult;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.connection.LoginEvent;
+import java.util.Optional;
 import javax.inject.Inject;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 public class BannedPlayerJoinSubscriber {
   private final @NonNull IPunishmentService punishmentService;
   private final @NonNull IUserService userService;
-  private final @NonNull IMessageService messageService;
 
   @Inject
   BannedPlayerJoinSubscriber(final @NonNull IPunishmentService punishmentService,
-      final @NonNull IUserService userService,
-      final @NonNull IMessageService messageService) {
+      final @NonNull IUserService userService) {
     this.punishmentService = punishmentService;
     this.userService = userService;
-    this.messageService = messageService;
   }
 
   @Subscribe
   public void onJoinServer(final @NonNull LoginEvent event) {
+    if (!event.getResult().isAllowed()) {
+      // They were already denied; there is nothing to check.
+      return;
+    }
+
     if (event.getPlayer().hasPermission(BanPermissions.BYPASS_BAN)) {
       // Don't bother to check players who can bypass bans.
       return;
@@ -53,8 +57,10 @@ public class BannedPlayerJoinSubscriber {
     final BanIdentity identity = this.userService.getUser(event.getPlayer().getUniqueId())
         .join() // They're currently online, so this should be completed instantly.
         .orElseThrow(() -> new IllegalStateException("online players must have identities"));
-    this.punishmentService.getActiveBan(identity)
+    final Optional<Punishment> ban = this.punishmentService.getActiveBan(identity)
         .join() // This *should* be fast, and only on one player's connection thread
-        .ifPresent(ban -> event.setResult(ComponentResult.denied(ban.applicationMessage(this.messageService))));
+        .or(() -> this.punishmentService.getActiveIpBan(event.getPlayer().getRemoteAddress().getAddress()));
+    ban.ifPresent(punishment -> event.setResult(ComponentResult.denied(
+        this.punishmentService.applicationMessage(punishment, VelocityPlayerAudience.localeOf(event.getPlayer())))));
   }
 }
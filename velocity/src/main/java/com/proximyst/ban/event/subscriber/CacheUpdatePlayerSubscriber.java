@@ -20,29 +20,48 @@ package com.proximyst.ban.event.subscriber;
 
 import com.proximyst.ban.factory.IBanExceptionalFutureLoggerFactory;
 import com.proximyst.ban.platform.VelocityPlayerAudience;
+import com.proximyst.ban.platform.VelocityServer;
+import com.proximyst.ban.service.IPunishmentService;
+import com.proximyst.ban.service.ISuggestionService;
 import com.proximyst.ban.service.IUserService;
 import com.proximyst.ban.utils.BanExceptionalFutureLogger;
 import com.velocitypowered.api.event.PostOrder;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.connection.DisconnectEvent;
 import com.velocitypowered.api.event.connection.LoginEvent;
+import com.velocitypowered.api.event.player.ServerConnectedEvent;
+import java.util.concurrent.CompletableFuture;
 import javax.inject.Inject;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 public class CacheUpdatePlayerSubscriber {
   private final @NonNull BanExceptionalFutureLogger<?> banExceptionalFutureLogger;
   private final @NonNull IUserService userService;
+  private final @NonNull ISuggestionService suggestionService;
+  private final @NonNull IPunishmentService punishmentService;
+  private final @NonNull VelocityServer velocityServer;
 
   @Inject
   CacheUpdatePlayerSubscriber(final @NonNull IBanExceptionalFutureLoggerFactory banExceptionalFutureLoggerFactory,
-      final @NonNull IUserService userService) {
+      final @NonNull IUserService userService,
+      final @NonNull ISuggestionService suggestionService,
+      final @NonNull IPunishmentService punishmentService,
+      final @NonNull VelocityServer velocityServer) {
     this.banExceptionalFutureLogger = banExceptionalFutureLoggerFactory.createLogger(this.getClass());
     this.userService = userService;
+    this.suggestionService = suggestionService;
+    this.punishmentService = punishmentService;
+    this.velocityServer = velocityServer;
   }
 
   @Subscribe(order = PostOrder.EARLY)
   public void onJoinServer(final @NonNull LoginEvent event) {
-    this.userService.saveUser(event.getPlayer().getUniqueId(), event.getPlayer().getUsername())
+    if (!event.getResult().isAllowed()) {
+      // They were denied before we got to them, e.g. because we are not ready yet.
+      return;
+    }
+
+    this.userService.saveUser(event.getPlayer().getUniqueId(), event.getPlayer().getUsername(), event.getPlayer())
         .exceptionally(this.banExceptionalFutureLogger.cast())
         .join(); // We _need_ this data.
   }
@@ -50,16 +69,33 @@ public class CacheUpdatePlayerSubscriber {
   @Subscribe(order = PostOrder.LAST)
   public void onJoinServerUpdateAudience(final @NonNull LoginEvent event) {
     if (event.getResult().isAllowed()) {
-      // Cache the audience.
-      VelocityPlayerAudience.getAudience(event.getPlayer());
+      // Register the audience.
+      final VelocityPlayerAudience audience = this.velocityServer.audienceOf(event.getPlayer());
+      this.suggestionService.indexUsername(event.getPlayer().getUsername());
+
+      this.userService.getUser(event.getPlayer().getUniqueId())
+          .thenCompose(identity -> identity
+              .map(id -> this.punishmentService.loadSession(audience, id))
+              .orElseGet(() -> CompletableFuture.completedFuture(null)))
+          .exceptionally(this.banExceptionalFutureLogger.cast())
+          .join(); // Their mute must be known before they can chat.
+    } else {
+      // They were denied after their identity was saved; they will not be online.
+      this.userService.uncachePlayer(event.getPlayer().getUniqueId(), event.getPlayer());
     }
   }
 
+  @Subscribe
+  public void onSwitchServerInvalidatePermissions(final @NonNull ServerConnectedEvent event) {
+    // Permission providers commonly grant permissions per server.
+    this.velocityServer.invalidatePermissions(event.getPlayer());
+  }
+
   @Subscribe
   public void onLeaveServerUpdateAudience(final @NonNull DisconnectEvent event) {
     // We don't care how far along they were; they're gone.
-    VelocityPlayerAudience.AUDIENCE_CACHE.remove(event.getPlayer().getUniqueId());
+    this.velocityServer.unregister(event.getPlayer());
 
-    this.userService.uncachePlayer(event.getPlayer().getUniqueId());
+    this.userService.uncachePlayer(event.getPlayer().getUniqueId(), event.getPlayer());
   }
 }
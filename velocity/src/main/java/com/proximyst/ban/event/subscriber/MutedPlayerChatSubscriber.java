@@ -19,49 +19,132 @@
 package com.proximyst.ban.event.subscriber;
 
 import com.proximyst.ban.BanPermissions;
-import com.proximyst.ban.model.BanIdentity;
-import com.proximyst.ban.platform.IBanAudience;
+import com.proximyst.ban.model.Punishment;
 import com.proximyst.ban.platform.VelocityPlayerAudience;
-import com.proximyst.ban.service.IMessageService;
+import com.proximyst.ban.platform.VelocityServer;
 import com.proximyst.ban.service.IPunishmentService;
 import com.proximyst.ban.service.IUserService;
+import com.proximyst.ban.utils.LatencyHistogram;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.player.PlayerChatEvent;
 import com.velocitypowered.api.event.player.PlayerChatEvent.ChatResult;
+import com.velocitypowered.api.proxy.Player;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.inject.Inject;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
 
 public class MutedPlayerChatSubscriber {
+  private static final long COLD_CHAT_REPORT_INTERVAL_NANOS =
+      TimeUnit.SECONDS.toNanos(Long.getLong("ban.coldChatReportIntervalSeconds", 300L));
+
   private final @NonNull IPunishmentService punishmentService;
   private final @NonNull IUserService userService;
-  private final @NonNull IMessageService messageService;
+  private final @NonNull VelocityServer velocityServer;
+  private final @NonNull Logger logger;
+
+  /**
+   * How long messages sent before the sender's session was loaded were held back for.
+   */
+  private final @NonNull LatencyHistogram coldChatLatency = new LatencyHistogram();
+  private final @NonNull AtomicLong lastColdChatReport = new AtomicLong(System.nanoTime());
 
   @Inject
   MutedPlayerChatSubscriber(final @NonNull IPunishmentService punishmentService,
       final @NonNull IUserService userService,
-      final @NonNull IMessageService messageService) {
+      final @NonNull VelocityServer velocityServer,
+      final @NonNull Logger logger) {
     this.punishmentService = punishmentService;
     this.userService = userService;
-    this.messageService = messageService;
+    this.velocityServer = velocityServer;
+    this.logger = logger;
   }
 
   @Subscribe
   public void onChat(final @NonNull PlayerChatEvent event) {
-    if (event.getPlayer().hasPermission(BanPermissions.BYPASS_MUTE)) {
+    final VelocityPlayerAudience audience = this.velocityServer.audienceOf(event.getPlayer());
+    if (audience.hasPermission(BanPermissions.BYPASS_MUTE)) {
       // Don't bother checking if they're muted.
       return;
     }
 
-    final IBanAudience audience = VelocityPlayerAudience.getAudience(event.getPlayer());
-    final BanIdentity identity = this.userService.getUser(event.getPlayer().getUniqueId())
-        .join() // They're currently online, so this'll be completed instantly.
-        .orElseThrow(() -> new IllegalStateException("online players must have identities"));
-    this.punishmentService.getActiveMute(identity)
-        .join() // This *should* be fast, and only on one player's connection thread
+    final ChatResult result = event.getResult();
+    if (!result.isAllowed()) {
+      // Another plugin has already dropped it.
+      return;
+    }
+
+    // Velocity 1.1 handlers can't be suspended, and blocking here would hold up every event on the proxy.
+    // Until the session is loaded, hold the message back instead, and send it on once we know whether they are muted.
+    // It is denied up front, as it may be released before we return.
+    // Releasing it spoofs the player's original input, which fires a fresh chat event: every plugin, this one included,
+    // handles it a second time, so any rewrite another plugin made is applied anew rather than carried over here.
+    final String message = event.getMessage();
+    final long start = System.nanoTime();
+    event.setResult(ChatResult.denied());
+    if (audience.session().holdMessage(() -> this.loadColdSession(audience),
+        () -> this.releaseColdChat(audience, message, start))) {
+      return;
+    }
+    event.setResult(result);
+
+    // The session's mute is kept up to date by the punishment service.
+    audience.session().activeMute()
         .ifPresent(mute -> {
           event.setResult(ChatResult.denied());
+          this.sendMuted(audience, mute);
+        });
+  }
+
+  private @NonNull CompletableFuture<@Nullable Void> loadColdSession(final @NonNull VelocityPlayerAudience audience) {
+    final Player player = audience.player();
 
-          audience.sendMessage(mute.applicationMessage(this.messageService));
+    return this.userService.getUser(player.getUniqueId())
+        .thenCompose(identity -> identity
+            .map(id -> this.punishmentService.loadSession(audience, id))
+            .orElseGet(() -> CompletableFuture.completedFuture(null)))
+        .handle(($, ex) -> {
+          if (ex != null) {
+            // Don't eat their messages over our own failure.
+            this.logger.warn("Could not load the session of {}", player.getUsername(), ex);
+          }
+
+          // Without a stored identity or mute there is nothing to load, and a failure should not hold back every
+          // message to come. Anything loaded meanwhile is kept.
+          audience.session().loadMute(null);
+          return null;
         });
   }
+
+  private void releaseColdChat(final @NonNull VelocityPlayerAudience audience,
+      final @NonNull String message,
+      final long start) {
+    this.recordColdChat(System.nanoTime() - start);
+
+    final Optional<Punishment> mute = audience.session().activeMute();
+    if (mute.isPresent()) {
+      this.sendMuted(audience, mute.get());
+    } else if (audience.player().isActive()) {
+      audience.player().spoofChatInput(message);
+    }
+  }
+
+  private void sendMuted(final @NonNull VelocityPlayerAudience audience, final @NonNull Punishment mute) {
+    audience.sendMessage(this.punishmentService.applicationMessage(mute, audience.locale()));
+  }
+
+  private void recordColdChat(final long nanos) {
+    this.coldChatLatency.record(nanos, TimeUnit.NANOSECONDS);
+
+    final long now = System.nanoTime();
+    final long last = this.lastColdChatReport.get();
+    if (now - last >= COLD_CHAT_REPORT_INTERVAL_NANOS && this.lastColdChatReport.compareAndSet(last, now)) {
+      this.logger.info("Chat messages held back for mute checks: {}", this.coldChatLatency);
+      this.coldChatLatency.reset();
+    }
+  }
 }
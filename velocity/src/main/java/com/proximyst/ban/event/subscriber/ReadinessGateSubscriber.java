@@ -0,0 +1,54 @@
+//
+// ban - A punishment suite for Velocity.
+// Copyright (C) 2021 Mariell Hoversholm
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as published
+// by the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.
+//
+
+package com.proximyst.ban.event.subscriber;
+
+import com.proximyst.ban.BanReadiness;
+import com.proximyst.ban.message.LocaleReceiver;
+import com.proximyst.ban.platform.VelocityPlayerAudience;
+import com.proximyst.ban.service.IMessageService;
+import com.velocitypowered.api.event.PostOrder;
+import com.velocitypowered.api.event.ResultedEvent.ComponentResult;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.LoginEvent;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+public class ReadinessGateSubscriber {
+  private final @NonNull BanReadiness readiness;
+  private final @NonNull Provider<@NonNull IMessageService> messageService;
+
+  @Inject
+  ReadinessGateSubscriber(final @NonNull BanReadiness readiness,
+      final @NonNull Provider<@NonNull IMessageService> messageService) {
+    this.readiness = readiness;
+    this.messageService = messageService;
+  }
+
+  @Subscribe(order = PostOrder.FIRST)
+  public void onJoinServer(final @NonNull LoginEvent event) {
+    if (this.readiness.isReady() || this.readiness.await()) {
+      return;
+    }
+
+    // We cannot check for bans without the storage, so nobody gets in.
+    event.setResult(ComponentResult.denied(this.messageService.get().applicationsNotReady(
+        LocaleReceiver.of(VelocityPlayerAudience.localeOf(event.getPlayer())))));
+  }
+}
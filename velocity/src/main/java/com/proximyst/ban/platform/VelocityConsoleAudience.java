@@ -20,6 +20,7 @@ package com.proximyst.ban.platform;
 
 import com.proximyst.ban.platform.IBanAudience.IBanConsole;
 import com.velocitypowered.api.proxy.ProxyServer;
+import java.util.Locale;
 import java.util.UUID;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -47,6 +48,11 @@ public final class VelocityConsoleAudience implements IBanConsole, ForwardingAud
     return USERNAME;
   }
 
+  @Override
+  public @NonNull Locale locale() {
+    return Locale.getDefault();
+  }
+
   @Override
   public boolean hasPermission(final @NonNull String permission) {
     return true;
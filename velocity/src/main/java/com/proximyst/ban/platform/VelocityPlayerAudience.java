@@ -19,9 +19,10 @@
 package com.proximyst.ban.platform;
 
 import com.proximyst.ban.platform.IBanAudience.IBanPlayer;
+import com.proximyst.ban.utils.PermissionCache;
 import com.velocitypowered.api.proxy.Player;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.UUID;
 import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.audience.ForwardingAudience;
@@ -29,17 +30,30 @@ import net.kyori.adventure.text.Component;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.dataflow.qual.Pure;
 
+/**
+ * The audience of an online player. These are registered by the {@link VelocityServer}; see
+ * {@link VelocityServer#audienceOf(Player)}.
+ * <p>
+ * Checks of the plugin's own permissions are memoised for the session; see {@link PermissionCache}.
+ */
 public class VelocityPlayerAudience implements IBanPlayer, ForwardingAudience.Single {
-  public static final @NonNull Map<UUID, VelocityPlayerAudience> AUDIENCE_CACHE = new HashMap<>();
-
   private final @NonNull Player player;
+  private final @NonNull PermissionCache permissionCache;
+  private final @NonNull PlayerSession session = new PlayerSession();
 
-  private VelocityPlayerAudience(final @NonNull Player player) {
+  VelocityPlayerAudience(final @NonNull Player player) {
     this.player = player;
+    this.permissionCache = new PermissionCache(player::hasPermission);
   }
 
-  public static @NonNull VelocityPlayerAudience getAudience(final @NonNull Player source) {
-    return AUDIENCE_CACHE.computeIfAbsent(source.getUniqueId(), $ -> new VelocityPlayerAudience(source));
+  /**
+   * Get the locale of a player, falling back to English if the client has yet to send its settings.
+   *
+   * @param player The player to get the locale of.
+   * @return The locale of the player.
+   */
+  public static @NonNull Locale localeOf(final @NonNull Player player) {
+    return Objects.requireNonNullElse(player.getEffectiveLocale(), Locale.ENGLISH);
   }
 
   @Pure
@@ -59,6 +73,17 @@ public class VelocityPlayerAudience implements IBanPlayer, ForwardingAudience.Si
     return this.player.getUsername();
   }
 
+  @Override
+  public @NonNull Locale locale() {
+    return localeOf(this.player);
+  }
+
+  @Override
+  @Pure
+  public @NonNull PlayerSession session() {
+    return this.session;
+  }
+
   @Override
   public @NonNull Audience audience() {
     return this.player;
@@ -66,7 +91,14 @@ public class VelocityPlayerAudience implements IBanPlayer, ForwardingAudience.Si
 
   @Override
   public boolean hasPermission(final @NonNull String permission) {
-    return this.player.hasPermission(permission);
+    return this.permissionCache.hasPermission(permission);
+  }
+
+  /**
+   * Drop the memoised permission checks of this player, such as when their permissions may have changed.
+   */
+  public void invalidatePermissions() {
+    this.permissionCache.invalidate();
   }
 
   @Override
@@ -18,12 +18,19 @@
 
 package com.proximyst.ban.platform;
 
-import com.google.common.collect.Iterators;
 import com.proximyst.ban.platform.IBanAudience.IBanConsole;
 import com.proximyst.ban.platform.IBanAudience.IBanPlayer;
+import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
-import java.util.Objects;
+import java.net.InetAddress;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import net.kyori.adventure.audience.Audience;
@@ -32,11 +39,29 @@ import org.checkerframework.checker.index.qual.NonNegative;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+/**
+ * The Velocity server, which also owns the registry of online player audiences.
+ * <p>
+ * Audiences are registered when a player logs in, and unregistered when they disconnect. Lookups by UUID, username,
+ * and address are single concurrent map lookups, and are safe from any thread.
+ */
 @Singleton
 public class VelocityServer implements IBanServer, ForwardingAudience.Single {
   private final @NonNull ProxyServer proxyServer;
   private final @NonNull VelocityConsoleAudience velocityConsoleAudience;
 
+  private final @NonNull Map<@NonNull UUID, @NonNull VelocityPlayerAudience> audiences = new ConcurrentHashMap<>();
+  /**
+   * The same audiences as {@link #audiences}, by their lowercase usernames.
+   */
+  private final @NonNull Map<@NonNull String, @NonNull VelocityPlayerAudience> audiencesByName =
+      new ConcurrentHashMap<>();
+  /**
+   * The same audiences as {@link #audiences}, by the address they are connected from.
+   */
+  private final @NonNull Map<@NonNull InetAddress, @NonNull Set<@NonNull VelocityPlayerAudience>> audiencesByAddress =
+      new ConcurrentHashMap<>();
+
   @Inject
   VelocityServer(final @NonNull ProxyServer proxyServer,
       final @NonNull VelocityConsoleAudience velocityConsoleAudience) {
@@ -44,6 +69,94 @@ public class VelocityServer implements IBanServer, ForwardingAudience.Single {
     this.velocityConsoleAudience = velocityConsoleAudience;
   }
 
+  /**
+   * Get the audience of a player, registering it if it is not already.
+   * <p>
+   * Players who have already disconnected are not registered, so late events cannot leave stale audiences behind.
+   *
+   * @param player The player to get the audience of.
+   * @return The audience of the player.
+   */
+  public @NonNull VelocityPlayerAudience audienceOf(final @NonNull Player player) {
+    final VelocityPlayerAudience existing = this.audiences.get(player.getUniqueId());
+    if (existing != null && existing.player() == player) {
+      return existing;
+    }
+    if (!player.isActive()) {
+      return new VelocityPlayerAudience(player);
+    }
+
+    // Concurrent callers for the same connection must agree on a single audience, so it is created atomically.
+    final VelocityPlayerAudience created = new VelocityPlayerAudience(player);
+    final VelocityPlayerAudience[] previous = new VelocityPlayerAudience[1];
+    final VelocityPlayerAudience audience = this.audiences.compute(player.getUniqueId(), ($, current) -> {
+      if (current != null && current.player() == player) {
+        return current;
+      }
+      previous[0] = current;
+      return created;
+    });
+    if (audience != created) {
+      // Another caller registered this connection first.
+      return audience;
+    }
+    if (previous[0] != null) {
+      // An older connection of theirs was never unregistered; it may have been from another address.
+      this.removeAddress(previous[0]);
+    }
+    this.audiencesByName.put(player.getUsername().toLowerCase(Locale.ENGLISH), audience);
+    this.audiencesByAddress.compute(addressOf(player), ($, set) -> {
+      final Set<VelocityPlayerAudience> audiences = set == null ? ConcurrentHashMap.newKeySet() : set;
+      audiences.add(audience);
+      return audiences;
+    });
+    if (!player.isActive()) {
+      // They disconnected while being registered, and the unregistering may have missed them.
+      this.unregister(player);
+    }
+    return audience;
+  }
+
+  /**
+   * Unregister the audience of a player, such as when they disconnect.
+   *
+   * @param player The player to unregister.
+   */
+  public void unregister(final @NonNull Player player) {
+    final VelocityPlayerAudience audience = this.audiences.get(player.getUniqueId());
+    if (audience == null || audience.player() != player) {
+      // A newer connection of theirs is already registered.
+      return;
+    }
+
+    this.audiences.remove(player.getUniqueId(), audience);
+    this.audiencesByName.remove(player.getUsername().toLowerCase(Locale.ENGLISH), audience);
+    this.removeAddress(audience);
+  }
+
+  private void removeAddress(final @NonNull VelocityPlayerAudience audience) {
+    this.audiencesByAddress.computeIfPresent(addressOf(audience.player()), ($, set) -> {
+      set.remove(audience);
+      return set.isEmpty() ? null : set;
+    });
+  }
+
+  private static @NonNull InetAddress addressOf(final @NonNull Player player) {
+    return player.getRemoteAddress().getAddress();
+  }
+
+  /**
+   * Drop the memoised permission checks of a player, if they are registered.
+   *
+   * @param player The player whose permissions may have changed.
+   */
+  public void invalidatePermissions(final @NonNull Player player) {
+    final VelocityPlayerAudience audience = this.audiences.get(player.getUniqueId());
+    if (audience != null) {
+      audience.invalidatePermissions();
+    }
+  }
+
   @Override
   public @NonNull Audience audience() {
     return this.proxyServer;
@@ -51,8 +164,7 @@ public class VelocityServer implements IBanServer, ForwardingAudience.Single {
 
   @Override
   public @NonNull Iterable<? extends IBanPlayer> onlineAudiences() {
-    return () -> Iterators.transform(this.proxyServer.getAllPlayers().iterator(),
-        pl -> VelocityPlayerAudience.getAudience(Objects.requireNonNull(pl)));
+    return Collections.unmodifiableCollection(this.audiences.values());
   }
 
   @Override
@@ -67,18 +179,35 @@ public class VelocityServer implements IBanServer, ForwardingAudience.Single {
 
   @Override
   public @Nullable IBanPlayer audienceOf(final @NonNull UUID uuid) {
+    final VelocityPlayerAudience audience = this.audiences.get(uuid);
+    if (audience != null) {
+      return audience;
+    }
+
+    // They may be online without having finished logging in yet.
     return this.proxyServer.getPlayer(uuid)
-        .map(VelocityPlayerAudience::getAudience)
+        .map(this::audienceOf)
         .orElse(null);
   }
 
   @Override
   public @Nullable IBanPlayer audienceOf(final @NonNull String username) {
+    final VelocityPlayerAudience audience = this.audiencesByName.get(username.toLowerCase(Locale.ENGLISH));
+    if (audience != null) {
+      return audience;
+    }
+
     return this.proxyServer.getPlayer(username)
-        .map(VelocityPlayerAudience::getAudience)
+        .map(this::audienceOf)
         .orElse(null);
   }
 
+  @Override
+  public @NonNull Collection<? extends IBanPlayer> audiencesAt(final @NonNull InetAddress address) {
+    final Set<VelocityPlayerAudience> audiences = this.audiencesByAddress.get(address);
+    return audiences == null ? List.of() : List.copyOf(audiences);
+  }
+
   @Override
   public boolean isOnlineMode() {
     return this.proxyServer.getConfiguration().isOnlineMode();